@@ -0,0 +1,12 @@
+// The server puts the data the app needs for its first render into
+// index.html as window.__BOOTSTRAP__ (see FrontendController). Each key is
+// used once, by the first fetch of its query; later fetches go to the API.
+export function takeBootstrap(key) {
+  const bootstrap = window.__BOOTSTRAP__;
+  if (!bootstrap || !(key in bootstrap)) {
+    return undefined;
+  }
+  const value = bootstrap[key];
+  delete bootstrap[key];
+  return value;
+}
@@ -1,21 +1,32 @@
 import { useMutation, useQuery, useQueryClient } from "react-query";
 import axios from "axios";
 import { useNavigate } from "react-router-dom";
+import { takeBootstrap } from "main/utils/bootstrap";
 
-export function useCurrentUser() {
+function toCurrentUser(data) {
   let rolesList = ["ERROR_GETTING_ROLES"];
+  try {
+    rolesList = data.roles.map((r) => r.authority);
+  } catch (e) {
+    console.error("Error getting roles: ", e);
+  }
+  return { loggedIn: true, root: { ...data, rolesList: rolesList } };
+}
+
+export function useCurrentUser() {
   return useQuery(
     "current user",
     async () => {
+      const bootstrapped = takeBootstrap("currentUser");
+      if (bootstrapped === null) {
+        return { loggedIn: false, root: null };
+      }
+      if (bootstrapped) {
+        return toCurrentUser(bootstrapped);
+      }
       try {
         const response = await axios.get("/api/currentUser");
-        try {
-          rolesList = response.data.roles.map((r) => r.authority);
-        } catch (e) {
-          console.error("Error getting roles: ", e);
-        }
-        response.data = { ...response.data, rolesList: rolesList };
-        return { loggedIn: true, root: response.data };
+        return toCurrentUser(response.data);
       } catch (e) {
         console.error("Error invoking axios.get: ", e);
       }
@@ -1,10 +1,15 @@
 import { useQuery } from "react-query";
 import axios from "axios";
+import { takeBootstrap } from "main/utils/bootstrap";
 
 export function useSystemInfo() {
   return useQuery(
     "systemInfo",
     async () => {
+      const bootstrapped = takeBootstrap("systemInfo");
+      if (bootstrapped) {
+        return bootstrapped;
+      }
       try {
         const response = await axios.get("/api/systemInfo");
         return response.data;
@@ -0,0 +1,26 @@
+import { takeBootstrap } from "main/utils/bootstrap";
+
+describe("utils/bootstrap tests", () => {
+  afterEach(() => {
+    delete window.__BOOTSTRAP__;
+  });
+
+  test("takeBootstrap returns undefined when there is no bootstrap data", () => {
+    expect(takeBootstrap("systemInfo")).toBeUndefined();
+  });
+
+  test("takeBootstrap returns undefined for a key that is not there", () => {
+    window.__BOOTSTRAP__ = { currentUser: null };
+    expect(takeBootstrap("systemInfo")).toBeUndefined();
+    expect(window.__BOOTSTRAP__).toEqual({ currentUser: null });
+  });
+
+  test("takeBootstrap returns each value only once", () => {
+    window.__BOOTSTRAP__ = { currentUser: null, systemInfo: { a: 1 } };
+    expect(takeBootstrap("currentUser")).toBeNull();
+    expect(takeBootstrap("currentUser")).toBeUndefined();
+    expect(takeBootstrap("systemInfo")).toEqual({ a: 1 });
+    expect(takeBootstrap("systemInfo")).toBeUndefined();
+    expect(window.__BOOTSTRAP__).toEqual({});
+  });
+});
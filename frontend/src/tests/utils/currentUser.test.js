@@ -77,6 +77,55 @@ describe("utils/currentUser tests", () => {
       queryClient.clear();
     });
 
+    test("useCurrentUser uses the bootstrap data instead of the API", async () => {
+      const queryClient = new QueryClient();
+      const wrapper = ({ children }) => (
+        <QueryClientProvider client={queryClient}>
+          {children}
+        </QueryClientProvider>
+      );
+
+      window.__BOOTSTRAP__ = { currentUser: apiCurrentUserFixtures.userOnly };
+      const axiosMock = new AxiosMockAdapter(axios);
+      axiosMock
+        .onGet("/api/currentUser")
+        .reply(200, apiCurrentUserFixtures.adminUser);
+
+      const { result } = renderHook(() => useCurrentUser(), { wrapper });
+
+      await waitFor(() =>
+        expect(result.current.data).toEqual(currentUserFixtures.userOnly),
+      );
+      expect(axiosMock.history.get.length).toBe(0);
+      expect(window.__BOOTSTRAP__).toEqual({});
+      delete window.__BOOTSTRAP__;
+      queryClient.clear();
+    });
+
+    test("useCurrentUser is logged out when the bootstrap data has no user", async () => {
+      const queryClient = new QueryClient();
+      const wrapper = ({ children }) => (
+        <QueryClientProvider client={queryClient}>
+          {children}
+        </QueryClientProvider>
+      );
+
+      window.__BOOTSTRAP__ = { currentUser: null };
+      const axiosMock = new AxiosMockAdapter(axios);
+      axiosMock
+        .onGet("/api/currentUser")
+        .reply(200, apiCurrentUserFixtures.adminUser);
+
+      const { result } = renderHook(() => useCurrentUser(), { wrapper });
+
+      await waitFor(() =>
+        expect(result.current.data).toEqual({ loggedIn: false, root: null }),
+      );
+      expect(axiosMock.history.get.length).toBe(0);
+      delete window.__BOOTSTRAP__;
+      queryClient.clear();
+    });
+
     test("useCurrentUser when API unreachable", async () => {
       const queryClient = new QueryClient();
       const wrapper = ({ children }) => (
@@ -71,6 +71,31 @@ describe("utils/systemInfo tests", () => {
       queryClient.clear();
     });
 
+    test("useSystemInfo uses the bootstrap data instead of the API", async () => {
+      const queryClient = new QueryClient();
+      const wrapper = ({ children }) => (
+        <QueryClientProvider client={queryClient}>
+          {children}
+        </QueryClientProvider>
+      );
+
+      window.__BOOTSTRAP__ = { systemInfo: systemInfoFixtures.showingBoth };
+      const axiosMock = new AxiosMockAdapter(axios);
+      axiosMock
+        .onGet("/api/systemInfo")
+        .reply(200, systemInfoFixtures.showingNeither);
+
+      const { result } = renderHook(() => useSystemInfo(), { wrapper });
+
+      await waitFor(() =>
+        expect(result.current.data).toEqual(systemInfoFixtures.showingBoth),
+      );
+      expect(axiosMock.history.get.length).toBe(0);
+      expect(window.__BOOTSTRAP__).toEqual({});
+      delete window.__BOOTSTRAP__;
+      queryClient.clear();
+    });
+
     test("systemInfo when API unreachable", async () => {
       const queryClient = new QueryClient();
       const wrapper = ({ children }) => (
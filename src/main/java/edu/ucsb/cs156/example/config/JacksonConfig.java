@@ -0,0 +1,24 @@
+package edu.ucsb.cs156.example.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Adds the Blackbird module to the ObjectMapper that Spring Boot builds, so
+ * that bean properties are read through generated lambdas rather than
+ * reflection. LocalDateTime values are written by IsoLocalDateTimeSerializer.
+ */
+@Configuration
+public class JacksonConfig {
+
+  /**
+   * @return the Blackbird module, which Spring Boot registers with the ObjectMapper
+   */
+  @Bean
+  public Module blackbirdModule() {
+    return new BlackbirdModule();
+  }
+}
@@ -0,0 +1,13 @@
+package edu.ucsb.cs156.example.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Turns on {@code @Scheduled} methods, such as the reminder scheduler in
+ * RecommendationReminderService.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
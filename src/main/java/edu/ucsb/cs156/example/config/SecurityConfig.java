@@ -2,6 +2,7 @@ package edu.ucsb.cs156.example.config;
 
 import edu.ucsb.cs156.example.entities.User;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.ResponseCacheService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -24,6 +25,7 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.authority.mapping.GrantedAuthoritiesMapper;
 import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
 import org.springframework.security.web.authentication.Http403ForbiddenEntryPoint;
 import org.springframework.security.web.authentication.SavedRequestAwareAuthenticationSuccessHandler;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
@@ -65,6 +67,9 @@ public class SecurityConfig {
   @Autowired
   UserRepository userRepository;
 
+  @Autowired
+  ResponseCacheService responseCache;
+
   /**
    * The `filterChain` method in this Java code configures various security
    * settings for an HTTP request,
@@ -86,6 +91,7 @@ public class SecurityConfig {
             .csrfTokenRequestHandler(new SpaCsrfTokenRequestHandler()))
         .addFilterAfter(new CsrfCookieFilter(), BasicAuthenticationFilter.class)
         .authorizeHttpRequests(auth -> auth.anyRequest().permitAll())
+        .addFilterAfter(new ResponseCacheFilter(responseCache), AuthorizationFilter.class)
         .logout(logout -> logout.logoutRequestMatcher(new AntPathRequestMatcher("/logout")).logoutSuccessUrl("/"));
     return http.build();
   }
@@ -195,4 +201,26 @@ final class CsrfCookieFilter extends OncePerRequestFilter {
     csrfToken.getToken();
     filterChain.doFilter(request, response);
   }
-}
\ No newline at end of file
+}
+
+/**
+ * Sends cached bodies of the endpoints that ResponseCacheService caches; it
+ * runs after the user is known, since the bodies are cached by role.
+ */
+final class ResponseCacheFilter extends OncePerRequestFilter {
+  private final ResponseCacheService responseCache;
+
+  ResponseCacheFilter(ResponseCacheService responseCache) {
+    this.responseCache = responseCache;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    if (responseCache.caches(request)) {
+      responseCache.filter(request, response, filterChain);
+    } else {
+      filterChain.doFilter(request, response);
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.models.ActiveUserCount;
+import edu.ucsb.cs156.example.services.ActiveUserStatsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * This is a REST controller for estimates of the number of distinct active users.
+ *
+ * These endpoints are only accessible to users with the role "ROLE_ADMIN".
+ */
+
+@Tag(name="Active users (admin only)")
+@RequestMapping("/api/admin/activeusers")
+@RestController
+public class ActiveUsersController extends ApiController {
+
+    /** the longest range that may be asked for, in days */
+    static final long MAX_RANGE_DAYS = 366;
+
+    @Autowired
+    ActiveUserStatsService activeUsers;
+
+    /**
+     * This method returns the estimated active users today, in the last seven days and so far this quarter.
+     * @return the three counts
+     */
+    @Operation(summary= "Estimated distinct active users today, this week and this quarter")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("")
+    public List<ActiveUserCount> summary() {
+        return activeUsers.summary(LocalDate.now());
+    }
+
+    /**
+     * This method returns the estimated active users in a range of days.
+     * @param from the first day
+     * @param to the last day (inclusive)
+     * @return the count
+     */
+    @Operation(summary= "Estimated distinct active users in a range of days")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/range")
+    public ActiveUserCount range(
+            @Parameter(name="from", description="first day (in iso format, e.g. YYYY-mm-dd)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(name="to", description="last day, inclusive (in iso format, e.g. YYYY-mm-dd)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new BadRequestException("to must not be before from");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new BadRequestException("range must be at most %d days".formatted(MAX_RANGE_DAYS));
+        }
+        return activeUsers.count("range", from, to);
+    }
+
+    /**
+     * This method returns the estimated active users in a quarter.
+     * @param quarterYYYYQ the quarter, e.g. 20244 for fall 2024
+     * @return the count
+     */
+    @Operation(summary= "Estimated distinct active users in a quarter")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/quarter")
+    public ActiveUserCount quarter(
+            @Parameter(name="quarterYYYYQ", description="quarter, e.g. 20244 for fall 2024") @RequestParam String quarterYYYYQ) {
+        LocalDate start = ActiveUserStatsService.quarterStart(quarterYYYYQ);
+        return activeUsers.count("quarter " + quarterYYYYQ, start, start.plusMonths(3).minusDays(1));
+    }
+}
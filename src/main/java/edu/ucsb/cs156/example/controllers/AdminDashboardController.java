@@ -0,0 +1,40 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.models.AdminDashboard;
+import edu.ucsb.cs156.example.services.AdminDashboardService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * This is a REST controller for the admin dashboard.
+ *
+ * These endpoints are only accessible to users with the role "ROLE_ADMIN".
+ */
+
+@Tag(name="Dashboard (admin only)")
+@RequestMapping("/api/admin/dashboard")
+@RestController
+public class AdminDashboardController extends ApiController {
+
+    @Autowired
+    AdminDashboardService adminDashboard;
+
+    /**
+     * This method returns the row counts, recent activity and open items of the tables.
+     * Tiles whose query timed out or failed have no value.
+     * @return the dashboard
+     * @throws InterruptedException if the request is interrupted while waiting for the queries
+     */
+    @Operation(summary= "Row counts, recent activity and open items of the tables")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("")
+    public AdminDashboard dashboard() throws InterruptedException {
+        return adminDashboard.dashboard();
+    }
+}
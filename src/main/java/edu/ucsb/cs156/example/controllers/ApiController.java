@@ -1,16 +1,30 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.errors.DuplicateEntityException;
+import edu.ucsb.cs156.example.errors.EntityInUseException;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.helpers.EntityFilter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
 import edu.ucsb.cs156.example.models.CurrentUser;
+import edu.ucsb.cs156.example.models.EntityBatch;
+import edu.ucsb.cs156.example.models.EntityCount;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * This is an abstract class that provides common functionality for all API controllers.
@@ -21,6 +35,14 @@ public abstract class ApiController {
   @Autowired
   private CurrentUserService currentUserService;
 
+  /** The most ids that a multi-get (see findAllById) can ask for */
+  @Value("${app.multiget.maxIds:100}")
+  private int maxIds = 100;
+
+  /** The bounds used for the open end of a from/to time range */
+  static final LocalDateTime EARLIEST = LocalDateTime.of(1, 1, 1, 0, 0);
+  static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
   /**
    * This method returns the current user.
    * @return the current user
@@ -38,6 +60,117 @@ public abstract class ApiController {
     return Map.of("message", message);
   }
 
+  /**
+   * This method checks the from and to parameters of a list endpoint.
+   * @param from the earliest time to include, or null for no limit
+   * @param to the time to stop before, or null for no limit
+   * @return whether either is given, i.e. whether to list a range rather than everything
+   * @throws BadRequestException if both are given and to is not after from
+   */
+  protected static boolean isTimeRange(LocalDateTime from, LocalDateTime to) {
+    if (from != null && to != null && !to.isAfter(from)) {
+      throw new BadRequestException("to must be after from");
+    }
+    return from != null || to != null;
+  }
+
+  /**
+   * @param from the from parameter of a list endpoint, or null
+   * @return the earliest time to include
+   */
+  protected static LocalDateTime rangeStart(LocalDateTime from) {
+    return from == null ? EARLIEST : from;
+  }
+
+  /**
+   * @param to the to parameter of a list endpoint, or null
+   * @return the time to stop before
+   */
+  protected static LocalDateTime rangeEnd(LocalDateTime to) {
+    return to == null ? LATEST : to;
+  }
+
+  /**
+   * This method lists the entities that match the filter and sort parameters
+   * of a list endpoint (see EntityFilter) and, if given, its from/to range.
+   * @param repository the repository of the entities
+   * @param entityFilter the filter of the entity
+   * @param filter the filter parameter, or null
+   * @param sort the sort parameter, or null
+   * @param timeField the field that from and to apply to, or null if the endpoint has no range
+   * @param from the earliest time to include, or null for no limit
+   * @param to the time to stop before, or null for no limit
+   * @return the matching entities, in the order of the sort
+   * @throws BadRequestException if the filter, sort or range is not valid
+   */
+  protected static <T> List<T> findFiltered(JpaSpecificationExecutor<T> repository, EntityFilter<T> entityFilter,
+      String filter, String sort, String timeField, LocalDateTime from, LocalDateTime to) {
+    EntityFilter.Query<T> query = entityFilter.compile(filter, sort);
+    return repository.findAll(where(query, timeField, from, to), query.sort());
+  }
+
+  /**
+   * This method counts the entities that match the filter parameter of a
+   * count endpoint (see EntityFilter) and, if given, its from/to range.
+   * @param repository the repository of the entities
+   * @param entityFilter the filter of the entity
+   * @param filter the filter parameter, or null
+   * @param timeField the field that from and to apply to, or null if the endpoint has no range
+   * @param from the earliest time to include, or null for no limit
+   * @param to the time to stop before, or null for no limit
+   * @return the exact number of matching entities
+   * @throws BadRequestException if the filter or range is not valid
+   */
+  protected static <T> EntityCount countFiltered(JpaSpecificationExecutor<T> repository, EntityFilter<T> entityFilter,
+      String filter, String timeField, LocalDateTime from, LocalDateTime to) {
+    EntityFilter.Query<T> query = entityFilter.compile(filter, null);
+    long count = repository.count(where(query, timeField, from, to));
+    return EntityCount.builder().count(count).approximate(false).build();
+  }
+
+  private static <T> Specification<T> where(EntityFilter.Query<T> query, String timeField, LocalDateTime from,
+      LocalDateTime to) {
+    Specification<T> where = query.where();
+    if (timeField != null && isTimeRange(from, to)) {
+      where = where.and(EntityFilter.between(timeField, rangeStart(from), rangeEnd(to)));
+    }
+    return where;
+  }
+
+  /**
+   * This method looks up the entities with the ids of a multi-get endpoint
+   * (e.g. {@code ?ids=1,2,3}) in one query. Repeated ids are looked up once.
+   * @param ids the ids
+   * @param idOf the id of an entity
+   * @param finder the query, e.g. {@code repository::findAllById}
+   * @return the entities found, in the order of ids, and the ids not found
+   * @throws BadRequestException if there are no ids, a blank one or more than maxIds
+   */
+  protected <T, ID> EntityBatch<T, ID> findAllById(List<ID> ids, Function<T, ID> idOf,
+      Function<List<ID>, Iterable<T>> finder) {
+    List<ID> distinct = ids.stream().distinct().toList();
+    if (distinct.isEmpty() || distinct.contains(null)) {
+      throw new BadRequestException("ids must be a list of ids separated by commas");
+    }
+    if (distinct.size() > maxIds) {
+      throw new BadRequestException("At most %d ids can be asked for at once".formatted(maxIds));
+    }
+    Map<ID, T> found = new HashMap<>();
+    for (T entity : finder.apply(distinct)) {
+      found.put(idOf.apply(entity), entity);
+    }
+    List<T> items = new ArrayList<>();
+    List<ID> missingIds = new ArrayList<>();
+    for (ID id : distinct) {
+      if (found.containsKey(id)) {
+        items.add(found.get(id));
+      } else {
+        missingIds.add(id);
+      }
+    }
+    return EntityBatch.<T, ID>builder().items(items).missingIds(missingIds).build();
+  }
+
   /**
    * This method handles the EntityNotFoundException.
    * @param e the exception
@@ -51,4 +184,33 @@ public abstract class ApiController {
       "message", e.getMessage()
     );
   }
+
+  /**
+   * This method handles the DuplicateEntityException and the EntityInUseException.
+   * @param e the exception
+   * @return a map with the type and message of the exception
+   */
+  @ExceptionHandler({ DuplicateEntityException.class, EntityInUseException.class })
+  @ResponseStatus(HttpStatus.CONFLICT)
+  public Object handleDuplicateException(Throwable e) {
+    return Map.of(
+      "type", e.getClass().getSimpleName(),
+      "message", e.getMessage()
+    );
+  }
+
+  /**
+   * This method handles the BadRequestException, thrown when a request
+   * parameter is not valid or out of range.
+   * @param e the exception
+   * @return a map with the type and message of the exception
+   */
+  @ExceptionHandler({ BadRequestException.class })
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public Object handleBadRequestException(Throwable e) {
+    return Map.of(
+      "type", e.getClass().getSimpleName(),
+      "message", e.getMessage()
+    );
+  }
 }
@@ -1,8 +1,20 @@
 package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.errors.DuplicateEntityException;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.helpers.EntityAggregation;
+import edu.ucsb.cs156.example.helpers.EntityFilter;
+import edu.ucsb.cs156.example.helpers.UrlNormalizer;
+import edu.ucsb.cs156.example.models.AggregateRow;
+import edu.ucsb.cs156.example.models.ArticleUrlCheck;
+import edu.ucsb.cs156.example.models.ArticlesDto;
+import edu.ucsb.cs156.example.models.EntityBatch;
+import edu.ucsb.cs156.example.models.EntityCount;
 import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.services.ArticleUrlIndexService;
+import edu.ucsb.cs156.example.services.EntityAggregationService;
+import edu.ucsb.cs156.example.services.EntityCountService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,6 +24,7 @@ import lombok.extern.slf4j.Slf4j;
 import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -26,6 +39,8 @@ import org.springframework.web.bind.annotation.RestController;
 import jakarta.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * This is a REST controller for Articles
@@ -37,20 +52,93 @@ import java.time.LocalDateTime;
 @Slf4j
 public class ArticlesController extends ApiController {
 
+	/** The fields that /all can filter and sort on */
+	static final EntityFilter<Articles> FILTER = EntityFilter.of(Articles.class,
+		"title", "url", "email", "dateAdded");
+
+	/** The keys and fields that /aggregate can group by and compute metrics over */
+	static final EntityAggregation<Articles> AGGREGATES = EntityAggregation.of(FILTER,
+		List.of("email"), List.of("dateAdded"));
+
 	@Autowired
 	ArticlesRepository articlesRepository;
 
+	@Autowired
+	ArticleUrlIndexService articleUrlIndex;
+
+	@Autowired
+	EntityAggregationService aggregations;
+
+	@Autowired
+	EntityCountService counts;
+
 	/**
-	 * List all Articles
+	 * List all Articles, or those added in a range of times
 	 * 
-	 * @return an iterable of Articles
+	 * @param from   the earliest dateAdded to include; no limit if omitted
+	 * @param to     the dateAdded to stop before; no limit if omitted
+	 * @param filter a filter over FILTER's fields (see EntityFilter); none if omitted
+	 * @param sort   the fields to sort by (see EntityFilter)
+	 * @return a list of ArticlesDto, in the sort order if filter or sort is given, else in dateAdded order if from or to is given
 	 */
-	@Operation(summary = "List all articles")
+	@Operation(summary = "List all articles, or those added from (including) from up to (not including) to")
 	@PreAuthorize("hasRole('ROLE_USER')")
 	@GetMapping("/all")
-	public Iterable<Articles> allArticles() {
+	public List<ArticlesDto> allArticles(
+			@Parameter(name = "from", description = "date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+			@Parameter(name = "to", description = "date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+			@Parameter(name = "filter", description = "clauses field:op:value separated by commas, e.g. 'email:eq:cgaucho@ucsb.edu'") @RequestParam(required = false) String filter,
+			@Parameter(name = "sort", description = "fields separated by commas, - for descending, e.g. '-dateAdded'") @RequestParam(required = false) String sort) {
+		if (filter != null || sort != null) {
+			return ArticlesDto.fromAll(findFiltered(articlesRepository, FILTER, filter, sort, "dateAdded", from, to));
+		}
+		if (isTimeRange(from, to)) {
+			return ArticlesDto.fromAll(articlesRepository.findByDateAddedGreaterThanEqualAndDateAddedLessThanOrderByDateAddedAscIdAsc(
+					rangeStart(from), rangeEnd(to)));
+		}
 		Iterable<Articles> articles = articlesRepository.findAll();
-		return articles;
+		return ArticlesDto.fromAll(articles);
+	}
+
+	/**
+	 * Count all articles, or those that match a filter or were added in a range of times
+	 * 
+	 * @param from   the earliest time to include; no limit if omitted
+	 * @param to     the time to stop before; no limit if omitted
+	 * @param filter a filter over FILTER's fields (see EntityFilter); none if omitted
+	 * @param approximate whether an estimate will do for a large table (see EntityCountService); ignored with a filter or range
+	 * @return the count, exact unless approximate is true and the table is large
+	 */
+	@Operation(summary = "Count all articles, or those that match a filter or were added in a range of times")
+	@PreAuthorize("hasRole('ROLE_USER')")
+	@GetMapping("/count")
+	public EntityCount countArticles(
+			@Parameter(name = "from", description = "date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+			@Parameter(name = "to", description = "date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+			@Parameter(name = "filter", description = "clauses field:op:value separated by commas, e.g. 'email:eq:cgaucho@ucsb.edu'") @RequestParam(required = false) String filter,
+			@Parameter(name = "approximate", description = "true to allow an estimate from the table statistics for a large table") @RequestParam(defaultValue = "false") boolean approximate) {
+		if (filter != null || isTimeRange(from, to)) {
+			return countFiltered(articlesRepository, FILTER, filter, "dateAdded", from, to);
+		}
+		return counts.count(Articles.class, articlesRepository, approximate);
+	}
+
+	/**
+	 * Aggregates over the articles, grouped by up to three keys
+	 * 
+	 * @param groupBy the keys to group by (see AGGREGATES); the totals if omitted
+	 * @param metrics count, or min, max or avg with :field (see EntityAggregation); count if omitted
+	 * @param filter  a filter over FILTER's fields (see EntityFilter); none if omitted
+	 * @return a row for each group, ordered by the keys
+	 */
+	@Operation(summary = "Count, min, max or average articles by group")
+	@PreAuthorize("hasRole('ROLE_ADMIN')")
+	@GetMapping("/aggregate")
+	public List<AggregateRow> aggregateArticles(
+		@Parameter(name = "groupBy", description = "keys separated by commas, e.g. 'email'") @RequestParam(required = false) String groupBy,
+		@Parameter(name = "metrics", description = "metrics separated by commas, e.g. 'count,max:dateAdded'") @RequestParam(required = false) String metrics,
+		@Parameter(name = "filter", description = "clauses field:op:value separated by commas, e.g. 'dateAdded:ge:2024-01-01T00:00:00'") @RequestParam(required = false) String filter) {
+		return aggregations.aggregate(articlesRepository, AGGREGATES.compile(groupBy, metrics, filter));
 	}
 
 	/**
@@ -70,14 +158,50 @@ public class ArticlesController extends ApiController {
 		return article;
 	}
 
+	/**
+	 * Get several articles by id, in one query
+	 * 
+	 * @param ids the ids of the articles
+	 * @return the articles found, in the order asked for, and the ids not found
+	 */
+	@Operation(summary = "Get several articles by id")
+	@PreAuthorize("hasRole('ROLE_USER')")
+	@GetMapping(value = "", params = "ids")
+	public EntityBatch<Articles, Long> getByIds(
+		@Parameter(name = "ids", description = "ids separated by commas (at most app.multiget.maxIds)") @RequestParam List<Long> ids) {
+		return findAllById(ids, Articles::getId, articlesRepository::findAllById);
+	}
+
+	/**
+	 * Check whether a url has already been posted as an article
+	 * 
+	 * @param url the url to check
+	 * @return the normalized url, and the id of the article that already has it (if any)
+	 */
+	@Operation(summary = "Check whether an article with this url already exists")
+	@PreAuthorize("hasRole('ROLE_USER')")
+	@GetMapping("/duplicate")
+	public ArticleUrlCheck checkDuplicate(
+			@Parameter(name = "url") @RequestParam String url) {
+		Optional<Articles> existing = articleUrlIndex.findDuplicate(url);
+
+		return ArticleUrlCheck.builder()
+				.url(url)
+				.normalizedUrl(UrlNormalizer.normalize(url))
+				.duplicate(existing.isPresent())
+				.existingId(existing.map(Articles::getId).orElse(null))
+				.build();
+	}
+
 	/**
 	 * Create a new article
 	 * 
-	 * @param title       the title of the article
-	 * @param url         the url of the article
-	 * @param explanation the explanation of the article
-	 * @param email       the email of the author
-	 * @param dateAdded   the date the article was added
+	 * @param title           the title of the article
+	 * @param url             the url of the article
+	 * @param explanation     the explanation of the article
+	 * @param email           the email of the author
+	 * @param dateAdded       the date the article was added
+	 * @param rejectDuplicate if true, respond with 409 instead of saving an article whose url was already posted
 	 * 
 	 * @return the created article
 	 * 
@@ -90,7 +214,8 @@ public class ArticlesController extends ApiController {
 			@Parameter(name = "url") @RequestParam String url,
 			@Parameter(name = "explanation") @RequestParam String explanation,
 			@Parameter(name = "email") @RequestParam String email,
-			@Parameter(name = "dateAdded", description = "date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS; see https://en.wikipedia.org/wiki/ISO_8601)") @RequestParam("dateAdded") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dateAdded)
+			@Parameter(name = "dateAdded", description = "date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS; see https://en.wikipedia.org/wiki/ISO_8601)") @RequestParam("dateAdded") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dateAdded,
+			@Parameter(name = "rejectDuplicate", description = "if true, an article whose url was already posted is rejected with 409 Conflict") @RequestParam(defaultValue = "false") boolean rejectDuplicate)
 			throws JsonProcessingException {
 
 		// For an explanation of @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
@@ -105,7 +230,15 @@ public class ArticlesController extends ApiController {
 		article.setEmail(email);
 		article.setDateAdded(dateAdded);
 
-		Articles savedArticle = articlesRepository.save(article);
+		Optional<Articles> duplicate = articleUrlIndex.claimUrl(article);
+		if (rejectDuplicate && duplicate.isPresent()) {
+			throw new DuplicateEntityException(Articles.class, "url", url, duplicate.get().getId());
+		}
+
+		Articles savedArticle = saveClaimed(article, rejectDuplicate);
+		aggregations.invalidate(Articles.class);
+		counts.invalidate(Articles.class);
+		articleUrlIndex.add(savedArticle);
 
 		return savedArticle;
 	}
@@ -131,12 +264,40 @@ public class ArticlesController extends ApiController {
 		article.setUrl(incoming.getUrl());
 		article.setExplanation(incoming.getExplanation());
 		article.setEmail(incoming.getEmail());
+		articleUrlIndex.claimUrl(article);
 
-		articlesRepository.save(article);
+		saveClaimed(article, false);
+		aggregations.invalidate(Articles.class);
+		articleUrlIndex.add(article);
 
 		return article;
 	}
 
+	/**
+	 * Save an article whose url was claimed; if another article was saved with
+	 * the same url after the claim, the unique url hash rejects the save, and
+	 * the article is either rejected as a duplicate or saved without the hash.
+	 * 
+	 * @param article         the article, after articleUrlIndex.claimUrl
+	 * @param rejectDuplicate if true, throw instead of saving a duplicate
+	 * @return the saved article
+	 */
+	private Articles saveClaimed(Articles article, boolean rejectDuplicate) {
+		try {
+			return articlesRepository.save(article);
+		} catch (DataIntegrityViolationException e) {
+			if (article.getUrlHash() == null) {
+				throw e;
+			}
+			Articles holder = articlesRepository.findByUrlHash(article.getUrlHash()).orElseThrow(() -> e);
+			if (rejectDuplicate) {
+				throw new DuplicateEntityException(Articles.class, "url", article.getUrl(), holder.getId());
+			}
+			article.setUrlHash(null);
+			return articlesRepository.save(article);
+		}
+	}
+
 	/**
 	 * Delete a Article
 	 * 
@@ -152,6 +313,8 @@ public class ArticlesController extends ApiController {
 				.orElseThrow(() -> new EntityNotFoundException(Articles.class, id));
 
 		articlesRepository.delete(ucsbDate);
+		aggregations.invalidate(Articles.class);
+		counts.invalidate(Articles.class);
 		return genericMessage("Article with id %s deleted".formatted(id));
 	}
 }
@@ -0,0 +1,47 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.models.BatchPart;
+import edu.ucsb.cs156.example.services.BatchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * This is a REST controller for getting several /api/ urls in one request.
+ *
+ * Anyone can make a batch request; each part is authorized on its own, so
+ * a part the user may not get has status 403 in the response.
+ */
+
+@Tag(name="Batch requests")
+@RequestMapping("/api/batch")
+@RestController
+public class BatchController extends ApiController {
+
+    @Autowired
+    BatchService batchService;
+
+    /**
+     * This method GETs several /api/ urls at once.
+     * @param urls the path and query string of each url, e.g. ["/api/currentUser", "/api/ucsbdates/all"]
+     * @param request the batch request
+     * @return the url, status and JSON body of each part, in the same order
+     * @throws InterruptedException if interrupted while waiting for the parts
+     */
+    @Operation(summary= "Get several /api/ urls at once")
+    @PostMapping("")
+    public List<BatchPart> batch(
+            @Parameter(name="urls", description="the urls to get, e.g. [\"/api/currentUser\", \"/api/systemInfo\"]") @RequestBody List<String> urls,
+            HttpServletRequest request) throws InterruptedException {
+        return batchService.dispatch(request, urls);
+    }
+}
@@ -1,19 +1,31 @@
 package edu.ucsb.cs156.example.controllers;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 
+import edu.ucsb.cs156.example.services.BootstrapService;
 import edu.ucsb.cs156.example.services.wiremock.WiremockService;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
 /**
  * The FrontendController is used to serve the frontend of the application.
  * 
  * This is only enabled in the production profile, and is used to serve the frontend of the application.
  * For development, see the FrontendProxyController.
  * 
+ * index.html is served with the system information and current user put
+ * into it (see BootstrapService), so the frontend can render without
+ * first asking for them.
+ * 
  * @see edu.ucsb.cs156.example.controllers.FrontendProxyController
  */
 
@@ -23,15 +35,33 @@ public class FrontendController {
 
   @Autowired
   WiremockService wiremockService;
+
+  @Autowired
+  BootstrapService bootstrapService;
+
+  @Value("classpath:public/index.html")
+  Resource indexHtml;
+
+  private String page;
   
   /**
    * Serve home page of application
-   * @return the home page (via index.html)
+   * @return the home page (index.html, with the bootstrap data)
+   * @throws IOException if index.html cannot be read
    */
 
-  @GetMapping("/**/{path:[^\\.]*}")
-  public String index() {
-    return "forward:/index.html";
+  @GetMapping({ "/", "/**/{path:[^\\.]*}" })
+  public ResponseEntity<String> index() throws IOException {
+    if (!indexHtml.exists()) {
+      return ResponseEntity.notFound().build();
+    }
+    if (page == null) {
+      page = indexHtml.getContentAsString(StandardCharsets.UTF_8);
+    }
+    return ResponseEntity.ok()
+        .contentType(new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8))
+        .cacheControl(CacheControl.noStore())
+        .body(bootstrapService.render(page));
   }
 
   /**
@@ -0,0 +1,53 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.models.HelpRequestArchiveRun;
+import edu.ucsb.cs156.example.models.HelpRequestArchiveStatus;
+import edu.ucsb.cs156.example.services.HelpRequestArchiveService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+
+/**
+ * This is a REST controller for the job that archives solved help requests.
+ *
+ * These endpoints are only accessible to users with the role "ROLE_ADMIN".
+ */
+
+@Tag(name="HelpRequest archive (admin only)")
+@RequestMapping("/api/admin/helprequests/archive")
+@RestController
+public class HelpRequestArchiveController extends ApiController {
+
+    @Autowired
+    HelpRequestArchiveService helpRequestArchive;
+
+    /**
+     * This method returns the archive job's settings, its totals since startup and its last run.
+     * @return the status
+     */
+    @Operation(summary= "Status of the help request archive job")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("")
+    public HelpRequestArchiveStatus status() {
+        return helpRequestArchive.status();
+    }
+
+    /**
+     * This method runs the archive job now.
+     * @return what the run did
+     */
+    @Operation(summary= "Archive the help requests that are due now")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("")
+    public HelpRequestArchiveRun archiveNow() {
+        return helpRequestArchive.archive(LocalDateTime.now());
+    }
+}
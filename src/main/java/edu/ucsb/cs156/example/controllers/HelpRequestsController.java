@@ -1,8 +1,22 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.entities.ArchivedHelpRequest;
 import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.errors.BadRequestException;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.helpers.EntityAggregation;
+import edu.ucsb.cs156.example.helpers.EntityFilter;
+import edu.ucsb.cs156.example.models.AggregateRow;
+import edu.ucsb.cs156.example.models.EntityBatch;
+import edu.ucsb.cs156.example.models.EntityCount;
+import edu.ucsb.cs156.example.models.HelpRequestDto;
+import edu.ucsb.cs156.example.models.HelpRequestStats;
+import edu.ucsb.cs156.example.repositories.ArchivedHelpRequestRepository;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.services.EntityAggregationService;
+import edu.ucsb.cs156.example.services.EntityCountService;
+import edu.ucsb.cs156.example.services.FlagIndexService;
+import edu.ucsb.cs156.example.services.HelpRequestRollupService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -26,9 +40,17 @@ import org.springframework.web.bind.annotation.RestController;
 import jakarta.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
 * This is a REST controller for HelpRequests
+*
+* Solved requests are moved to an archive after a while (see
+* HelpRequestArchiveService); the list and get endpoints only include them
+* when asked to with includeArchived.
 */
 
 @Tag(name = "HelpRequests")
@@ -38,20 +60,211 @@ import java.time.LocalDateTime;
 public class HelpRequestsController extends ApiController
 {
 
+    /** The fields that /all can filter and sort on */
+    static final EntityFilter<HelpRequest> FILTER = EntityFilter.of(HelpRequest.class,
+            "requesterEmail", "teamId", "tableOrBreakoutRoom", "requestTime", "solved", "solvedTime");
+
+    /** The keys and fields that /aggregate can group by and compute metrics over */
+    static final EntityAggregation<HelpRequest> AGGREGATES = EntityAggregation.of(FILTER,
+            List.of("teamId", "tableOrBreakoutRoom", "requesterEmail", "solved"), List.of("requestTime", "solvedTime"));
+
     @Autowired
     HelpRequestRepository helpRequestRepository;
 
+    @Autowired
+    ArchivedHelpRequestRepository archivedHelpRequestRepository;
+
+    @Autowired
+    FlagIndexService flagIndex;
+
+    @Autowired
+    HelpRequestRollupService helpRequestRollups;
+
+    @Autowired
+    EntityAggregationService aggregations;
+
+    @Autowired
+    EntityCountService counts;
+
     /**
-     * List all help requests
+     * List all help requests, or those made in a range of times
      * 
-     * @return an iterable of HelpRequest
+     * @param includeArchived whether to follow them with the archived requests
+     * @param from the earliest requestTime to include; no limit if omitted
+     * @param to   the requestTime to stop before; no limit if omitted
+     * @param filter a filter over FILTER's fields (see EntityFilter); none if omitted
+     * @param sort   the fields to sort by (see EntityFilter)
+     * @return a list of HelpRequestDto, in the sort order if filter or sort is given (archived requests cannot be filtered),
+     *         else in requestTime order (hot, then archived) if from or to is given
      */
-    @Operation(summary= "List all help requests")
+    @Operation(summary= "List all help requests, or those made from (including) from up to (not including) to")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<HelpRequest> allHelpRequests() {
-        Iterable<HelpRequest> requests = helpRequestRepository.findAll();
-        return requests;
+    public List<HelpRequestDto> allHelpRequests(
+            @Parameter(name="includeArchived", description="whether to include archived requests") @RequestParam(defaultValue = "false") boolean includeArchived,
+            @Parameter(name="from", description="date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(name="to", description="date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(name="filter", description="clauses field:op:value separated by commas, e.g. 'teamId:eq:s22-5pm-3,solved:eq:false'") @RequestParam(required = false) String filter,
+            @Parameter(name="sort", description="fields separated by commas, - for descending, e.g. '-requestTime'") @RequestParam(required = false) String sort) {
+        if (filter != null || sort != null) {
+            if (includeArchived) {
+                throw new BadRequestException("includeArchived cannot be combined with filter or sort");
+            }
+            return HelpRequestDto.fromAll(findFiltered(helpRequestRepository, FILTER, filter, sort, "requestTime", from, to));
+        }
+        boolean range = isTimeRange(from, to);
+        Iterable<HelpRequest> requests = range
+                ? helpRequestRepository.findByRequestTimeGreaterThanEqualAndRequestTimeLessThanOrderByRequestTimeAscIdAsc(
+                        rangeStart(from), rangeEnd(to))
+                : helpRequestRepository.findAll();
+        if (!includeArchived) {
+            return HelpRequestDto.fromAll(requests);
+        }
+        List<HelpRequest> all = new ArrayList<>();
+        requests.forEach(all::add);
+        Iterable<ArchivedHelpRequest> archived = range
+                ? archivedHelpRequestRepository.findByRequestTimeGreaterThanEqualAndRequestTimeLessThanOrderByRequestTimeAscIdAsc(
+                        rangeStart(from), rangeEnd(to))
+                : archivedHelpRequestRepository.findAll();
+        archived.forEach(request -> all.add(request.toHelpRequest()));
+        return HelpRequestDto.fromAll(all);
+    }
+
+    /**
+     * Count all help requests, or those that match a filter or were made in a range of times
+     * 
+     * @param from   the earliest time to include; no limit if omitted
+     * @param to     the time to stop before; no limit if omitted
+     * @param filter a filter over FILTER's fields (see EntityFilter); none if omitted
+     * @param approximate whether an estimate will do for a large table (see EntityCountService); ignored with a filter or range
+     * @return the count, exact unless approximate is true and the table is large
+     */
+    @Operation(summary= "Count all help requests, or those that match a filter or were made in a range of times")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/count")
+    public EntityCount countHelpRequests(
+            @Parameter(name="from", description="date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(name="to", description="date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(name="filter", description="clauses field:op:value separated by commas, e.g. 'teamId:eq:s22-5pm-3,solved:eq:false'") @RequestParam(required = false) String filter,
+            @Parameter(name="approximate", description="true to allow an estimate from the table statistics for a large table") @RequestParam(defaultValue = "false") boolean approximate) {
+        if (filter != null || isTimeRange(from, to)) {
+            return countFiltered(helpRequestRepository, FILTER, filter, "requestTime", from, to);
+        }
+        return counts.count(HelpRequest.class, helpRequestRepository, approximate);
+    }
+
+    /**
+     * Aggregates over the help requests, grouped by up to three keys
+     * 
+     * @param groupBy the keys to group by (see AGGREGATES); the totals if omitted
+     * @param metrics count, or min, max or avg with :field (see EntityAggregation); count if omitted
+     * @param filter  a filter over FILTER's fields (see EntityFilter); none if omitted
+     * @return a row for each group, ordered by the keys
+     */
+    @Operation(summary= "Count, min, max or average help requests by group")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/aggregate")
+    public List<AggregateRow> aggregateHelpRequests(
+            @Parameter(name="groupBy", description="keys separated by commas, e.g. 'teamId,solved'") @RequestParam(required = false) String groupBy,
+            @Parameter(name="metrics", description="metrics separated by commas, e.g. 'count,max:requestTime'") @RequestParam(required = false) String metrics,
+            @Parameter(name="filter", description="clauses field:op:value separated by commas, e.g. 'solved:eq:false'") @RequestParam(required = false) String filter) {
+        return aggregations.aggregate(helpRequestRepository, AGGREGATES.compile(groupBy, metrics, filter));
+    }
+
+    /**
+     * List the archived help requests, with when they were archived
+     * 
+     * @return an iterable of ArchivedHelpRequest
+     */
+    @Operation(summary= "List archived help requests")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/archived")
+    public Iterable<ArchivedHelpRequest> archivedHelpRequests() {
+        return archivedHelpRequestRepository.findAll();
+    }
+
+    /**
+     * List the help requests whose flags match a filter, e.g. {@code not solved}.
+     * The filter is answered from bitmap indexes, without scanning the table.
+     * 
+     * @param filter a filter over the flag {@code solved}; blank matches all
+     * @return a list of HelpRequestDto
+     */
+    @Operation(summary= "List help requests whose flags match a filter")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/flags")
+    public List<HelpRequestDto> helpRequestsByFlags(
+            @Parameter(name="filter", description="flags combined with and, or, not and parentheses, e.g. 'not solved'") @RequestParam(defaultValue = "") String filter) {
+        return HelpRequestDto.fromAll(helpRequestRepository.findAllById(flagIndex.getHelpRequests().select(filter)));
+    }
+
+    /**
+     * Count the help requests whose flags match a filter, e.g. {@code not solved}.
+     * 
+     * @param filter a filter over the flag {@code solved}; blank matches all
+     * @return a map with the count
+     */
+    @Operation(summary= "Count help requests whose flags match a filter")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/flags/count")
+    public Object countHelpRequestsByFlags(
+            @Parameter(name="filter", description="flags combined with and, or, not and parentheses, e.g. 'not solved'") @RequestParam(defaultValue = "") String filter) {
+        return Map.of("count", flagIndex.getHelpRequests().count(filter));
+    }
+
+    /**
+     * Totals for the help requests made in a range of hours: how many, how many
+     * are solved, and quantiles of the time to solve them. These are answered
+     * from hourly rollups, without scanning the table.
+     * 
+     * @param from   the start of the range (rounded down to the hour)
+     * @param to     the end of the range (exclusive)
+     * @param teamId the team to count; all teams if omitted
+     * @return the totals
+     */
+    @Operation(summary= "Help request counts and time to solve for a range of hours")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/stats")
+    public HelpRequestStats helpRequestStats(
+            @Parameter(name="from", description="start of the range (in iso format, e.g. YYYY-mm-ddTHH:MM:SS)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(name="to", description="end of the range, exclusive (in iso format, e.g. YYYY-mm-ddTHH:MM:SS)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(name="teamId", description="team to count; all teams if omitted") @RequestParam(required = false) String teamId) {
+        return helpRequestRollups.totals(from, to, teamId);
+    }
+
+    /**
+     * Totals for each team for the help requests made in a range of hours,
+     * the teams with the most requests first.
+     * 
+     * @param from the start of the range (rounded down to the hour)
+     * @param to   the end of the range (exclusive)
+     * @return the totals for each team
+     */
+    @Operation(summary= "Help request counts and time to solve for each team")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/stats/teams")
+    public List<HelpRequestStats> helpRequestStatsByTeam(
+            @Parameter(name="from", description="start of the range (in iso format, e.g. YYYY-mm-ddTHH:MM:SS)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(name="to", description="end of the range, exclusive (in iso format, e.g. YYYY-mm-ddTHH:MM:SS)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return helpRequestRollups.byTeam(from, to);
+    }
+
+    /**
+     * Totals for each hour with help requests in a range of hours.
+     * 
+     * @param from   the start of the range (rounded down to the hour)
+     * @param to     the end of the range (exclusive)
+     * @param teamId the team to count; all teams if omitted
+     * @return the totals for each hour, in order
+     */
+    @Operation(summary= "Help request counts and time to solve for each hour")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/stats/hours")
+    public List<HelpRequestStats> helpRequestStatsByHour(
+            @Parameter(name="from", description="start of the range (in iso format, e.g. YYYY-mm-ddTHH:MM:SS)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(name="to", description="end of the range, exclusive (in iso format, e.g. YYYY-mm-ddTHH:MM:SS)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(name="teamId", description="team to count; all teams if omitted") @RequestParam(required = false) String teamId) {
+        return helpRequestRollups.byHour(from, to, teamId);
     }
 
 
@@ -90,8 +303,13 @@ public class HelpRequestsController extends ApiController
         helpRequest.setRequestTime(requestTime);
         helpRequest.setExplanation(explanation);
         helpRequest.setSolved(solved);
+        helpRequest.setSolvedTime(solved ? LocalDateTime.now() : null);
 
         HelpRequest savedHelpRequest = helpRequestRepository.save(helpRequest);
+        aggregations.invalidate(HelpRequest.class);
+        counts.invalidate(HelpRequest.class);
+        flagIndex.add(savedHelpRequest);
+        helpRequestRollups.add(savedHelpRequest);
 
         return savedHelpRequest;
     }
@@ -100,18 +318,47 @@ public class HelpRequestsController extends ApiController
      * Get a single request by id
      * 
      * @param id the id of the help request
+     * @param includeArchived whether to look in the archive if it is not found
      * @return a HelpRequest
      */
     @Operation(summary= "Get a single request")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
     public HelpRequest getById(
-            @Parameter(name="id") @RequestParam Long id) {
+            @Parameter(name="id") @RequestParam Long id,
+            @Parameter(name="includeArchived", description="whether to look in the archive too") @RequestParam(defaultValue = "false") boolean includeArchived) {
         HelpRequest helpRequest = helpRequestRepository.findById(id)
+                .or(() -> includeArchived
+                        ? archivedHelpRequestRepository.findById(id).map(ArchivedHelpRequest::toHelpRequest)
+                        : Optional.empty())
                 .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
 
         return helpRequest;
     }
+
+    /**
+     * Get several help requests by id, in one query
+     * 
+     * @param ids the ids of the help requests
+     * @param includeArchived whether to look in the archive for those not found
+     * @return the help requests found, in the order asked for, and the ids not found
+     */
+    @Operation(summary= "Get several help requests by id")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "ids")
+    public EntityBatch<HelpRequest, Long> getByIds(
+            @Parameter(name="ids", description="ids separated by commas (at most app.multiget.maxIds)") @RequestParam List<Long> ids,
+            @Parameter(name="includeArchived", description="whether to look in the archive too") @RequestParam(defaultValue = "false") boolean includeArchived) {
+        return findAllById(ids, HelpRequest::getId, batch -> {
+            List<HelpRequest> found = new ArrayList<>();
+            helpRequestRepository.findAllById(batch).forEach(found::add);
+            if (includeArchived && found.size() < batch.size()) {
+                archivedHelpRequestRepository.findAllById(batch)
+                        .forEach(request -> found.add(request.toHelpRequest()));
+            }
+            return found;
+        });
+    }
     
     /**
      * Update a single request
@@ -129,6 +376,7 @@ public class HelpRequestsController extends ApiController
 
         HelpRequest helpRequest = helpRequestRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
+        HelpRequest before = helpRequest.toBuilder().build();
 
         helpRequest.setRequesterEmail(incoming.getRequesterEmail());
         helpRequest.setTeamId(incoming.getTeamId());
@@ -136,8 +384,18 @@ public class HelpRequestsController extends ApiController
         helpRequest.setRequestTime(incoming.getRequestTime());
         helpRequest.setExplanation(incoming.getExplanation());
         helpRequest.setSolved(incoming.getSolved());
+        // solvedTime is kept while the request stays solved
+        if (!incoming.getSolved()) {
+            helpRequest.setSolvedTime(null);
+        } else if (!before.getSolved()) {
+            helpRequest.setSolvedTime(LocalDateTime.now());
+        }
 
         helpRequestRepository.save(helpRequest);
+        aggregations.invalidate(HelpRequest.class);
+        flagIndex.add(helpRequest);
+        helpRequestRollups.remove(before);
+        helpRequestRollups.add(helpRequest);
 
         return helpRequest;
     }
@@ -157,6 +415,10 @@ public class HelpRequestsController extends ApiController
                 .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
 
         helpRequestRepository.delete(helpRequest);
+        aggregations.invalidate(HelpRequest.class);
+        counts.invalidate(HelpRequest.class);
+        flagIndex.removeHelpRequest(id);
+        helpRequestRollups.remove(helpRequest);
         return genericMessage("HelpRequest with id %s deleted".formatted(id));
     }
 }
@@ -2,8 +2,18 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.MenuItemReview;
 import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.helpers.EntityAggregation;
+import edu.ucsb.cs156.example.helpers.EntityFilter;
+import edu.ucsb.cs156.example.models.AggregateRow;
+import edu.ucsb.cs156.example.models.EntityBatch;
+import edu.ucsb.cs156.example.models.EntityCount;
+import edu.ucsb.cs156.example.models.MenuItemReviewDto;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.services.EntityAggregationService;
+import edu.ucsb.cs156.example.services.EntityCountService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -28,6 +38,7 @@ import org.springframework.web.bind.annotation.RestController;
 import jakarta.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
 
 /**
@@ -39,21 +50,95 @@ import edu.ucsb.cs156.example.entities.MenuItemReview;
 @RestController
 @Slf4j
 public class MenuItemReviewController extends ApiController {
+
+    /** The fields that /all can filter and sort on */
+    static final EntityFilter<MenuItemReview> FILTER = EntityFilter.of(MenuItemReview.class,
+            "itemId", "reviewerEmail", "stars", "dateReviewed");
+
+    /** The keys and fields that /aggregate can group by and compute metrics over */
+    static final EntityAggregation<MenuItemReview> AGGREGATES = EntityAggregation.of(FILTER,
+            List.of("itemId", "reviewerEmail", "stars"), List.of("stars", "dateReviewed"));
+
     
     @Autowired
     MenuItemReviewRepository menuItemReviewRepository;
 
+    @Autowired
+    UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
+
+    @Autowired
+    EntityAggregationService aggregations;
+
+    @Autowired
+    EntityCountService counts;
+
     /**
-     * List all MenuItemReviews
+     * List all MenuItemReviews, or those made in a range of times
      * 
-     * @return an iterable of MenuItemReviews
+     * @param from the earliest dateReviewed to include; no limit if omitted
+     * @param to   the dateReviewed to stop before; no limit if omitted
+     * @param filter a filter over FILTER's fields (see EntityFilter); none if omitted
+     * @param sort   the fields to sort by (see EntityFilter)
+     * @return a list of MenuItemReviewDto, in the sort order if filter or sort is given, else in dateReviewed order if from or to is given
      */
-    @Operation(summary= "List all menu item reviews")
+    @Operation(summary= "List all menu item reviews, or those made from (including) from up to (not including) to")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<MenuItemReview> allMenuItemReviews() {
+    public List<MenuItemReviewDto> allMenuItemReviews(
+            @Parameter(name="from", description="date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(name="to", description="date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(name="filter", description="clauses field:op:value separated by commas, e.g. 'itemId:eq:7,stars:ge:4'") @RequestParam(required = false) String filter,
+            @Parameter(name="sort", description="fields separated by commas, - for descending, e.g. '-stars,dateReviewed'") @RequestParam(required = false) String sort) {
+        if (filter != null || sort != null) {
+            return MenuItemReviewDto.fromAll(findFiltered(menuItemReviewRepository, FILTER, filter, sort, "dateReviewed", from, to));
+        }
+        if (isTimeRange(from, to)) {
+            return MenuItemReviewDto.fromAll(menuItemReviewRepository.findByDateReviewedGreaterThanEqualAndDateReviewedLessThanOrderByDateReviewedAscIdAsc(
+                    rangeStart(from), rangeEnd(to)));
+        }
         Iterable<MenuItemReview> review = menuItemReviewRepository.findAll();
-        return review;
+        return MenuItemReviewDto.fromAll(review);
+    }
+
+    /**
+     * Count all menu item reviews, or those that match a filter or were made in a range of times
+     * 
+     * @param from   the earliest time to include; no limit if omitted
+     * @param to     the time to stop before; no limit if omitted
+     * @param filter a filter over FILTER's fields (see EntityFilter); none if omitted
+     * @param approximate whether an estimate will do for a large table (see EntityCountService); ignored with a filter or range
+     * @return the count, exact unless approximate is true and the table is large
+     */
+    @Operation(summary= "Count all menu item reviews, or those that match a filter or were made in a range of times")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/count")
+    public EntityCount countMenuItemReviews(
+            @Parameter(name="from", description="date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(name="to", description="date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(name="filter", description="clauses field:op:value separated by commas, e.g. 'itemId:eq:7,stars:ge:4'") @RequestParam(required = false) String filter,
+            @Parameter(name="approximate", description="true to allow an estimate from the table statistics for a large table") @RequestParam(defaultValue = "false") boolean approximate) {
+        if (filter != null || isTimeRange(from, to)) {
+            return countFiltered(menuItemReviewRepository, FILTER, filter, "dateReviewed", from, to);
+        }
+        return counts.count(MenuItemReview.class, menuItemReviewRepository, approximate);
+    }
+
+    /**
+     * Aggregates over the menu item reviews, grouped by up to three keys
+     * 
+     * @param groupBy the keys to group by (see AGGREGATES); the totals if omitted
+     * @param metrics count, or min, max or avg with :field (see EntityAggregation); count if omitted
+     * @param filter  a filter over FILTER's fields (see EntityFilter); none if omitted
+     * @return a row for each group, ordered by the keys
+     */
+    @Operation(summary= "Count, min, max or average menu item reviews by group")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/aggregate")
+    public List<AggregateRow> aggregateMenuItemReviews(
+            @Parameter(name="groupBy", description="keys separated by commas, e.g. 'itemId'") @RequestParam(required = false) String groupBy,
+            @Parameter(name="metrics", description="metrics separated by commas, e.g. 'count,avg:stars'") @RequestParam(required = false) String metrics,
+            @Parameter(name="filter", description="clauses field:op:value separated by commas, e.g. 'stars:ge:3'") @RequestParam(required = false) String filter) {
+        return aggregations.aggregate(menuItemReviewRepository, AGGREGATES.compile(groupBy, metrics, filter));
     }
 
     /**
@@ -73,6 +158,20 @@ public class MenuItemReviewController extends ApiController {
         return menuItemReview;
     }
 
+    /**
+     * Get several menu item reviews by id, in one query
+     * 
+     * @param ids the ids of the menu item reviews
+     * @return the menu item reviews found, in the order asked for, and the ids not found
+     */
+    @Operation(summary= "Get several menu item reviews by id")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "ids")
+    public EntityBatch<MenuItemReview, Long> getByIds(
+            @Parameter(name="ids", description="ids separated by commas (at most app.multiget.maxIds)") @RequestParam List<Long> ids) {
+        return findAllById(ids, MenuItemReview::getId, menuItemReviewRepository::findAllById);
+    }
+
     /**
      * Create a new menu item review
      * 
@@ -99,6 +198,8 @@ public class MenuItemReviewController extends ApiController {
 
         log.info("dateReviewed={}", dateReviewed);
 
+        checkMenuItemExists(itemId);
+
         MenuItemReview menuItemReview = new MenuItemReview();
         menuItemReview.setItemId(itemId);
         menuItemReview.setReviewerEmail(reviewerEmail);
@@ -107,6 +208,8 @@ public class MenuItemReviewController extends ApiController {
         menuItemReview.setComments(comments);
 
         MenuItemReview savedMenuItemReview = menuItemReviewRepository.save(menuItemReview);
+        aggregations.invalidate(MenuItemReview.class);
+        counts.invalidate(MenuItemReview.class);
 
         return savedMenuItemReview;
     }
@@ -125,6 +228,8 @@ public class MenuItemReviewController extends ApiController {
                 MenuItemReview menuItemReview = menuItemReviewRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
         menuItemReviewRepository.delete(menuItemReview);
+        aggregations.invalidate(MenuItemReview.class);
+        counts.invalidate(MenuItemReview.class);
         return genericMessage("menuitemreview with id %s deleted".formatted(id));
     }
 
@@ -145,6 +250,7 @@ public class MenuItemReviewController extends ApiController {
 
         MenuItemReview menuItemReview = menuItemReviewRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
+        checkMenuItemExists(incoming.getItemId());
 
                 menuItemReview.setItemId(incoming.getItemId());
                 menuItemReview.setReviewerEmail(incoming.getReviewerEmail());
@@ -153,7 +259,15 @@ public class MenuItemReviewController extends ApiController {
                 menuItemReview.setComments(incoming.getComments());
 
         menuItemReviewRepository.save(menuItemReview);
+        aggregations.invalidate(MenuItemReview.class);
 
         return menuItemReview;
     }
+
+    /** The itemId column is a foreign key, so refer only to menu items that exist */
+    private void checkMenuItemExists(long itemId) {
+        if (!ucsbDiningCommonsMenuItemRepository.existsById(itemId)) {
+            throw new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, itemId);
+        }
+    }
 }
\ No newline at end of file
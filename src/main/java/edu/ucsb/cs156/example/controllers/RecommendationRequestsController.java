@@ -3,9 +3,21 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.Articles;
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
 import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.errors.BadRequestException;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.helpers.EntityAggregation;
+import edu.ucsb.cs156.example.helpers.EntityFilter;
+import edu.ucsb.cs156.example.models.AggregateRow;
+import edu.ucsb.cs156.example.models.EntityBatch;
+import edu.ucsb.cs156.example.models.EntityCount;
+import edu.ucsb.cs156.example.models.RecommendationRequestDto;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.services.EntityAggregationService;
+import edu.ucsb.cs156.example.services.EntityCountService;
+import edu.ucsb.cs156.example.services.FlagIndexService;
+import edu.ucsb.cs156.example.services.RecommendationDeadlineService;
+import edu.ucsb.cs156.example.services.RecommendationReminderService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -30,6 +42,8 @@ import org.springframework.web.bind.annotation.RestController;
 import jakarta.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 /**
  * This is a REST controller for req requests
@@ -41,20 +55,191 @@ import java.time.LocalDateTime;
  @Slf4j
 
 public class RecommendationRequestsController extends ApiController {
+
+    /** The fields that /all can filter and sort on */
+    static final EntityFilter<RecommendationRequest> FILTER = EntityFilter.of(RecommendationRequest.class,
+            "requesterEmail", "professorEmail", "dateRequested", "dateNeeded", "done");
+
+    /** The keys and fields that /aggregate can group by and compute metrics over */
+    static final EntityAggregation<RecommendationRequest> AGGREGATES = EntityAggregation.of(FILTER,
+            List.of("professorEmail", "requesterEmail", "done"), List.of("dateRequested", "dateNeeded"));
+
     @Autowired
     RecommendationRequestRepository recommendationRequestRepository;
 
+    @Autowired
+    FlagIndexService flagIndex;
+
+    @Autowired
+    RecommendationDeadlineService recommendationDeadlines;
+
+    @Autowired
+    RecommendationReminderService recommendationReminders;
+
+    @Autowired
+    EntityAggregationService aggregations;
+
+    @Autowired
+    EntityCountService counts;
+
     /**
-     * List all recommendation requests
+     * List all recommendation requests, or those requested or needed in a range of times
      * 
-     * @return an iterable of rec req
+     * @param from the earliest time to include; no limit if omitted
+     * @param to   the time to stop before; no limit if omitted
+     * @param by   the time that from and to apply to, dateRequested or dateNeeded
+     * @param filter a filter over FILTER's fields (see EntityFilter); none if omitted
+     * @param sort   the fields to sort by (see EntityFilter)
+     * @return a list of RecommendationRequestDto, in the sort order if filter or sort is given, else in order of that time if from or to is given
      */
-    @Operation(summary= "List all recommendation reqs")
+    @Operation(summary= "List all recommendation reqs, or those with a time from (including) from up to (not including) to")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<RecommendationRequest> allRecommendationRequests() {
-        Iterable<RecommendationRequest> recommendationRequests = recommendationRequestRepository.findAll();
-        return recommendationRequests;
+    public List<RecommendationRequestDto> allRecommendationRequests(
+            @Parameter(name="from", description="date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(name="to", description="date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(name="by", description="dateRequested (the default) or dateNeeded") @RequestParam(defaultValue = "dateRequested") String by,
+            @Parameter(name="filter", description="clauses field:op:value separated by commas, e.g. 'professorEmail:eq:pconrad@ucsb.edu,done:eq:false'") @RequestParam(required = false) String filter,
+            @Parameter(name="sort", description="fields separated by commas, - for descending, e.g. 'dateNeeded'") @RequestParam(required = false) String sort) {
+        if (!by.equals("dateRequested") && !by.equals("dateNeeded")) {
+            throw new BadRequestException("by must be dateRequested or dateNeeded");
+        }
+        if (filter != null || sort != null) {
+            return RecommendationRequestDto.fromAll(findFiltered(recommendationRequestRepository, FILTER, filter, sort, by, from, to));
+        }
+        if (!isTimeRange(from, to)) {
+            Iterable<RecommendationRequest> recommendationRequests = recommendationRequestRepository.findAll();
+            return RecommendationRequestDto.fromAll(recommendationRequests);
+        }
+        if (by.equals("dateNeeded")) {
+            return RecommendationRequestDto.fromAll(recommendationRequestRepository.findByDateNeededGreaterThanEqualAndDateNeededLessThanOrderByDateNeededAscIdAsc(
+                    rangeStart(from), rangeEnd(to)));
+        }
+        return RecommendationRequestDto.fromAll(recommendationRequestRepository.findByDateRequestedGreaterThanEqualAndDateRequestedLessThanOrderByDateRequestedAscIdAsc(
+                rangeStart(from), rangeEnd(to)));
+    }
+
+    /**
+     * Count all recommendation requests, or those that match a filter or were requested or needed in a range of times
+     * 
+     * @param from   the earliest time to include; no limit if omitted
+     * @param to     the time to stop before; no limit if omitted
+     * @param by     the time that from and to apply to, dateRequested or dateNeeded
+     * @param filter a filter over FILTER's fields (see EntityFilter); none if omitted
+     * @param approximate whether an estimate will do for a large table (see EntityCountService); ignored with a filter or range
+     * @return the count, exact unless approximate is true and the table is large
+     */
+    @Operation(summary= "Count all recommendation requests, or those that match a filter or were requested or needed in a range of times")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/count")
+    public EntityCount countRecommendationRequests(
+            @Parameter(name="from", description="date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(name="to", description="date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(name="by", description="dateRequested (the default) or dateNeeded") @RequestParam(defaultValue = "dateRequested") String by,
+            @Parameter(name="filter", description="clauses field:op:value separated by commas, e.g. 'professorEmail:eq:pconrad@ucsb.edu,done:eq:false'") @RequestParam(required = false) String filter,
+            @Parameter(name="approximate", description="true to allow an estimate from the table statistics for a large table") @RequestParam(defaultValue = "false") boolean approximate) {
+        if (!by.equals("dateRequested") && !by.equals("dateNeeded")) {
+            throw new BadRequestException("by must be dateRequested or dateNeeded");
+        }
+        if (filter != null || isTimeRange(from, to)) {
+            return countFiltered(recommendationRequestRepository, FILTER, filter, by, from, to);
+        }
+        return counts.count(RecommendationRequest.class, recommendationRequestRepository, approximate);
+    }
+
+    /**
+     * Aggregates over the recommendation requests, grouped by up to three keys
+     * 
+     * @param groupBy the keys to group by (see AGGREGATES); the totals if omitted
+     * @param metrics count, or min, max or avg with :field (see EntityAggregation); count if omitted
+     * @param filter  a filter over FILTER's fields (see EntityFilter); none if omitted
+     * @return a row for each group, ordered by the keys
+     */
+    @Operation(summary= "Count, min, max or average recommendation requests by group")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/aggregate")
+    public List<AggregateRow> aggregateRecommendationRequests(
+            @Parameter(name="groupBy", description="keys separated by commas, e.g. 'professorEmail'") @RequestParam(required = false) String groupBy,
+            @Parameter(name="metrics", description="metrics separated by commas, e.g. 'count,min:dateNeeded'") @RequestParam(required = false) String metrics,
+            @Parameter(name="filter", description="clauses field:op:value separated by commas, e.g. 'done:eq:false'") @RequestParam(required = false) String filter) {
+        return aggregations.aggregate(recommendationRequestRepository, AGGREGATES.compile(groupBy, metrics, filter));
+    }
+
+    /**
+     * List the recommendation requests whose flags match a filter, e.g. {@code not done}.
+     * 
+     * @param filter a filter over the flag {@code done}; blank matches all
+     * @return a list of RecommendationRequestDto
+     */
+    @Operation(summary= "List recommendation requests whose flags match a filter")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/flags")
+    public List<RecommendationRequestDto> recommendationRequestsByFlags(
+            @Parameter(name="filter", description="flags combined with and, or, not and parentheses, e.g. 'not done'") @RequestParam(defaultValue = "") String filter) {
+        return RecommendationRequestDto.fromAll(recommendationRequestRepository.findAllById(flagIndex.getRecommendationRequests().select(filter)));
+    }
+
+    /**
+     * Count the recommendation requests whose flags match a filter, e.g. {@code not done}.
+     * 
+     * @param filter a filter over the flag {@code done}; blank matches all
+     * @return a map with the count
+     */
+    @Operation(summary= "Count recommendation requests whose flags match a filter")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/flags/count")
+    public Object countRecommendationRequestsByFlags(
+            @Parameter(name="filter", description="flags combined with and, or, not and parentheses, e.g. 'not done'") @RequestParam(defaultValue = "") String filter) {
+        return Map.of("count", flagIndex.getRecommendationRequests().count(filter));
+    }
+
+    /**
+     * List the recommendation requests that are not done and are needed in the next few days
+     * 
+     * @param days           how many days ahead to look
+     * @param professorEmail if given, only the requests to this professor
+     * @return a list of RecommendationRequestDto, soonest first
+     */
+    @Operation(summary= "List recommendation requests that are not done and are due in the next few days")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/upcoming")
+    public List<RecommendationRequestDto> upcomingRecommendationRequests(
+            @Parameter(name="days", description="how many days ahead to look (1 to 365)") @RequestParam(defaultValue = "7") int days,
+            @Parameter(name="professorEmail", description="only the requests to this professor; all if omitted") @RequestParam(required = false) String professorEmail) {
+        LocalDateTime now = LocalDateTime.now();
+        return RecommendationRequestDto.fromAll(recommendationDeadlines.upcoming(now, now.plusDays(Math.max(1, Math.min(days, 365))), professorEmail));
+    }
+
+    /**
+     * List the recommendation requests that are not done and were needed before now
+     * 
+     * @param professorEmail if given, only the requests to this professor
+     * @return a list of RecommendationRequestDto, most overdue first
+     */
+    @Operation(summary= "List recommendation requests that are overdue and not done")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/overdue")
+    public List<RecommendationRequestDto> overdueRecommendationRequests(
+            @Parameter(name="professorEmail", description="only the requests to this professor; all if omitted") @RequestParam(required = false) String professorEmail) {
+        LocalDateTime now = LocalDateTime.now();
+        if (professorEmail == null) {
+            return RecommendationRequestDto.fromAll(recommendationRequestRepository.findByDoneFalseAndDateNeededBeforeOrderByDateNeededAscIdAsc(now));
+        }
+        return RecommendationRequestDto.fromAll(recommendationRequestRepository.findByProfessorEmailAndDoneFalseAndDateNeededBeforeOrderByDateNeededAscIdAsc(professorEmail, now));
+    }
+
+    /**
+     * List the recommendation requests to a professor
+     * 
+     * @param professorEmail the professor's email
+     * @return a list of RecommendationRequestDto, ordered by dateNeeded
+     */
+    @Operation(summary= "List the recommendation requests to a professor")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/professor")
+    public List<RecommendationRequestDto> recommendationRequestsForProfessor(
+            @Parameter(name="professorEmail") @RequestParam String professorEmail) {
+        return RecommendationRequestDto.fromAll(recommendationRequestRepository.findByProfessorEmailOrderByDateNeededAscIdAsc(professorEmail));
     }
 
     /**
@@ -74,6 +259,20 @@ public class RecommendationRequestsController extends ApiController {
         return recommendationRequest;
     }
 
+    /**
+     * Get several recommendation requests by id, in one query
+     * 
+     * @param ids the ids of the recommendation requests
+     * @return the recommendation requests found, in the order asked for, and the ids not found
+     */
+    @Operation(summary= "Get several recommendation requests by id")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "ids")
+    public EntityBatch<RecommendationRequest, Long> getByIds(
+            @Parameter(name="ids", description="ids separated by commas (at most app.multiget.maxIds)") @RequestParam List<Long> ids) {
+        return findAllById(ids, RecommendationRequest::getId, recommendationRequestRepository::findAllById);
+    }
+
     /**
      * Create a new rec req
      * 
@@ -112,6 +311,11 @@ public class RecommendationRequestsController extends ApiController {
         recommendationRequest.setDone(done);
 
         RecommendationRequest savedRecommendationRequest = recommendationRequestRepository.save(recommendationRequest);
+        aggregations.invalidate(RecommendationRequest.class);
+        counts.invalidate(RecommendationRequest.class);
+        flagIndex.add(savedRecommendationRequest);
+        recommendationDeadlines.add(savedRecommendationRequest);
+        recommendationReminders.add(savedRecommendationRequest);
 
         return savedRecommendationRequest;
     }
@@ -142,6 +346,10 @@ public class RecommendationRequestsController extends ApiController {
                 recommendationRequest.setDone(incoming.getDone());
         
                 recommendationRequestRepository.save(recommendationRequest);
+                aggregations.invalidate(RecommendationRequest.class);
+                flagIndex.add(recommendationRequest);
+                recommendationDeadlines.add(recommendationRequest);
+                recommendationReminders.add(recommendationRequest);
         
                 return recommendationRequest;
             }
@@ -161,6 +369,11 @@ public class RecommendationRequestsController extends ApiController {
                 .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
 
         recommendationRequestRepository.delete(recRequest);
+        aggregations.invalidate(RecommendationRequest.class);
+        counts.invalidate(RecommendationRequest.class);
+        flagIndex.removeRecommendationRequest(id);
+        recommendationDeadlines.remove(id);
+        recommendationReminders.remove(id);
         return genericMessage("RecommendationRequest with id %s deleted".formatted(id));
     }
 
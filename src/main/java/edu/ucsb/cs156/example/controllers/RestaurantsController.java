@@ -2,7 +2,14 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.Restaurant;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.helpers.EntityFilter;
+import edu.ucsb.cs156.example.models.EntityBatch;
+import edu.ucsb.cs156.example.models.EntityCount;
+import edu.ucsb.cs156.example.models.RestaurantDto;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.services.EntityCountService;
+import edu.ucsb.cs156.example.services.ResponseCacheService;
+import edu.ucsb.cs156.example.services.RestaurantSearchService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -21,6 +28,8 @@ import org.springframework.web.bind.annotation.RestController;
 
 import jakarta.validation.Valid;
 
+import java.util.List;
+
 /**
  * This is a REST controller for Restaurants
  */
@@ -30,19 +39,74 @@ import jakarta.validation.Valid;
 @RestController
 public class RestaurantsController extends ApiController {
 
+    /** The fields that /all can filter and sort on */
+    static final EntityFilter<Restaurant> FILTER = EntityFilter.of(Restaurant.class,
+            "name", "description");
+
     @Autowired
     RestaurantRepository restaurantRepository;
 
+    @Autowired
+    RestaurantSearchService restaurantSearch;
+
+    @Autowired
+    EntityCountService counts;
+
+    @Autowired
+    ResponseCacheService responseCache;
+
     /**
-     * This method returns a list of all restaurants.
-     * @return a list of all restaurants
+     * This method returns a list of all restaurants, or those that match a filter.
+     * @param filter a filter over FILTER's fields (see EntityFilter); none if omitted
+     * @param sort   the fields to sort by (see EntityFilter)
+     * @return a list of RestaurantDto, in the sort order if filter or sort is given
      */
     @Operation(summary = "List all restaurants")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<Restaurant> allRestaurants() {
+    public List<RestaurantDto> allRestaurants(
+            @Parameter(name="filter", description="clauses field:op:value separated by commas, e.g. 'name:prefix:Freebirds'") @RequestParam(required = false) String filter,
+            @Parameter(name="sort", description="fields separated by commas, - for descending, e.g. 'name'") @RequestParam(required = false) String sort) {
+        if (filter != null || sort != null) {
+            return RestaurantDto.fromAll(findFiltered(restaurantRepository, FILTER, filter, sort, null, null, null));
+        }
         Iterable<Restaurant> restaurants = restaurantRepository.findAll();
-        return restaurants;
+        return RestaurantDto.fromAll(restaurants);
+    }
+
+    /**
+     * Count all restaurants, or those that match a filter
+     * 
+     * @param filter a filter over FILTER's fields (see EntityFilter); none if omitted
+     * @param approximate whether an estimate will do for a large table (see EntityCountService); ignored with a filter
+     * @return the count, exact unless approximate is true and the table is large
+     */
+    @Operation(summary = "Count all restaurants, or those that match a filter")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/count")
+    public EntityCount countRestaurants(
+            @Parameter(name="filter", description="clauses field:op:value separated by commas, e.g. 'name:prefix:Freebirds'") @RequestParam(required = false) String filter,
+            @Parameter(name="approximate", description="true to allow an estimate from the table statistics for a large table") @RequestParam(defaultValue = "false") boolean approximate) {
+        if (filter != null) {
+            return countFiltered(restaurantRepository, FILTER, filter, null, null, null);
+        }
+        return counts.count(Restaurant.class, restaurantRepository, approximate);
+    }
+
+    /**
+     * This method returns the restaurants whose name or description best match the query.
+     * The match is fuzzy, so misspelled queries still find the restaurant.
+     * @param q the search string
+     * @param limit the maximum number of restaurants to return
+     * @return a list of RestaurantDto, best match first
+     */
+    @Operation(summary = "Search restaurants by name and description")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/search")
+    public List<RestaurantDto> searchRestaurants(
+            @Parameter(name = "q") @RequestParam String q,
+            @Parameter(name = "limit", description = "maximum number of results (1 to 100)") @RequestParam(defaultValue = "10") int limit) {
+        return RestaurantDto.fromAll(restaurantSearch.search(q, Math.max(1, Math.min(limit, 100))));
     }
 
     /**
@@ -61,6 +125,20 @@ public class RestaurantsController extends ApiController {
         return restaurant;
     }
 
+    /**
+     * Get several restaurants by id, in one query
+     * 
+     * @param ids the ids of the restaurants
+     * @return the restaurants found, in the order asked for, and the ids not found
+     */
+    @Operation(summary = "Get several restaurants by id")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "ids")
+    public EntityBatch<Restaurant, Long> getByIds(
+            @Parameter(name = "ids", description = "ids separated by commas (at most app.multiget.maxIds)") @RequestParam List<Long> ids) {
+        return findAllById(ids, Restaurant::getId, restaurantRepository::findAllById);
+    }
+
     /**
      * This method creates a new restaurant. Accessible only to users with the role "ROLE_ADMIN".
      * @param name name of the restaurant
@@ -79,6 +157,9 @@ public class RestaurantsController extends ApiController {
         restaurant.setDescription(description);
         
         Restaurant savedrestaurant = restaurantRepository.save(restaurant);
+        counts.invalidate(Restaurant.class);
+        responseCache.invalidate(Restaurant.class);
+        restaurantSearch.add(savedrestaurant);
         return savedrestaurant;
     }
 
@@ -96,6 +177,9 @@ public class RestaurantsController extends ApiController {
                 .orElseThrow(() -> new EntityNotFoundException(Restaurant.class, id));
 
         restaurantRepository.delete(restaurant);
+        counts.invalidate(Restaurant.class);
+        responseCache.invalidate(Restaurant.class);
+        restaurantSearch.remove(id);
         return genericMessage("Restaurant with id %s deleted".formatted(id));
     }
 
@@ -119,6 +203,8 @@ public class RestaurantsController extends ApiController {
         restaurant.setDescription(incoming.getDescription());
 
         restaurantRepository.save(restaurant);
+        responseCache.invalidate(Restaurant.class);
+        restaurantSearch.add(restaurant);
 
         return restaurant;
     }
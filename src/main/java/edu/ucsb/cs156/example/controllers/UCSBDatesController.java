@@ -1,8 +1,18 @@
 package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.errors.BadRequestException;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.helpers.EntityAggregation;
+import edu.ucsb.cs156.example.helpers.EntityFilter;
+import edu.ucsb.cs156.example.models.AggregateRow;
+import edu.ucsb.cs156.example.models.EntityBatch;
+import edu.ucsb.cs156.example.models.EntityCount;
+import edu.ucsb.cs156.example.models.UCSBDateDto;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.services.EntityAggregationService;
+import edu.ucsb.cs156.example.services.EntityCountService;
+import edu.ucsb.cs156.example.services.UCSBDateCalendarService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -26,6 +36,7 @@ import org.springframework.web.bind.annotation.RestController;
 import jakarta.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * This is a REST controller for UCSBDates
@@ -37,20 +48,142 @@ import java.time.LocalDateTime;
 @Slf4j
 public class UCSBDatesController extends ApiController {
 
+    /** The fields that /all can filter and sort on */
+    static final EntityFilter<UCSBDate> FILTER = EntityFilter.of(UCSBDate.class,
+            "quarterYYYYQ", "name", "localDateTime");
+
+    /** The keys and fields that /aggregate can group by and compute metrics over */
+    static final EntityAggregation<UCSBDate> AGGREGATES = EntityAggregation.of(FILTER,
+            List.of("quarterYYYYQ"), List.of("localDateTime"));
+
     @Autowired
     UCSBDateRepository ucsbDateRepository;
 
+    @Autowired
+    UCSBDateCalendarService ucsbDateCalendar;
+
+    @Autowired
+    EntityAggregationService aggregations;
+
+    @Autowired
+    EntityCountService counts;
+
     /**
-     * List all UCSB dates
+     * List all UCSB dates, or those in a range of times
      * 
-     * @return an iterable of UCSBDate
+     * @param from the earliest localDateTime to include; no limit if omitted
+     * @param to   the localDateTime to stop before; no limit if omitted
+     * @param filter a filter over FILTER's fields (see EntityFilter); none if omitted
+     * @param sort   the fields to sort by (see EntityFilter)
+     * @return a list of UCSBDateDto, in the sort order if filter or sort is given, else in time order if from or to is given
      */
-    @Operation(summary= "List all ucsb dates")
+    @Operation(summary= "List all ucsb dates, or those from (including) from up to (not including) to")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBDate> allUCSBDates() {
+    public List<UCSBDateDto> allUCSBDates(
+            @Parameter(name="from", description="date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(name="to", description="date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(name="filter", description="clauses field:op:value separated by commas, e.g. 'quarterYYYYQ:in:20241|20242'") @RequestParam(required = false) String filter,
+            @Parameter(name="sort", description="fields separated by commas, - for descending, e.g. 'localDateTime'") @RequestParam(required = false) String sort) {
+        if (filter != null || sort != null) {
+            return UCSBDateDto.fromAll(findFiltered(ucsbDateRepository, FILTER, filter, sort, "localDateTime", from, to));
+        }
+        if (isTimeRange(from, to)) {
+            return UCSBDateDto.fromAll(ucsbDateCalendar.between(rangeStart(from), rangeEnd(to)));
+        }
         Iterable<UCSBDate> dates = ucsbDateRepository.findAll();
-        return dates;
+        return UCSBDateDto.fromAll(dates);
+    }
+
+    /**
+     * Count all UCSB dates, or those that match a filter or are in a range of times
+     * 
+     * @param from   the earliest time to include; no limit if omitted
+     * @param to     the time to stop before; no limit if omitted
+     * @param filter a filter over FILTER's fields (see EntityFilter); none if omitted
+     * @param approximate whether an estimate will do for a large table (see EntityCountService); ignored with a filter or range
+     * @return the count, exact unless approximate is true and the table is large
+     */
+    @Operation(summary= "Count all ucsb dates, or those that match a filter or are in a range of times")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/count")
+    public EntityCount countUCSBDates(
+            @Parameter(name="from", description="date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(name="to", description="date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(name="filter", description="clauses field:op:value separated by commas, e.g. 'quarterYYYYQ:in:20241|20242'") @RequestParam(required = false) String filter,
+            @Parameter(name="approximate", description="true to allow an estimate from the table statistics for a large table") @RequestParam(defaultValue = "false") boolean approximate) {
+        if (filter != null || isTimeRange(from, to)) {
+            return countFiltered(ucsbDateRepository, FILTER, filter, "localDateTime", from, to);
+        }
+        return counts.count(UCSBDate.class, ucsbDateRepository, approximate);
+    }
+
+    /**
+     * Aggregates over the UCSB dates, grouped by up to three keys
+     * 
+     * @param groupBy the keys to group by (see AGGREGATES); the totals if omitted
+     * @param metrics count, or min, max or avg with :field (see EntityAggregation); count if omitted
+     * @param filter  a filter over FILTER's fields (see EntityFilter); none if omitted
+     * @return a row for each group, ordered by the keys
+     */
+    @Operation(summary= "Count, min, max or average UCSB dates by group")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/aggregate")
+    public List<AggregateRow> aggregateUCSBDates(
+            @Parameter(name="groupBy", description="keys separated by commas, e.g. 'quarterYYYYQ'") @RequestParam(required = false) String groupBy,
+            @Parameter(name="metrics", description="metrics separated by commas, e.g. 'count,min:localDateTime'") @RequestParam(required = false) String metrics,
+            @Parameter(name="filter", description="clauses field:op:value separated by commas, e.g. 'name:prefix:Finals'") @RequestParam(required = false) String filter) {
+        return aggregations.aggregate(ucsbDateRepository, AGGREGATES.compile(groupBy, metrics, filter));
+    }
+
+    /**
+     * List the dates in a quarter
+     * 
+     * @param quarterYYYYQ the quarter in the format YYYYQ
+     * @return a list of UCSBDateDto, in time order
+     */
+    @Operation(summary= "List the dates in a quarter")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/quarter")
+    public List<UCSBDateDto> datesInQuarter(
+            @Parameter(name="quarterYYYYQ", description="quarter in the format YYYYQ, e.g. 20241 for Winter 2024") @RequestParam String quarterYYYYQ) {
+        return UCSBDateDto.fromAll(ucsbDateCalendar.inQuarter(quarterYYYYQ));
+    }
+
+    /**
+     * List the dates between two times
+     * 
+     * @param start the first time to include
+     * @param end   the first time after start to leave out
+     * @return a list of UCSBDateDto, in time order
+     */
+    @Operation(summary= "List the dates from start up to (not including) end")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/between")
+    public List<UCSBDateDto> datesBetween(
+            @Parameter(name="start", description="date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @Parameter(name="end", description="date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        if (end.isBefore(start)) {
+            throw new BadRequestException("end must not be before start");
+        }
+        return UCSBDateDto.fromAll(ucsbDateCalendar.between(start, end));
+    }
+
+    /**
+     * List the next dates
+     * 
+     * @param from  the first time to include; now if omitted
+     * @param count the maximum number of dates to return
+     * @return a list of UCSBDateDto, in time order
+     */
+    @Operation(summary= "List the next dates")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/upcoming")
+    public List<UCSBDateDto> upcomingDates(
+            @Parameter(name="from", description="date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS); now if omitted") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(name="count", description="maximum number of dates (1 to 100)") @RequestParam(defaultValue = "5") int count) {
+        LocalDateTime start = from == null ? LocalDateTime.now() : from;
+        return UCSBDateDto.fromAll(ucsbDateCalendar.upcoming(start, Math.max(1, Math.min(count, 100))));
     }
 
     /**
@@ -70,6 +203,20 @@ public class UCSBDatesController extends ApiController {
         return ucsbDate;
     }
 
+    /**
+     * Get several UCSB dates by id, in one query
+     * 
+     * @param ids the ids of the UCSB dates
+     * @return the UCSB dates found, in the order asked for, and the ids not found
+     */
+    @Operation(summary= "Get several UCSB dates by id")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "ids")
+    public EntityBatch<UCSBDate, Long> getByIds(
+            @Parameter(name="ids", description="ids separated by commas (at most app.multiget.maxIds)") @RequestParam List<Long> ids) {
+        return findAllById(ids, UCSBDate::getId, ucsbDateRepository::findAllById);
+    }
+
     /**
      * Create a new date
      * 
@@ -98,6 +245,9 @@ public class UCSBDatesController extends ApiController {
         ucsbDate.setLocalDateTime(localDateTime);
 
         UCSBDate savedUcsbDate = ucsbDateRepository.save(ucsbDate);
+        aggregations.invalidate(UCSBDate.class);
+        counts.invalidate(UCSBDate.class);
+        ucsbDateCalendar.add(savedUcsbDate);
 
         return savedUcsbDate;
     }
@@ -117,6 +267,9 @@ public class UCSBDatesController extends ApiController {
                 .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
 
         ucsbDateRepository.delete(ucsbDate);
+        aggregations.invalidate(UCSBDate.class);
+        counts.invalidate(UCSBDate.class);
+        ucsbDateCalendar.remove(id);
         return genericMessage("UCSBDate with id %s deleted".formatted(id));
     }
 
@@ -142,6 +295,8 @@ public class UCSBDatesController extends ApiController {
         ucsbDate.setLocalDateTime(incoming.getLocalDateTime());
 
         ucsbDateRepository.save(ucsbDate);
+        aggregations.invalidate(UCSBDate.class);
+        ucsbDateCalendar.add(ucsbDate);
 
         return ucsbDate;
     }
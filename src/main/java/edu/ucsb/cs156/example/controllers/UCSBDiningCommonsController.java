@@ -1,8 +1,24 @@
 package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.errors.EntityInUseException;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.helpers.EntityAggregation;
+import edu.ucsb.cs156.example.helpers.EntityFilter;
+import edu.ucsb.cs156.example.models.AggregateRow;
+import edu.ucsb.cs156.example.models.EntityBatch;
+import edu.ucsb.cs156.example.models.EntityCount;
+import edu.ucsb.cs156.example.models.NearbyDiningCommons;
+import edu.ucsb.cs156.example.models.UCSBDiningCommonsDto;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.services.DiningCommonsMenuService;
+import edu.ucsb.cs156.example.services.DiningCommonsLocatorService;
+import edu.ucsb.cs156.example.services.EntityAggregationService;
+import edu.ucsb.cs156.example.services.EntityCountService;
+import edu.ucsb.cs156.example.services.FlagIndexService;
+import edu.ucsb.cs156.example.services.ResponseCacheService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -10,6 +26,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -22,6 +39,9 @@ import org.springframework.web.bind.annotation.RestController;
 
 import jakarta.validation.Valid;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * This is a REST controller for UCSBDiningCommons
  */
@@ -32,19 +52,141 @@ import jakarta.validation.Valid;
 @Slf4j
 public class UCSBDiningCommonsController extends ApiController {
 
+    /** The fields that /all can filter and sort on */
+    static final EntityFilter<UCSBDiningCommons> FILTER = EntityFilter.of(UCSBDiningCommons.class,
+            "name", "hasSackMeal", "hasTakeOutMeal", "hasDiningCam", "latitude", "longitude");
+
+    /** The keys and fields that /aggregate can group by and compute metrics over */
+    static final EntityAggregation<UCSBDiningCommons> AGGREGATES = EntityAggregation.of(FILTER,
+            List.of("hasSackMeal", "hasTakeOutMeal", "hasDiningCam"), List.of("latitude", "longitude"));
+
     @Autowired
     UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
 
+    @Autowired
+    DiningCommonsLocatorService diningCommonsLocator;
+
+    @Autowired
+    FlagIndexService flagIndex;
+
+    @Autowired
+    DiningCommonsMenuService diningCommonsMenu;
+
+    @Autowired
+    EntityAggregationService aggregations;
+
+    @Autowired
+    EntityCountService counts;
+
+    @Autowired
+    ResponseCacheService responseCache;
+
     /**
-     * THis method returns a list of all ucsbdiningcommons.
-     * @return a list of all ucsbdiningcommons
+     * THis method returns a list of all ucsbdiningcommons, or those that match a filter.
+     * @param filter a filter over FILTER's fields (see EntityFilter); none if omitted
+     * @param sort   the fields to sort by (see EntityFilter)
+     * @return a list of UCSBDiningCommonsDto, in the sort order if filter or sort is given
      */
     @Operation(summary= "List all ucsb dining commons")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBDiningCommons> allCommonss() {
+    public List<UCSBDiningCommonsDto> allCommonss(
+            @Parameter(name="filter", description="clauses field:op:value separated by commas, e.g. 'hasSackMeal:eq:true'") @RequestParam(required = false) String filter,
+            @Parameter(name="sort", description="fields separated by commas, - for descending, e.g. '-latitude'") @RequestParam(required = false) String sort) {
+        if (filter != null || sort != null) {
+            return UCSBDiningCommonsDto.fromAll(findFiltered(ucsbDiningCommonsRepository, FILTER, filter, sort, null, null, null));
+        }
         Iterable<UCSBDiningCommons> commons = ucsbDiningCommonsRepository.findAll();
-        return commons;
+        return UCSBDiningCommonsDto.fromAll(commons);
+    }
+
+    /**
+     * Count all dining commons, or those that match a filter
+     * 
+     * @param filter a filter over FILTER's fields (see EntityFilter); none if omitted
+     * @param approximate whether an estimate will do for a large table (see EntityCountService); ignored with a filter
+     * @return the count, exact unless approximate is true and the table is large
+     */
+    @Operation(summary= "Count all dining commons, or those that match a filter")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/count")
+    public EntityCount countCommons(
+            @Parameter(name="filter", description="clauses field:op:value separated by commas, e.g. 'hasSackMeal:eq:true'") @RequestParam(required = false) String filter,
+            @Parameter(name="approximate", description="true to allow an estimate from the table statistics for a large table") @RequestParam(defaultValue = "false") boolean approximate) {
+        if (filter != null) {
+            return countFiltered(ucsbDiningCommonsRepository, FILTER, filter, null, null, null);
+        }
+        return counts.count(UCSBDiningCommons.class, ucsbDiningCommonsRepository, approximate);
+    }
+
+    /**
+     * Aggregates over the dining commons, grouped by up to three keys
+     * 
+     * @param groupBy the keys to group by (see AGGREGATES); the totals if omitted
+     * @param metrics count, or min, max or avg with :field (see EntityAggregation); count if omitted
+     * @param filter  a filter over FILTER's fields (see EntityFilter); none if omitted
+     * @return a row for each group, ordered by the keys
+     */
+    @Operation(summary= "Count, min, max or average dining commons by group")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/aggregate")
+    public List<AggregateRow> aggregateCommons(
+            @Parameter(name="groupBy", description="keys separated by commas, e.g. 'hasSackMeal'") @RequestParam(required = false) String groupBy,
+            @Parameter(name="metrics", description="metrics separated by commas, e.g. 'count,avg:latitude'") @RequestParam(required = false) String metrics,
+            @Parameter(name="filter", description="clauses field:op:value separated by commas, e.g. 'hasDiningCam:eq:true'") @RequestParam(required = false) String filter) {
+        return aggregations.aggregate(ucsbDiningCommonsRepository, AGGREGATES.compile(groupBy, metrics, filter));
+    }
+
+    /**
+     * List the ucsbdiningcommons whose flags match a filter, e.g. {@code hasSackMeal and not hasDiningCam}.
+     * 
+     * @param filter a filter over the flags {@code hasSackMeal}, {@code hasTakeOutMeal} and {@code hasDiningCam}; blank matches all
+     * @return a list of UCSBDiningCommonsDto
+     */
+    @Operation(summary= "List ucsbdiningcommons whose flags match a filter")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/flags")
+    public List<UCSBDiningCommonsDto> commonsByFlags(
+            @Parameter(name="filter", description="flags combined with and, or, not and parentheses, e.g. 'hasSackMeal and not hasDiningCam'") @RequestParam(defaultValue = "") String filter) {
+        return UCSBDiningCommonsDto.fromAll(ucsbDiningCommonsRepository.findAllById(flagIndex.getDiningCommons().select(filter)));
+    }
+
+    /**
+     * Count the ucsbdiningcommons whose flags match a filter, e.g. {@code hasSackMeal and not hasDiningCam}.
+     * 
+     * @param filter a filter over the flags {@code hasSackMeal}, {@code hasTakeOutMeal} and {@code hasDiningCam}; blank matches all
+     * @return a map with the count
+     */
+    @Operation(summary= "Count ucsbdiningcommons whose flags match a filter")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/flags/count")
+    public Object countCommonsByFlags(
+            @Parameter(name="filter", description="flags combined with and, or, not and parentheses, e.g. 'hasSackMeal and not hasDiningCam'") @RequestParam(defaultValue = "") String filter) {
+        return Map.of("count", flagIndex.getDiningCommons().count(filter));
+    }
+
+    /**
+     * This method returns the diningcommons nearest to a location, nearest first.
+     * @param lat latitude of the location
+     * @param lon longitude of the location
+     * @param k the maximum number of commons to return
+     * @param hasSackMeal if given, only commons that do (or do not) have sack meals
+     * @param hasTakeOutMeal if given, only commons that do (or do not) have take out meals
+     * @return a list of commons with their distance in meters
+     */
+    @Operation(summary= "List the ucsb dining commons nearest to a location")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/nearest")
+    public List<NearbyDiningCommons> nearestCommons(
+            @Parameter(name="lat") @RequestParam double lat,
+            @Parameter(name="lon") @RequestParam double lon,
+            @Parameter(name="k", description="maximum number of results (1 to 100)") @RequestParam(defaultValue = "3") int k,
+            @Parameter(name="hasSackMeal") @RequestParam(required = false) Boolean hasSackMeal,
+            @Parameter(name="hasTakeOutMeal") @RequestParam(required = false) Boolean hasTakeOutMeal) {
+        if (!(lat >= -90 && lat <= 90 && lon >= -180 && lon <= 180)) {
+            throw new BadRequestException("lat must be in [-90, 90] and lon in [-180, 180]");
+        }
+        return diningCommonsLocator.nearest(lat, lon, Math.max(1, Math.min(k, 100)), hasSackMeal, hasTakeOutMeal);
     }
 
     /**
@@ -63,6 +205,20 @@ public class UCSBDiningCommonsController extends ApiController {
         return commons;
     }
 
+    /**
+     * Get several dining commons by code, in one query
+     * 
+     * @param ids the codes of the dining commons
+     * @return the dining commons found, in the order asked for, and the codes not found
+     */
+    @Operation(summary= "Get several dining commons by code")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "ids")
+    public EntityBatch<UCSBDiningCommons, String> getByIds(
+            @Parameter(name="ids", description="codes separated by commas (at most app.multiget.maxIds)") @RequestParam List<String> ids) {
+        return findAllById(ids, UCSBDiningCommons::getCode, ucsbDiningCommonsRepository::findAllById);
+    }
+
     /**
      * This method creates a new diningcommons. Accessible only to users with the role "ROLE_ADMIN".
      * @param code code of the diningcommons
@@ -98,12 +254,18 @@ public class UCSBDiningCommonsController extends ApiController {
         commons.setLongitude(longitude);
 
         UCSBDiningCommons savedCommons = ucsbDiningCommonsRepository.save(commons);
+        aggregations.invalidate(UCSBDiningCommons.class);
+        counts.invalidate(UCSBDiningCommons.class);
+        responseCache.invalidate(UCSBDiningCommons.class);
+        diningCommonsLocator.add(savedCommons);
+        flagIndex.add(savedCommons);
 
         return savedCommons;
     }
 
     /**
      * Delete a diningcommons. Accessible only to users with the role "ROLE_ADMIN".
+     * A commons that still has menu items cannot be deleted (409).
      * @param code code of the commons
      * @return a message indiciating the commons was deleted
      */
@@ -115,7 +277,18 @@ public class UCSBDiningCommonsController extends ApiController {
         UCSBDiningCommons commons = ucsbDiningCommonsRepository.findById(code)
                 .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
 
-        ucsbDiningCommonsRepository.delete(commons);
+        try {
+            ucsbDiningCommonsRepository.delete(commons);
+        } catch (DataIntegrityViolationException e) {
+            // the menu items' foreign key does not let a commons with items be deleted
+            throw new EntityInUseException(UCSBDiningCommons.class, code, UCSBDiningCommonsMenuItem.class);
+        }
+        aggregations.invalidate(UCSBDiningCommons.class);
+        counts.invalidate(UCSBDiningCommons.class);
+        responseCache.invalidate(UCSBDiningCommons.class);
+        diningCommonsLocator.remove(code);
+        flagIndex.removeDiningCommons(code);
+        diningCommonsMenu.invalidate(code);
         return genericMessage("UCSBDiningCommons with id %s deleted".formatted(code));
     }
 
@@ -144,6 +317,10 @@ public class UCSBDiningCommonsController extends ApiController {
         commons.setLongitude(incoming.getLongitude());
 
         ucsbDiningCommonsRepository.save(commons);
+        aggregations.invalidate(UCSBDiningCommons.class);
+        responseCache.invalidate(UCSBDiningCommons.class);
+        diningCommonsLocator.add(commons);
+        flagIndex.add(commons);
 
         return commons;
     }
@@ -1,8 +1,24 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.errors.EntityInUseException;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.helpers.EntityAggregation;
+import edu.ucsb.cs156.example.helpers.EntityFilter;
+import edu.ucsb.cs156.example.models.AggregateRow;
+import edu.ucsb.cs156.example.models.EntityBatch;
+import edu.ucsb.cs156.example.models.EntityCount;
+import edu.ucsb.cs156.example.models.MenuItemDetails;
+import edu.ucsb.cs156.example.models.MenuItemReviewSummary;
+import edu.ucsb.cs156.example.models.UCSBDiningCommonsMenuItemDto;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.services.DiningCommonsMenuService;
+import edu.ucsb.cs156.example.services.EntityAggregationService;
+import edu.ucsb.cs156.example.services.EntityCountService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,6 +28,7 @@ import lombok.extern.slf4j.Slf4j;
 import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -24,6 +41,11 @@ import org.springframework.web.bind.annotation.RestController;
 
 import jakarta.validation.Valid;
 
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 /**
  * This is a REST controller for UCSBDiningCommonsMenuItems
  */
@@ -34,20 +56,137 @@ import jakarta.validation.Valid;
 @Slf4j
 public class UCSBDiningCommonsMenuItemController extends ApiController {
 
+    /** The fields that /all can filter and sort on */
+    static final EntityFilter<UCSBDiningCommonsMenuItem> FILTER = EntityFilter.of(UCSBDiningCommonsMenuItem.class,
+            "diningCommonsCode", "name", "station");
+
+    /** The keys and fields that /aggregate can group by and compute metrics over */
+    static final EntityAggregation<UCSBDiningCommonsMenuItem> AGGREGATES = EntityAggregation.of(FILTER,
+            List.of("diningCommonsCode", "station"), List.of());
+
     @Autowired
     UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
 
+    @Autowired
+    UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+    @Autowired
+    MenuItemReviewRepository menuItemReviewRepository;
+
+    @Autowired
+    DiningCommonsMenuService diningCommonsMenu;
+
+    @Autowired
+    EntityAggregationService aggregations;
+
+    @Autowired
+    EntityCountService counts;
+
     /**
-     * List all menu items
+     * List all menu items, or those that match a filter
      * 
-     * @return an iterable of UCSBDiningCommonsMenuItem
+     * @param filter a filter over FILTER's fields (see EntityFilter); none if omitted
+     * @param sort   the fields to sort by (see EntityFilter)
+     * @return a list of UCSBDiningCommonsMenuItemDto, in the sort order if filter or sort is given
      */
     @Operation(summary= "List all menu items")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBDiningCommonsMenuItem> allUCSBDiningCommonsMenuItems() {
+    public List<UCSBDiningCommonsMenuItemDto> allUCSBDiningCommonsMenuItems(
+            @Parameter(name="filter", description="clauses field:op:value separated by commas, e.g. 'diningCommonsCode:eq:ortega,station:eq:Entrees'") @RequestParam(required = false) String filter,
+            @Parameter(name="sort", description="fields separated by commas, - for descending, e.g. 'station,name'") @RequestParam(required = false) String sort) {
+        if (filter != null || sort != null) {
+            return UCSBDiningCommonsMenuItemDto.fromAll(findFiltered(ucsbDiningCommonsMenuItemRepository, FILTER, filter, sort, null, null, null));
+        }
         Iterable<UCSBDiningCommonsMenuItem> menuItems = ucsbDiningCommonsMenuItemRepository.findAll();
-        return menuItems;
+        return UCSBDiningCommonsMenuItemDto.fromAll(menuItems);
+    }
+
+    /**
+     * Count all menu items, or those that match a filter
+     * 
+     * @param filter a filter over FILTER's fields (see EntityFilter); none if omitted
+     * @param approximate whether an estimate will do for a large table (see EntityCountService); ignored with a filter
+     * @return the count, exact unless approximate is true and the table is large
+     */
+    @Operation(summary= "Count all menu items, or those that match a filter")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/count")
+    public EntityCount countUCSBDiningCommonsMenuItems(
+            @Parameter(name="filter", description="clauses field:op:value separated by commas, e.g. 'diningCommonsCode:eq:ortega,station:eq:Entrees'") @RequestParam(required = false) String filter,
+            @Parameter(name="approximate", description="true to allow an estimate from the table statistics for a large table") @RequestParam(defaultValue = "false") boolean approximate) {
+        if (filter != null) {
+            return countFiltered(ucsbDiningCommonsMenuItemRepository, FILTER, filter, null, null, null);
+        }
+        return counts.count(UCSBDiningCommonsMenuItem.class, ucsbDiningCommonsMenuItemRepository, approximate);
+    }
+
+    /**
+     * Aggregates over the dining commons menu items, grouped by up to three keys
+     * 
+     * @param groupBy the keys to group by (see AGGREGATES); the totals if omitted
+     * @param metrics count, or min, max or avg with :field (see EntityAggregation); count if omitted
+     * @param filter  a filter over FILTER's fields (see EntityFilter); none if omitted
+     * @return a row for each group, ordered by the keys
+     */
+    @Operation(summary= "Count, min, max or average dining commons menu items by group")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/aggregate")
+    public List<AggregateRow> aggregateUCSBDiningCommonsMenuItems(
+            @Parameter(name="groupBy", description="keys separated by commas, e.g. 'diningCommonsCode,station'") @RequestParam(required = false) String groupBy,
+            @Parameter(name="metrics", description="metrics separated by commas, e.g. 'count'") @RequestParam(required = false) String metrics,
+            @Parameter(name="filter", description="clauses field:op:value separated by commas, e.g. 'diningCommonsCode:eq:ortega'") @RequestParam(required = false) String filter) {
+        return aggregations.aggregate(ucsbDiningCommonsMenuItemRepository, AGGREGATES.compile(groupBy, metrics, filter));
+    }
+
+    /**
+     * List the menu items of one dining commons, grouped by station
+     * 
+     * @param diningCommonsCode the code of the dining commons
+     * @return a map from station to the menu items at that station
+     */
+    @Operation(summary= "List the menu items of a dining commons by station")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/bystation")
+    public Map<String, List<UCSBDiningCommonsMenuItem>> menuItemsByStation(
+            @Parameter(name="diningCommonsCode") @RequestParam String diningCommonsCode) {
+        return diningCommonsMenu.byStation(diningCommonsCode);
+    }
+
+    /**
+     * List menu items with their dining commons and a summary of their reviews.
+     * This takes two queries however many items there are: one for the items
+     * joined with their dining commons, and one for the review counts.
+     * 
+     * @param diningCommonsCode the code of a dining commons, or null for every menu item
+     * @return a list of MenuItemDetails
+     */
+    @Operation(summary= "List menu items with their dining commons and review summary")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/details")
+    public List<MenuItemDetails> menuItemDetails(
+            @Parameter(name="diningCommonsCode", description="only list the items of this dining commons; every item if omitted") @RequestParam(required = false) String diningCommonsCode) {
+        List<UCSBDiningCommonsMenuItem> items;
+        List<MenuItemReviewSummary> summaries;
+        if (diningCommonsCode == null) {
+            items = ucsbDiningCommonsMenuItemRepository.findAllWithDiningCommonsByOrderByDiningCommonsCodeAscStationAscNameAsc();
+            summaries = menuItemReviewRepository.summarizeByItem();
+        } else {
+            items = ucsbDiningCommonsMenuItemRepository.findWithDiningCommonsByDiningCommonsCodeOrderByStationAscNameAsc(diningCommonsCode);
+            summaries = menuItemReviewRepository.summarizeByItemForDiningCommons(diningCommonsCode);
+        }
+
+        Map<Long, MenuItemReviewSummary> summaryOf = summaries.stream()
+                .collect(Collectors.toMap(MenuItemReviewSummary::getItemId, Function.identity()));
+        return items.stream().map(item -> {
+            MenuItemReviewSummary summary = summaryOf.get(item.getId());
+            return MenuItemDetails.builder()
+                    .item(item)
+                    .diningCommons(item.getDiningCommons())
+                    .reviewCount(summary == null ? 0 : summary.getCount())
+                    .averageStars(summary == null ? null : summary.getAverageStars())
+                    .build();
+        }).toList();
     }
 
     /**
@@ -67,6 +206,20 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
         return ucsbDiningCommonsMenuItem;
     }
 
+    /**
+     * Get several menu items by id, in one query
+     * 
+     * @param ids the ids of the menu items
+     * @return the menu items found, in the order asked for, and the ids not found
+     */
+    @Operation(summary= "Get several menu items by id")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "ids")
+    public EntityBatch<UCSBDiningCommonsMenuItem, Long> getByIds(
+            @Parameter(name="ids", description="ids separated by commas (at most app.multiget.maxIds)") @RequestParam List<Long> ids) {
+        return findAllById(ids, UCSBDiningCommonsMenuItem::getId, ucsbDiningCommonsMenuItemRepository::findAllById);
+    }
+
     /**
      * Create a new menu item
      * 
@@ -84,18 +237,23 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
             @Parameter(name="station") @RequestParam String station)
             throws JsonProcessingException {
 
+        checkDiningCommonsExists(diningCommonsCode);
+
         UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItem = new UCSBDiningCommonsMenuItem();
         ucsbDiningCommonsMenuItem.setDiningCommonsCode(diningCommonsCode);
         ucsbDiningCommonsMenuItem.setName(name);
         ucsbDiningCommonsMenuItem.setStation(station);
 
         UCSBDiningCommonsMenuItem savedUCSBDiningCommonsMenuItem = ucsbDiningCommonsMenuItemRepository.save(ucsbDiningCommonsMenuItem);
+        aggregations.invalidate(UCSBDiningCommonsMenuItem.class);
+        counts.invalidate(UCSBDiningCommonsMenuItem.class);
+        diningCommonsMenu.invalidate(diningCommonsCode);
 
         return savedUCSBDiningCommonsMenuItem;
     }
 
     /**
-     * Delete a UCSBDiningCommonsMenuItem
+     * Delete a UCSBDiningCommonsMenuItem; a menu item that has reviews cannot be deleted (409)
      * 
      * @param id the id of the menu item to delete
      * @return a message indicating the menu item was deleted
@@ -108,7 +266,15 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
         UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItem = ucsbDiningCommonsMenuItemRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id));
 
-        ucsbDiningCommonsMenuItemRepository.delete(ucsbDiningCommonsMenuItem);
+        try {
+            ucsbDiningCommonsMenuItemRepository.delete(ucsbDiningCommonsMenuItem);
+        } catch (DataIntegrityViolationException e) {
+            // the reviews' foreign key does not let a reviewed menu item be deleted
+            throw new EntityInUseException(UCSBDiningCommonsMenuItem.class, id, MenuItemReview.class);
+        }
+        aggregations.invalidate(UCSBDiningCommonsMenuItem.class);
+        counts.invalidate(UCSBDiningCommonsMenuItem.class);
+        diningCommonsMenu.invalidate(ucsbDiningCommonsMenuItem.getDiningCommonsCode());
         return genericMessage("UCSBDiningCommonsMenuItem with id %s deleted".formatted(id));
     }
 
@@ -128,13 +294,25 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
 
         UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItem = ucsbDiningCommonsMenuItemRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id));
+        checkDiningCommonsExists(incoming.getDiningCommonsCode());
 
+        String oldDiningCommonsCode = ucsbDiningCommonsMenuItem.getDiningCommonsCode();
         ucsbDiningCommonsMenuItem.setDiningCommonsCode(incoming.getDiningCommonsCode());
         ucsbDiningCommonsMenuItem.setName(incoming.getName());
         ucsbDiningCommonsMenuItem.setStation(incoming.getStation());
 
         ucsbDiningCommonsMenuItemRepository.save(ucsbDiningCommonsMenuItem);
+        aggregations.invalidate(UCSBDiningCommonsMenuItem.class);
+        diningCommonsMenu.invalidate(oldDiningCommonsCode);
+        diningCommonsMenu.invalidate(incoming.getDiningCommonsCode());
 
         return ucsbDiningCommonsMenuItem;
     }
+
+    /** The diningCommonsCode column is a foreign key, so refer only to commons that exist */
+    private void checkDiningCommonsExists(String diningCommonsCode) {
+        if (diningCommonsCode != null && !ucsbDiningCommonsRepository.existsById(diningCommonsCode)) {
+            throw new EntityNotFoundException(UCSBDiningCommons.class, diningCommonsCode);
+        }
+    }
 }
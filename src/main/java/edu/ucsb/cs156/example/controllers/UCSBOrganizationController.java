@@ -3,7 +3,18 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.helpers.EntityAggregation;
+import edu.ucsb.cs156.example.helpers.EntityFilter;
+import edu.ucsb.cs156.example.models.AggregateRow;
+import edu.ucsb.cs156.example.models.EntityBatch;
+import edu.ucsb.cs156.example.models.EntityCount;
+import edu.ucsb.cs156.example.models.UCSBOrganizationDto;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.services.EntityAggregationService;
+import edu.ucsb.cs156.example.services.EntityCountService;
+import edu.ucsb.cs156.example.services.FlagIndexService;
+import edu.ucsb.cs156.example.services.OrganizationAutocompleteService;
+import edu.ucsb.cs156.example.services.ResponseCacheService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -23,6 +34,9 @@ import org.springframework.web.bind.annotation.RestController;
 
 import jakarta.validation.Valid;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * This is a REST controller for UCSBOrganization
  */
@@ -33,20 +47,134 @@ import jakarta.validation.Valid;
 @Slf4j
 public class UCSBOrganizationController extends ApiController {
 
+    /** The fields that /all can filter and sort on */
+    static final EntityFilter<UCSBOrganization> FILTER = EntityFilter.of(UCSBOrganization.class,
+            "orgTranslationShort", "orgTranslation", "inactive");
+
+    /** The keys and fields that /aggregate can group by and compute metrics over */
+    static final EntityAggregation<UCSBOrganization> AGGREGATES = EntityAggregation.of(FILTER,
+            List.of("inactive"), List.of());
+
     @Autowired
     UCSBOrganizationRepository ucsbOrganizationRepository;
 
+    @Autowired
+    OrganizationAutocompleteService organizationAutocomplete;
+
+    @Autowired
+    FlagIndexService flagIndex;
+
+    @Autowired
+    EntityAggregationService aggregations;
+
+    @Autowired
+    EntityCountService counts;
+
+    @Autowired
+    ResponseCacheService responseCache;
+
     /**
-     * THis method returns a list of all ucsborganizations.
+     * THis method returns a list of all ucsborganizations, or those that match a filter.
      * 
-     * @return a list of all ucsborganizations
+     * @param filter a filter over FILTER's fields (see EntityFilter); none if omitted
+     * @param sort   the fields to sort by (see EntityFilter)
+     * @return a list of UCSBOrganizationDto, in the sort order if filter or sort is given
      */
     @Operation(summary = "List all ucsb organizations")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBOrganization> allOrganisations() {
+    public List<UCSBOrganizationDto> allOrganisations(
+            @Parameter(name="filter", description="clauses field:op:value separated by commas, e.g. 'inactive:eq:false'") @RequestParam(required = false) String filter,
+            @Parameter(name="sort", description="fields separated by commas, - for descending, e.g. 'orgTranslationShort'") @RequestParam(required = false) String sort) {
+        if (filter != null || sort != null) {
+            return UCSBOrganizationDto.fromAll(findFiltered(ucsbOrganizationRepository, FILTER, filter, sort, null, null, null));
+        }
         Iterable<UCSBOrganization> organizations = ucsbOrganizationRepository.findAll();
-        return organizations;
+        return UCSBOrganizationDto.fromAll(organizations);
+    }
+
+    /**
+     * Count all organizations, or those that match a filter
+     * 
+     * @param filter a filter over FILTER's fields (see EntityFilter); none if omitted
+     * @param approximate whether an estimate will do for a large table (see EntityCountService); ignored with a filter
+     * @return the count, exact unless approximate is true and the table is large
+     */
+    @Operation(summary = "Count all organizations, or those that match a filter")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/count")
+    public EntityCount countOrganisations(
+            @Parameter(name="filter", description="clauses field:op:value separated by commas, e.g. 'inactive:eq:false'") @RequestParam(required = false) String filter,
+            @Parameter(name="approximate", description="true to allow an estimate from the table statistics for a large table") @RequestParam(defaultValue = "false") boolean approximate) {
+        if (filter != null) {
+            return countFiltered(ucsbOrganizationRepository, FILTER, filter, null, null, null);
+        }
+        return counts.count(UCSBOrganization.class, ucsbOrganizationRepository, approximate);
+    }
+
+    /**
+     * Aggregates over the UCSB organizations, grouped by up to three keys
+     * 
+     * @param groupBy the keys to group by (see AGGREGATES); the totals if omitted
+     * @param metrics count, or min, max or avg with :field (see EntityAggregation); count if omitted
+     * @param filter  a filter over FILTER's fields (see EntityFilter); none if omitted
+     * @return a row for each group, ordered by the keys
+     */
+    @Operation(summary = "Count, min, max or average UCSB organizations by group")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/aggregate")
+    public List<AggregateRow> aggregateOrganizations(
+            @Parameter(name="groupBy", description="keys separated by commas, e.g. 'inactive'") @RequestParam(required = false) String groupBy,
+            @Parameter(name="metrics", description="metrics separated by commas, e.g. 'count'") @RequestParam(required = false) String metrics,
+            @Parameter(name="filter", description="clauses field:op:value separated by commas, e.g. 'orgTranslationShort:prefix:ZETA'") @RequestParam(required = false) String filter) {
+        return aggregations.aggregate(ucsbOrganizationRepository, AGGREGATES.compile(groupBy, metrics, filter));
+    }
+
+    /**
+     * List the ucsborganizations whose flags match a filter, e.g. {@code not inactive}.
+     * 
+     * @param filter a filter over the flag {@code inactive}; blank matches all
+     * @return a list of UCSBOrganizationDto
+     */
+    @Operation(summary= "List ucsborganizations whose flags match a filter")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/flags")
+    public List<UCSBOrganizationDto> organizationsByFlags(
+            @Parameter(name="filter", description="flags combined with and, or, not and parentheses, e.g. 'not inactive'") @RequestParam(defaultValue = "") String filter) {
+        return UCSBOrganizationDto.fromAll(ucsbOrganizationRepository.findAllById(flagIndex.getOrganizations().select(filter)));
+    }
+
+    /**
+     * Count the ucsborganizations whose flags match a filter, e.g. {@code not inactive}.
+     * 
+     * @param filter a filter over the flag {@code inactive}; blank matches all
+     * @return a map with the count
+     */
+    @Operation(summary= "Count ucsborganizations whose flags match a filter")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/flags/count")
+    public Object countOrganizationsByFlags(
+            @Parameter(name="filter", description="flags combined with and, or, not and parentheses, e.g. 'not inactive'") @RequestParam(defaultValue = "") String filter) {
+        return Map.of("count", flagIndex.getOrganizations().count(filter));
+    }
+
+    /**
+     * This method returns the organizations whose code or name starts with the
+     * text typed so far, best match first.
+     * 
+     * @param q               the text typed so far
+     * @param includeInactive whether to include inactive organizations
+     * @param limit           the maximum number of organizations to return
+     * @return a list of UCSBOrganizationDto
+     */
+    @Operation(summary = "Autocomplete ucsb organizations by code or name")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/autocomplete")
+    public List<UCSBOrganizationDto> autocompleteOrganizations(
+            @Parameter(name = "q") @RequestParam String q,
+            @Parameter(name = "includeInactive") @RequestParam(defaultValue = "false") boolean includeInactive,
+            @Parameter(name = "limit", description = "maximum number of results (1 to 100)") @RequestParam(defaultValue = "10") int limit) {
+        return UCSBOrganizationDto.fromAll(organizationAutocomplete.autocomplete(q, includeInactive, Math.max(1, Math.min(limit, 100))));
     }
 
     /**
@@ -66,6 +194,20 @@ public class UCSBOrganizationController extends ApiController {
         return organization;
     }
 
+    /**
+     * Get several organizations by code, in one query
+     * 
+     * @param ids the codes of the organizations
+     * @return the organizations found, in the order asked for, and the codes not found
+     */
+    @Operation(summary = "Get several organizations by code")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "ids")
+    public EntityBatch<UCSBOrganization, String> getByIds(
+            @Parameter(name = "ids", description = "codes separated by commas (at most app.multiget.maxIds)") @RequestParam List<String> ids) {
+        return findAllById(ids, UCSBOrganization::getOrgCode, ucsbOrganizationRepository::findAllById);
+    }
+
     /**
      * This method creates a new ucsborganizations. Accessible only to users with
      * the role "ROLE_ADMIN".
@@ -93,6 +235,11 @@ public class UCSBOrganizationController extends ApiController {
         organization.setInactive(inactive);
 
         UCSBOrganization savedOrganization = ucsbOrganizationRepository.save(organization);
+        aggregations.invalidate(UCSBOrganization.class);
+        counts.invalidate(UCSBOrganization.class);
+        responseCache.invalidate(UCSBOrganization.class);
+        organizationAutocomplete.add(savedOrganization);
+        flagIndex.add(savedOrganization);
 
         return savedOrganization;
     }
@@ -120,6 +267,10 @@ public class UCSBOrganizationController extends ApiController {
         organization.setInactive(incoming.getInactive());
 
         ucsbOrganizationRepository.save(organization);
+        aggregations.invalidate(UCSBOrganization.class);
+        responseCache.invalidate(UCSBOrganization.class);
+        organizationAutocomplete.add(organization);
+        flagIndex.add(organization);
 
         return organization;
     }
@@ -140,6 +291,11 @@ public class UCSBOrganizationController extends ApiController {
         .orElseThrow(() -> new EntityNotFoundException(UCSBOrganization.class, orgCode));
 
         ucsbOrganizationRepository.delete(organization);
+        aggregations.invalidate(UCSBOrganization.class);
+        counts.invalidate(UCSBOrganization.class);
+        responseCache.invalidate(UCSBOrganization.class);
+        organizationAutocomplete.remove(orgCode);
+        flagIndex.removeOrganization(orgCode);
         return genericMessage("UCSBOrganization with id %s deleted".formatted(orgCode));
     }
 }
@@ -11,7 +11,9 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.UserDto;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.UserActivityService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
@@ -31,8 +33,12 @@ public class UsersController extends ApiController {
     @Autowired
     ObjectMapper mapper;
 
+    @Autowired
+    UserActivityService userActivity;
+
     /**
      * This method returns a list of all users.  Accessible only to users with the role "ROLE_ADMIN".
+     * Each user's lastSeen includes sightings that have not been written to the database yet.
      * @return a list of all users
      * @throws JsonProcessingException if there is an error processing the JSON
      */
@@ -42,7 +48,8 @@ public class UsersController extends ApiController {
     public ResponseEntity<String> users()
             throws JsonProcessingException {
         Iterable<User> users = userRepository.findAll();
-        String body = mapper.writeValueAsString(users);
+        userActivity.applyPending(users);
+        String body = mapper.writeValueAsString(UserDto.fromAll(users));
         return ResponseEntity.ok().body(body);
     }
 }
\ No newline at end of file
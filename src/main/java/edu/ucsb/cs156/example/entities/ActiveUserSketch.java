@@ -0,0 +1,28 @@
+package edu.ucsb.cs156.example.entities;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a JPA entity that represents the HyperLogLog sketch of the users
+ * that were active on one day (see ActiveUserStatsService).
+ *
+ * The registers are stored one byte each, e.g. 4 KB per day at precision 12.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "activeusersketches")
+public class ActiveUserSketch {
+  @Id
+  private LocalDate activityDate;
+  private byte[] registers;
+}
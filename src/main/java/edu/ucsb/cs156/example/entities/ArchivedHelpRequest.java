@@ -0,0 +1,53 @@
+package edu.ucsb.cs156.example.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/** 
+ * This is a JPA entity that represents a HelpRequest that has been moved to
+ * the archive (see HelpRequestArchiveService).
+ * 
+ * It keeps the id and fields the request had in the helprequests table,
+ * and when it was archived.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "archivedhelprequests")
+public class ArchivedHelpRequest {
+  @Id
+  private long id;
+
+  private String requesterEmail;
+  private String teamId;
+  private String tableOrBreakoutRoom;
+  private LocalDateTime requestTime;
+  private String explanation;
+  private boolean solved;
+  private LocalDateTime solvedTime;
+  private LocalDateTime archivedTime;
+
+  /**
+   * @return the request as it was before it was archived
+   */
+  public HelpRequest toHelpRequest() {
+    return HelpRequest.builder()
+        .id(id)
+        .requesterEmail(requesterEmail)
+        .teamId(teamId)
+        .tableOrBreakoutRoom(tableOrBreakoutRoom)
+        .requestTime(requestTime)
+        .explanation(explanation)
+        .solved(solved)
+        .solvedTime(solvedTime)
+        .build();
+  }
+}
@@ -2,6 +2,8 @@ package edu.ucsb.cs156.example.entities;
 
 import java.time.LocalDateTime;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -31,4 +33,11 @@ public class Articles {
 	private String explanation;
 	private String email;
 	private LocalDateTime dateAdded;
-}
\ No newline at end of file
+
+	/**
+	 * SHA-256 of the normalized url (see UrlNormalizer); unique, and only set
+	 * on the first article that was posted with a given url.
+	 */
+	@JsonIgnore
+	private String urlHash;
+}
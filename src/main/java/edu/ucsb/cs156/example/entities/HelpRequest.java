@@ -15,12 +15,15 @@ import java.time.LocalDateTime;
  * This is a JPA entity that represents a HelpRequest 
  * 
  * A HelpRequest is a request for help by a student in a class 
+ * 
+ * solvedTime is when the request was marked solved (null while it is not); it is set by
+ * HelpRequestsController, not by clients.
  */
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @Entity(name = "helprequests")
 public class HelpRequest {
   @Id
@@ -33,4 +36,5 @@ public class HelpRequest {
   private LocalDateTime requestTime;
   private String explanation;
   private boolean solved;
+  private LocalDateTime solvedTime;
 }
@@ -2,17 +2,27 @@ package edu.ucsb.cs156.example.entities;
 
 import java.time.LocalDateTime;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 /**
  * This is a JPA entity that represents a menu item review.
+ *
+ * The menu item is set through itemId; the item association is read only,
+ * lazy, and not part of the JSON.
  */
 
 @Data
@@ -30,4 +40,11 @@ public class MenuItemReview {
     private int stars;
     private LocalDateTime dateReviewed;
     private String comments;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "itemId", insertable = false, updatable = false)
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private UCSBDiningCommonsMenuItem item;
 }
@@ -1,5 +1,7 @@
 package edu.ucsb.cs156.example.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -27,4 +29,8 @@ public class RecommendationRequest {
   private LocalDateTime dateRequested;
   private LocalDateTime dateNeeded;
   private boolean done;
+
+  /** when the deadline reminder was last sent (see RecommendationReminderService) */
+  @JsonIgnore
+  private LocalDateTime remindedAt;
 }
\ No newline at end of file
@@ -7,16 +7,22 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import org.hibernate.annotations.BatchSize;
+
 /** 
  * This is a JPA entity that represents a UCSBDiningCommons
  * 
  * A UCSBDiningCommons is a dining commons at UCSB
+ *
+ * When the commons of several menu items are loaded lazily, they are
+ * fetched up to 50 at a time.
  */
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@BatchSize(size = 50)
 @Entity(name = "ucsbdiningcommons")
 public class UCSBDiningCommons {
   @Id
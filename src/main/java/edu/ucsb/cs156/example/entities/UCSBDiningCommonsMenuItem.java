@@ -1,24 +1,37 @@
 package edu.ucsb.cs156.example.entities;
 
 import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 
+import org.hibernate.annotations.BatchSize;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 /** 
  * This is a JPA entity that represents a UCSBDiningCommonsMenuItem
  * 
  * A UCSBDiningCommonsMenuItem is a menu item at a dining commons at UCSB
+ *
+ * The dining commons is set through diningCommonsCode; the diningCommons
+ * association is read only, lazy, and not part of the JSON.
  */
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@BatchSize(size = 50)
 @Entity(name = "ucsbdiningcommonsmenuitems")
 public class UCSBDiningCommonsMenuItem {
   @Id
@@ -28,4 +41,11 @@ public class UCSBDiningCommonsMenuItem {
   private String diningCommonsCode;
   private String name;
   private String station;
+
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "diningCommonsCode", insertable = false, updatable = false)
+  @JsonIgnore
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  private UCSBDiningCommons diningCommons;
 }
@@ -1,5 +1,7 @@
 package edu.ucsb.cs156.example.entities;
 
+import java.time.LocalDateTime;
+
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -17,7 +19,7 @@ import lombok.NoArgsConstructor;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
-@Builder
+@Builder(toBuilder = true)
 @Entity(name = "users")
 public class User {
   @Id
@@ -33,4 +35,6 @@ public class User {
   private String locale;
   private String hostedDomain;
   private boolean admin;
+  /** when the user was last seen, to the minute; written in batches by UserActivityService */
+  private LocalDateTime lastSeen;
 }
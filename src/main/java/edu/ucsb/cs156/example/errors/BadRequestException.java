@@ -0,0 +1,16 @@
+package edu.ucsb.cs156.example.errors;
+
+/**
+ * This is an error class for a custom RuntimeException in Java that is used to indicate
+ * when a request is not valid, e.g. its filter is malformed or a parameter is out of range.
+ */
+public class BadRequestException extends RuntimeException {
+  /**
+   * Constructor for the exception
+   * 
+   * @param message what is wrong with the request, which is sent back to the client
+   */
+  public BadRequestException(String message) {
+    super(message);
+  }
+}
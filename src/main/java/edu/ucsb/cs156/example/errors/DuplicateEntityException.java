@@ -0,0 +1,20 @@
+package edu.ucsb.cs156.example.errors;
+
+/**
+ * This is an error class for a custom RuntimeException in Java that is used to indicate
+ * when an entity would duplicate an existing entity of the same type.
+ */
+public class DuplicateEntityException extends RuntimeException {
+  /**
+   * Constructor for the exception
+   * 
+   * @param entityType The class of the entity that is duplicated, e.g. Articles.class
+   * @param field the name of the field that is duplicated, e.g. "url"
+   * @param value the value of that field
+   * @param existingId the id of the entity that already has that value
+   */
+  public DuplicateEntityException(Class<?> entityType, String field, Object value, Object existingId) {
+    super("%s with %s %s already exists (id %s)"
+      .formatted(entityType.getSimpleName(), field, value.toString(), existingId.toString()));
+  }
+}
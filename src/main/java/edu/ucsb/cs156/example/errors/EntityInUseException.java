@@ -0,0 +1,19 @@
+package edu.ucsb.cs156.example.errors;
+
+/**
+ * This is an error class for a custom RuntimeException in Java that is used to indicate
+ * when an entity cannot be deleted because other entities still refer to it.
+ */
+public class EntityInUseException extends RuntimeException {
+  /**
+   * Constructor for the exception
+   * 
+   * @param entityType The class of the entity that could not be deleted, e.g. UCSBDiningCommons.class
+   * @param id the id of that entity
+   * @param dependentType The class of the entities that refer to it, e.g. UCSBDiningCommonsMenuItem.class
+   */
+  public EntityInUseException(Class<?> entityType, Object id, Class<?> dependentType) {
+    super("%s with id %s is still used by some %s"
+      .formatted(entityType.getSimpleName(), id.toString(), dependentType.getSimpleName()));
+  }
+}
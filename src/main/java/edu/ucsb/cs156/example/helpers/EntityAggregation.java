@@ -0,0 +1,215 @@
+package edu.ucsb.cs156.example.helpers;
+
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.models.AggregateRow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * The aggregates an entity allows, e.g. help requests grouped by teamId with
+ * their count and latest requestTime:
+ * {@code groupBy=teamId&metrics=count,max:requestTime}.
+ *
+ * groupBy is a comma separated list of up to MAX_KEYS keys (none gives the
+ * totals of the whole table). metrics is a comma separated list of up to
+ * MAX_METRICS of count, min:field, max:field and avg:field; avg is only for
+ * numeric fields and min and max are not for booleans. The rows can also be
+ * filtered with the entity's EntityFilter.
+ *
+ * The keys and fields are allowlisted separately: keys should be columns with
+ * few distinct values, so that a query returns at most MAX_GROUPS groups.
+ *
+ * A compiled Query is run as a single GROUP BY query by an AggregateRepository.
+ */
+public final class EntityAggregation<T> {
+
+  static final int MAX_KEYS = 3;
+  static final int MAX_METRICS = 8;
+  public static final int MAX_GROUPS = 1000;
+
+  private static final Set<Class<?>> NUMERIC = Set.of(int.class, Integer.class, long.class, Long.class,
+      double.class, Double.class);
+
+  /** The aggregate functions */
+  public enum Function {
+    COUNT, MIN, MAX, AVG;
+
+    static final List<String> NAMES = Arrays.stream(values()).map(Function::toString).toList();
+
+    @Override
+    public String toString() {
+      return name().toLowerCase(Locale.ROOT);
+    }
+  }
+
+  /**
+   * A metric of an aggregate query.
+   *
+   * @param name     the name of its value in the rows, e.g. {@code max:requestTime}
+   * @param function the function
+   * @param field    the field it is computed over, or null for count
+   */
+  public record Metric(String name, Function function, String field) {
+  }
+
+  /**
+   * An aggregate query.
+   *
+   * @param type    the entity class
+   * @param where   the filter
+   * @param groupBy the keys to group by
+   * @param metrics the metrics to compute for each group
+   * @param key     a string that identifies the query, for caching
+   */
+  public record Query<T>(Class<T> type, Specification<T> where, List<String> groupBy, List<Metric> metrics,
+      String key) {
+
+    /**
+     * Convert the results of the query to rows.
+     *
+     * @param results one array per group: the values of the keys and then of the metrics
+     * @return the rows
+     * @throws BadRequestException if there are more than MAX_GROUPS groups
+     */
+    public List<AggregateRow> rows(List<Object[]> results) {
+      if (results.size() > MAX_GROUPS) {
+        throw new BadRequestException(
+            "More than %d groups; group by fewer keys or add a filter".formatted(MAX_GROUPS));
+      }
+      List<AggregateRow> rows = new ArrayList<>();
+      for (Object[] result : results) {
+        Map<String, Object> group = new LinkedHashMap<>();
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (int i = 0; i < groupBy.size(); i++) {
+          group.put(groupBy.get(i), result[i]);
+        }
+        for (int i = 0; i < metrics.size(); i++) {
+          values.put(metrics.get(i).name(), result[groupBy.size() + i]);
+        }
+        rows.add(AggregateRow.builder().group(group).values(values).build());
+      }
+      return rows;
+    }
+  }
+
+  private final EntityFilter<T> filter;
+  private final List<String> keys;
+  private final List<String> fields;
+
+  private EntityAggregation(EntityFilter<T> filter, List<String> keys, List<String> fields) {
+    for (String field : keys) {
+      checkAllowed(filter, field);
+    }
+    for (String field : fields) {
+      checkAllowed(filter, field);
+    }
+    this.filter = filter;
+    this.keys = List.copyOf(keys);
+    this.fields = List.copyOf(fields);
+  }
+
+  /**
+   * Create the aggregates of an entity.
+   *
+   * @param filter the filter of the entity; the keys and fields must be among its fields
+   * @param keys   the fields that may be grouped by
+   * @param fields the fields that metrics may be computed over
+   * @param <T>    the entity type
+   * @return the aggregates
+   */
+  public static <T> EntityAggregation<T> of(EntityFilter<T> filter, List<String> keys, List<String> fields) {
+    return new EntityAggregation<>(filter, keys, fields);
+  }
+
+  /**
+   * Compile an aggregate query.
+   *
+   * @param groupBy the keys to group by; null or blank for the totals
+   * @param metrics the metrics; null or blank for count
+   * @param where   a filter over the entity's EntityFilter fields, or null
+   * @return the query
+   * @throws BadRequestException if any of them is not valid
+   */
+  public Query<T> compile(String groupBy, String metrics, String where) {
+    List<String> groups = new ArrayList<>();
+    for (String key : parts(groupBy)) {
+      if (!keys.contains(key)) {
+        throw new BadRequestException("Unknown key '%s'; expected one of %s".formatted(key, keys));
+      }
+      if (groups.contains(key)) {
+        throw new BadRequestException("'%s' is grouped by twice".formatted(key));
+      }
+      groups.add(key);
+    }
+    if (groups.size() > MAX_KEYS) {
+      throw new BadRequestException("Group by at most %d keys".formatted(MAX_KEYS));
+    }
+    List<Metric> compiled = new ArrayList<>();
+    List<String> names = parts(metrics);
+    for (String name : names.isEmpty() ? List.of("count") : names) {
+      Metric metric = metric(name);
+      if (compiled.contains(metric)) {
+        throw new BadRequestException("'%s' is asked for twice".formatted(name));
+      }
+      compiled.add(metric);
+    }
+    if (compiled.size() > MAX_METRICS) {
+      throw new BadRequestException("At most %d metrics".formatted(MAX_METRICS));
+    }
+    Specification<T> specification = filter.compile(where, null).where();
+    String key = "%s|%s|%s".formatted(String.join(",", groups),
+        String.join(",", compiled.stream().map(Metric::name).toList()), where == null ? "" : where.trim());
+    return new Query<>(filter.getType(), specification, List.copyOf(groups), List.copyOf(compiled), key);
+  }
+
+  private Metric metric(String name) {
+    String[] parts = name.split(":", 2);
+    if (!Function.NAMES.contains(parts[0])) {
+      throw new BadRequestException("Unknown metric '%s'; expected count or one of %s with :field"
+          .formatted(name, Function.NAMES.subList(1, Function.NAMES.size())));
+    }
+    Function function = Function.valueOf(parts[0].toUpperCase(Locale.ROOT));
+    if (function == Function.COUNT) {
+      if (parts.length > 1) {
+        throw new BadRequestException("count does not take a field");
+      }
+      return new Metric(name, function, null);
+    }
+    if (parts.length == 1) {
+      throw new BadRequestException("%s needs a field, one of %s".formatted(function, fields));
+    }
+    String field = parts[1];
+    if (!fields.contains(field)) {
+      throw new BadRequestException("Unknown field '%s'; expected one of %s".formatted(field, fields));
+    }
+    Class<?> type = filter.fieldType(field);
+    if (function == Function.AVG ? !NUMERIC.contains(type) : (type == boolean.class || type == Boolean.class)) {
+      throw new BadRequestException("%s cannot be used on %s".formatted(function, field));
+    }
+    return new Metric(name, function, field);
+  }
+
+  private static List<String> parts(String text) {
+    List<String> parts = new ArrayList<>();
+    if (text != null && !text.isBlank()) {
+      for (String part : text.split(",", -1)) {
+        parts.add(part.trim());
+      }
+    }
+    return parts;
+  }
+
+  private static void checkAllowed(EntityFilter<?> filter, String field) {
+    if (filter.fieldType(field) == null) {
+      throw new IllegalArgumentException("%s is not a field of the filter".formatted(field));
+    }
+  }
+}
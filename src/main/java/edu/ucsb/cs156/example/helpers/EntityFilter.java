@@ -0,0 +1,347 @@
+package edu.ucsb.cs156.example.helpers;
+
+import edu.ucsb.cs156.example.errors.BadRequestException;
+
+import jakarta.persistence.Id;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * A small filter and sort language for list endpoints, compiled to JPA
+ * Specifications, e.g. {@code filter=requesterEmail:eq:x@ucsb.edu,solved:eq:false}
+ * and {@code sort=-requestTime}.
+ *
+ * A filter is a comma separated list of clauses {@code field:op:value}, all of
+ * which must match. The operators are eq, ne, lt, le, gt and ge; in, whose
+ * values are separated by {@code |}; prefix, for strings that start with the
+ * value; and null and notnull, which take no value. A backslash escapes a
+ * {@code ,}, {@code |} or {@code \} in a value.
+ *
+ * A sort is a comma separated list of fields, ascending, or descending with a
+ * leading {@code -}. Ties are broken by the id, so pages are stable.
+ *
+ * Only the fields an entity allows (see {@link #of}) can be used, so clients
+ * cannot filter or sort on columns that are not meant for it. Values are bound
+ * as parameters and prefix compiles to {@code LIKE 'value%'}, so the
+ * database can use its indexes.
+ *
+ * The fields and operators of a filter, with its sort, make up its shape. Each
+ * shape is validated and compiled once, and the compiled plan is cached (up to
+ * MAX_SHAPES per entity); a request then only parses its values. Filters of
+ * the same shape run the same SQL, so the JDBC driver can reuse its prepared
+ * statement.
+ */
+public final class EntityFilter<T> {
+
+  static final int MAX_CLAUSES = 16;
+  static final int MAX_SHAPES = 256;
+
+  enum Op {
+    EQ, NE, LT, LE, GT, GE, IN, PREFIX, NULL, NOTNULL;
+
+    static final List<String> NAMES = Arrays.stream(values()).map(Op::toString).toList();
+
+    @Override
+    public String toString() {
+      return name().toLowerCase(Locale.ROOT);
+    }
+  }
+
+  /**
+   * The filter and sort of a list request.
+   *
+   * @param where the filter
+   * @param sort  the sort
+   */
+  public record Query<T>(Specification<T> where, Sort sort) {
+  }
+
+  /** A validated clause: the field, the operator and how to read its values */
+  private record Clause(String field, Op op, Function<String, Object> reader) {
+  }
+
+  private record Plan(List<Clause> clauses, Sort sort) {
+  }
+
+  private final Class<T> type;
+  private final Map<String, Function<String, Object>> readers = new LinkedHashMap<>();
+  private final Map<String, Class<?>> types = new LinkedHashMap<>();
+  private final String idField;
+  private final Map<String, Plan> plans = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Plan> eldest) {
+      return size() > MAX_SHAPES;
+    }
+  });
+
+  private EntityFilter(Class<T> type, String... fields) {
+    this.type = type;
+    String id = null;
+    for (Field field : type.getDeclaredFields()) {
+      if (field.isAnnotationPresent(Id.class)) {
+        id = field.getName();
+      }
+    }
+    if (id == null) {
+      throw new IllegalArgumentException("%s has no @Id field".formatted(type.getSimpleName()));
+    }
+    idField = id;
+    for (String name : fields) {
+      Class<?> fieldType;
+      try {
+        fieldType = type.getDeclaredField(name).getType();
+      } catch (NoSuchFieldException e) {
+        throw new IllegalArgumentException("%s has no field %s".formatted(type.getSimpleName(), name));
+      }
+      readers.put(name, readerFor(name, fieldType));
+      types.put(name, fieldType);
+    }
+  }
+
+  /**
+   * Create the filter of an entity.
+   *
+   * @param type   the entity class
+   * @param fields the fields that may be filtered and sorted on; each must be a
+   *               String, boolean, int, long, Double or LocalDateTime
+   * @param <T>    the entity type
+   * @return the filter
+   */
+  public static <T> EntityFilter<T> of(Class<T> type, String... fields) {
+    return new EntityFilter<>(type, fields);
+  }
+
+  /**
+   * @return the entity class
+   */
+  public Class<T> getType() {
+    return type;
+  }
+
+  /**
+   * @return the fields that may be filtered and sorted on
+   */
+  public Set<String> getFields() {
+    return Collections.unmodifiableSet(readers.keySet());
+  }
+
+  /**
+   * Compile a filter and sort.
+   *
+   * @param filter the filter; null or blank matches everything
+   * @param sort   the sort; null or blank sorts by id
+   * @return the query
+   * @throws BadRequestException if the filter or sort is not valid
+   */
+  public Query<T> compile(String filter, String sort) {
+    List<List<String>> clauses = new ArrayList<>();
+    if (filter != null && !filter.isBlank()) {
+      for (String clause : split(filter, ',', Integer.MAX_VALUE)) {
+        clauses.add(split(clause.trim(), ':', 3));
+      }
+    }
+    if (clauses.size() > MAX_CLAUSES) {
+      throw new BadRequestException("A filter can have at most %d clauses".formatted(MAX_CLAUSES));
+    }
+    String sortText = sort == null ? "" : sort.replace(" ", "");
+    StringBuilder shape = new StringBuilder();
+    List<List<String>> values = new ArrayList<>();
+    for (List<String> clause : clauses) {
+      shape.append(clause.get(0)).append(':').append(clause.size() > 1 ? clause.get(1) : "");
+      if (clause.size() < 3) {
+        values.add(List.of());
+      } else if (clause.get(1).equals("in")) {
+        values.add(split(clause.get(2), '|', Integer.MAX_VALUE));
+        shape.append(':').append(values.get(values.size() - 1).size());
+      } else {
+        values.add(List.of(clause.get(2)));
+        shape.append(':');
+      }
+      shape.append(',');
+    }
+    shape.append('|').append(sortText);
+    Plan plan = plans.get(shape.toString());
+    if (plan == null) {
+      plan = plan(clauses, sortText);
+      plans.put(shape.toString(), plan);
+    }
+    List<Specification<T>> specifications = new ArrayList<>();
+    for (int i = 0; i < clauses.size(); i++) {
+      Clause clause = plan.clauses().get(i);
+      List<Object> bound = new ArrayList<>();
+      for (String value : values.get(i)) {
+        bound.add(clause.reader().apply(unescape(value)));
+      }
+      specifications.add(specification(clause, bound));
+    }
+    return new Query<>(Specification.allOf(specifications), plan.sort());
+  }
+
+  /**
+   * A filter on a time range, for combining with a compiled filter.
+   *
+   * @param field the time field
+   * @param start the earliest time to include
+   * @param end   the time to stop before
+   * @param <T>   the entity type
+   * @return the filter
+   */
+  public static <T> Specification<T> between(String field, LocalDateTime start, LocalDateTime end) {
+    return (root, query, cb) -> cb.and(
+        cb.greaterThanOrEqualTo(root.get(field), start),
+        cb.lessThan(root.get(field), end));
+  }
+
+  /** @return the type of an allowed field, or null if it is not allowed */
+  Class<?> fieldType(String field) {
+    return types.get(field);
+  }
+
+  /** @return the number of shapes that are cached */
+  int cachedShapes() {
+    return plans.size();
+  }
+
+  private Plan plan(List<List<String>> clauses, String sort) {
+    List<Clause> compiled = new ArrayList<>();
+    for (List<String> clause : clauses) {
+      String field = checkField(clause.get(0));
+      if (clause.size() < 2 || !Op.NAMES.contains(clause.get(1))) {
+        throw new BadRequestException("Unknown operator in '%s'; expected one of %s"
+            .formatted(String.join(":", clause), Op.NAMES));
+      }
+      Op op = Op.valueOf(clause.get(1).toUpperCase(Locale.ROOT));
+      boolean takesValue = op != Op.NULL && op != Op.NOTNULL;
+      if (takesValue != (clause.size() == 3)) {
+        throw new BadRequestException(takesValue
+            ? "%s:%s needs a value".formatted(field, op)
+            : "%s:%s does not take a value".formatted(field, op));
+      }
+      Class<?> type = types.get(field);
+      boolean ordered = type != boolean.class && type != Boolean.class;
+      boolean range = op == Op.LT || op == Op.LE || op == Op.GT || op == Op.GE;
+      if ((range && !ordered) || (op == Op.PREFIX && type != String.class)) {
+        throw new BadRequestException("%s cannot be used on %s".formatted(op, field));
+      }
+      compiled.add(new Clause(field, op, readers.get(field)));
+    }
+    List<Sort.Order> orders = new ArrayList<>();
+    boolean hasId = false;
+    if (!sort.isEmpty()) {
+      for (String key : sort.split(",", -1)) {
+        boolean descending = key.startsWith("-");
+        String field = descending ? key.substring(1) : key;
+        hasId |= field.equals(idField);
+        if (!field.equals(idField)) {
+          checkField(field);
+        }
+        orders.add(descending ? Sort.Order.desc(field) : Sort.Order.asc(field));
+      }
+    }
+    if (!hasId) {
+      orders.add(Sort.Order.asc(idField));
+    }
+    return new Plan(List.copyOf(compiled), Sort.by(orders));
+  }
+
+  private String checkField(String field) {
+    if (!readers.containsKey(field)) {
+      throw new BadRequestException("Unknown field '%s'; expected one of %s".formatted(field, readers.keySet()));
+    }
+    return field;
+  }
+
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private static <T> Specification<T> specification(Clause clause, List<Object> values) {
+    return (root, query, cb) -> {
+      Path path = root.get(clause.field());
+      Comparable value = values.isEmpty() ? null : (Comparable) values.get(0);
+      return switch (clause.op()) {
+        case EQ -> cb.equal(path, value);
+        case NE -> cb.notEqual(path, value);
+        case LT -> cb.lessThan((Expression<Comparable>) path, value);
+        case LE -> cb.lessThanOrEqualTo((Expression<Comparable>) path, value);
+        case GT -> cb.greaterThan((Expression<Comparable>) path, value);
+        case GE -> cb.greaterThanOrEqualTo((Expression<Comparable>) path, value);
+        case IN -> path.in(values);
+        case PREFIX -> cb.like(path, escapeLike((String) value) + "%", '\\');
+        case NULL -> cb.isNull(path);
+        case NOTNULL -> cb.isNotNull(path);
+      };
+    };
+  }
+
+  private static Function<String, Object> readerFor(String field, Class<?> type) {
+    Function<String, Object> parse;
+    if (type == String.class) {
+      parse = value -> value;
+    } else if (type == boolean.class || type == Boolean.class) {
+      parse = value -> {
+        if (!value.equals("true") && !value.equals("false")) {
+          throw new IllegalArgumentException();
+        }
+        return Boolean.valueOf(value);
+      };
+    } else if (type == int.class || type == Integer.class) {
+      parse = Integer::valueOf;
+    } else if (type == long.class || type == Long.class) {
+      parse = Long::valueOf;
+    } else if (type == double.class || type == Double.class) {
+      parse = Double::valueOf;
+    } else if (type == LocalDateTime.class) {
+      parse = LocalDateTime::parse;
+    } else {
+      throw new IllegalArgumentException("%s of type %s cannot be filtered".formatted(field, type.getSimpleName()));
+    }
+    return value -> {
+      try {
+        return parse.apply(value);
+      } catch (IllegalArgumentException | DateTimeParseException e) {
+        throw new BadRequestException("'%s' is not a valid value for %s".formatted(value, field));
+      }
+    };
+  }
+
+  /** Split on a separator that is not escaped, keeping the escapes */
+  static List<String> split(String text, char separator, int limit) {
+    List<String> parts = new ArrayList<>();
+    StringBuilder part = new StringBuilder();
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c == '\\' && i + 1 < text.length()) {
+        part.append(c).append(text.charAt(++i));
+      } else if (c == separator && parts.size() < limit - 1) {
+        parts.add(part.toString());
+        part.setLength(0);
+      } else {
+        part.append(c);
+      }
+    }
+    parts.add(part.toString());
+    return parts;
+  }
+
+  static String unescape(String text) {
+    return text.replaceAll("\\\\(.)", "$1");
+  }
+
+  private static String escapeLike(String text) {
+    return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+  }
+}
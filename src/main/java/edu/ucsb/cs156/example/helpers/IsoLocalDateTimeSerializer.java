@@ -0,0 +1,96 @@
+package edu.ucsb.cs156.example.helpers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import org.springframework.boot.jackson.JsonComponent;
+
+/**
+ * Writes LocalDateTime values as the same strings as
+ * {@link DateTimeFormatter#ISO_LOCAL_DATE_TIME}, e.g.
+ * {@code 2022-01-03T00:00:00} or {@code 2022-01-03T00:00:00.5}, by filling
+ * in the digits directly rather than going through a DateTimeFormatter.
+ *
+ * Years outside 0 to 9999, which need a sign, are left to the formatter,
+ * and if dates are written as timestamps the value is left to the JSR-310
+ * serializer.
+ */
+@JsonComponent
+public class IsoLocalDateTimeSerializer extends StdSerializer<LocalDateTime> {
+
+  /** The length of the longest string, {@code yyyy-MM-ddTHH:mm:ss.nnnnnnnnn} */
+  static final int MAX_LENGTH = 29;
+
+  public IsoLocalDateTimeSerializer() {
+    super(LocalDateTime.class);
+  }
+
+  @Override
+  public void serialize(LocalDateTime value, JsonGenerator generator, SerializerProvider provider)
+      throws IOException {
+    if (provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)) {
+      LocalDateTimeSerializer.INSTANCE.serialize(value, generator, provider);
+      return;
+    }
+    char[] chars = new char[MAX_LENGTH];
+    int length = format(value, chars);
+    if (length < 0) {
+      generator.writeString(value.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+    } else {
+      generator.writeString(chars, 0, length);
+    }
+  }
+
+  /**
+   * Formats a LocalDateTime as ISO_LOCAL_DATE_TIME does.
+   *
+   * @param value the value
+   * @param chars at least MAX_LENGTH chars to write to
+   * @return the number of chars written, or -1 if the year is not between 0 and 9999
+   */
+  static int format(LocalDateTime value, char[] chars) {
+    int year = value.getYear();
+    if (year < 0 || year > 9999) {
+      return -1;
+    }
+    digits(year / 100, chars, 0);
+    digits(year % 100, chars, 2);
+    chars[4] = '-';
+    digits(value.getMonthValue(), chars, 5);
+    chars[7] = '-';
+    digits(value.getDayOfMonth(), chars, 8);
+    chars[10] = 'T';
+    digits(value.getHour(), chars, 11);
+    chars[13] = ':';
+    digits(value.getMinute(), chars, 14);
+    chars[16] = ':';
+    digits(value.getSecond(), chars, 17);
+    int nano = value.getNano();
+    if (nano == 0) {
+      return 19;
+    }
+    // as many digits of the fraction as it takes, without trailing zeros
+    chars[19] = '.';
+    int length = 29;
+    for (int i = 28; i > 19; i--) {
+      chars[i] = (char) ('0' + nano % 10);
+      nano /= 10;
+    }
+    while (chars[length - 1] == '0') {
+      length--;
+    }
+    return length;
+  }
+
+  private static void digits(int twoDigits, char[] chars, int at) {
+    chars[at] = (char) ('0' + twoDigits / 10);
+    chars[at + 1] = (char) ('0' + twoDigits % 10);
+  }
+}
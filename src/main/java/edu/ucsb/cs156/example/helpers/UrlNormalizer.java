@@ -0,0 +1,112 @@
+package edu.ucsb.cs156.example.helpers;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Helper for turning article urls into a canonical form so that trivially
+ * different spellings of the same link (e.g. {@code HTTP://Example.com/a/}
+ * and {@code https://example.com/a?utm_source=x}) compare equal.
+ *
+ * The canonical form:
+ * <ul>
+ * <li>treats {@code http} and {@code https} (and a missing scheme) as the same scheme</li>
+ * <li>lower-cases the host and drops default ports</li>
+ * <li>removes the fragment and any trailing slash on the path</li>
+ * <li>removes tracking parameters (utm_*, fbclid, gclid, ...) and sorts the rest</li>
+ * </ul>
+ */
+public final class UrlNormalizer {
+
+  private static final Set<String> TRACKING_PARAMS = Set.of(
+      "fbclid", "gclid", "dclid", "msclkid", "yclid", "igshid",
+      "mc_cid", "mc_eid", "ref_src", "_ga", "_gl");
+
+  private UrlNormalizer() {
+  }
+
+  /**
+   * Returns the canonical form of a url.
+   *
+   * @param url the url as entered by a user
+   * @return the normalized url, or null if url is null
+   */
+  public static String normalize(String url) {
+    if (url == null) {
+      return null;
+    }
+    String trimmed = url.trim();
+    if (!trimmed.contains("://")) {
+      trimmed = "https://" + trimmed;
+    }
+    try {
+      URI uri = new URI(trimmed);
+      if (uri.getHost() == null) {
+        return trimmed.toLowerCase(Locale.ROOT);
+      }
+      String host = uri.getHost().toLowerCase(Locale.ROOT);
+      int port = uri.getPort();
+      String path = uri.getRawPath() == null ? "" : uri.getRawPath();
+      while (path.endsWith("/")) {
+        path = path.substring(0, path.length() - 1);
+      }
+      String query = normalizeQuery(uri.getRawQuery());
+
+      StringBuilder sb = new StringBuilder("https://").append(host);
+      if (port != -1 && port != 80 && port != 443) {
+        sb.append(':').append(port);
+      }
+      sb.append(path);
+      if (!query.isEmpty()) {
+        sb.append('?').append(query);
+      }
+      return sb.toString();
+    } catch (URISyntaxException e) {
+      return trimmed.toLowerCase(Locale.ROOT);
+    }
+  }
+
+  /**
+   * Returns the hex encoded SHA-256 hash of the normalized url; this is the
+   * value stored in the unique {@code URL_HASH} column of the articles table.
+   *
+   * @param url the url as entered by a user
+   * @return 64 character hex string, or null if url is null
+   */
+  public static String hash(String url) {
+    String normalized = normalize(url);
+    if (normalized == null) {
+      return null;
+    }
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(digest.digest(normalized.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      // every JVM is required to provide SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String normalizeQuery(String rawQuery) {
+    if (rawQuery == null || rawQuery.isEmpty()) {
+      return "";
+    }
+    return Arrays.stream(rawQuery.split("&"))
+        .filter(p -> !p.isEmpty())
+        .filter(p -> !isTrackingParam(p.split("=", 2)[0].toLowerCase(Locale.ROOT)))
+        .sorted()
+        .collect(Collectors.joining("&"));
+  }
+
+  private static boolean isTrackingParam(String name) {
+    return name.startsWith("utm_") || TRACKING_PARAMS.contains(name);
+  }
+}
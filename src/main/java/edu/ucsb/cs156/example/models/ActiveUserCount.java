@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.LocalDate;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+/**
+ * This is a model class that represents the estimated number of distinct
+ * users that were active in a range of days.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class ActiveUserCount {
+  private String period;
+  private LocalDate from;
+  private LocalDate to;
+  private long estimate;
+}
@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * This is a model class that represents the admin dashboard: the tiles, in a
+ * fixed order, when they were found, and whether all of them were.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class AdminDashboard {
+  private LocalDateTime generatedAt;
+  private boolean complete;
+  private List<DashboardTile> tiles;
+}
@@ -0,0 +1,27 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.Map;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+/**
+ * This is a model class that represents one group of an aggregate query:
+ * the values of the keys it was grouped by, e.g. {"teamId": "s22-5pm-3"},
+ * and the metrics computed over it, e.g. {"count": 12, "max:requestTime": ...}.
+ *
+ * group is empty when nothing was grouped by, i.e. for the totals of the
+ * whole table.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class AggregateRow {
+  private Map<String, Object> group;
+  private Map<String, Object> values;
+}
@@ -0,0 +1,49 @@
+package edu.ucsb.cs156.example.models;
+
+import edu.ucsb.cs156.example.entities.Articles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This is an immutable copy of an Articles entity that the list endpoints return,
+ * so that Jackson serializes a record rather than an entity. It has
+ * the same fields as the JSON of the entity, in the same order, and leaves
+ * out the url hash.
+ */
+
+public record ArticlesDto(
+    long id,
+    String title,
+    String url,
+    String explanation,
+    String email,
+    LocalDateTime dateAdded) {
+
+  /**
+   * @param article the article
+   * @return a copy of the article
+   */
+  public static ArticlesDto from(Articles article) {
+    return new ArticlesDto(
+        article.getId(),
+        article.getTitle(),
+        article.getUrl(),
+        article.getExplanation(),
+        article.getEmail(),
+        article.getDateAdded());
+  }
+
+  /**
+   * @param articles the articles
+   * @return copies of the articles, in the same order
+   */
+  public static List<ArticlesDto> fromAll(Iterable<Articles> articles) {
+    List<ArticlesDto> dtos = new ArrayList<>();
+    for (Articles article : articles) {
+      dtos.add(from(article));
+    }
+    return dtos;
+  }
+}
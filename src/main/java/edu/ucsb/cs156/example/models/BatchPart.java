@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.example.models;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+/**
+ * This is a model class that represents the response to one part of a batch
+ * request: the url that was asked for, the status it got, and its JSON body,
+ * which is included as is (null if it had none).
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class BatchPart {
+  private String url;
+  private int status;
+  @JsonRawValue
+  private String body;
+}
@@ -0,0 +1,22 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+/**
+ * This is a model class that represents the data the frontend needs before
+ * its first render, which is put into index.html: the system information and
+ * the current user with their roles (null if no one is logged in).
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class Bootstrap {
+  private SystemInfo systemInfo;
+  private CurrentUser currentUser;
+}
@@ -0,0 +1,27 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+/**
+ * This is a model class that represents one number on the admin dashboard,
+ * e.g. the number of unsolved help requests, and whether it could be found:
+ * status is "ok", "timeout" or "error", and value is null unless it is "ok".
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class DashboardTile {
+  public static final String OK = "ok";
+  public static final String TIMEOUT = "timeout";
+  public static final String ERROR = "error";
+
+  private String name;
+  private Long value;
+  private String status;
+}
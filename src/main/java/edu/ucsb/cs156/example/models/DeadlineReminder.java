@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.LocalDateTime;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+/**
+ * This is a model class that represents a reminder that a recommendation
+ * request that is not done is needed soon.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class DeadlineReminder {
+  private long requestId;
+  private String requesterEmail;
+  private String professorEmail;
+  private LocalDateTime dateNeeded;
+  private LocalDateTime remindAt;
+}
@@ -0,0 +1,27 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.LocalDateTime;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+/**
+ * This is a model class that represents one run of the help request archive
+ * job: when it started, the solved time before which requests were archived,
+ * how many batches it took, how many requests it moved, and how long it took.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class HelpRequestArchiveRun {
+  private LocalDateTime startedAt;
+  private LocalDateTime cutoff;
+  private int batches;
+  private long moved;
+  private long millis;
+}
@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+/**
+ * This is a model class that represents the settings and totals of the help
+ * request archive job since the application started, and its last run
+ * (null if it has not run).
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class HelpRequestArchiveStatus {
+  private long afterDays;
+  private int batchSize;
+  private long runs;
+  private long totalMoved;
+  private HelpRequestArchiveRun lastRun;
+}
@@ -0,0 +1,52 @@
+package edu.ucsb.cs156.example.models;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This is an immutable copy of a HelpRequest that the list endpoints return,
+ * so that Jackson serializes a record rather than an entity. It has the same
+ * fields, in the same order, so the JSON is the same.
+ */
+
+public record HelpRequestDto(
+    long id,
+    String requesterEmail,
+    String teamId,
+    String tableOrBreakoutRoom,
+    LocalDateTime requestTime,
+    String explanation,
+    boolean solved,
+    LocalDateTime solvedTime) {
+
+  /**
+   * @param helpRequest the help request
+   * @return a copy of the help request
+   */
+  public static HelpRequestDto from(HelpRequest helpRequest) {
+    return new HelpRequestDto(
+        helpRequest.getId(),
+        helpRequest.getRequesterEmail(),
+        helpRequest.getTeamId(),
+        helpRequest.getTableOrBreakoutRoom(),
+        helpRequest.getRequestTime(),
+        helpRequest.getExplanation(),
+        helpRequest.getSolved(),
+        helpRequest.getSolvedTime());
+  }
+
+  /**
+   * @param helpRequests the help requests
+   * @return copies of the help requests, in the same order
+   */
+  public static List<HelpRequestDto> fromAll(Iterable<HelpRequest> helpRequests) {
+    List<HelpRequestDto> dtos = new ArrayList<>();
+    for (HelpRequest helpRequest : helpRequests) {
+      dtos.add(from(helpRequest));
+    }
+    return dtos;
+  }
+}
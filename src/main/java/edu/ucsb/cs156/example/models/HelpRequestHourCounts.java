@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * This is one row of a query that counts help requests by teamId and the
+ * hour of their requestTime: the number of requests and the number solved.
+ * HelpRequestRollupService loads its counts from these rows.
+ */
+
+public record HelpRequestHourCounts(
+    String teamId,
+    LocalDate day,
+    Integer hour,
+    Long requests,
+    Long solved) {
+
+  /**
+   * @return the start of the hour that was counted
+   */
+  public LocalDateTime start() {
+    return day.atTime(hour, 0);
+  }
+}
@@ -0,0 +1,15 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.LocalDateTime;
+
+/**
+ * This is the part of a solved help request that HelpRequestRollupService
+ * needs for its sketches of the time to solve, so that it can load them
+ * without loading whole entities.
+ */
+
+public record HelpRequestSolveTime(
+    String teamId,
+    LocalDateTime requestTime,
+    LocalDateTime solvedTime) {
+}
@@ -0,0 +1,33 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.LocalDateTime;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+/**
+ * This is a model class that represents the number of help requests made in
+ * a range of hours, how many of them are solved, and quantiles of how long
+ * the solved ones took to solve, in seconds.
+ *
+ * teamId is null when the counts are for all teams. The quantiles are null
+ * when no request in the range has a time to solve.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class HelpRequestStats {
+  private String teamId;
+  private LocalDateTime from;
+  private LocalDateTime to;
+  private long requests;
+  private long solved;
+  private Long medianSolveSeconds;
+  private Long p90SolveSeconds;
+  private Long p99SolveSeconds;
+}
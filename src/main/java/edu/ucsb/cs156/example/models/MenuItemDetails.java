@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.example.models;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+/**
+ * This is a model class that represents a menu item together with its
+ * dining commons and a summary of its reviews.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class MenuItemDetails {
+  private UCSBDiningCommonsMenuItem item;
+  private UCSBDiningCommons diningCommons;
+  private long reviewCount;
+  private Double averageStars;
+}
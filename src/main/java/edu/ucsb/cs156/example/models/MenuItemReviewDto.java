@@ -0,0 +1,49 @@
+package edu.ucsb.cs156.example.models;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This is an immutable copy of a MenuItemReview that the list endpoints
+ * return, so that Jackson serializes a record rather than an entity. It has
+ * the same fields as the JSON of the entity, in the same order, and never
+ * touches the lazy item association.
+ */
+
+public record MenuItemReviewDto(
+    long id,
+    long itemId,
+    String reviewerEmail,
+    int stars,
+    LocalDateTime dateReviewed,
+    String comments) {
+
+  /**
+   * @param review the review
+   * @return a copy of the review
+   */
+  public static MenuItemReviewDto from(MenuItemReview review) {
+    return new MenuItemReviewDto(
+        review.getId(),
+        review.getItemId(),
+        review.getReviewerEmail(),
+        review.getStars(),
+        review.getDateReviewed(),
+        review.getComments());
+  }
+
+  /**
+   * @param reviews the reviews
+   * @return copies of the reviews, in the same order
+   */
+  public static List<MenuItemReviewDto> fromAll(Iterable<MenuItemReview> reviews) {
+    List<MenuItemReviewDto> dtos = new ArrayList<>();
+    for (MenuItemReview review : reviews) {
+      dtos.add(from(review));
+    }
+    return dtos;
+  }
+}
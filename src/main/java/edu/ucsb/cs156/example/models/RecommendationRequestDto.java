@@ -0,0 +1,50 @@
+package edu.ucsb.cs156.example.models;
+
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This is an immutable copy of a RecommendationRequest that the list endpoints return,
+ * so that Jackson serializes a record rather than an entity. It has the
+ * same fields, in the same order, so the JSON is the same.
+ */
+
+public record RecommendationRequestDto(
+    long id,
+    String requesterEmail,
+    String professorEmail,
+    String explanation,
+    LocalDateTime dateRequested,
+    LocalDateTime dateNeeded,
+    boolean done) {
+
+  /**
+   * @param recommendationRequest the recommendation request
+   * @return a copy of the recommendation request
+   */
+  public static RecommendationRequestDto from(RecommendationRequest recommendationRequest) {
+    return new RecommendationRequestDto(
+        recommendationRequest.getId(),
+        recommendationRequest.getRequesterEmail(),
+        recommendationRequest.getProfessorEmail(),
+        recommendationRequest.getExplanation(),
+        recommendationRequest.getDateRequested(),
+        recommendationRequest.getDateNeeded(),
+        recommendationRequest.getDone());
+  }
+
+  /**
+   * @param recommendationRequests the recommendation requests
+   * @return copies of the recommendation requests, in the same order
+   */
+  public static List<RecommendationRequestDto> fromAll(Iterable<RecommendationRequest> recommendationRequests) {
+    List<RecommendationRequestDto> dtos = new ArrayList<>();
+    for (RecommendationRequest recommendationRequest : recommendationRequests) {
+      dtos.add(from(recommendationRequest));
+    }
+    return dtos;
+  }
+}
@@ -0,0 +1,41 @@
+package edu.ucsb.cs156.example.models;
+
+import edu.ucsb.cs156.example.entities.Restaurant;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This is an immutable copy of a Restaurant that the list endpoints return,
+ * so that Jackson serializes a record rather than an entity. It has the
+ * same fields, in the same order, so the JSON is the same.
+ */
+
+public record RestaurantDto(
+    long id,
+    String name,
+    String description) {
+
+  /**
+   * @param restaurant the restaurant
+   * @return a copy of the restaurant
+   */
+  public static RestaurantDto from(Restaurant restaurant) {
+    return new RestaurantDto(
+        restaurant.getId(),
+        restaurant.getName(),
+        restaurant.getDescription());
+  }
+
+  /**
+   * @param restaurants the restaurants
+   * @return copies of the restaurants, in the same order
+   */
+  public static List<RestaurantDto> fromAll(Iterable<Restaurant> restaurants) {
+    List<RestaurantDto> dtos = new ArrayList<>();
+    for (Restaurant restaurant : restaurants) {
+      dtos.add(from(restaurant));
+    }
+    return dtos;
+  }
+}
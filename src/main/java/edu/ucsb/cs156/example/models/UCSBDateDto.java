@@ -0,0 +1,44 @@
+package edu.ucsb.cs156.example.models;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This is an immutable copy of a UCSBDate that the list endpoints return,
+ * so that Jackson serializes a record rather than an entity. It has the
+ * same fields, in the same order, so the JSON is the same.
+ */
+
+public record UCSBDateDto(
+    long id,
+    String quarterYYYYQ,
+    String name,
+    LocalDateTime localDateTime) {
+
+  /**
+   * @param date the date
+   * @return a copy of the date
+   */
+  public static UCSBDateDto from(UCSBDate date) {
+    return new UCSBDateDto(
+        date.getId(),
+        date.getQuarterYYYYQ(),
+        date.getName(),
+        date.getLocalDateTime());
+  }
+
+  /**
+   * @param dates the dates
+   * @return copies of the dates, in the same order
+   */
+  public static List<UCSBDateDto> fromAll(Iterable<UCSBDate> dates) {
+    List<UCSBDateDto> dtos = new ArrayList<>();
+    for (UCSBDate date : dates) {
+      dtos.add(from(date));
+    }
+    return dtos;
+  }
+}
@@ -0,0 +1,49 @@
+package edu.ucsb.cs156.example.models;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This is an immutable copy of a UCSBDiningCommons that the list endpoints return,
+ * so that Jackson serializes a record rather than an entity. It has the
+ * same fields, in the same order, so the JSON is the same.
+ */
+
+public record UCSBDiningCommonsDto(
+    String code,
+    String name,
+    boolean hasSackMeal,
+    boolean hasTakeOutMeal,
+    boolean hasDiningCam,
+    Double latitude,
+    Double longitude) {
+
+  /**
+   * @param commons the dining commons
+   * @return a copy of the dining commons
+   */
+  public static UCSBDiningCommonsDto from(UCSBDiningCommons commons) {
+    return new UCSBDiningCommonsDto(
+        commons.getCode(),
+        commons.getName(),
+        commons.getHasSackMeal(),
+        commons.getHasTakeOutMeal(),
+        commons.getHasDiningCam(),
+        commons.getLatitude(),
+        commons.getLongitude());
+  }
+
+  /**
+   * @param diningCommons the dining commons
+   * @return copies of the dining commons, in the same order
+   */
+  public static List<UCSBDiningCommonsDto> fromAll(Iterable<UCSBDiningCommons> diningCommons) {
+    List<UCSBDiningCommonsDto> dtos = new ArrayList<>();
+    for (UCSBDiningCommons commons : diningCommons) {
+      dtos.add(from(commons));
+    }
+    return dtos;
+  }
+}
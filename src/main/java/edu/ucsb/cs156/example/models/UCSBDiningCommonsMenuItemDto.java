@@ -0,0 +1,44 @@
+package edu.ucsb.cs156.example.models;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This is an immutable copy of a UCSBDiningCommonsMenuItem that the list endpoints return,
+ * so that Jackson serializes a record rather than an entity. It has
+ * the same fields as the JSON of the entity, in the same order, and never
+ * touches the lazy diningCommons association.
+ */
+
+public record UCSBDiningCommonsMenuItemDto(
+    long id,
+    String diningCommonsCode,
+    String name,
+    String station) {
+
+  /**
+   * @param menuItem the menu item
+   * @return a copy of the menu item
+   */
+  public static UCSBDiningCommonsMenuItemDto from(UCSBDiningCommonsMenuItem menuItem) {
+    return new UCSBDiningCommonsMenuItemDto(
+        menuItem.getId(),
+        menuItem.getDiningCommonsCode(),
+        menuItem.getName(),
+        menuItem.getStation());
+  }
+
+  /**
+   * @param menuItems the menu items
+   * @return copies of the menu items, in the same order
+   */
+  public static List<UCSBDiningCommonsMenuItemDto> fromAll(Iterable<UCSBDiningCommonsMenuItem> menuItems) {
+    List<UCSBDiningCommonsMenuItemDto> dtos = new ArrayList<>();
+    for (UCSBDiningCommonsMenuItem menuItem : menuItems) {
+      dtos.add(from(menuItem));
+    }
+    return dtos;
+  }
+}
@@ -0,0 +1,43 @@
+package edu.ucsb.cs156.example.models;
+
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This is an immutable copy of a UCSBOrganization that the list endpoints return,
+ * so that Jackson serializes a record rather than an entity. It has the
+ * same fields, in the same order, so the JSON is the same.
+ */
+
+public record UCSBOrganizationDto(
+    String orgCode,
+    String orgTranslationShort,
+    String orgTranslation,
+    boolean inactive) {
+
+  /**
+   * @param organization the organization
+   * @return a copy of the organization
+   */
+  public static UCSBOrganizationDto from(UCSBOrganization organization) {
+    return new UCSBOrganizationDto(
+        organization.getOrgCode(),
+        organization.getOrgTranslationShort(),
+        organization.getOrgTranslation(),
+        organization.getInactive());
+  }
+
+  /**
+   * @param organizations the organizations
+   * @return copies of the organizations, in the same order
+   */
+  public static List<UCSBOrganizationDto> fromAll(Iterable<UCSBOrganization> organizations) {
+    List<UCSBOrganizationDto> dtos = new ArrayList<>();
+    for (UCSBOrganization organization : organizations) {
+      dtos.add(from(organization));
+    }
+    return dtos;
+  }
+}
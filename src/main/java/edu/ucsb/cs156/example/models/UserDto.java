@@ -0,0 +1,60 @@
+package edu.ucsb.cs156.example.models;
+
+import edu.ucsb.cs156.example.entities.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This is an immutable copy of a User that the admin users endpoint
+ * returns, so that Jackson serializes a record rather than an entity. It
+ * has the same fields, in the same order, so the JSON is the same.
+ */
+
+public record UserDto(
+    long id,
+    String email,
+    String googleSub,
+    String pictureUrl,
+    String fullName,
+    String givenName,
+    String familyName,
+    boolean emailVerified,
+    String locale,
+    String hostedDomain,
+    boolean admin,
+    LocalDateTime lastSeen) {
+
+  /**
+   * @param user the user
+   * @return a copy of the user
+   */
+  public static UserDto from(User user) {
+    return new UserDto(
+        user.getId(),
+        user.getEmail(),
+        user.getGoogleSub(),
+        user.getPictureUrl(),
+        user.getFullName(),
+        user.getGivenName(),
+        user.getFamilyName(),
+        user.getEmailVerified(),
+        user.getLocale(),
+        user.getHostedDomain(),
+        user.getAdmin(),
+        user.getLastSeen());
+  }
+
+  /**
+   * @param users the users
+   * @return copies of the users, in the same order
+   */
+  public static List<UserDto> fromAll(Iterable<User> users) {
+    List<UserDto> dtos = new ArrayList<>();
+    for (User user : users) {
+      dtos.add(from(user));
+    }
+    return dtos;
+  }
+}
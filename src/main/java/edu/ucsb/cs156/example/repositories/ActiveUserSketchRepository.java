@@ -0,0 +1,36 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.ActiveUserSketch;
+
+import jakarta.persistence.LockModeType;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * The ActiveUserSketchRepository is a repository for ActiveUserSketch entities.
+ */
+@Repository
+public interface ActiveUserSketchRepository extends CrudRepository<ActiveUserSketch, LocalDate> {
+  /**
+   * This method returns the sketches for a range of days.
+   * @param from the first day
+   * @param to the last day (inclusive)
+   * @return the sketches, earliest first; days with no activity have no sketch
+   */
+  List<ActiveUserSketch> findByActivityDateBetweenOrderByActivityDateAsc(LocalDate from, LocalDate to);
+
+  /**
+   * This method returns the sketch of a day and locks its row until the end
+   * of the transaction, so that sketches are merged into it one at a time.
+   * @param activityDate the day
+   * @return the sketch, if the day has one
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  Optional<ActiveUserSketch> findForUpdateByActivityDate(LocalDate activityDate);
+}
@@ -0,0 +1,19 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.helpers.EntityAggregation;
+
+import java.util.List;
+
+/**
+ * The AggregateRepository is a repository fragment for running aggregate
+ * (GROUP BY) queries over an entity; see EntityAggregation.
+ */
+public interface AggregateRepository<T> {
+  /**
+   * This method runs an aggregate query.
+   * @param query the query
+   * @return one array per group, ordered by the keys: the values of the keys and
+   *         then of the metrics; at most EntityAggregation.MAX_GROUPS + 1 of them
+   */
+  List<Object[]> aggregate(EntityAggregation.Query<T> query);
+}
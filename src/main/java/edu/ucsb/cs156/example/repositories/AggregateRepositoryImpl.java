@@ -0,0 +1,61 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.helpers.EntityAggregation;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This is the implementation of AggregateRepository that the repositories
+ * extending it share. It builds one criteria query, e.g.
+ * {@code SELECT team_id, count(*), max(request_time) FROM helprequests WHERE ... GROUP BY team_id ORDER BY team_id},
+ * so the database does the aggregation and only one row per group is read.
+ */
+public class AggregateRepositoryImpl<T> implements AggregateRepository<T> {
+
+  @PersistenceContext
+  EntityManager entityManager;
+
+  @Override
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  public List<Object[]> aggregate(EntityAggregation.Query<T> query) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Object[]> criteria = cb.createQuery(Object[].class);
+    Root<T> root = criteria.from(query.type());
+    List<Selection<?>> selections = new ArrayList<>();
+    List<Expression<?>> groups = new ArrayList<>();
+    List<Order> order = new ArrayList<>();
+    for (String key : query.groupBy()) {
+      Expression<?> path = root.get(key);
+      selections.add(path);
+      groups.add(path);
+      order.add(cb.asc(path));
+    }
+    for (EntityAggregation.Metric metric : query.metrics()) {
+      Expression path = metric.field() == null ? null : root.get(metric.field());
+      selections.add(switch (metric.function()) {
+        case COUNT -> cb.count(root);
+        case MIN -> cb.least(path);
+        case MAX -> cb.greatest(path);
+        case AVG -> cb.avg(path);
+      });
+    }
+    criteria.multiselect(selections);
+    Predicate where = query.where().toPredicate(root, criteria, cb);
+    if (where != null) {
+      criteria.where(where);
+    }
+    criteria.groupBy(groups);
+    criteria.orderBy(order);
+    return entityManager.createQuery(criteria).setMaxResults(EntityAggregation.MAX_GROUPS + 1).getResultList();
+  }
+}
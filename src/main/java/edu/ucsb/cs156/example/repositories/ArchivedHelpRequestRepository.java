@@ -0,0 +1,89 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.ArchivedHelpRequest;
+import edu.ucsb.cs156.example.models.HelpRequestHourCounts;
+import edu.ucsb.cs156.example.models.HelpRequestSolveTime;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * The ArchivedHelpRequestRepository is a repository for ArchivedHelpRequest entities.
+ */
+
+@Repository
+public interface ArchivedHelpRequestRepository extends CrudRepository<ArchivedHelpRequest, Long> {
+  /**
+   * This method returns the solved archived help requests of a team made in a range of times.
+   * This query uses the (TEAM_ID, REQUEST_TIME) index.
+   *
+   * @param teamId the team (null for requests without a team)
+   * @param from   the earliest request time
+   * @param to     the request time to stop before
+   * @return the solved archived help requests
+   */
+  List<ArchivedHelpRequest> findByTeamIdAndRequestTimeGreaterThanEqualAndRequestTimeLessThanAndSolvedTrue(
+      String teamId, LocalDateTime from, LocalDateTime to);
+
+  /**
+   * This method returns the archived help requests made in a range of times.
+   * This query uses the REQUEST_TIME index.
+   *
+   * @param from the earliest request time
+   * @param to   the request time to stop before
+   * @return the archived help requests, ordered by requestTime and then id
+   */
+  List<ArchivedHelpRequest> findByRequestTimeGreaterThanEqualAndRequestTimeLessThanOrderByRequestTimeAscIdAsc(
+      LocalDateTime from, LocalDateTime to);
+
+  /**
+   * This method counts the archived help requests by teamId and the hour of their requestTime.
+   * Requests without a requestTime are not counted.
+   *
+   * @return the number of requests and the number solved, for each team and hour
+   */
+  @Query("""
+      SELECT new edu.ucsb.cs156.example.models.HelpRequestHourCounts(h.teamId,
+          CAST(h.requestTime AS LocalDate), EXTRACT(HOUR FROM h.requestTime),
+          COUNT(h), SUM(CASE WHEN h.solved = true THEN 1 ELSE 0 END))
+      FROM archivedhelprequests h WHERE h.requestTime IS NOT NULL
+      GROUP BY h.teamId, CAST(h.requestTime AS LocalDate), EXTRACT(HOUR FROM h.requestTime)
+      """)
+  List<HelpRequestHourCounts> countByTeamIdAndHour();
+
+  /**
+   * This method counts the archived help requests made in a range of times by teamId and
+   * the hour of their requestTime.
+   *
+   * @param from the earliest request time
+   * @param to   the request time to stop before
+   * @return the number of requests and the number solved, for each team and hour
+   */
+  @Query("""
+      SELECT new edu.ucsb.cs156.example.models.HelpRequestHourCounts(h.teamId,
+          CAST(h.requestTime AS LocalDate), EXTRACT(HOUR FROM h.requestTime),
+          COUNT(h), SUM(CASE WHEN h.solved = true THEN 1 ELSE 0 END))
+      FROM archivedhelprequests h WHERE h.requestTime >= :from AND h.requestTime < :to
+      GROUP BY h.teamId, CAST(h.requestTime AS LocalDate), EXTRACT(HOUR FROM h.requestTime)
+      """)
+  List<HelpRequestHourCounts> countByTeamIdAndHour(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+  /**
+   * This method streams the teamId, requestTime and solvedTime of the solved
+   * archived help requests that have both times. It must be called in a transaction, and
+   * the stream closed.
+   *
+   * @return the times of the solved requests
+   */
+  @Query("""
+      SELECT new edu.ucsb.cs156.example.models.HelpRequestSolveTime(h.teamId, h.requestTime, h.solvedTime)
+      FROM archivedhelprequests h WHERE h.solved = true AND h.requestTime IS NOT NULL AND h.solvedTime IS NOT NULL
+      """)
+  Stream<HelpRequestSolveTime> streamSolveTimes();
+}
@@ -2,6 +2,12 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Articles;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
@@ -10,6 +16,35 @@ import org.springframework.stereotype.Repository;
  * entities
  */
 @Repository
-public interface ArticlesRepository extends CrudRepository<Articles, Long> {
+public interface ArticlesRepository extends CrudRepository<Articles, Long>,
+    JpaSpecificationExecutor<Articles>, AggregateRepository<Articles> {
+  /**
+   * This method returns the Articles entity that holds a given url hash.
+   * @param urlHash SHA-256 hash of the normalized url
+   * @return Optional of Articles (empty if not found)
+   */
+  Optional<Articles> findByUrlHash(String urlHash);
+
+  /**
+   * This method returns all of the url hashes stored in the articles table.
+   * @return all non-null url hashes
+   */
+  @Query("select a.urlHash from articles a where a.urlHash is not null")
+  Iterable<String> findAllUrlHashes();
+
+  /**
+   * This method returns all Articles entities that do not have a url hash yet.
+   * @return articles with a null url hash
+   */
+  Iterable<Articles> findAllByUrlHashIsNull();
 
-}
\ No newline at end of file
+  /**
+   * This method returns the Articles entities added in a range of times.
+   * This query uses the DATE_ADDED index.
+   * @param from the earliest dateAdded
+   * @param to the dateAdded to stop before
+   * @return the articles, ordered by dateAdded and then id
+   */
+  List<Articles> findByDateAddedGreaterThanEqualAndDateAddedLessThanOrderByDateAddedAscIdAsc(LocalDateTime from,
+      LocalDateTime to);
+}
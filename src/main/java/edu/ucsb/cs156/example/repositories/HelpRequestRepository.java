@@ -1,8 +1,20 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.models.HelpRequestHourCounts;
+import edu.ucsb.cs156.example.models.HelpRequestSolveTime;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -10,6 +22,129 @@ import org.springframework.stereotype.Repository;
  */
 
 @Repository
-public interface HelpRequestRepository extends CrudRepository<HelpRequest, Long> {
+public interface HelpRequestRepository extends CrudRepository<HelpRequest, Long>,
+    JpaSpecificationExecutor<HelpRequest>, AggregateRepository<HelpRequest> {
+  /**
+   * This method returns the solved help requests of a team made in a range of times.
+   * This query uses the (TEAM_ID, REQUEST_TIME) index.
+   *
+   * @param teamId the team (null for requests without a team)
+   * @param from   the earliest request time
+   * @param to     the request time to stop before
+   * @return the solved help requests
+   */
+  List<HelpRequest> findByTeamIdAndRequestTimeGreaterThanEqualAndRequestTimeLessThanAndSolvedTrue(String teamId,
+      LocalDateTime from, LocalDateTime to);
+
+  /**
+   * This method returns the help requests made in a range of times.
+   * This query uses the REQUEST_TIME index.
+   *
+   * @param from the earliest request time
+   * @param to   the request time to stop before
+   * @return the help requests, ordered by requestTime and then id
+   */
+  List<HelpRequest> findByRequestTimeGreaterThanEqualAndRequestTimeLessThanOrderByRequestTimeAscIdAsc(
+      LocalDateTime from, LocalDateTime to);
+
+  /**
+   * This method counts the help requests by teamId and the hour of their requestTime.
+   * Requests without a requestTime are not counted.
+   *
+   * @return the number of requests and the number solved, for each team and hour
+   */
+  @Query("""
+      SELECT new edu.ucsb.cs156.example.models.HelpRequestHourCounts(h.teamId,
+          CAST(h.requestTime AS LocalDate), EXTRACT(HOUR FROM h.requestTime),
+          COUNT(h), SUM(CASE WHEN h.solved = true THEN 1 ELSE 0 END))
+      FROM helprequests h WHERE h.requestTime IS NOT NULL
+      GROUP BY h.teamId, CAST(h.requestTime AS LocalDate), EXTRACT(HOUR FROM h.requestTime)
+      """)
+  List<HelpRequestHourCounts> countByTeamIdAndHour();
+
+  /**
+   * This method counts the help requests made in a range of times by teamId and
+   * the hour of their requestTime.
+   *
+   * @param from the earliest request time
+   * @param to   the request time to stop before
+   * @return the number of requests and the number solved, for each team and hour
+   */
+  @Query("""
+      SELECT new edu.ucsb.cs156.example.models.HelpRequestHourCounts(h.teamId,
+          CAST(h.requestTime AS LocalDate), EXTRACT(HOUR FROM h.requestTime),
+          COUNT(h), SUM(CASE WHEN h.solved = true THEN 1 ELSE 0 END))
+      FROM helprequests h WHERE h.requestTime >= :from AND h.requestTime < :to
+      GROUP BY h.teamId, CAST(h.requestTime AS LocalDate), EXTRACT(HOUR FROM h.requestTime)
+      """)
+  List<HelpRequestHourCounts> countByTeamIdAndHour(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+  /**
+   * This method streams the teamId, requestTime and solvedTime of the solved
+   * help requests that have both times. It must be called in a transaction, and
+   * the stream closed.
+   *
+   * @return the times of the solved requests
+   */
+  @Query("""
+      SELECT new edu.ucsb.cs156.example.models.HelpRequestSolveTime(h.teamId, h.requestTime, h.solvedTime)
+      FROM helprequests h WHERE h.solved = true AND h.requestTime IS NOT NULL AND h.solvedTime IS NOT NULL
+      """)
+  Stream<HelpRequestSolveTime> streamSolveTimes();
+
+  /**
+   * This method returns the ids of solved help requests that were solved
+   * before a time. Requests solved before solvedTime was recorded count as
+   * solved at their requestTime.
+   *
+   * @param cutoff the time
+   * @param limit  the most ids to return
+   * @return the ids, in order
+   */
+  @Query("SELECT h.id FROM helprequests h WHERE h.solved = true AND COALESCE(h.solvedTime, h.requestTime) < :cutoff ORDER BY h.id")
+  List<Long> findIdsSolvedBefore(@Param("cutoff") LocalDateTime cutoff, Limit limit);
+
+  /**
+   * This method copies solved help requests to the archivedhelprequests table.
+   * It must be called in the same transaction as deleteSolved.
+   *
+   * @param ids          the ids of the requests; those that are no longer solved are skipped
+   * @param archivedTime the time to record as when they were archived
+   * @return the number of requests copied
+   */
+  @Modifying
+  @Query(value = """
+      INSERT INTO archivedhelprequests (id, requester_email, team_id, table_or_breakout_room, request_time,
+                                        explanation, solved, solved_time, archived_time)
+      SELECT id, requester_email, team_id, table_or_breakout_room, request_time,
+             explanation, solved, solved_time, :archivedTime
+      FROM helprequests WHERE id IN (:ids) AND solved = TRUE
+      """, nativeQuery = true)
+  int copyToArchive(@Param("ids") Collection<Long> ids, @Param("archivedTime") LocalDateTime archivedTime);
+
+  /**
+   * This method deletes solved help requests.
+   *
+   * @param ids the ids of the requests; those that are no longer solved are skipped
+   * @return the number of requests deleted
+   */
+  @Modifying
+  @Query("DELETE FROM helprequests h WHERE h.id IN :ids AND h.solved = true")
+  int deleteSolved(@Param("ids") Collection<Long> ids);
+
+  /**
+   * This method counts the help requests that are not solved.
+   *
+   * @return the number of unsolved help requests
+   */
+  long countBySolvedFalse();
 
+  /**
+   * This method counts the help requests made at or after a time.
+   * This query uses the REQUEST_TIME index.
+   *
+   * @param from the earliest request time
+   * @return the number of help requests
+   */
+  long countByRequestTimeGreaterThanEqual(LocalDateTime from);
 }
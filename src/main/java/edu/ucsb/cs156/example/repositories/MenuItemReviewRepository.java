@@ -1,8 +1,15 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.models.MenuItemReviewSummary;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -10,6 +17,52 @@ import org.springframework.stereotype.Repository;
  */
 
 @Repository
-public interface MenuItemReviewRepository extends CrudRepository<MenuItemReview, Long> {
+public interface MenuItemReviewRepository extends CrudRepository<MenuItemReview, Long>,
+        JpaSpecificationExecutor<MenuItemReview>, AggregateRepository<MenuItemReview> {
+
+    /**
+     * Count the reviews of every menu item that has any, and average their stars.
+     *
+     * @return one summary per reviewed menu item
+     */
+    @Query("""
+        SELECT new edu.ucsb.cs156.example.models.MenuItemReviewSummary(r.itemId, COUNT(r), AVG(r.stars))
+        FROM menuitemreview r
+        GROUP BY r.itemId
+        """)
+    List<MenuItemReviewSummary> summarizeByItem();
+
+    /**
+     * Count the reviews of each menu item of one dining commons, and average their stars.
+     *
+     * @param diningCommonsCode the code of the dining commons
+     * @return one summary per reviewed menu item of the dining commons
+     */
+    @Query("""
+        SELECT new edu.ucsb.cs156.example.models.MenuItemReviewSummary(r.itemId, COUNT(r), AVG(r.stars))
+        FROM menuitemreview r JOIN r.item i
+        WHERE i.diningCommonsCode = :diningCommonsCode
+        GROUP BY r.itemId
+        """)
+    List<MenuItemReviewSummary> summarizeByItemForDiningCommons(@Param("diningCommonsCode") String diningCommonsCode);
+
+    /**
+     * Find the reviews made in a range of times.
+     * This query uses the DATE_REVIEWED index.
+     *
+     * @param from the earliest dateReviewed
+     * @param to the dateReviewed to stop before
+     * @return the reviews, ordered by dateReviewed and then id
+     */
+    List<MenuItemReview> findByDateReviewedGreaterThanEqualAndDateReviewedLessThanOrderByDateReviewedAscIdAsc(
+            LocalDateTime from, LocalDateTime to);
 
-}
\ No newline at end of file
+    /**
+     * Count the reviews made at or after a time.
+     * This query uses the DATE_REVIEWED index.
+     *
+     * @param from the earliest dateReviewed
+     * @return the number of reviews
+     */
+    long countByDateReviewedGreaterThanEqual(LocalDateTime from);
+}
@@ -2,11 +2,108 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
-public interface RecommendationRequestRepository extends CrudRepository<RecommendationRequest, Long> {
-    
-    
+public interface RecommendationRequestRepository extends CrudRepository<RecommendationRequest, Long>,
+        JpaSpecificationExecutor<RecommendationRequest>, AggregateRepository<RecommendationRequest> {
+
+    /**
+     * Find the requests that are not done and are needed at or after a time.
+     * This query uses the (DONE, DATE_NEEDED) index.
+     *
+     * @param start the first time to include
+     * @return the requests, ordered by dateNeeded and then id
+     */
+    List<RecommendationRequest> findByDoneFalseAndDateNeededGreaterThanEqualOrderByDateNeededAscIdAsc(LocalDateTime start);
+
+    /**
+     * Find the requests that are not done and were needed before a time.
+     * This query uses the (DONE, DATE_NEEDED) index.
+     *
+     * @param now the time they are overdue at
+     * @return the requests, ordered by dateNeeded and then id
+     */
+    List<RecommendationRequest> findByDoneFalseAndDateNeededBeforeOrderByDateNeededAscIdAsc(LocalDateTime now);
+
+    /**
+     * Find the requests to a professor that are not done and were needed before a time.
+     * This query uses the (PROFESSOR_EMAIL, DATE_NEEDED) index.
+     *
+     * @param professorEmail the professor's email
+     * @param now the time they are overdue at
+     * @return the requests, ordered by dateNeeded and then id
+     */
+    List<RecommendationRequest> findByProfessorEmailAndDoneFalseAndDateNeededBeforeOrderByDateNeededAscIdAsc(
+            String professorEmail, LocalDateTime now);
+
+    /**
+     * Find the requests to a professor.
+     * This query uses the (PROFESSOR_EMAIL, DATE_NEEDED) index.
+     *
+     * @param professorEmail the professor's email
+     * @return the requests, ordered by dateNeeded and then id
+     */
+    List<RecommendationRequest> findByProfessorEmailOrderByDateNeededAscIdAsc(String professorEmail);
+
+    /**
+     * Find the requests made in a range of times.
+     * This query uses the DATE_REQUESTED index.
+     *
+     * @param from the earliest dateRequested
+     * @param to the dateRequested to stop before
+     * @return the requests, ordered by dateRequested and then id
+     */
+    List<RecommendationRequest> findByDateRequestedGreaterThanEqualAndDateRequestedLessThanOrderByDateRequestedAscIdAsc(
+            LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Find the requests needed in a range of times.
+     * This query uses the DATE_NEEDED index.
+     *
+     * @param from the earliest dateNeeded
+     * @param to the dateNeeded to stop before
+     * @return the requests, ordered by dateNeeded and then id
+     */
+    List<RecommendationRequest> findByDateNeededGreaterThanEqualAndDateNeededLessThanOrderByDateNeededAscIdAsc(
+            LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Count the requests that are not done and were needed before a time.
+     * This query uses the (DONE, DATE_NEEDED) index.
+     *
+     * @param now the time they are overdue at
+     * @return the number of overdue requests
+     */
+    long countByDoneFalseAndDateNeededBefore(LocalDateTime now);
+
+    /**
+     * Count the requests made at or after a time.
+     * This query uses the DATE_REQUESTED index.
+     *
+     * @param from the earliest dateRequested
+     * @return the number of requests
+     */
+    long countByDateRequestedGreaterThanEqual(LocalDateTime from);
+
+    /**
+     * Record when the deadline reminder of a request was sent.
+     *
+     * @param id         the id of the request
+     * @param remindedAt when the reminder was sent
+     * @return the number of requests updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE recommendationrequests r SET r.remindedAt = :remindedAt WHERE r.id = :id")
+    int updateRemindedAt(@Param("id") long id, @Param("remindedAt") LocalDateTime remindedAt);
 }
@@ -2,12 +2,45 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Restaurant;
 
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
  * The RestaurantRepository is a repository for Restaurant entities
  */
 @Repository
-public interface RestaurantRepository extends CrudRepository<Restaurant, Long> {
+public interface RestaurantRepository extends CrudRepository<Restaurant, Long>, JpaSpecificationExecutor<Restaurant> {
+  /**
+   * This method sets the thresholds of the pg_trgm % and <% operators for the
+   * rest of the current transaction.  Postgres only.
+   * @param threshold the least similarity (0 to 1) a match must have
+   * @return the thresholds that were set
+   */
+  @Query(value = """
+      SELECT set_config('pg_trgm.similarity_threshold', CAST(:threshold AS text), true)
+          || ' ' || set_config('pg_trgm.word_similarity_threshold', CAST(:threshold AS text), true)
+      """, nativeQuery = true)
+  String setTrigramThresholds(@Param("threshold") double threshold);
+
+  /**
+   * This method returns the restaurants whose name or description is most similar
+   * to the query, using the pg_trgm GIN indexes.  Postgres only; call
+   * setTrigramThresholds first, in the same transaction, or the pg_trgm default
+   * thresholds are used.
+   * @param query the (possibly misspelled) search string
+   * @param limit the maximum number of restaurants to return
+   * @return restaurants ordered from most to least similar
+   */
+  @Query(value = """
+      SELECT r.* FROM restaurants r
+      WHERE r.name % :query OR :query <% r.description
+      ORDER BY GREATEST(similarity(r.name, :query), word_similarity(:query, r.description)) DESC, r.id
+      LIMIT :limit
+      """, nativeQuery = true)
+  List<Restaurant> searchByTrigramSimilarity(@Param("query") String query, @Param("limit") int limit);
 }
@@ -2,6 +2,11 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDate;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
@@ -10,11 +15,36 @@ import org.springframework.stereotype.Repository;
  */
 
 @Repository
-public interface UCSBDateRepository extends CrudRepository<UCSBDate, Long> {
+public interface UCSBDateRepository extends CrudRepository<UCSBDate, Long>,
+    JpaSpecificationExecutor<UCSBDate>, AggregateRepository<UCSBDate> {
   /**
    * This method returns all UCSBDate entities with a given quarterYYYYQ.
    * @param quarterYYYYQ quarter in the format YYYYQ (e.g. 20241 for Winter 2024, 20242 for Spring 2024, 20243 for Summer 2024, 20244 for Fall 2024)
    * @return all UCSBDate entities with a given quarterYYYYQ
    */
   Iterable<UCSBDate> findAllByQuarterYYYYQ(String quarterYYYYQ);
-}
\ No newline at end of file
+
+  /**
+   * This method returns the UCSBDate entities with a given quarterYYYYQ in time order.
+   * @param quarterYYYYQ quarter in the format YYYYQ
+   * @return the UCSBDate entities with a given quarterYYYYQ, ordered by localDateTime and then id
+   */
+  List<UCSBDate> findByQuarterYYYYQOrderByLocalDateTimeAscIdAsc(String quarterYYYYQ);
+
+  /**
+   * This method returns the UCSBDate entities whose localDateTime is in [start, end).
+   * @param start the first time to include
+   * @param end the first time after start to leave out
+   * @return the UCSBDate entities, ordered by localDateTime and then id
+   */
+  List<UCSBDate> findByLocalDateTimeGreaterThanEqualAndLocalDateTimeLessThanOrderByLocalDateTimeAscIdAsc(
+      LocalDateTime start, LocalDateTime end);
+
+  /**
+   * This method returns the first UCSBDate entities at or after a time.
+   * @param start the first time to include
+   * @param limit the maximum number of entities to return
+   * @return the UCSBDate entities, ordered by localDateTime and then id
+   */
+  List<UCSBDate> findByLocalDateTimeGreaterThanEqualOrderByLocalDateTimeAscIdAsc(LocalDateTime start, Limit limit);
+}
@@ -1,6 +1,10 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
@@ -9,6 +13,41 @@ import org.springframework.stereotype.Repository;
  */
 
 @Repository
-public interface UCSBDiningCommonsMenuItemRepository extends CrudRepository<UCSBDiningCommonsMenuItem, Long> {
-    
-}
+public interface UCSBDiningCommonsMenuItemRepository extends CrudRepository<UCSBDiningCommonsMenuItem, Long>,
+        JpaSpecificationExecutor<UCSBDiningCommonsMenuItem>, AggregateRepository<UCSBDiningCommonsMenuItem> {
+
+    /**
+     * Find the menu items of a dining commons, ordered by station and then by name.
+     * This query uses the (DINING_COMMONS_CODE, STATION) index.
+     *
+     * @param diningCommonsCode the code of the dining commons
+     * @return the menu items
+     */
+    List<UCSBDiningCommonsMenuItem> findByDiningCommonsCodeOrderByStationAscNameAsc(String diningCommonsCode);
+
+    /**
+     * Find the menu items at one station of a dining commons, ordered by name.
+     *
+     * @param diningCommonsCode the code of the dining commons
+     * @param station the station
+     * @return the menu items
+     */
+    List<UCSBDiningCommonsMenuItem> findByDiningCommonsCodeAndStationOrderByNameAsc(String diningCommonsCode, String station);
+
+    /**
+     * Find every menu item, fetching its dining commons in the same query.
+     *
+     * @return the menu items, ordered by dining commons, station and name
+     */
+    @EntityGraph(attributePaths = "diningCommons")
+    List<UCSBDiningCommonsMenuItem> findAllWithDiningCommonsByOrderByDiningCommonsCodeAscStationAscNameAsc();
+
+    /**
+     * Find the menu items of a dining commons, fetching the dining commons in the same query.
+     *
+     * @param diningCommonsCode the code of the dining commons
+     * @return the menu items, ordered by station and name
+     */
+    @EntityGraph(attributePaths = "diningCommons")
+    List<UCSBDiningCommonsMenuItem> findWithDiningCommonsByDiningCommonsCodeOrderByStationAscNameAsc(String diningCommonsCode);
+}
\ No newline at end of file
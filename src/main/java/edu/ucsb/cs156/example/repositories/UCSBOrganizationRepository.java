@@ -1,9 +1,11 @@
 package edu.ucsb.cs156.example.repositories;
 
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.repository.CrudRepository;
 
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
 
-public interface UCSBOrganizationRepository extends CrudRepository<UCSBOrganization, String>{
+public interface UCSBOrganizationRepository extends CrudRepository<UCSBOrganization, String>,
+    JpaSpecificationExecutor<UCSBOrganization>, AggregateRepository<UCSBOrganization> {
 
 }
@@ -1,9 +1,15 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.User;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Optional;
 
 /**
@@ -17,4 +23,68 @@ public interface UserRepository extends CrudRepository<User, Long> {
    * @return Optional of User (empty if not found)
    */
   Optional<User> findByEmail(String email);
+
+  /**
+   * This method inserts a user, or, if there is already a user with the same
+   * email, refreshes its profile fields in the same statement. The admin flag
+   * is only ever turned on.  Postgres only (INSERT ... ON CONFLICT on the
+   * unique email index).  The persistence context is cleared afterwards, so
+   * that a user loaded earlier in the request is read again, not the stale copy.
+   * @param user the user as seen at login; its id is ignored
+   * @return the number of rows inserted or updated
+   */
+  @Modifying(clearAutomatically = true, flushAutomatically = true)
+  @Transactional
+  @Query(value = """
+      INSERT INTO users (email, google_sub, picture_url, full_name, given_name, family_name,
+                         email_verified, locale, hosted_domain, admin)
+      VALUES (:#{#user.email}, :#{#user.googleSub}, :#{#user.pictureUrl}, :#{#user.fullName},
+              :#{#user.givenName}, :#{#user.familyName}, :#{#user.emailVerified}, :#{#user.locale},
+              :#{#user.hostedDomain}, :#{#user.admin})
+      ON CONFLICT (email) DO UPDATE SET
+        google_sub = EXCLUDED.google_sub, picture_url = EXCLUDED.picture_url,
+        full_name = EXCLUDED.full_name, given_name = EXCLUDED.given_name,
+        family_name = EXCLUDED.family_name, email_verified = EXCLUDED.email_verified,
+        locale = EXCLUDED.locale, hosted_domain = EXCLUDED.hosted_domain,
+        admin = users.admin OR EXCLUDED.admin
+      """, nativeQuery = true)
+  int upsertByEmailOnConflict(@Param("user") User user);
+
+  /**
+   * This method does the same as upsertByEmailOnConflict with a MERGE
+   * statement, for H2 in development and tests.
+   * @param user the user as seen at login; its id is ignored
+   * @return the number of rows inserted or updated
+   */
+  @Modifying(clearAutomatically = true, flushAutomatically = true)
+  @Transactional
+  @Query(value = """
+      MERGE INTO users u
+      USING (VALUES (CAST(:#{#user.email} AS VARCHAR(255)))) AS v(email)
+      ON u.email = v.email
+      WHEN MATCHED THEN UPDATE SET
+        google_sub = :#{#user.googleSub}, picture_url = :#{#user.pictureUrl},
+        full_name = :#{#user.fullName}, given_name = :#{#user.givenName},
+        family_name = :#{#user.familyName}, email_verified = :#{#user.emailVerified},
+        locale = :#{#user.locale}, hosted_domain = :#{#user.hostedDomain},
+        admin = u.admin OR :#{#user.admin}
+      WHEN NOT MATCHED THEN INSERT (email, google_sub, picture_url, full_name, given_name, family_name,
+                                    email_verified, locale, hosted_domain, admin)
+      VALUES (v.email, :#{#user.googleSub}, :#{#user.pictureUrl}, :#{#user.fullName},
+              :#{#user.givenName}, :#{#user.familyName}, :#{#user.emailVerified}, :#{#user.locale},
+              :#{#user.hostedDomain}, :#{#user.admin})
+      """, nativeQuery = true)
+  int upsertByEmailMerge(@Param("user") User user);
+
+  /**
+   * This method moves the last seen time of some users forward to a time, in
+   * one statement. Users already seen at or after that time are left alone.
+   * @param ids the ids of the users
+   * @param lastSeen when they were seen
+   * @return the number of users updated
+   */
+  @Modifying
+  @Transactional
+  @Query("UPDATE users u SET u.lastSeen = :lastSeen WHERE u.id IN :ids AND (u.lastSeen IS NULL OR u.lastSeen < :lastSeen)")
+  int updateLastSeen(@Param("ids") Collection<Long> ids, @Param("lastSeen") LocalDateTime lastSeen);
 }
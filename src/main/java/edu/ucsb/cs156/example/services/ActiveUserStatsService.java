@@ -0,0 +1,181 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.ActiveUserSketch;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.models.ActiveUserCount;
+import edu.ucsb.cs156.example.repositories.ActiveUserSketchRepository;
+import edu.ucsb.cs156.example.structures.HyperLogLog;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * This is a service that estimates the number of distinct active users over
+ * ranges of days (today, the last week, a quarter).
+ *
+ * Each day's users are offered to a HyperLogLog sketch of fixed size (4 KB at
+ * PRECISION 12, about 1.6% standard error) however many users there are.
+ * Today's sketch is kept in memory and merged into its activeusersketches row
+ * every {@code app.users.activeSketch.flushMillis} milliseconds and on
+ * shutdown. The row is locked while it is merged into, so instances that
+ * flush the same day at once take turns rather than overwrite each other;
+ * merging is idempotent, so it is safe to flush the same sketch again. A
+ * range is estimated from the union of its days' sketches.
+ *
+ * Quarters follow the quarterYYYYQ convention of UCSBDate: 1 is winter
+ * (January to March), 2 spring, 3 summer and 4 fall.
+ */
+
+@Slf4j
+@Service("activeUsers")
+public class ActiveUserStatsService {
+
+  static final int PRECISION = 12;
+
+  @Autowired
+  ActiveUserSketchRepository activeUserSketchRepository;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  private final Map<LocalDate, HyperLogLog> live = new HashMap<>();
+
+  /**
+   * This method records that a user was active today.
+   *
+   * @param userId the id of the user
+   */
+  public void record(long userId) {
+    record(userId, LocalDate.now());
+  }
+
+  /**
+   * This method records that a user was active on a day.
+   *
+   * @param userId the id of the user
+   * @param day    the day
+   */
+  public synchronized void record(long userId, LocalDate day) {
+    live.computeIfAbsent(day, d -> new HyperLogLog(PRECISION)).offer(userId);
+  }
+
+  /**
+   * This method merges the in-memory sketches into the database. Sketches of
+   * days before today are then dropped from memory.
+   */
+  @PreDestroy
+  @Scheduled(fixedDelayString = "${app.users.activeSketch.flushMillis:300000}")
+  public void flush() {
+    Map<LocalDate, HyperLogLog> snapshot = new HashMap<>();
+    synchronized (this) {
+      live.forEach((day, sketch) -> snapshot.put(day, HyperLogLog.fromBytes(sketch.toBytes())));
+    }
+    LocalDate today = LocalDate.now();
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    for (Map.Entry<LocalDate, HyperLogLog> entry : snapshot.entrySet()) {
+      LocalDate day = entry.getKey();
+      HyperLogLog sketch = entry.getValue();
+      try {
+        transaction.executeWithoutResult(status -> store(day, sketch));
+      } catch (DataIntegrityViolationException e) {
+        // another instance stored the day's first sketch at the same time; now there is a row to lock
+        transaction.executeWithoutResult(status -> store(day, sketch));
+      }
+      if (day.isBefore(today)) {
+        synchronized (this) {
+          live.remove(day);
+        }
+      }
+    }
+  }
+
+  /** Merge a sketch into its day's row, which stays locked until the transaction ends */
+  private void store(LocalDate day, HyperLogLog sketch) {
+    activeUserSketchRepository.findForUpdateByActivityDate(day)
+        .ifPresent(stored -> sketch.merge(HyperLogLog.fromBytes(stored.getRegisters())));
+    activeUserSketchRepository.save(ActiveUserSketch.builder().activityDate(day).registers(sketch.toBytes()).build());
+  }
+
+  /**
+   * This method estimates the number of distinct users active in a range of days.
+   *
+   * @param from the first day
+   * @param to   the last day (inclusive)
+   * @return the estimate
+   */
+  public long estimate(LocalDate from, LocalDate to) {
+    HyperLogLog union = new HyperLogLog(PRECISION);
+    for (ActiveUserSketch stored : activeUserSketchRepository.findByActivityDateBetweenOrderByActivityDateAsc(from,
+        to)) {
+      union.merge(HyperLogLog.fromBytes(stored.getRegisters()));
+    }
+    synchronized (this) {
+      live.forEach((day, sketch) -> {
+        if (!day.isBefore(from) && !day.isAfter(to)) {
+          union.merge(sketch);
+        }
+      });
+    }
+    return union.estimate();
+  }
+
+  /**
+   * This method estimates the active users today, in the seven days up to
+   * today, and so far in the current quarter.
+   *
+   * @param today the day to count up to
+   * @return the three counts
+   */
+  public List<ActiveUserCount> summary(LocalDate today) {
+    String quarter = quarterOf(today);
+    return List.of(
+        count("day", today, today),
+        count("week", today.minusDays(6), today),
+        count("quarter " + quarter, quarterStart(quarter), today));
+  }
+
+  /**
+   * This method estimates the active users in a range of days.
+   *
+   * @param period a label for the range
+   * @param from   the first day
+   * @param to     the last day (inclusive)
+   * @return the count
+   */
+  public ActiveUserCount count(String period, LocalDate from, LocalDate to) {
+    return ActiveUserCount.builder().period(period).from(from).to(to).estimate(estimate(from, to)).build();
+  }
+
+  /**
+   * @param day a day
+   * @return the quarter it is in, e.g. 20244 for a day in fall 2024
+   */
+  public static String quarterOf(LocalDate day) {
+    return "%d%d".formatted(day.getYear(), (day.getMonthValue() - 1) / 3 + 1);
+  }
+
+  /**
+   * @param quarterYYYYQ a quarter, e.g. 20244
+   * @return its first day
+   * @throws BadRequestException if it is not a quarter
+   */
+  public static LocalDate quarterStart(String quarterYYYYQ) {
+    if (quarterYYYYQ == null || !quarterYYYYQ.matches("\\d{4}[1-4]")) {
+      throw new BadRequestException("quarter must be YYYYQ with Q from 1 to 4, e.g. 20244");
+    }
+    int year = Integer.parseInt(quarterYYYYQ.substring(0, 4));
+    int quarter = quarterYYYYQ.charAt(4) - '0';
+    return LocalDate.of(year, (quarter - 1) * 3 + 1, 1);
+  }
+}
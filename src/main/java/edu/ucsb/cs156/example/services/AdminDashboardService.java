@@ -0,0 +1,178 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.AdminDashboard;
+import edu.ucsb.cs156.example.models.DashboardTile;
+import edu.ucsb.cs156.example.repositories.ArchivedHelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that finds the numbers on the admin dashboard: how many
+ * rows each table has, how many help requests, recommendation requests and
+ * reviews were made in the last day, and how many help requests are unsolved
+ * and recommendation requests overdue.
+ *
+ * Each number is its own query, and they are all run at the same time, each
+ * on its own virtual thread, so the dashboard takes as long as the slowest
+ * query rather than the sum of them. A query that has not finished after
+ * {@code app.dashboard.timeoutMillis} milliseconds is cancelled and its tile
+ * has status "timeout"; one that fails has status "error". The other tiles
+ * are still returned.
+ *
+ * A dashboard that has every tile is cached for
+ * {@code app.dashboard.cacheSeconds} seconds, so admins polling it do not
+ * run the queries each time. Partial dashboards are not cached.
+ */
+
+@Slf4j
+@Service("adminDashboard")
+public class AdminDashboardService {
+
+  @Autowired
+  UserRepository userRepository;
+
+  @Autowired
+  HelpRequestRepository helpRequestRepository;
+
+  @Autowired
+  ArchivedHelpRequestRepository archivedHelpRequestRepository;
+
+  @Autowired
+  RecommendationRequestRepository recommendationRequestRepository;
+
+  @Autowired
+  MenuItemReviewRepository menuItemReviewRepository;
+
+  @Autowired
+  UCSBDiningCommonsRepository diningCommonsRepository;
+
+  @Autowired
+  UCSBDiningCommonsMenuItemRepository menuItemRepository;
+
+  @Autowired
+  UCSBDateRepository dateRepository;
+
+  @Autowired
+  UCSBOrganizationRepository organizationRepository;
+
+  @Autowired
+  RestaurantRepository restaurantRepository;
+
+  @Autowired
+  ArticlesRepository articlesRepository;
+
+  @Value("${app.dashboard.timeoutMillis:2000}")
+  private long timeoutMillis = 2000;
+
+  @Value("${app.dashboard.cacheSeconds:15}")
+  private long cacheSeconds = 15;
+
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+  private AdminDashboard cached;
+
+  /**
+   * This method returns the dashboard as of now.
+   *
+   * @return the dashboard
+   * @throws InterruptedException if the thread is interrupted while waiting for the queries
+   */
+  public AdminDashboard dashboard() throws InterruptedException {
+    return dashboard(LocalDateTime.now());
+  }
+
+  /**
+   * This method returns the dashboard as of a time, or the cached one if it
+   * was generated less than cacheSeconds before then.
+   *
+   * @param now the time
+   * @return the dashboard
+   * @throws InterruptedException if the thread is interrupted while waiting for the queries
+   */
+  public AdminDashboard dashboard(LocalDateTime now) throws InterruptedException {
+    synchronized (this) {
+      if (cached != null && now.isBefore(cached.getGeneratedAt().plusSeconds(cacheSeconds))) {
+        return cached;
+      }
+    }
+    Map<String, Callable<Long>> queries = queries(now);
+    List<String> names = List.copyOf(queries.keySet());
+    List<Future<Long>> futures = executor.invokeAll(queries.values(), timeoutMillis, TimeUnit.MILLISECONDS);
+    List<DashboardTile> tiles = new ArrayList<>();
+    boolean complete = true;
+    for (int i = 0; i < names.size(); i++) {
+      DashboardTile tile = tile(names.get(i), futures.get(i));
+      complete &= DashboardTile.OK.equals(tile.getStatus());
+      tiles.add(tile);
+    }
+    AdminDashboard dashboard = AdminDashboard.builder().generatedAt(now).complete(complete).tiles(tiles).build();
+    if (complete) {
+      synchronized (this) {
+        cached = dashboard;
+      }
+    }
+    return dashboard;
+  }
+
+  /** @return the query for each tile, in the order they are shown */
+  private Map<String, Callable<Long>> queries(LocalDateTime now) {
+    LocalDateTime dayAgo = now.minusDays(1);
+    Map<String, Callable<Long>> queries = new LinkedHashMap<>();
+    queries.put("users", userRepository::count);
+    queries.put("helpRequests", helpRequestRepository::count);
+    queries.put("helpRequestsUnsolved", helpRequestRepository::countBySolvedFalse);
+    queries.put("helpRequestsLastDay", () -> helpRequestRepository.countByRequestTimeGreaterThanEqual(dayAgo));
+    queries.put("archivedHelpRequests", archivedHelpRequestRepository::count);
+    queries.put("recommendationRequests", recommendationRequestRepository::count);
+    queries.put("recommendationRequestsOverdue",
+        () -> recommendationRequestRepository.countByDoneFalseAndDateNeededBefore(now));
+    queries.put("recommendationRequestsLastDay",
+        () -> recommendationRequestRepository.countByDateRequestedGreaterThanEqual(dayAgo));
+    queries.put("menuItemReviews", menuItemReviewRepository::count);
+    queries.put("menuItemReviewsLastDay", () -> menuItemReviewRepository.countByDateReviewedGreaterThanEqual(dayAgo));
+    queries.put("diningCommons", diningCommonsRepository::count);
+    queries.put("menuItems", menuItemRepository::count);
+    queries.put("ucsbDates", dateRepository::count);
+    queries.put("organizations", organizationRepository::count);
+    queries.put("restaurants", restaurantRepository::count);
+    queries.put("articles", articlesRepository::count);
+    return queries;
+  }
+
+  private static DashboardTile tile(String name, Future<Long> future) {
+    DashboardTile.DashboardTileBuilder tile = DashboardTile.builder().name(name);
+    if (future.state() == Future.State.SUCCESS) {
+      return tile.value(future.resultNow()).status(DashboardTile.OK).build();
+    }
+    if (future.state() == Future.State.CANCELLED) {
+      log.warn("dashboard tile {} timed out", name);
+      return tile.status(DashboardTile.TIMEOUT).build();
+    }
+    log.error("dashboard tile {} failed", name, future.exceptionNow());
+    return tile.status(DashboardTile.ERROR).build();
+  }
+}
@@ -0,0 +1,120 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.helpers.UrlNormalizer;
+import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.structures.BloomFilter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that detects articles that are posted with a url
+ * that has already been posted.
+ *
+ * Urls are normalized and hashed (see UrlNormalizer); the hash is stored in the
+ * unique {@code URL_HASH} column of the first article posted with that url.
+ * A Bloom filter of all stored hashes sits in front of the database, so that
+ * the common case (a url that has never been posted) is answered without a query.
+ */
+
+@Slf4j
+@Service("articleUrlIndex")
+public class ArticleUrlIndexService {
+
+  @Autowired
+  ArticlesRepository articlesRepository;
+
+  @Value("${app.articles.dedupe.expectedInsertions:10000}")
+  private long expectedInsertions = 10000;
+
+  @Value("${app.articles.dedupe.falsePositiveRate:0.01}")
+  private double falsePositiveRate = 0.01;
+
+  private volatile BloomFilter bloomFilter;
+
+  /**
+   * This method (re)builds the Bloom filter from the url hashes in the database.
+   * Articles that predate the url hash column are given a hash here, unless
+   * another article already holds the same url.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void rebuild() {
+    long capacity = Math.max(expectedInsertions, 2 * articlesRepository.count());
+    BloomFilter filter = new BloomFilter(capacity, falsePositiveRate);
+    long count = 0;
+    for (String urlHash : articlesRepository.findAllUrlHashes()) {
+      filter.put(urlHash);
+      count++;
+    }
+    for (Articles article : articlesRepository.findAllByUrlHashIsNull()) {
+      String urlHash = UrlNormalizer.hash(article.getUrl());
+      if (urlHash == null) {
+        continue;
+      }
+      boolean taken = filter.mightContain(urlHash) && articlesRepository.findByUrlHash(urlHash).isPresent();
+      if (!taken) {
+        article.setUrlHash(urlHash);
+        articlesRepository.save(article);
+        filter.put(urlHash);
+        count++;
+      }
+    }
+    bloomFilter = filter;
+    log.info("articleUrlIndex rebuilt with {} url hashes", count);
+  }
+
+  /**
+   * This method looks up the article (if any) that was already posted with the given url.
+   *
+   * @param url the url to check
+   * @return Optional of the article that holds the url (empty if the url is new)
+   */
+  public Optional<Articles> findDuplicate(String url) {
+    String urlHash = UrlNormalizer.hash(url);
+    if (urlHash == null || !filter().mightContain(urlHash)) {
+      return Optional.empty();
+    }
+    return articlesRepository.findByUrlHash(urlHash);
+  }
+
+  /**
+   * This method claims the url of an article that is about to be saved.
+   * If no other article holds the url, the article's url hash is set so that
+   * it becomes the holder; otherwise the url hash is cleared and the article
+   * that holds the url is returned.
+   *
+   * @param article the article that is about to be saved
+   * @return Optional of the other article that holds the url (empty if the claim succeeded)
+   */
+  public Optional<Articles> claimUrl(Articles article) {
+    Optional<Articles> holder = findDuplicate(article.getUrl())
+        .filter(existing -> existing.getId() != article.getId());
+    article.setUrlHash(holder.isPresent() ? null : UrlNormalizer.hash(article.getUrl()));
+    return holder;
+  }
+
+  /**
+   * This method records the url hash of an article that has been saved.
+   *
+   * @param article the article that was saved
+   */
+  public void add(Articles article) {
+    if (article != null && article.getUrlHash() != null) {
+      filter().put(article.getUrlHash());
+    }
+  }
+
+  private BloomFilter filter() {
+    if (bloomFilter == null) {
+      rebuild();
+    }
+    return bloomFilter;
+  }
+}
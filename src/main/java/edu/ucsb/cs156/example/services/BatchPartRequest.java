@@ -0,0 +1,684 @@
+package edu.ucsb.cs156.example.services;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.RequestDispatcher;
+import jakarta.servlet.ServletConnection;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletMapping;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpUpgradeHandler;
+import jakarta.servlet.http.Part;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+/**
+ * A GET request for one part of a batch, made from the batch request.
+ *
+ * It is made on the batch request's thread, and copies what it needs of the
+ * batch request: its headers, cookies, user, session attributes and where it
+ * was sent to. The part's thread then only uses the copy, never the
+ * container's request, session or response, which are not safe to use from
+ * several threads, and which a part that outlives the batch must not touch.
+ *
+ * The part has its own path, query string and parameters, and it accepts
+ * JSON, since its response is included as is in the batch's JSON. It starts
+ * without attributes, and attributes it sets, like changes to its session,
+ * are kept to itself.
+ */
+class BatchPartRequest implements HttpServletRequest {
+
+  private final String path;
+  private final String queryString;
+  private final Map<String, String[]> parameters = new LinkedHashMap<>();
+  private final Map<String, Object> attributes = new HashMap<>();
+
+  private final HttpHeaders headers = new HttpHeaders();
+  private final Cookie[] cookies;
+  private final Principal userPrincipal;
+  private final Set<String> authorities;
+  private final String remoteUser;
+  private final String authType;
+  private final List<Locale> locales;
+
+  private Session session;
+  private final String requestedSessionId;
+  private final boolean requestedSessionIdValid;
+  private final boolean requestedSessionIdFromCookie;
+  private final boolean requestedSessionIdFromURL;
+
+  private final ServletContext servletContext;
+  private final HttpServletMapping mapping;
+  private final String contextPath;
+  private final String scheme;
+  private final String serverName;
+  private final int serverPort;
+  private final boolean secure;
+  private final String protocol;
+  private final String remoteAddr;
+  private final String remoteHost;
+  private final int remotePort;
+  private final String localName;
+  private final String localAddr;
+  private final int localPort;
+  private final String requestId;
+  private final ServletConnection connection;
+
+  /**
+   * @param request the batch request, which is only read here
+   * @param url     the path and query string of the part, e.g. {@code /api/ucsbdates/all?sort=-localDateTime}
+   */
+  BatchPartRequest(HttpServletRequest request, String url) {
+    UriComponents components = UriComponentsBuilder.fromUriString(url).build();
+    path = components.getPath();
+    queryString = components.getQuery();
+    Map<String, List<String>> values = new LinkedHashMap<>();
+    components.getQueryParams().forEach((name, list) -> {
+      List<String> decoded = values.computeIfAbsent(decode(name), n -> new ArrayList<>());
+      for (String value : list) {
+        decoded.add(value == null ? "" : decode(value));
+      }
+    });
+    values.forEach((name, list) -> parameters.put(name, list.toArray(new String[0])));
+
+    for (String name : Collections.list(request.getHeaderNames())) {
+      headers.addAll(name, Collections.list(request.getHeaders(name)));
+    }
+    headers.set(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
+    Cookie[] batchCookies = request.getCookies();
+    cookies = batchCookies == null ? null : copy(batchCookies);
+    userPrincipal = request.getUserPrincipal();
+    authorities = userPrincipal instanceof Authentication authentication
+        ? authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).collect(Collectors.toSet())
+        : Set.of();
+    remoteUser = request.getRemoteUser();
+    authType = request.getAuthType();
+    locales = Collections.list(request.getLocales());
+
+    HttpSession batchSession = request.getSession(false);
+    session = batchSession == null ? null : new Session(batchSession);
+    requestedSessionId = request.getRequestedSessionId();
+    requestedSessionIdValid = request.isRequestedSessionIdValid();
+    requestedSessionIdFromCookie = request.isRequestedSessionIdFromCookie();
+    requestedSessionIdFromURL = request.isRequestedSessionIdFromURL();
+
+    servletContext = request.getServletContext();
+    mapping = request.getHttpServletMapping();
+    contextPath = request.getContextPath();
+    scheme = request.getScheme();
+    serverName = request.getServerName();
+    serverPort = request.getServerPort();
+    secure = request.isSecure();
+    protocol = request.getProtocol();
+    remoteAddr = request.getRemoteAddr();
+    remoteHost = request.getRemoteHost();
+    remotePort = request.getRemotePort();
+    localName = request.getLocalName();
+    localAddr = request.getLocalAddr();
+    localPort = request.getLocalPort();
+    requestId = request.getRequestId();
+    connection = new Connection(request.getServletConnection());
+  }
+
+  private static String decode(String text) {
+    return UriUtils.decode(text.replace("+", " "), StandardCharsets.UTF_8);
+  }
+
+  private static Cookie[] copy(Cookie[] cookies) {
+    Cookie[] copies = new Cookie[cookies.length];
+    for (int i = 0; i < cookies.length; i++) {
+      copies[i] = (Cookie) cookies[i].clone();
+    }
+    return copies;
+  }
+
+  @Override
+  public String getMethod() {
+    return "GET";
+  }
+
+  @Override
+  public String getRequestURI() {
+    return contextPath + path;
+  }
+
+  @Override
+  public StringBuffer getRequestURL() {
+    return new StringBuffer(scheme).append("://").append(serverName).append(':')
+        .append(serverPort).append(getRequestURI());
+  }
+
+  @Override
+  public String getContextPath() {
+    return contextPath;
+  }
+
+  @Override
+  public String getServletPath() {
+    return path;
+  }
+
+  @Override
+  public String getPathInfo() {
+    return null;
+  }
+
+  @Override
+  public String getPathTranslated() {
+    return null;
+  }
+
+  @Override
+  public HttpServletMapping getHttpServletMapping() {
+    return mapping;
+  }
+
+  @Override
+  public String getQueryString() {
+    return queryString;
+  }
+
+  @Override
+  public String getHeader(String name) {
+    return headers.getFirst(name);
+  }
+
+  @Override
+  public Enumeration<String> getHeaders(String name) {
+    return Collections.enumeration(headers.getOrDefault(name, List.of()));
+  }
+
+  @Override
+  public Enumeration<String> getHeaderNames() {
+    return Collections.enumeration(headers.keySet());
+  }
+
+  @Override
+  public int getIntHeader(String name) {
+    String value = headers.getFirst(name);
+    return value == null ? -1 : Integer.parseInt(value);
+  }
+
+  @Override
+  public long getDateHeader(String name) {
+    return headers.getFirstDate(name);
+  }
+
+  @Override
+  public Cookie[] getCookies() {
+    return cookies == null ? null : copy(cookies);
+  }
+
+  @Override
+  public String getParameter(String name) {
+    String[] values = parameters.get(name);
+    return values == null ? null : values[0];
+  }
+
+  @Override
+  public Map<String, String[]> getParameterMap() {
+    return Collections.unmodifiableMap(parameters);
+  }
+
+  @Override
+  public Enumeration<String> getParameterNames() {
+    return Collections.enumeration(parameters.keySet());
+  }
+
+  @Override
+  public String[] getParameterValues(String name) {
+    return parameters.get(name);
+  }
+
+  @Override
+  public Object getAttribute(String name) {
+    return attributes.get(name);
+  }
+
+  @Override
+  public Enumeration<String> getAttributeNames() {
+    return Collections.enumeration(new ArrayList<>(attributes.keySet()));
+  }
+
+  @Override
+  public void setAttribute(String name, Object value) {
+    if (value == null) {
+      removeAttribute(name);
+    } else {
+      attributes.put(name, value);
+    }
+  }
+
+  @Override
+  public void removeAttribute(String name) {
+    attributes.remove(name);
+  }
+
+  @Override
+  public String getCharacterEncoding() {
+    return null;
+  }
+
+  @Override
+  public void setCharacterEncoding(String encoding) {
+  }
+
+  @Override
+  public int getContentLength() {
+    return -1;
+  }
+
+  @Override
+  public long getContentLengthLong() {
+    return -1;
+  }
+
+  @Override
+  public String getContentType() {
+    return null;
+  }
+
+  @Override
+  public ServletInputStream getInputStream() {
+    return new ServletInputStream() {
+      @Override
+      public boolean isFinished() {
+        return true;
+      }
+
+      @Override
+      public boolean isReady() {
+        return true;
+      }
+
+      @Override
+      public void setReadListener(ReadListener listener) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public int read() {
+        return -1;
+      }
+    };
+  }
+
+  @Override
+  public BufferedReader getReader() {
+    return new BufferedReader(new StringReader(""));
+  }
+
+  @Override
+  public Principal getUserPrincipal() {
+    return userPrincipal;
+  }
+
+  @Override
+  public boolean isUserInRole(String role) {
+    return authorities.contains(role.startsWith("ROLE_") ? role : "ROLE_" + role);
+  }
+
+  @Override
+  public String getRemoteUser() {
+    return remoteUser;
+  }
+
+  @Override
+  public String getAuthType() {
+    return authType;
+  }
+
+  @Override
+  public boolean authenticate(HttpServletResponse response) throws ServletException {
+    throw new ServletException("A batch part cannot authenticate");
+  }
+
+  @Override
+  public void login(String username, String password) throws ServletException {
+    throw new ServletException("A batch part cannot log in");
+  }
+
+  @Override
+  public void logout() throws ServletException {
+    throw new ServletException("A batch part cannot log out");
+  }
+
+  @Override
+  public Locale getLocale() {
+    return locales.get(0);
+  }
+
+  @Override
+  public Enumeration<Locale> getLocales() {
+    return Collections.enumeration(locales);
+  }
+
+  @Override
+  public HttpSession getSession(boolean create) {
+    if (session == null && create) {
+      session = new Session(UUID.randomUUID().toString(), System.currentTimeMillis());
+    }
+    return session;
+  }
+
+  @Override
+  public HttpSession getSession() {
+    return getSession(true);
+  }
+
+  @Override
+  public String changeSessionId() {
+    if (session == null) {
+      throw new IllegalStateException("A batch part without a session cannot change its id");
+    }
+    session.id = UUID.randomUUID().toString();
+    return session.id;
+  }
+
+  @Override
+  public String getRequestedSessionId() {
+    return requestedSessionId;
+  }
+
+  @Override
+  public boolean isRequestedSessionIdValid() {
+    return requestedSessionIdValid;
+  }
+
+  @Override
+  public boolean isRequestedSessionIdFromCookie() {
+    return requestedSessionIdFromCookie;
+  }
+
+  @Override
+  public boolean isRequestedSessionIdFromURL() {
+    return requestedSessionIdFromURL;
+  }
+
+  @Override
+  public Collection<Part> getParts() throws ServletException {
+    throw new ServletException("A batch part is not a multipart request");
+  }
+
+  @Override
+  public Part getPart(String name) throws ServletException {
+    throw new ServletException("A batch part is not a multipart request");
+  }
+
+  @Override
+  public <T extends HttpUpgradeHandler> T upgrade(Class<T> handlerClass) throws ServletException {
+    throw new ServletException("A batch part cannot be upgraded");
+  }
+
+  @Override
+  public ServletContext getServletContext() {
+    return servletContext;
+  }
+
+  @Override
+  public RequestDispatcher getRequestDispatcher(String path) {
+    return servletContext.getRequestDispatcher(path);
+  }
+
+  @Override
+  public String getScheme() {
+    return scheme;
+  }
+
+  @Override
+  public String getServerName() {
+    return serverName;
+  }
+
+  @Override
+  public int getServerPort() {
+    return serverPort;
+  }
+
+  @Override
+  public boolean isSecure() {
+    return secure;
+  }
+
+  @Override
+  public String getProtocol() {
+    return protocol;
+  }
+
+  @Override
+  public String getRemoteAddr() {
+    return remoteAddr;
+  }
+
+  @Override
+  public String getRemoteHost() {
+    return remoteHost;
+  }
+
+  @Override
+  public int getRemotePort() {
+    return remotePort;
+  }
+
+  @Override
+  public String getLocalName() {
+    return localName;
+  }
+
+  @Override
+  public String getLocalAddr() {
+    return localAddr;
+  }
+
+  @Override
+  public int getLocalPort() {
+    return localPort;
+  }
+
+  @Override
+  public AsyncContext startAsync() {
+    throw new IllegalStateException("A batch part cannot be asynchronous");
+  }
+
+  @Override
+  public AsyncContext startAsync(ServletRequest request, ServletResponse response) {
+    throw new IllegalStateException("A batch part cannot be asynchronous");
+  }
+
+  @Override
+  public boolean isAsyncStarted() {
+    return false;
+  }
+
+  @Override
+  public boolean isAsyncSupported() {
+    return false;
+  }
+
+  @Override
+  public AsyncContext getAsyncContext() {
+    throw new IllegalStateException("A batch part cannot be asynchronous");
+  }
+
+  @Override
+  public DispatcherType getDispatcherType() {
+    return DispatcherType.REQUEST;
+  }
+
+  @Override
+  public String getRequestId() {
+    return requestId;
+  }
+
+  @Override
+  public String getProtocolRequestId() {
+    return "";
+  }
+
+  @Override
+  public ServletConnection getServletConnection() {
+    return connection;
+  }
+
+  /** The batch request's connection, as it was when the part was made */
+  private static class Connection implements ServletConnection {
+    private final String connectionId;
+    private final String protocol;
+    private final String protocolConnectionId;
+    private final boolean secure;
+
+    Connection(ServletConnection connection) {
+      connectionId = connection.getConnectionId();
+      protocol = connection.getProtocol();
+      protocolConnectionId = connection.getProtocolConnectionId();
+      secure = connection.isSecure();
+    }
+
+    @Override
+    public String getConnectionId() {
+      return connectionId;
+    }
+
+    @Override
+    public String getProtocol() {
+      return protocol;
+    }
+
+    @Override
+    public String getProtocolConnectionId() {
+      return protocolConnectionId;
+    }
+
+    @Override
+    public boolean isSecure() {
+      return secure;
+    }
+  }
+
+  /**
+   * The part's session: a copy of the batch request's session, or one the
+   * part made, whose changes are kept to the part.
+   */
+  private class Session implements HttpSession {
+    private String id;
+    private final long creationTime;
+    private final long lastAccessedTime;
+    private int maxInactiveInterval;
+    private final boolean isNew;
+    private final Map<String, Object> sessionAttributes = new HashMap<>();
+
+    Session(HttpSession session) {
+      id = session.getId();
+      creationTime = session.getCreationTime();
+      lastAccessedTime = session.getLastAccessedTime();
+      maxInactiveInterval = session.getMaxInactiveInterval();
+      isNew = session.isNew();
+      for (String name : Collections.list(session.getAttributeNames())) {
+        sessionAttributes.put(name, session.getAttribute(name));
+      }
+    }
+
+    Session(String id, long creationTime) {
+      this.id = id;
+      this.creationTime = creationTime;
+      lastAccessedTime = creationTime;
+      maxInactiveInterval = servletContext.getSessionTimeout() * 60;
+      isNew = true;
+    }
+
+    @Override
+    public String getId() {
+      return id;
+    }
+
+    @Override
+    public long getCreationTime() {
+      return creationTime;
+    }
+
+    @Override
+    public long getLastAccessedTime() {
+      return lastAccessedTime;
+    }
+
+    @Override
+    public ServletContext getServletContext() {
+      return servletContext;
+    }
+
+    @Override
+    public int getMaxInactiveInterval() {
+      return maxInactiveInterval;
+    }
+
+    @Override
+    public void setMaxInactiveInterval(int interval) {
+      maxInactiveInterval = interval;
+    }
+
+    @Override
+    public boolean isNew() {
+      return isNew;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+      return sessionAttributes.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+      return Collections.enumeration(new ArrayList<>(sessionAttributes.keySet()));
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+      if (value == null) {
+        removeAttribute(name);
+      } else {
+        sessionAttributes.put(name, value);
+      }
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+      sessionAttributes.remove(name);
+    }
+
+    @Override
+    public void invalidate() {
+      session = null;
+    }
+  }
+}
@@ -0,0 +1,261 @@
+package edu.ucsb.cs156.example.services;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.http.HttpHeaders;
+
+/**
+ * The response to one part of a batch, which is kept in memory: the status,
+ * headers, cookies and body the part's controller set are only seen by this
+ * object. It does not wrap the batch response, which is not safe to use from
+ * the part's thread (see BatchPartRequest).
+ */
+class BatchPartResponse implements HttpServletResponse {
+
+  private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+  private final HttpHeaders headers = new HttpHeaders();
+  private final List<Cookie> cookies = new ArrayList<>();
+  private int status = SC_OK;
+  private String characterEncoding;
+  private Locale locale = Locale.getDefault();
+  private int bufferSize = 4096;
+  private ServletOutputStream outputStream;
+  private PrintWriter writer;
+
+  /**
+   * @return the body, or null if there was none
+   */
+  String getBody() {
+    flushBuffer();
+    if (body.size() == 0) {
+      return null;
+    }
+    return body.toString(Charset.forName(getCharacterEncoding()));
+  }
+
+  /**
+   * @return the cookies the part added, which are not sent to the client
+   */
+  List<Cookie> getCookies() {
+    return List.copyOf(cookies);
+  }
+
+  @Override
+  public void addCookie(Cookie cookie) {
+    cookies.add(cookie);
+  }
+
+  @Override
+  public String encodeURL(String url) {
+    return url;
+  }
+
+  @Override
+  public String encodeRedirectURL(String url) {
+    return url;
+  }
+
+  @Override
+  public int getStatus() {
+    return status;
+  }
+
+  @Override
+  public void setStatus(int status) {
+    this.status = status;
+  }
+
+  @Override
+  public void sendError(int status) {
+    sendError(status, null);
+  }
+
+  @Override
+  public void sendError(int status, String message) {
+    resetBuffer();
+    this.status = status;
+  }
+
+  @Override
+  public void sendRedirect(String location) {
+    resetBuffer();
+    status = SC_FOUND;
+    headers.set(HttpHeaders.LOCATION, location);
+  }
+
+  @Override
+  public String getContentType() {
+    return headers.getFirst(HttpHeaders.CONTENT_TYPE);
+  }
+
+  @Override
+  public void setContentType(String type) {
+    setHeader(HttpHeaders.CONTENT_TYPE, type);
+  }
+
+  @Override
+  public String getCharacterEncoding() {
+    return characterEncoding == null ? StandardCharsets.UTF_8.name() : characterEncoding;
+  }
+
+  @Override
+  public void setCharacterEncoding(String charset) {
+    characterEncoding = charset;
+  }
+
+  @Override
+  public void setContentLength(int length) {
+  }
+
+  @Override
+  public void setContentLengthLong(long length) {
+  }
+
+  @Override
+  public boolean containsHeader(String name) {
+    return headers.containsKey(name);
+  }
+
+  @Override
+  public String getHeader(String name) {
+    return headers.getFirst(name);
+  }
+
+  @Override
+  public Collection<String> getHeaders(String name) {
+    return headers.getOrDefault(name, List.of());
+  }
+
+  @Override
+  public Collection<String> getHeaderNames() {
+    return new ArrayList<>(headers.keySet());
+  }
+
+  @Override
+  public void setHeader(String name, String value) {
+    headers.set(name, value);
+  }
+
+  @Override
+  public void addHeader(String name, String value) {
+    headers.add(name, value);
+  }
+
+  @Override
+  public void setIntHeader(String name, int value) {
+    headers.set(name, String.valueOf(value));
+  }
+
+  @Override
+  public void addIntHeader(String name, int value) {
+    headers.add(name, String.valueOf(value));
+  }
+
+  @Override
+  public void setDateHeader(String name, long date) {
+    headers.setDate(name, date);
+  }
+
+  @Override
+  public void addDateHeader(String name, long date) {
+    HttpHeaders dated = new HttpHeaders();
+    dated.setDate(name, date);
+    headers.addAll(name, dated.get(name));
+  }
+
+  @Override
+  public ServletOutputStream getOutputStream() {
+    if (outputStream == null) {
+      outputStream = new ServletOutputStream() {
+        @Override
+        public boolean isReady() {
+          return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+          throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void write(int b) {
+          body.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+          body.write(b, off, len);
+        }
+      };
+    }
+    return outputStream;
+  }
+
+  @Override
+  public PrintWriter getWriter() {
+    if (writer == null) {
+      writer = new PrintWriter(new OutputStreamWriter(body, Charset.forName(getCharacterEncoding())));
+    }
+    return writer;
+  }
+
+  @Override
+  public int getBufferSize() {
+    return bufferSize;
+  }
+
+  @Override
+  public void setBufferSize(int size) {
+    bufferSize = size;
+  }
+
+  @Override
+  public Locale getLocale() {
+    return locale;
+  }
+
+  @Override
+  public void setLocale(Locale locale) {
+    this.locale = locale;
+  }
+
+  @Override
+  public void flushBuffer() {
+    if (writer != null) {
+      writer.flush();
+    }
+  }
+
+  @Override
+  public boolean isCommitted() {
+    return false;
+  }
+
+  @Override
+  public void resetBuffer() {
+    flushBuffer();
+    body.reset();
+  }
+
+  @Override
+  public void reset() {
+    resetBuffer();
+    headers.clear();
+    cookies.clear();
+    status = SC_OK;
+    characterEncoding = null;
+  }
+}
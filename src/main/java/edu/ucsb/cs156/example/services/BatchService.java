@@ -0,0 +1,153 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.models.BatchPart;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+/**
+ * This is a service that answers a batch of GET requests to /api/ urls in
+ * one request, e.g. the ones the frontend makes when it loads.
+ *
+ * Each part is dispatched through the DispatcherServlet on its own virtual
+ * thread, as the batch request's user, so it goes to
+ * the same controller and is authorized by the same {@code @PreAuthorize}
+ * check as when it is asked for on its own. The filter chain is not run
+ * again for the parts; it already ran for the batch request. A part that is
+ * not allowed gets 403, as it would on its own, and one that fails gets 500.
+ * Batches do not nest, since the parts are GETs and a batch is a POST.
+ *
+ * A part gets a copy of the batch request (see BatchPartRequest) and its own
+ * response (see BatchPartResponse), both made before its thread starts, and
+ * its thread uses nothing else of the batch request.
+ *
+ * At most {@code app.batch.maxParts} parts are allowed in a batch. Parts that
+ * have not finished after {@code app.batch.timeoutMillis} milliseconds are
+ * cancelled and get 504. A cancelled part is interrupted, but one that does
+ * not stop (e.g. while it waits for the database) runs on after the batch is
+ * answered; since it only has its copies, that does not touch the batch
+ * request or response, which the container may be reusing by then.
+ */
+
+@Slf4j
+@Service("batch")
+public class BatchService {
+
+  // looked up when a batch is run: in tests the dispatcher servlet is built
+  // from the controllers, including the one that uses this service
+  @Autowired
+  ObjectProvider<DispatcherServlet> dispatcherServlet;
+
+  @Value("${app.batch.maxParts:20}")
+  private int maxParts = 20;
+
+  @Value("${app.batch.timeoutMillis:10000}")
+  private long timeoutMillis = 10000;
+
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+  /**
+   * This method runs a batch of GET requests.
+   *
+   * @param request the batch request
+   * @param urls    the path and query string of each part, e.g. {@code /api/ucsbdates/all}
+   * @return the response to each part, in the same order
+   * @throws BadRequestException if the urls are not a valid batch
+   * @throws InterruptedException     if the thread is interrupted while waiting for the parts
+   */
+  public List<BatchPart> dispatch(HttpServletRequest request, List<String> urls) throws InterruptedException {
+    if (urls == null || urls.isEmpty()) {
+      throw new BadRequestException("urls must be a list of /api/ urls");
+    }
+    if (urls.size() > maxParts) {
+      throw new BadRequestException("A batch can have at most %d parts".formatted(maxParts));
+    }
+    SecurityContext context = SecurityContextHolder.getContext();
+    List<Callable<BatchPart>> parts = new ArrayList<>();
+    for (String url : urls) {
+      if (url == null || !url.startsWith("/api/")) {
+        throw new BadRequestException("'%s' is not an /api/ url".formatted(url));
+      }
+      BatchPartRequest part;
+      try {
+        part = new BatchPartRequest(request, url);
+      } catch (IllegalArgumentException e) {
+        throw new BadRequestException("'%s' is not a valid url: %s".formatted(url, e.getMessage()));
+      }
+      parts.add(() -> run(url, part, new BatchPartResponse(), context));
+    }
+    List<Future<BatchPart>> futures = executor.invokeAll(parts, timeoutMillis, TimeUnit.MILLISECONDS);
+    List<BatchPart> results = new ArrayList<>();
+    for (int i = 0; i < urls.size(); i++) {
+      Future<BatchPart> future = futures.get(i);
+      if (future.state() == Future.State.SUCCESS) {
+        results.add(future.resultNow());
+      } else if (future.state() == Future.State.CANCELLED) {
+        results.add(BatchPart.builder().url(urls.get(i)).status(HttpServletResponse.SC_GATEWAY_TIMEOUT).build());
+      } else {
+        log.error("batch part {} failed", urls.get(i), future.exceptionNow());
+        results.add(BatchPart.builder().url(urls.get(i)).status(HttpServletResponse.SC_INTERNAL_SERVER_ERROR).build());
+      }
+    }
+    return results;
+  }
+
+  private BatchPart run(String url, BatchPartRequest request, BatchPartResponse response, SecurityContext context) {
+    SecurityContextHolder.setContext(context);
+    try {
+      dispatcherServlet.getObject().service(request, response);
+      return BatchPart.builder().url(url).status(response.getStatus()).body(json(response)).build();
+    } catch (Exception e) {
+      if (deniedAccess(e)) {
+        return BatchPart.builder().url(url).status(HttpServletResponse.SC_FORBIDDEN).build();
+      }
+      log.error("batch part {} failed", url, e);
+      return BatchPart.builder().url(url).status(HttpServletResponse.SC_INTERNAL_SERVER_ERROR).build();
+    } finally {
+      SecurityContextHolder.clearContext();
+    }
+  }
+
+  /** @return the body of a part as JSON: as is if it is JSON, otherwise as a string */
+  private static String json(BatchPartResponse response) {
+    String body = response.getBody();
+    if (body == null) {
+      return null;
+    }
+    MediaType type = response.getContentType() == null ? null : MediaType.parseMediaType(response.getContentType());
+    if (type != null && ("json".equals(type.getSubtype()) || "json".equals(type.getSubtypeSuffix()))) {
+      return body;
+    }
+    return "\"" + new String(JsonStringEncoder.getInstance().quoteAsString(body)) + "\"";
+  }
+
+  private static boolean deniedAccess(Throwable e) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof AccessDeniedException) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,67 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.Bootstrap;
+import edu.ucsb.cs156.example.models.CurrentUser;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * This is a service that puts the data the frontend needs before its first
+ * render (see Bootstrap) into index.html, as {@code window.__BOOTSTRAP__}, so
+ * that the frontend does not have to wait for /api/systemInfo and
+ * /api/currentUser before it can render.
+ *
+ * The JSON is escaped so that it cannot end the script it is in.
+ */
+
+@Service("bootstrap")
+public class BootstrapService {
+
+  @Autowired
+  SystemInfoService systemInfoService;
+
+  @Autowired
+  CurrentUserService currentUserService;
+
+  @Autowired
+  ObjectMapper mapper;
+
+  /**
+   * This method returns the system information and the current user.
+   *
+   * @return the bootstrap data; its currentUser is null if no one is logged in
+   */
+  public Bootstrap getBootstrap() {
+    CurrentUser currentUser = currentUserService.getCurrentUser();
+    return Bootstrap.builder()
+        .systemInfo(systemInfoService.getSystemInfo())
+        .currentUser(currentUser.getUser() == null ? null : currentUser)
+        .build();
+  }
+
+  /**
+   * This method puts the bootstrap data into a page, at the end of its head.
+   *
+   * @param page the page, i.e. index.html
+   * @return the page with a script that sets {@code window.__BOOTSTRAP__}
+   * @throws JsonProcessingException if the data cannot be written as JSON
+   */
+  public String render(String page) throws JsonProcessingException {
+    String json = mapper.writeValueAsString(getBootstrap())
+        .replace("<", "\\u003c")
+        .replace(">", "\\u003e")
+        .replace("&", "\\u0026")
+        .replace("\u2028", "\\u2028")
+        .replace("\u2029", "\\u2029");
+    String script = "<script>window.__BOOTSTRAP__=" + json + ";</script>";
+    int head = page.indexOf("</head>");
+    if (head < 0) {
+      return script + page;
+    }
+    return page.substring(0, head) + script + page.substring(head);
+  }
+}
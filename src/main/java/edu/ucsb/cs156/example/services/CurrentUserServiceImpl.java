@@ -13,6 +13,7 @@ import java.util.Optional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
@@ -25,6 +26,10 @@ import org.springframework.stereotype.Service;
  * This is a service that provides information about the current user.
  * 
  * This is the version of the service used in production.
+ *
+ * Users are looked up by email on every request, so the users that were
+ * looked up are cached (see UserCacheService). A user whose profile changed
+ * at login is written to the database and cached again.
  */
 
 @Slf4j
@@ -37,6 +42,18 @@ public class CurrentUserServiceImpl extends CurrentUserService {
   @Autowired
   GrantedAuthoritiesService grantedAuthoritiesService;
 
+  @Autowired
+  UserCacheService userCache;
+
+  @Autowired
+  UserActivityService userActivity;
+
+  @Autowired
+  ActiveUserStatsService activeUsers;
+
+  @Autowired
+  DatabaseDialectService databaseDialect;
+
   @Value("${app.admin.emails}")
   final private List<String> adminEmails = new ArrayList<String>();
 
@@ -57,7 +74,9 @@ public class CurrentUserServiceImpl extends CurrentUserService {
    * This method obtains the current user that is logged in with OAuth2, if any.
    * The parameters are automatically injected by Spring.
    * 
-   * This method also has a side effect of storing the user in the database if they are not already there.
+   * This method also has a side effect of storing the user in the database if they are not already there,
+   * or refreshing their profile fields (and admin flag) if these have changed since they were stored.
+   * It also records that the user was seen (see UserActivityService and ActiveUserStatsService).
    * 
    * @param securityContext the security context (provided by Spring)
    * @param authentication the authentication token (provided by Spring)
@@ -79,16 +98,6 @@ public class CurrentUserServiceImpl extends CurrentUserService {
     java.util.Map<java.lang.String,java.lang.Object> attrs = oAuthUser.getAttributes();
     log.info("attrs={}",attrs);
 
-    Optional<User> ou = userRepository.findByEmail(email);
-    if (ou.isPresent()) {
-      User u = ou.get();
-      if (adminEmails.contains(email) && !u.getAdmin()) {
-        u.setAdmin(true);
-        userRepository.save(u);
-      }
-      return u;
-    }
-
     User u = User.builder()
         .googleSub(googleSub)
         .email(email)
@@ -101,8 +110,67 @@ public class CurrentUserServiceImpl extends CurrentUserService {
         .hostedDomain(hostedDomain)
         .admin(adminEmails.contains(email))
         .build();
-    userRepository.save(u);
-    return u;
+
+    Optional<User> ou = findByEmail(email);
+    if (ou.isPresent()) {
+      User existing = ou.get();
+      u.setId(existing.getId());
+      u.setAdmin(u.getAdmin() || existing.getAdmin());
+      u.setLastSeen(existing.getLastSeen());
+      if (u.equals(existing)) {
+        seen(existing);
+        return existing;
+      }
+    }
+    upsert(u);
+    User saved = userRepository.findByEmail(email).orElseThrow();
+    userCache.put(saved);
+    seen(saved);
+    return saved;
+  }
+
+  /** Look up a user by email, in the cache if they were looked up recently */
+  private Optional<User> findByEmail(String email) {
+    Optional<User> cached = userCache.get(email);
+    if (cached.isPresent()) {
+      return cached;
+    }
+    Optional<User> found = userRepository.findByEmail(email);
+    found.ifPresent(userCache::put);
+    return found;
+  }
+
+  /** Record that a user was seen, for last seen times and active user counts */
+  private void seen(User user) {
+    userActivity.record(user.getId());
+    activeUsers.record(user.getId());
+  }
+
+  /**
+   * This method inserts or refreshes a user in one statement, so that
+   * concurrent first logins with the same email cannot create two rows
+   * (the email column is unique).
+   *
+   * On H2 two MERGEs of a new email can still race to the insert; the loser
+   * fails on the unique index and is retried once, when it finds the row.
+   *
+   * @param u the user as seen at login
+   */
+  private void upsert(User u) {
+    try {
+      upsertOnce(u);
+    } catch (DataIntegrityViolationException e) {
+      log.info("retrying upsert of user {} after a concurrent insert", u.getEmail());
+      upsertOnce(u);
+    }
+  }
+
+  private void upsertOnce(User u) {
+    if (databaseDialect.isPostgres()) {
+      userRepository.upsertByEmailOnConflict(u);
+    } else {
+      userRepository.upsertByEmailMerge(u);
+    }
   }
 
   /**
@@ -0,0 +1,55 @@
+package edu.ucsb.cs156.example.services;
+
+import java.sql.DatabaseMetaData;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that tells which database the application is connected
+ * to, for the services whose queries differ between Postgres (production)
+ * and H2 (development and tests): the user upsert in CurrentUserServiceImpl,
+ * the trigram search in RestaurantSearchService and the planner estimates in
+ * EntityCountService.
+ *
+ * The database is read once, from the product name in the JDBC metadata of
+ * the DataSource, rather than from the form of the datasource URL.
+ */
+
+@Service("databaseDialect")
+public class DatabaseDialectService {
+
+  static final String POSTGRES = "PostgreSQL";
+
+  @Autowired
+  DataSource dataSource;
+
+  private volatile String productName;
+
+  /**
+   * @return the product name of the database, e.g. "PostgreSQL" or "H2"
+   */
+  public String productName() {
+    String name = productName;
+    if (name == null) {
+      try {
+        name = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+      } catch (MetaDataAccessException e) {
+        throw new IllegalStateException("could not read the database product name", e);
+      }
+      productName = name;
+    }
+    return name;
+  }
+
+  /**
+   * @return true if the database is Postgres
+   */
+  public boolean isPostgres() {
+    return POSTGRES.equals(productName());
+  }
+}
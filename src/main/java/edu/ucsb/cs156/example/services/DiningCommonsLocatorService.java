@@ -0,0 +1,108 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.models.NearbyDiningCommons;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.structures.GeoKdTree;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that finds the dining commons nearest to a location.
+ *
+ * Commons that have a latitude and longitude are kept in a GeoKdTree that is
+ * loaded at startup and rebuilt by UCSBDiningCommonsController writes (there
+ * are only a handful of commons, so rebuilding is cheaper than rebalancing).
+ */
+
+@Slf4j
+@Service("diningCommonsLocator")
+public class DiningCommonsLocatorService {
+
+  @Autowired
+  UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  private final Map<String, UCSBDiningCommons> commonsByCode = new HashMap<>();
+  private volatile GeoKdTree<UCSBDiningCommons> tree;
+
+  /**
+   * This method (re)loads the tree from the database.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void rebuild() {
+    commonsByCode.clear();
+    for (UCSBDiningCommons commons : ucsbDiningCommonsRepository.findAll()) {
+      commonsByCode.put(commons.getCode(), commons);
+    }
+    buildTree();
+    log.info("diningCommonsLocator indexed {} dining commons", tree.size());
+  }
+
+  /**
+   * This method returns the dining commons nearest to a location.
+   *
+   * @param latitude       degrees north
+   * @param longitude      degrees east
+   * @param k              the maximum number of commons to return
+   * @param hasSackMeal    if not null, only commons whose hasSackMeal matches
+   * @param hasTakeOutMeal if not null, only commons whose hasTakeOutMeal matches
+   * @return the nearest commons, nearest first
+   */
+  public List<NearbyDiningCommons> nearest(double latitude, double longitude, int k,
+      Boolean hasSackMeal, Boolean hasTakeOutMeal) {
+    if (tree == null) {
+      rebuild();
+    }
+    return tree.nearest(latitude, longitude, k,
+        commons -> (hasSackMeal == null || commons.getHasSackMeal() == hasSackMeal)
+            && (hasTakeOutMeal == null || commons.getHasTakeOutMeal() == hasTakeOutMeal))
+        .stream()
+        .map(neighbor -> new NearbyDiningCommons(neighbor.value(), neighbor.distanceMeters()))
+        .toList();
+  }
+
+  /**
+   * This method adds or replaces a dining commons.
+   *
+   * @param commons the commons that was saved
+   */
+  public synchronized void add(UCSBDiningCommons commons) {
+    if (tree == null) {
+      return; // not loaded yet; the commons will be read from the database
+    }
+    commonsByCode.put(commons.getCode(), commons);
+    buildTree();
+  }
+
+  /**
+   * This method removes a dining commons.
+   *
+   * @param code the code of the commons that was deleted
+   */
+  public synchronized void remove(String code) {
+    if (tree == null) {
+      return;
+    }
+    commonsByCode.remove(code);
+    buildTree();
+  }
+
+  private void buildTree() {
+    List<GeoKdTree.Point<UCSBDiningCommons>> points = new ArrayList<>();
+    for (UCSBDiningCommons commons : commonsByCode.values()) {
+      if (commons.getLatitude() != null && commons.getLongitude() != null) {
+        points.add(new GeoKdTree.Point<>(commons.getLatitude(), commons.getLongitude(), commons));
+      }
+    }
+    tree = new GeoKdTree<>(points);
+  }
+}
@@ -0,0 +1,75 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.structures.InvalidatingCache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that returns the menu of a dining commons grouped by station.
+ *
+ * Each menu is read with one query on the (DINING_COMMONS_CODE, STATION) index
+ * and cached until a menu item of that commons is written; UCSBDiningCommonsMenuItemController
+ * calls {@link #invalidate(String)} after each write.
+ */
+
+@Service("diningCommonsMenu")
+public class DiningCommonsMenuService {
+
+  @Autowired
+  UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
+
+  /** The menus by dining commons code, each code being its own group */
+  private final InvalidatingCache<String, Map<String, List<UCSBDiningCommonsMenuItem>>> menus = new InvalidatingCache<>(
+      diningCommonsCode -> diningCommonsCode);
+
+  /**
+   * This method returns the menu items of a dining commons grouped by station.
+   * Stations are in alphabetical order, and so are the items at each station;
+   * items without a station are grouped under the empty string.
+   *
+   * @param diningCommonsCode the code of the dining commons
+   * @return an unmodifiable map from station to menu items
+   */
+  public Map<String, List<UCSBDiningCommonsMenuItem>> byStation(String diningCommonsCode) {
+    InvalidatingCache.Lookup<Map<String, List<UCSBDiningCommonsMenuItem>>> cached = menus.lookup(diningCommonsCode);
+    if (cached.hit()) {
+      return cached.value();
+    }
+    Map<String, List<UCSBDiningCommonsMenuItem>> menu = load(diningCommonsCode);
+    // empty menus are not cached, so that unknown codes cannot fill the cache
+    if (!menu.isEmpty()) {
+      menus.put(diningCommonsCode, menu, cached.generation(), null);
+    }
+    return menu;
+  }
+
+  /**
+   * This method drops the cached menu of a dining commons. A menu of that
+   * commons that was being read at the same time is not cached.
+   *
+   * @param diningCommonsCode the code of the dining commons whose menu changed
+   */
+  public void invalidate(String diningCommonsCode) {
+    menus.invalidate(diningCommonsCode);
+  }
+
+  private Map<String, List<UCSBDiningCommonsMenuItem>> load(String diningCommonsCode) {
+    Map<String, List<UCSBDiningCommonsMenuItem>> grouped = new LinkedHashMap<>();
+    for (UCSBDiningCommonsMenuItem item : ucsbDiningCommonsMenuItemRepository
+        .findByDiningCommonsCodeOrderByStationAscNameAsc(diningCommonsCode)) {
+      grouped.computeIfAbsent(Objects.toString(item.getStation(), ""), station -> new ArrayList<>()).add(item);
+    }
+    grouped.replaceAll((station, items) -> List.copyOf(items));
+    return Collections.unmodifiableMap(grouped);
+  }
+}
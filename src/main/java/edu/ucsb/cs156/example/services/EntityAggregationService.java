@@ -0,0 +1,89 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.helpers.EntityAggregation;
+import edu.ucsb.cs156.example.models.AggregateRow;
+import edu.ucsb.cs156.example.repositories.AggregateRepository;
+import edu.ucsb.cs156.example.structures.InvalidatingCache;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that runs aggregate queries (see EntityAggregation) and
+ * caches their rows for {@code app.aggregates.ttlSeconds} seconds, so that a
+ * dashboard polling the same aggregates does not scan the table each time.
+ *
+ * The controllers call invalidate when they write an entity, which drops the
+ * cached aggregates of that entity. A query that was already running when the
+ * entity was written may have read the old rows, so its result is returned
+ * but not cached (see InvalidatingCache). Writes made some other way (e.g. by
+ * another instance) show up once the TTL has passed. At most MAX_ENTRIES
+ * results are kept, the least recently used being dropped first.
+ */
+
+@Service("aggregations")
+public class EntityAggregationService {
+
+  static final int MAX_ENTRIES = 512;
+
+  @Value("${app.aggregates.ttlSeconds:30}")
+  private long ttlSeconds = 30;
+
+  private record CacheKey(Class<?> type, String key) {
+  }
+
+  private final InvalidatingCache<CacheKey, List<AggregateRow>> cache = new InvalidatingCache<>(CacheKey::type,
+      rows -> 1, () -> MAX_ENTRIES);
+
+  /**
+   * This method runs an aggregate query, or returns its cached rows.
+   *
+   * @param repository the repository of the entity
+   * @param query      the query
+   * @param <T>        the entity type
+   * @return the rows
+   */
+  public <T> List<AggregateRow> aggregate(AggregateRepository<T> repository, EntityAggregation.Query<T> query) {
+    return aggregate(repository, query, LocalDateTime.now());
+  }
+
+  /**
+   * This method runs an aggregate query, or returns its rows if they were
+   * cached less than ttlSeconds before a time.
+   *
+   * @param repository the repository of the entity
+   * @param query      the query
+   * @param now        the time
+   * @param <T>        the entity type
+   * @return the rows
+   */
+  public <T> List<AggregateRow> aggregate(AggregateRepository<T> repository, EntityAggregation.Query<T> query,
+      LocalDateTime now) {
+    CacheKey key = new CacheKey(query.type(), query.key());
+    InvalidatingCache.Lookup<List<AggregateRow>> cached = cache.lookup(key, now);
+    if (cached.hit()) {
+      return cached.value();
+    }
+    List<AggregateRow> rows = List.copyOf(query.rows(repository.aggregate(query)));
+    cache.put(key, rows, cached.generation(), now.plusSeconds(ttlSeconds));
+    return rows;
+  }
+
+  /**
+   * This method drops the cached aggregates of an entity; call it after
+   * writing the entity.
+   *
+   * @param type the entity class
+   */
+  public void invalidate(Class<?> type) {
+    cache.invalidate(type);
+  }
+
+  /** @return the number of cached results */
+  int size() {
+    return cache.size();
+  }
+}
@@ -0,0 +1,117 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.EntityCount;
+import edu.ucsb.cs156.example.structures.InvalidatingCache;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that answers the unfiltered /count endpoints, so that
+ * pagination UIs can show a total without the table being scanned each time.
+ *
+ * The exact count of each table is read once with {@code count(*)} and then
+ * kept until the controllers call invalidate after inserting or deleting a
+ * row. The kept count is dropped rather than adjusted: a count read after
+ * the insert committed but before invalidate already includes the row. The
+ * count is read again {@code app.counts.ttlSeconds} seconds after it was
+ * read, to pick up writes made some other way (e.g. by another instance). A
+ * count that was being read when the table was written is returned but not
+ * kept (see InvalidatingCache).
+ *
+ * With approximate, on Postgres, the planner's estimate of the number of
+ * rows ({@code pg_class.reltuples}, updated by VACUUM and ANALYZE) is
+ * returned instead, without touching the table, if it is at least
+ * {@code app.counts.approximateMin}. Smaller tables, tables that have not
+ * been analyzed and other databases get the exact count.
+ */
+
+@Service("counts")
+public class EntityCountService {
+
+  @Autowired
+  EntityManager entityManager;
+
+  @Autowired
+  DatabaseDialectService databaseDialect;
+
+  @Value("${app.counts.ttlSeconds:300}")
+  private long ttlSeconds = 300;
+
+  @Value("${app.counts.approximateMin:100000}")
+  private long approximateMin = 100000;
+
+  /** The exact counts by entity class, each class being its own group */
+  private final InvalidatingCache<Class<?>, Long> counts = new InvalidatingCache<>(type -> type);
+
+  /**
+   * This method counts the rows of an entity's table.
+   *
+   * @param type        the entity class
+   * @param repository  the repository of the entity
+   * @param approximate whether an estimate from the table statistics will do
+   * @return the count
+   */
+  public EntityCount count(Class<?> type, CrudRepository<?, ?> repository, boolean approximate) {
+    if (approximate && databaseDialect.isPostgres()) {
+      long estimate = estimate(type);
+      if (estimate >= approximateMin) {
+        return EntityCount.builder().count(estimate).approximate(true).build();
+      }
+    }
+    return EntityCount.builder().count(count(type, repository, LocalDateTime.now())).approximate(false).build();
+  }
+
+  /**
+   * This method returns the exact count of an entity's table, read from the
+   * table if it was not kept or was read ttlSeconds or more before a time.
+   *
+   * @param type       the entity class
+   * @param repository the repository of the entity
+   * @param now        the time
+   * @return the count
+   */
+  public long count(Class<?> type, CrudRepository<?, ?> repository, LocalDateTime now) {
+    InvalidatingCache.Lookup<Long> kept = counts.lookup(type, now);
+    if (kept.hit()) {
+      return kept.value();
+    }
+    long count = repository.count();
+    counts.put(type, count, kept.generation(), now.plusSeconds(ttlSeconds));
+    return count;
+  }
+
+  /**
+   * This method drops the kept count of an entity's table, so the next
+   * count reads it again; call it after inserting or deleting a row.
+   *
+   * @param type the entity class
+   */
+  public void invalidate(Class<?> type) {
+    counts.invalidate(type);
+  }
+
+  /**
+   * This method returns the planner's estimate of the number of rows of an
+   * entity's table. Postgres only.
+   *
+   * @param type the entity class
+   * @return the estimate, or -1 if the table has not been analyzed
+   */
+  @SuppressWarnings("unchecked")
+  long estimate(Class<?> type) {
+    String table = type.getAnnotation(Entity.class).name();
+    List<Number> rows = entityManager
+        .createNativeQuery("SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE oid = to_regclass(:table)")
+        .setParameter("table", table)
+        .getResultList();
+    return rows.isEmpty() ? -1 : rows.get(0).longValue();
+  }
+}
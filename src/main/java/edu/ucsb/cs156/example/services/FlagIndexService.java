@@ -0,0 +1,182 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.structures.FlagIndex;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that keeps bitmap indexes of the boolean flags of
+ * help requests, recommendation requests, organizations and dining commons,
+ * so that filtered lists and counts can be answered without scanning the tables.
+ *
+ * The indexes are loaded at startup and kept up to date by controller writes.
+ * See FlagIndex for the filter syntax.
+ */
+
+@Slf4j
+@Service("flagIndex")
+public class FlagIndexService {
+
+  @Autowired
+  HelpRequestRepository helpRequestRepository;
+
+  @Autowired
+  RecommendationRequestRepository recommendationRequestRepository;
+
+  @Autowired
+  UCSBOrganizationRepository ucsbOrganizationRepository;
+
+  @Autowired
+  UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  private final FlagIndex<Long, HelpRequest> helpRequests = new FlagIndex<>(
+      Map.of("solved", HelpRequest::getSolved));
+
+  private final FlagIndex<Long, RecommendationRequest> recommendationRequests = new FlagIndex<>(
+      Map.of("done", RecommendationRequest::getDone));
+
+  private final FlagIndex<String, UCSBOrganization> organizations = new FlagIndex<>(
+      Map.of("inactive", UCSBOrganization::getInactive));
+
+  private final FlagIndex<String, UCSBDiningCommons> diningCommons = new FlagIndex<>(diningCommonsFlags());
+
+  private volatile boolean loaded = false;
+
+  private static Map<String, Predicate<UCSBDiningCommons>> diningCommonsFlags() {
+    Map<String, Predicate<UCSBDiningCommons>> flags = new LinkedHashMap<>();
+    flags.put("hasSackMeal", UCSBDiningCommons::getHasSackMeal);
+    flags.put("hasTakeOutMeal", UCSBDiningCommons::getHasTakeOutMeal);
+    flags.put("hasDiningCam", UCSBDiningCommons::getHasDiningCam);
+    return flags;
+  }
+
+  /**
+   * This method (re)loads all of the indexes from the database.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void rebuild() {
+    helpRequests.clear();
+    helpRequestRepository.findAll().forEach(this::add);
+    recommendationRequests.clear();
+    recommendationRequestRepository.findAll().forEach(this::add);
+    organizations.clear();
+    ucsbOrganizationRepository.findAll().forEach(this::add);
+    diningCommons.clear();
+    ucsbDiningCommonsRepository.findAll().forEach(this::add);
+    loaded = true;
+    log.info("flagIndex loaded {} help requests, {} recommendation requests, {} organizations, {} dining commons",
+        helpRequests.count(null), recommendationRequests.count(null), organizations.count(null),
+        diningCommons.count(null));
+  }
+
+  /**
+   * @return the index of help requests by id, with the flag {@code solved}
+   */
+  public FlagIndex<Long, HelpRequest> getHelpRequests() {
+    ensureLoaded();
+    return helpRequests;
+  }
+
+  /**
+   * @return the index of recommendation requests by id, with the flag {@code done}
+   */
+  public FlagIndex<Long, RecommendationRequest> getRecommendationRequests() {
+    ensureLoaded();
+    return recommendationRequests;
+  }
+
+  /**
+   * @return the index of organizations by orgCode, with the flag {@code inactive}
+   */
+  public FlagIndex<String, UCSBOrganization> getOrganizations() {
+    ensureLoaded();
+    return organizations;
+  }
+
+  /**
+   * @return the index of dining commons by code, with the flags
+   *         {@code hasSackMeal}, {@code hasTakeOutMeal} and {@code hasDiningCam}
+   */
+  public FlagIndex<String, UCSBDiningCommons> getDiningCommons() {
+    ensureLoaded();
+    return diningCommons;
+  }
+
+  /**
+   * @param helpRequest the help request that was saved
+   */
+  public void add(HelpRequest helpRequest) {
+    helpRequests.put(helpRequest.getId(), helpRequest);
+  }
+
+  /**
+   * @param recommendationRequest the recommendation request that was saved
+   */
+  public void add(RecommendationRequest recommendationRequest) {
+    recommendationRequests.put(recommendationRequest.getId(), recommendationRequest);
+  }
+
+  /**
+   * @param organization the organization that was saved
+   */
+  public void add(UCSBOrganization organization) {
+    organizations.put(organization.getOrgCode(), organization);
+  }
+
+  /**
+   * @param commons the dining commons that was saved
+   */
+  public void add(UCSBDiningCommons commons) {
+    diningCommons.put(commons.getCode(), commons);
+  }
+
+  /**
+   * @param id the id of the help request that was deleted
+   */
+  public void removeHelpRequest(long id) {
+    helpRequests.remove(id);
+  }
+
+  /**
+   * @param id the id of the recommendation request that was deleted
+   */
+  public void removeRecommendationRequest(long id) {
+    recommendationRequests.remove(id);
+  }
+
+  /**
+   * @param orgCode the code of the organization that was deleted
+   */
+  public void removeOrganization(String orgCode) {
+    organizations.remove(orgCode);
+  }
+
+  /**
+   * @param code the code of the dining commons that was deleted
+   */
+  public void removeDiningCommons(String code) {
+    diningCommons.remove(code);
+  }
+
+  private void ensureLoaded() {
+    if (!loaded) {
+      rebuild();
+    }
+  }
+}
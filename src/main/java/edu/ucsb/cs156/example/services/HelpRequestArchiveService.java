@@ -0,0 +1,146 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.models.HelpRequestArchiveRun;
+import edu.ucsb.cs156.example.models.HelpRequestArchiveStatus;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * This is a service that moves help requests that were solved more than
+ * {@code app.helprequests.archive.afterDays} days ago from the helprequests
+ * table to the archivedhelprequests table, so that the table the help queue
+ * reads stays small.
+ *
+ * It runs on the {@code app.helprequests.archive.cron} schedule (and on
+ * demand, see HelpRequestArchiveController). Requests are moved in batches of
+ * {@code app.helprequests.archive.batchSize}, each copied and deleted in its
+ * own transaction, so a run never holds locks on the whole table and a failed
+ * run can simply be repeated. A request that is unsolved between being picked
+ * and being moved is left in place.
+ *
+ * Each run is logged, and the totals since startup and the last run are
+ * kept for the status endpoint.
+ */
+
+@Slf4j
+@Service("helpRequestArchive")
+public class HelpRequestArchiveService {
+
+  @Autowired
+  HelpRequestRepository helpRequestRepository;
+
+  @Autowired
+  FlagIndexService flagIndex;
+
+  @Autowired
+  EntityAggregationService aggregations;
+
+  @Autowired
+  EntityCountService counts;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  @Value("${app.helprequests.archive.afterDays:30}")
+  private long afterDays = 30;
+
+  @Value("${app.helprequests.archive.batchSize:500}")
+  private int batchSize = 500;
+
+  private volatile long runs;
+  private volatile long totalMoved;
+  private volatile HelpRequestArchiveRun lastRun;
+
+  /**
+   * This method archives the requests that are due now.
+   */
+  @Scheduled(cron = "${app.helprequests.archive.cron:0 30 3 * * *}")
+  public void archive() {
+    archive(LocalDateTime.now());
+  }
+
+  /**
+   * This method archives the requests solved more than afterDays days before a time.
+   *
+   * @param now the time
+   * @return what the run did
+   */
+  public synchronized HelpRequestArchiveRun archive(LocalDateTime now) {
+    long started = System.nanoTime();
+    LocalDateTime cutoff = now.minusDays(afterDays);
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    int batches = 0;
+    long moved = 0;
+    boolean skipped = false;
+    while (true) {
+      List<Long> ids = helpRequestRepository.findIdsSolvedBefore(cutoff, Limit.of(batchSize));
+      if (ids.isEmpty()) {
+        break;
+      }
+      int count = transaction.execute(status -> {
+        int copied = helpRequestRepository.copyToArchive(ids, now);
+        int deleted = helpRequestRepository.deleteSolved(ids);
+        if (copied != deleted) {
+          throw new IllegalStateException("copied %d help requests to the archive but deleted %d".formatted(copied, deleted));
+        }
+        return deleted;
+      });
+      batches++;
+      moved += count;
+      if (count < ids.size()) {
+        skipped = true;
+      } else {
+        ids.forEach(flagIndex::removeHelpRequest);
+      }
+      if (count == 0 || ids.size() < batchSize) {
+        break;
+      }
+    }
+    if (skipped) {
+      flagIndex.rebuild();
+    }
+    if (moved > 0) {
+      aggregations.invalidate(HelpRequest.class);
+      counts.invalidate(HelpRequest.class);
+    }
+    HelpRequestArchiveRun run = HelpRequestArchiveRun.builder()
+        .startedAt(now)
+        .cutoff(cutoff)
+        .batches(batches)
+        .moved(moved)
+        .millis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started))
+        .build();
+    runs++;
+    totalMoved += moved;
+    lastRun = run;
+    log.info("helpRequestArchive moved {} help requests solved before {} in {} batches ({} ms)", moved, cutoff,
+        batches, run.getMillis());
+    return run;
+  }
+
+  /**
+   * @return the settings, the totals since startup and the last run
+   */
+  public HelpRequestArchiveStatus status() {
+    return HelpRequestArchiveStatus.builder()
+        .afterDays(afterDays)
+        .batchSize(batchSize)
+        .runs(runs)
+        .totalMoved(totalMoved)
+        .lastRun(lastRun)
+        .build();
+  }
+}
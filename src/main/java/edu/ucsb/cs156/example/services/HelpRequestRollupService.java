@@ -0,0 +1,334 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.ArchivedHelpRequest;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.models.HelpRequestHourCounts;
+import edu.ucsb.cs156.example.models.HelpRequestSolveTime;
+import edu.ucsb.cs156.example.models.HelpRequestStats;
+import edu.ucsb.cs156.example.repositories.ArchivedHelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.structures.KllSketch;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * This is a service that keeps rollups of help requests by the hour of their
+ * requestTime and their teamId: the number of requests, the number solved,
+ * and a KLL sketch of the time to solve (solvedTime - requestTime), so that
+ * counts and wait time quantiles over any range of hours are answered by
+ * merging one rollup per hour and team instead of scanning the table.
+ *
+ * The rollups are loaded at startup and kept up to date by
+ * HelpRequestsController writes. The counts are loaded with one GROUP BY
+ * query per table and the sketches from a stream of the times of solved
+ * requests, so no entities are kept in memory, and writes are not blocked
+ * while they load: the hours written to while loading are counted again
+ * when the load is done, and their sketches reloaded when they are queried.
+ * After that, counts are adjusted exactly. A sketch cannot
+ * forget a value, so when a solved request is edited or deleted its hour's
+ * sketch is marked stale and reloaded from that hour's rows (using the
+ * (TEAM_ID, REQUEST_TIME) index) the next time it is queried.
+ *
+ * Archived requests (see HelpRequestArchiveService) are included: they are
+ * loaded at startup with the others, archiving does not change the rollups,
+ * and stale sketches are reloaded from both tables.
+ *
+ * Requests without a requestTime are not counted.
+ */
+
+@Slf4j
+@Service("helpRequestRollups")
+public class HelpRequestRollupService {
+
+  static final int SKETCH_K = 200;
+
+  @Autowired
+  HelpRequestRepository helpRequestRepository;
+
+  @Autowired
+  ArchivedHelpRequestRepository archivedHelpRequestRepository;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  private static final class Rollup {
+    long requests;
+    long solved;
+    KllSketch solveSeconds = new KllSketch(SKETCH_K);
+    boolean stale;
+
+    void merge(Rollup other) {
+      requests += other.requests;
+      solved += other.solved;
+      solveSeconds.merge(other.solveSeconds);
+    }
+  }
+
+  private final TreeMap<LocalDateTime, Map<String, Rollup>> hours = new TreeMap<>();
+
+  private final Object rebuilding = new Object();
+
+  /** The hours written to while rebuild is loading, or null when it is not */
+  private Set<LocalDateTime> written;
+
+  /**
+   * This method (re)loads the rollups from the database.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuild() {
+    synchronized (rebuilding) {
+      synchronized (this) {
+        written = new HashSet<>();
+      }
+      try {
+        TreeMap<LocalDateTime, Map<String, Rollup>> loaded = new TreeMap<>();
+        addCounts(loaded, helpRequestRepository.countByTeamIdAndHour());
+        addCounts(loaded, archivedHelpRequestRepository.countByTeamIdAndHour());
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.executeWithoutResult(status -> {
+          try (Stream<HelpRequestSolveTime> times = helpRequestRepository.streamSolveTimes()) {
+            times.forEach(time -> addSolveTime(loaded, time));
+          }
+          try (Stream<HelpRequestSolveTime> times = archivedHelpRequestRepository.streamSolveTimes()) {
+            times.forEach(time -> addSolveTime(loaded, time));
+          }
+        });
+        synchronized (this) {
+          for (LocalDateTime hour : written) {
+            loaded.remove(hour);
+            addCounts(loaded, helpRequestRepository.countByTeamIdAndHour(hour, hour.plusHours(1)));
+            addCounts(loaded, archivedHelpRequestRepository.countByTeamIdAndHour(hour, hour.plusHours(1)));
+            loaded.getOrDefault(hour, Map.of()).values().forEach(rollup -> rollup.stale = true);
+          }
+          hours.clear();
+          hours.putAll(loaded);
+          log.info("helpRequestRollups loaded {} hours ({} written to while loading)", hours.size(),
+              written.size());
+        }
+      } finally {
+        synchronized (this) {
+          written = null;
+        }
+      }
+    }
+  }
+
+  private static void addCounts(Map<LocalDateTime, Map<String, Rollup>> loaded, List<HelpRequestHourCounts> counts) {
+    for (HelpRequestHourCounts count : counts) {
+      Rollup rollup = loaded.computeIfAbsent(count.start(), h -> new HashMap<>())
+          .computeIfAbsent(count.teamId(), t -> new Rollup());
+      rollup.requests += count.requests();
+      rollup.solved += count.solved();
+    }
+  }
+
+  /** Add a solve time to the sketch of a rollup that was counted; rows added since are counted again */
+  private static void addSolveTime(Map<LocalDateTime, Map<String, Rollup>> loaded, HelpRequestSolveTime time) {
+    Rollup rollup = loaded.getOrDefault(hourOf(time.requestTime()), Map.of()).get(time.teamId());
+    if (rollup != null) {
+      rollup.solveSeconds.update(solveSeconds(time.requestTime(), time.solvedTime()));
+    }
+  }
+
+  /**
+   * This method adds a help request that was saved to the rollups.
+   *
+   * @param request the request
+   */
+  public synchronized void add(HelpRequest request) {
+    if (request.getRequestTime() == null) {
+      return;
+    }
+    if (written != null) {
+      written.add(hourOf(request.getRequestTime()));
+    }
+    Rollup rollup = hours.computeIfAbsent(hourOf(request.getRequestTime()), h -> new HashMap<>())
+        .computeIfAbsent(request.getTeamId(), t -> new Rollup());
+    rollup.requests++;
+    if (request.getSolved()) {
+      rollup.solved++;
+      Long seconds = solveSeconds(request);
+      if (seconds != null && !rollup.stale) {
+        rollup.solveSeconds.update(seconds);
+      }
+    }
+  }
+
+  /**
+   * This method removes a help request from the rollups, after it has been
+   * changed or deleted in the database.
+   *
+   * @param request the request as it was added
+   */
+  public synchronized void remove(HelpRequest request) {
+    if (request.getRequestTime() == null) {
+      return;
+    }
+    LocalDateTime hour = hourOf(request.getRequestTime());
+    if (written != null) {
+      written.add(hour);
+    }
+    Map<String, Rollup> teams = hours.get(hour);
+    Rollup rollup = teams == null ? null : teams.get(request.getTeamId());
+    if (rollup == null) {
+      return;
+    }
+    rollup.requests--;
+    if (request.getSolved()) {
+      rollup.solved--;
+      rollup.stale |= solveSeconds(request) != null;
+    }
+    if (rollup.requests == 0) {
+      teams.remove(request.getTeamId());
+      if (teams.isEmpty()) {
+        hours.remove(hour);
+      }
+    }
+  }
+
+  /**
+   * This method returns the totals for the requests made in a range of hours.
+   *
+   * @param from   the start of the range; it is rounded down to the hour
+   * @param to     the end of the range; hours that start at or after it are not included
+   * @param teamId the team to count, or null for all teams
+   * @return the totals
+   */
+  public synchronized HelpRequestStats totals(LocalDateTime from, LocalDateTime to, String teamId) {
+    Rollup total = new Rollup();
+    range(from, to).forEach((hour, teams) -> teams.forEach((team, rollup) -> {
+      if (teamId == null || teamId.equals(team)) {
+        total.merge(fresh(hour, team, rollup));
+      }
+    }));
+    return stats(teamId, hourOf(from), to, total);
+  }
+
+  /**
+   * This method returns the totals for each team with requests made in a
+   * range of hours, the teams with the most requests first.
+   *
+   * @param from the start of the range; it is rounded down to the hour
+   * @param to   the end of the range; hours that start at or after it are not included
+   * @return the totals for each team
+   */
+  public synchronized List<HelpRequestStats> byTeam(LocalDateTime from, LocalDateTime to) {
+    Map<String, Rollup> totals = new HashMap<>();
+    range(from, to).forEach((hour, teams) -> teams.forEach(
+        (team, rollup) -> totals.computeIfAbsent(team, t -> new Rollup()).merge(fresh(hour, team, rollup))));
+    List<HelpRequestStats> result = new ArrayList<>();
+    totals.forEach((team, total) -> result.add(stats(team, hourOf(from), to, total)));
+    result.sort(Comparator.comparingLong(HelpRequestStats::getRequests).reversed()
+        .thenComparing(HelpRequestStats::getTeamId, Comparator.nullsFirst(Comparator.naturalOrder())));
+    return result;
+  }
+
+  /**
+   * This method returns the totals for each hour with requests in a range of hours.
+   *
+   * @param from   the start of the range; it is rounded down to the hour
+   * @param to     the end of the range; hours that start at or after it are not included
+   * @param teamId the team to count, or null for all teams
+   * @return the totals for each hour, in order
+   */
+  public synchronized List<HelpRequestStats> byHour(LocalDateTime from, LocalDateTime to, String teamId) {
+    List<HelpRequestStats> result = new ArrayList<>();
+    range(from, to).forEach((hour, teams) -> {
+      Rollup total = new Rollup();
+      teams.forEach((team, rollup) -> {
+        if (teamId == null || teamId.equals(team)) {
+          total.merge(fresh(hour, team, rollup));
+        }
+      });
+      if (total.requests > 0) {
+        result.add(stats(teamId, hour, hour.plusHours(1), total));
+      }
+    });
+    return result;
+  }
+
+  private Map<LocalDateTime, Map<String, Rollup>> range(LocalDateTime from, LocalDateTime to) {
+    if (!to.isAfter(from)) {
+      throw new BadRequestException("to must be after from");
+    }
+    return hours.subMap(hourOf(from), true, to, false);
+  }
+
+  /** Reload a stale sketch from the rows of its hour and team */
+  private Rollup fresh(LocalDateTime hour, String teamId, Rollup rollup) {
+    if (rollup.stale) {
+      List<HelpRequest> requests = new ArrayList<>(helpRequestRepository
+          .findByTeamIdAndRequestTimeGreaterThanEqualAndRequestTimeLessThanAndSolvedTrue(teamId, hour,
+              hour.plusHours(1)));
+      for (ArchivedHelpRequest archived : archivedHelpRequestRepository
+          .findByTeamIdAndRequestTimeGreaterThanEqualAndRequestTimeLessThanAndSolvedTrue(teamId, hour,
+              hour.plusHours(1))) {
+        requests.add(archived.toHelpRequest());
+      }
+      KllSketch sketch = new KllSketch(SKETCH_K);
+      for (HelpRequest request : requests) {
+        Long seconds = solveSeconds(request);
+        if (seconds != null) {
+          sketch.update(seconds);
+        }
+      }
+      rollup.solveSeconds = sketch;
+      rollup.stale = false;
+    }
+    return rollup;
+  }
+
+  private static HelpRequestStats stats(String teamId, LocalDateTime from, LocalDateTime to, Rollup total) {
+    return HelpRequestStats.builder()
+        .teamId(teamId)
+        .from(from)
+        .to(to)
+        .requests(total.requests)
+        .solved(total.solved)
+        .medianSolveSeconds(quantile(total.solveSeconds, 0.5))
+        .p90SolveSeconds(quantile(total.solveSeconds, 0.9))
+        .p99SolveSeconds(quantile(total.solveSeconds, 0.99))
+        .build();
+  }
+
+  private static Long quantile(KllSketch sketch, double fraction) {
+    return sketch.getN() == 0 ? null : Math.round(sketch.quantile(fraction));
+  }
+
+  /** The seconds from request to solution, or null if the request has no solvedTime */
+  static Long solveSeconds(HelpRequest request) {
+    if (request.getSolvedTime() == null) {
+      return null;
+    }
+    return solveSeconds(request.getRequestTime(), request.getSolvedTime());
+  }
+
+  static long solveSeconds(LocalDateTime requestTime, LocalDateTime solvedTime) {
+    return Math.max(0, Duration.between(requestTime, solvedTime).getSeconds());
+  }
+
+  static LocalDateTime hourOf(LocalDateTime time) {
+    return time.truncatedTo(ChronoUnit.HOURS);
+  }
+}
@@ -0,0 +1,48 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.DeadlineReminder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is the default reminder sink. It logs each reminder and, if
+ * {@code app.reminders.file} is set, appends it to that file as one line.
+ *
+ * It can be turned off with {@code app.reminders.local.enabled=false} when
+ * another ReminderSink is in use.
+ */
+
+@Slf4j
+@Service("localReminderSink")
+@ConditionalOnProperty(name = "app.reminders.local.enabled", havingValue = "true", matchIfMissing = true)
+public class LocalReminderSink implements ReminderSink {
+
+  @Value("${app.reminders.file:}")
+  String file = "";
+
+  @Override
+  public void deliver(DeadlineReminder reminder) {
+    String line = "recommendation request %d from %s to %s is needed by %s".formatted(
+        reminder.getRequestId(), reminder.getRequesterEmail(), reminder.getProfessorEmail(),
+        reminder.getDateNeeded());
+    log.info("reminder: {}", line);
+    if (file.isBlank()) {
+      return;
+    }
+    try {
+      Files.writeString(Path.of(file), reminder.getRemindAt() + " " + line + System.lineSeparator(),
+          StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    } catch (IOException e) {
+      log.error("could not write reminder to {}", file, e);
+    }
+  }
+}
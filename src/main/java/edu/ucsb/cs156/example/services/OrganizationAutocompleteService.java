@@ -0,0 +1,166 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.structures.RadixTrie;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service for prefix autocomplete of UCSB organizations by
+ * orgCode, orgTranslationShort and orgTranslation.
+ *
+ * The lower-cased fields, and every later word of the two names, are kept in a
+ * RadixTrie that is loaded at startup and kept up to date by
+ * UCSBOrganizationController writes.
+ *
+ * Matches are ranked: an exact orgCode first, then orgCode prefixes, then
+ * orgTranslationShort prefixes, then orgTranslation prefixes, then prefixes of
+ * a later word in either name. Ties are broken by orgCode.
+ */
+
+@Slf4j
+@Service("organizationAutocomplete")
+public class OrganizationAutocompleteService {
+
+  static final int EXACT_CODE = 0;
+  static final int CODE = 1;
+  static final int SHORT_NAME = 2;
+  static final int NAME = 3;
+  static final int WORD = 4;
+
+  @Autowired
+  UCSBOrganizationRepository ucsbOrganizationRepository;
+
+  /** A key in the trie points at an organization and the field the key came from */
+  private record Term(String orgCode, int rank) {
+  }
+
+  private final RadixTrie<Term> trie = new RadixTrie<>();
+  private final Map<String, UCSBOrganization> organizations = new ConcurrentHashMap<>();
+  private final Map<String, Map<String, Term>> termsOf = new ConcurrentHashMap<>();
+  private volatile boolean loaded = false;
+
+  /**
+   * This method (re)loads the trie from the database.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void rebuild() {
+    trie.clear();
+    organizations.clear();
+    termsOf.clear();
+    for (UCSBOrganization organization : ucsbOrganizationRepository.findAll()) {
+      index(organization);
+    }
+    loaded = true;
+    log.info("organizationAutocomplete indexed {} organizations", organizations.size());
+  }
+
+  /**
+   * This method returns the organizations whose code or name starts with the prefix.
+   *
+   * @param prefix          the text typed so far (case insensitive)
+   * @param includeInactive whether to include inactive organizations
+   * @param limit           the maximum number of organizations to return
+   * @return organizations, best match first
+   */
+  public List<UCSBOrganization> autocomplete(String prefix, boolean includeInactive, int limit) {
+    String key = normalize(prefix);
+    if (key.isEmpty()) {
+      return List.of();
+    }
+    if (!loaded) {
+      rebuild();
+    }
+    Map<String, Integer> best = new HashMap<>();
+    for (RadixTrie.Entry<Term> entry : trie.findByPrefix(key)) {
+      Term term = entry.value();
+      UCSBOrganization organization = organizations.get(term.orgCode());
+      if (organization == null || (organization.getInactive() && !includeInactive)) {
+        continue;
+      }
+      int rank = term.rank() == CODE && entry.key().equals(key) ? EXACT_CODE : term.rank();
+      best.merge(term.orgCode(), rank, Math::min);
+    }
+
+    return best.entrySet().stream()
+        .sorted(Map.Entry.<String, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+        .limit(limit)
+        .map(e -> organizations.get(e.getKey()))
+        .toList();
+  }
+
+  /**
+   * This method adds or replaces an organization in the trie.
+   *
+   * @param organization the organization that was saved
+   */
+  public synchronized void add(UCSBOrganization organization) {
+    unindex(organization.getOrgCode());
+    index(organization);
+  }
+
+  /**
+   * This method removes an organization from the trie.
+   *
+   * @param orgCode the code of the organization that was deleted
+   */
+  public synchronized void remove(String orgCode) {
+    unindex(orgCode);
+  }
+
+  private void index(UCSBOrganization organization) {
+    String orgCode = organization.getOrgCode();
+    Map<String, Term> terms = new HashMap<>();
+    addTerm(terms, orgCode, normalize(orgCode), CODE);
+    addName(terms, orgCode, organization.getOrgTranslationShort(), SHORT_NAME);
+    addName(terms, orgCode, organization.getOrgTranslation(), NAME);
+    terms.forEach(trie::put);
+    termsOf.put(orgCode, terms);
+    organizations.put(orgCode, organization);
+  }
+
+  private void unindex(String orgCode) {
+    Map<String, Term> terms = termsOf.remove(orgCode);
+    if (terms != null) {
+      terms.forEach(trie::remove);
+    }
+    organizations.remove(orgCode);
+  }
+
+  /** Adds the whole name at the given rank, and each later word of it at WORD rank */
+  private static void addName(Map<String, Term> terms, String orgCode, String name, int rank) {
+    String normalized = normalize(name);
+    addTerm(terms, orgCode, normalized, rank);
+    for (int i = 1; i < normalized.length(); i++) {
+      if (normalized.charAt(i - 1) == ' ') {
+        addTerm(terms, orgCode, normalized.substring(i), WORD);
+      }
+    }
+  }
+
+  /** Each key is kept once per organization, at the best rank it was found with */
+  private static void addTerm(Map<String, Term> terms, String orgCode, String key, int rank) {
+    if (!key.isEmpty()) {
+      terms.merge(key, new Term(orgCode, rank), (a, b) -> a.rank() <= b.rank() ? a : b);
+    }
+  }
+
+  /** Lower-cases and collapses runs of whitespace and punctuation into single spaces */
+  static String normalize(String text) {
+    if (text == null) {
+      return "";
+    }
+    return text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+  }
+}
@@ -0,0 +1,147 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that lists the recommendation requests that are not done
+ * and are due soon.
+ *
+ * The requests are kept in a priority queue ordered by dateNeeded, loaded at
+ * startup and kept up to date by RecommendationRequestsController writes.
+ * Replaced and removed requests are left in the queue and skipped when they
+ * reach the head; requests that have become overdue are dropped from the head
+ * as queries pass them, since they can only come back through a write.
+ */
+
+@Slf4j
+@Service("recommendationDeadlines")
+public class RecommendationDeadlineService {
+
+  @Autowired
+  RecommendationRequestRepository recommendationRequestRepository;
+
+  /** A queued request; it is current only while it is the very entry (by identity) for its id */
+  private record Entry(LocalDateTime dateNeeded, long id, RecommendationRequest request) {
+  }
+
+  private final PriorityQueue<Entry> queue = new PriorityQueue<>(
+      Comparator.comparing(Entry::dateNeeded).thenComparingLong(Entry::id));
+  private final Map<Long, Entry> current = new HashMap<>();
+  private boolean loaded = false;
+
+  /**
+   * This method (re)loads the queue from the database.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void rebuild() {
+    queue.clear();
+    current.clear();
+    for (RecommendationRequest request : recommendationRequestRepository
+        .findByDoneFalseAndDateNeededGreaterThanEqualOrderByDateNeededAscIdAsc(LocalDateTime.now())) {
+      enqueue(request);
+    }
+    loaded = true;
+    log.info("recommendationDeadlines queued {} requests", current.size());
+  }
+
+  /**
+   * This method returns the requests that are not done and are needed in [start, end).
+   *
+   * @param start          the first time to include, usually now
+   * @param end            the first time after start to leave out
+   * @param professorEmail if not null, only the requests to this professor
+   * @return the requests, soonest first
+   */
+  public synchronized List<RecommendationRequest> upcoming(LocalDateTime start, LocalDateTime end,
+      String professorEmail) {
+    if (!loaded) {
+      rebuild();
+    }
+    // drop the head while it is stale or overdue
+    while (!queue.isEmpty() && (!isCurrent(queue.peek()) || queue.peek().dateNeeded().isBefore(start))) {
+      Entry dropped = queue.poll();
+      if (isCurrent(dropped)) {
+        current.remove(dropped.id());
+      }
+    }
+
+    // take the entries before end off the queue in order, then put them back
+    List<Entry> taken = new ArrayList<>();
+    List<RecommendationRequest> result = new ArrayList<>();
+    while (!queue.isEmpty() && queue.peek().dateNeeded().isBefore(end)) {
+      Entry entry = queue.poll();
+      if (isCurrent(entry)) {
+        taken.add(entry);
+        if (professorEmail == null || professorEmail.equals(entry.request().getProfessorEmail())) {
+          result.add(entry.request());
+        }
+      }
+    }
+    queue.addAll(taken);
+    return result;
+  }
+
+  /**
+   * This method adds or replaces a request.
+   *
+   * @param request the request that was saved
+   */
+  public synchronized void add(RecommendationRequest request) {
+    current.remove(request.getId());
+    enqueue(request);
+    compactIfNeeded();
+  }
+
+  /**
+   * This method removes a request.
+   *
+   * @param id the id of the request that was deleted
+   */
+  public synchronized void remove(long id) {
+    current.remove(id);
+    compactIfNeeded();
+  }
+
+  /**
+   * @return the number of entries in the queue, including ones that are no longer current
+   */
+  synchronized int queueSize() {
+    return queue.size();
+  }
+
+  private void enqueue(RecommendationRequest request) {
+    if (request.getDone() || request.getDateNeeded() == null) {
+      return;
+    }
+    Entry entry = new Entry(request.getDateNeeded(), request.getId(), request);
+    current.put(entry.id(), entry);
+    queue.add(entry);
+  }
+
+  private boolean isCurrent(Entry entry) {
+    return current.get(entry.id()) == entry;
+  }
+
+  /** Rebuilds the queue from the current entries once most of it is stale */
+  private void compactIfNeeded() {
+    if (queue.size() > 2 * current.size() + 16) {
+      queue.clear();
+      queue.addAll(current.values());
+    }
+  }
+}
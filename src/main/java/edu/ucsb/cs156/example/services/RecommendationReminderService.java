@@ -0,0 +1,155 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.models.DeadlineReminder;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.structures.TimingWheel;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that sends a reminder when a recommendation request that
+ * is not done is needed within {@code app.reminders.leadHours} hours.
+ *
+ * Each open request has a timer in a hierarchical timing wheel (see
+ * TimingWheel), loaded at startup and kept up to date by
+ * RecommendationRequestsController writes, so that each tick only touches the
+ * timers that are due rather than querying the whole table. Due reminders are
+ * delivered to every ReminderSink bean.
+ *
+ * Requests whose reminder time has passed but whose dateNeeded has not, whether
+ * they were saved that way or the reminder time passed while the application
+ * was down, are reminded on the next tick. The time a reminder was sent is
+ * stored in the request (remindedAt), so that a restart does not send it again;
+ * moving dateNeeded later schedules a new one.
+ */
+
+@Slf4j
+@Service("recommendationReminders")
+public class RecommendationReminderService {
+
+  static final long TICK_MILLIS = 1000;
+
+  @Autowired
+  RecommendationRequestRepository recommendationRequestRepository;
+
+  @Autowired(required = false)
+  List<ReminderSink> sinks = List.of();
+
+  @Value("${app.reminders.leadHours:24}")
+  private long leadHours = 24;
+
+  private TimingWheel<Long, RecommendationRequest> wheel = new TimingWheel<>(TICK_MILLIS,
+      System.currentTimeMillis());
+
+  /**
+   * This method (re)loads the timers from the database.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void rebuild() {
+    LocalDateTime now = LocalDateTime.now();
+    wheel = new TimingWheel<>(TICK_MILLIS, toMillis(now));
+    for (RecommendationRequest request : recommendationRequestRepository
+        .findByDoneFalseAndDateNeededGreaterThanEqualOrderByDateNeededAscIdAsc(now)) {
+      if (!reminded(request)) {
+        wheel.schedule(request.getId(), request, toMillis(remindAt(request)));
+      }
+    }
+    log.info("recommendationReminders scheduled {} reminders", wheel.size());
+  }
+
+  /**
+   * This method adds, replaces or cancels the reminder for a request.
+   *
+   * @param request the request that was saved
+   */
+  public synchronized void add(RecommendationRequest request) {
+    if (request.getDone() || request.getDateNeeded() == null
+        || request.getDateNeeded().isBefore(LocalDateTime.now()) || reminded(request)) {
+      wheel.cancel(request.getId());
+      return;
+    }
+    wheel.schedule(request.getId(), request, toMillis(remindAt(request)));
+  }
+
+  /**
+   * This method cancels the reminder for a request.
+   *
+   * @param id the id of the request that was deleted
+   */
+  public synchronized void remove(long id) {
+    wheel.cancel(id);
+  }
+
+  /**
+   * @return the number of reminders that have not been sent
+   */
+  public synchronized int pending() {
+    return wheel.size();
+  }
+
+  /**
+   * This method sends the reminders that are due now.
+   */
+  @Scheduled(fixedDelayString = "${app.reminders.tickMillis:1000}")
+  public void tick() {
+    tick(LocalDateTime.now());
+  }
+
+  /**
+   * This method sends the reminders that are due at a time, and records
+   * that they were sent. A sink that throws does not stop the others.
+   *
+   * @param now the time
+   */
+  public void tick(LocalDateTime now) {
+    List<RecommendationRequest> due;
+    synchronized (this) {
+      due = wheel.advance(toMillis(now));
+    }
+    for (RecommendationRequest request : due) {
+      DeadlineReminder reminder = DeadlineReminder.builder()
+          .requestId(request.getId())
+          .requesterEmail(request.getRequesterEmail())
+          .professorEmail(request.getProfessorEmail())
+          .dateNeeded(request.getDateNeeded())
+          .remindAt(remindAt(request))
+          .build();
+      for (ReminderSink sink : sinks) {
+        try {
+          sink.deliver(reminder);
+        } catch (RuntimeException e) {
+          log.error("reminder sink {} failed for request {}", sink.getClass().getSimpleName(), request.getId(), e);
+        }
+      }
+      try {
+        recommendationRequestRepository.updateRemindedAt(request.getId(), now);
+      } catch (RuntimeException e) {
+        log.error("could not record the reminder of request {}", request.getId(), e);
+      }
+    }
+  }
+
+  /** @return true if the reminder for the request's current dateNeeded was sent */
+  private boolean reminded(RecommendationRequest request) {
+    return request.getRemindedAt() != null && !request.getRemindedAt().isBefore(remindAt(request));
+  }
+
+  private LocalDateTime remindAt(RecommendationRequest request) {
+    return request.getDateNeeded().minusHours(leadHours);
+  }
+
+  private static long toMillis(LocalDateTime time) {
+    return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+  }
+}
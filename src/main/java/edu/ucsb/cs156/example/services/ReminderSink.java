@@ -0,0 +1,20 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.DeadlineReminder;
+
+/**
+ * This is an interface for the places that deadline reminders are delivered to.
+ *
+ * Every ReminderSink bean is given every reminder (see RecommendationReminderService);
+ * LocalReminderSink is the default.
+ */
+public interface ReminderSink {
+
+  /**
+   * This method delivers a reminder. It is called from the reminder scheduler's
+   * thread, so it should not block for long.
+   *
+   * @param reminder the reminder
+   */
+  void deliver(DeadlineReminder reminder);
+}
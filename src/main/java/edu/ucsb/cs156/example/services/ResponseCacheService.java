@@ -0,0 +1,182 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.structures.InvalidatingCache;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+/**
+ * This is a service that caches the encoded JSON bodies of read-mostly GET
+ * endpoints (see ENDPOINTS), so that a hit is sent without the entities
+ * being loaded or serialized again.
+ *
+ * It is run for each request by a filter in the security filter chain (see
+ * SecurityConfig), after the user is known. A body is cached by path, query
+ * string and the user's roles, and only when the endpoint answered 200, so a
+ * hit is only sent to users whose roles were allowed the same response. The
+ * bodies are kept off the heap in direct ByteBuffers, together with a gzipped
+ * copy if {@code app.responseCache.gzip} is set and it is smaller; the
+ * gzipped copy is sent to clients that accept it. At most
+ * {@code app.responseCache.maxBytes} bytes are kept, the least recently used
+ * bodies being dropped first.
+ *
+ * The controllers call invalidate when they write an entity, which drops the
+ * cached bodies of that entity. A body that was being made when the entity
+ * was written is sent but not cached (see InvalidatingCache).
+ */
+
+@Service("responseCache")
+public class ResponseCacheService {
+
+  /** The paths whose bodies are cached, and the entity each one lists */
+  static final Map<String, Class<?>> ENDPOINTS = Map.of(
+      "/api/ucsbdiningcommons/all", UCSBDiningCommons.class,
+      "/api/ucsborganizations/all", UCSBOrganization.class,
+      "/api/restaurants/all", Restaurant.class);
+
+  @Value("${app.responseCache.maxBytes:16777216}")
+  private long maxBytes = 16777216;
+
+  @Value("${app.responseCache.gzip:true}")
+  private boolean gzip = true;
+
+  private record CacheKey(Class<?> type, String key) {
+  }
+
+  private record Entry(String contentType, ByteBuffer json, ByteBuffer gzipped) {
+    long size() {
+      return json.capacity() + (gzipped == null ? 0 : gzipped.capacity());
+    }
+  }
+
+  private final InvalidatingCache<CacheKey, Entry> cache = new InvalidatingCache<>(CacheKey::type, Entry::size,
+      () -> maxBytes);
+
+  /**
+   * @param request the request
+   * @return true if the request is a GET of an endpoint whose bodies are cached
+   */
+  public boolean caches(HttpServletRequest request) {
+    return "GET".equals(request.getMethod()) && ENDPOINTS.containsKey(request.getRequestURI());
+  }
+
+  /**
+   * This method answers a request that caches is true for: it sends the
+   * cached body if there is one, and otherwise passes the request on and
+   * caches the body if the endpoint answered 200.
+   *
+   * @param request  the request
+   * @param response the response
+   * @param chain    the rest of the filter chain
+   * @throws IOException      if the response cannot be written
+   * @throws ServletException if the rest of the chain fails
+   */
+  public void filter(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws IOException, ServletException {
+    CacheKey key = key(request);
+    response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    InvalidatingCache.Lookup<Entry> cached = cache.lookup(key);
+    if (cached.hit()) {
+      send(cached.value(), request, response);
+      return;
+    }
+    ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+    chain.doFilter(request, wrapper);
+    if (wrapper.getStatus() == HttpServletResponse.SC_OK && wrapper.getContentType() != null) {
+      put(key, wrapper.getContentType(), wrapper.getContentAsByteArray(), cached.generation());
+    }
+    wrapper.copyBodyToResponse();
+  }
+
+  /**
+   * This method drops the cached bodies of an entity; call it after writing
+   * the entity.
+   *
+   * @param type the entity class
+   */
+  public void invalidate(Class<?> type) {
+    cache.invalidate(type);
+  }
+
+  /** @return the number of cached bodies */
+  int size() {
+    return cache.size();
+  }
+
+  /** @return the number of bytes the cached bodies take */
+  long bytes() {
+    return cache.weight();
+  }
+
+  private void put(CacheKey key, String contentType, byte[] json, long generation) throws IOException {
+    Entry entry = new Entry(contentType, direct(json), gzip ? gzipped(json) : null);
+    cache.put(key, entry, generation, null);
+  }
+
+  private void send(Entry entry, HttpServletRequest request, HttpServletResponse response) throws IOException {
+    String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+    ByteBuffer body = entry.json();
+    if (entry.gzipped() != null && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+      body = entry.gzipped();
+      response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
+    // a duplicate has its own position, so hits can send the same body at once
+    body = body.duplicate();
+    response.setStatus(HttpServletResponse.SC_OK);
+    response.setContentType(entry.contentType());
+    response.setContentLength(body.remaining());
+    WritableByteChannel channel = Channels.newChannel(response.getOutputStream());
+    while (body.hasRemaining()) {
+      channel.write(body);
+    }
+    response.flushBuffer();
+  }
+
+  private CacheKey key(HttpServletRequest request) {
+    String query = request.getQueryString() == null ? "" : request.getQueryString();
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    String roles = authentication == null ? ""
+        : authentication.getAuthorities().stream()
+            .map(GrantedAuthority::getAuthority)
+            .filter(authority -> authority.startsWith("ROLE_"))
+            .sorted()
+            .collect(Collectors.joining(","));
+    String path = request.getRequestURI();
+    return new CacheKey(ENDPOINTS.get(path), path + "?" + query + " " + roles);
+  }
+
+  private static ByteBuffer direct(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+    buffer.put(bytes).flip();
+    return buffer.asReadOnlyBuffer();
+  }
+
+  private static ByteBuffer gzipped(byte[] json) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+    try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+      gzipOut.write(json);
+    }
+    return out.size() < json.length ? direct(out.toByteArray()) : null;
+  }
+}
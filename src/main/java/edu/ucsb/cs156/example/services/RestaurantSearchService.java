@@ -0,0 +1,149 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.structures.TrigramIndex;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * This is a service for fuzzy (misspelling tolerant) search of restaurants
+ * by name and description.
+ *
+ * On Postgres the search is done in the database with the pg_trgm extension and
+ * its GIN indexes. On other databases (H2 in development and tests) the search is
+ * served from an in-memory TrigramIndex that is loaded at startup and kept up to
+ * date by RestaurantsController writes.
+ *
+ * In both cases a restaurant scores the greater of the similarity of the query
+ * to its name and the word similarity of the query to its description, and only
+ * restaurants scoring at least {@code app.restaurants.search.threshold} match;
+ * on Postgres the threshold is set as the pg_trgm thresholds of the transaction
+ * the search runs in, so that the indexed % and <% operators filter by it.
+ */
+
+@Slf4j
+@Service("restaurantSearch")
+public class RestaurantSearchService {
+
+  @Autowired
+  RestaurantRepository restaurantRepository;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  @Autowired
+  DatabaseDialectService databaseDialect;
+
+  @Value("${app.restaurants.search.threshold:0.3}")
+  private double threshold = 0.3;
+
+  private final TrigramIndex nameIndex = new TrigramIndex();
+  private final TrigramIndex descriptionIndex = new TrigramIndex();
+  private final Map<Long, Restaurant> restaurants = new ConcurrentHashMap<>();
+  private volatile boolean loaded = false;
+
+  /**
+   * @return true if the search is done by Postgres rather than in memory
+   */
+  public boolean usesPostgres() {
+    return databaseDialect.isPostgres();
+  }
+
+  /**
+   * This method (re)loads the in-memory index from the database.
+   * It does nothing on Postgres.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void rebuild() {
+    if (usesPostgres()) {
+      return;
+    }
+    nameIndex.clear();
+    descriptionIndex.clear();
+    restaurants.clear();
+    for (Restaurant restaurant : restaurantRepository.findAll()) {
+      index(restaurant);
+    }
+    loaded = true;
+    log.info("restaurantSearch indexed {} restaurants", restaurants.size());
+  }
+
+  /**
+   * This method returns the restaurants that best match the query.
+   *
+   * @param query the search string
+   * @param limit the maximum number of restaurants to return
+   * @return restaurants, best match first
+   */
+  public List<Restaurant> search(String query, int limit) {
+    if (usesPostgres()) {
+      TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+      transaction.setReadOnly(true);
+      return transaction.execute(status -> {
+        restaurantRepository.setTrigramThresholds(threshold);
+        return restaurantRepository.searchByTrigramSimilarity(query, limit);
+      });
+    }
+    if (!loaded) {
+      rebuild();
+    }
+    // the best `limit` by the greater of the two scores are among the best `limit` of each
+    Map<Long, Double> scores = new HashMap<>();
+    for (TrigramIndex.Match match : nameIndex.search(query, false, threshold, limit)) {
+      scores.merge(match.key(), match.score(), Math::max);
+    }
+    for (TrigramIndex.Match match : descriptionIndex.search(query, true, threshold, limit)) {
+      scores.merge(match.key(), match.score(), Math::max);
+    }
+
+    return scores.entrySet().stream()
+        .map(e -> new TrigramIndex.Match(e.getKey(), e.getValue()))
+        .sorted(TrigramIndex.BEST_FIRST)
+        .limit(limit)
+        .map(match -> restaurants.get(match.key()))
+        .filter(Objects::nonNull)
+        .toList();
+  }
+
+  /**
+   * This method adds or replaces a restaurant in the in-memory index.
+   *
+   * @param restaurant the restaurant that was saved
+   */
+  public void add(Restaurant restaurant) {
+    if (!usesPostgres()) {
+      index(restaurant);
+    }
+  }
+
+  /**
+   * This method removes a restaurant from the in-memory index.
+   *
+   * @param id the id of the restaurant that was deleted
+   */
+  public void remove(long id) {
+    nameIndex.remove(id);
+    descriptionIndex.remove(id);
+    restaurants.remove(id);
+  }
+
+  private void index(Restaurant restaurant) {
+    restaurants.put(restaurant.getId(), restaurant);
+    nameIndex.put(restaurant.getId(), restaurant.getName());
+    descriptionIndex.put(restaurant.getId(), restaurant.getDescription());
+  }
+}
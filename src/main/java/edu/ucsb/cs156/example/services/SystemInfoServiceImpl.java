@@ -2,6 +2,7 @@ package edu.ucsb.cs156.example.services;
 
 
 import edu.ucsb.cs156.example.models.SystemInfo;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -28,19 +29,29 @@ public class SystemInfoServiceImpl extends SystemInfoService {
   @Value("${app.oauth.login:/oauth2/authorization/google}")
   private String oauthLogin;
 
+  private SystemInfo systemInfo;
+
+  /**
+   * This method builds the system information once, at startup, since it
+   * only depends on properties.
+   */
+  @PostConstruct
+  void init() {
+    systemInfo = SystemInfo.builder()
+        .springH2ConsoleEnabled(this.springH2ConsoleEnabled)
+        .showSwaggerUILink(this.showSwaggerUILink)
+        .oauthLogin(this.oauthLogin)
+        .build();
+    log.info("systemInfo is {}", systemInfo);
+  }
+
   /**
    * This method returns the system information.
    * @see edu.ucsb.cs156.example.models.SystemInfo
    * @return the system information
    */
   public SystemInfo getSystemInfo() {
-    SystemInfo si = SystemInfo.builder()
-    .springH2ConsoleEnabled(this.springH2ConsoleEnabled)
-    .showSwaggerUILink(this.showSwaggerUILink)
-    .oauthLogin(this.oauthLogin)
-    .build();
-  log.info("getSystemInfo returns {}",si);
-  return si;
+    return systemInfo;
   }
 
 }
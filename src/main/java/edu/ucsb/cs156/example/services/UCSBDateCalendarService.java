@@ -0,0 +1,109 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.structures.CalendarIndex;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service for calendar queries over UCSBDates: the dates in a
+ * quarter, the dates between two times, and the next dates after a time.
+ *
+ * The dates are kept in a CalendarIndex, sorted by localDateTime and
+ * bucketed by quarterYYYYQ, that is loaded at startup and kept up to date by
+ * UCSBDatesController writes. Until it has loaded, queries go to the database.
+ */
+
+@Slf4j
+@Service("ucsbDateCalendar")
+public class UCSBDateCalendarService {
+
+  @Autowired
+  UCSBDateRepository ucsbDateRepository;
+
+  private final CalendarIndex<Long, UCSBDate> index =
+      new CalendarIndex<>(UCSBDate::getId, UCSBDate::getLocalDateTime, UCSBDate::getQuarterYYYYQ);
+  private volatile boolean loaded = false;
+
+  /**
+   * This method (re)loads the index from the database.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void rebuild() {
+    loaded = false;
+    index.clear();
+    for (UCSBDate date : ucsbDateRepository.findAll()) {
+      index.put(date);
+    }
+    loaded = true;
+    log.info("ucsbDateCalendar indexed {} dates", index.size());
+  }
+
+  /**
+   * This method returns the dates in a quarter.
+   *
+   * @param quarterYYYYQ quarter in the format YYYYQ
+   * @return the dates, in time order
+   */
+  public List<UCSBDate> inQuarter(String quarterYYYYQ) {
+    if (!loaded) {
+      return ucsbDateRepository.findByQuarterYYYYQOrderByLocalDateTimeAscIdAsc(quarterYYYYQ);
+    }
+    return index.inBucket(quarterYYYYQ);
+  }
+
+  /**
+   * This method returns the dates whose localDateTime is in [start, end).
+   *
+   * @param start the first time to include
+   * @param end   the first time after start to leave out
+   * @return the dates, in time order
+   */
+  public List<UCSBDate> between(LocalDateTime start, LocalDateTime end) {
+    if (!loaded) {
+      return ucsbDateRepository.findByLocalDateTimeGreaterThanEqualAndLocalDateTimeLessThanOrderByLocalDateTimeAscIdAsc(start, end);
+    }
+    return index.between(start, end);
+  }
+
+  /**
+   * This method returns the first dates at or after a time.
+   *
+   * @param start the first time to include
+   * @param count the maximum number of dates to return
+   * @return the dates, in time order
+   */
+  public List<UCSBDate> upcoming(LocalDateTime start, int count) {
+    if (!loaded) {
+      return ucsbDateRepository.findByLocalDateTimeGreaterThanEqualOrderByLocalDateTimeAscIdAsc(start, Limit.of(count));
+    }
+    return index.after(start, count);
+  }
+
+  /**
+   * This method adds or replaces a date.
+   *
+   * @param date the date that was saved
+   */
+  public synchronized void add(UCSBDate date) {
+    index.put(date);
+  }
+
+  /**
+   * This method removes a date.
+   *
+   * @param id the id of the date that was deleted
+   */
+  public synchronized void remove(long id) {
+    index.remove(id);
+  }
+}
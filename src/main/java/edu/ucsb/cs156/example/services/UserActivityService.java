@@ -0,0 +1,116 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that tracks when each user was last seen, without writing
+ * to the users table on every request.
+ *
+ * Sightings are recorded (to the minute) in a concurrent map, where repeated
+ * sightings of the same user coalesce into one entry. The map is flushed
+ * every {@code app.users.activity.flushMillis} milliseconds, with one UPDATE
+ * per distinct minute (in chunks of at most FLUSH_CHUNK ids) rather than one
+ * per user, and once more on shutdown.
+ */
+
+@Slf4j
+@Service("userActivity")
+public class UserActivityService {
+
+  static final int FLUSH_CHUNK = 500;
+
+  @Autowired
+  UserRepository userRepository;
+
+  private final Map<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+  /**
+   * This method records that a user was seen now.
+   *
+   * @param userId the id of the user
+   */
+  public void record(long userId) {
+    record(userId, LocalDateTime.now());
+  }
+
+  /**
+   * This method records that a user was seen at a time.
+   *
+   * @param userId the id of the user
+   * @param at     when the user was seen
+   */
+  public void record(long userId, LocalDateTime at) {
+    LocalDateTime minute = at.truncatedTo(ChronoUnit.MINUTES);
+    pending.merge(userId, minute, (a, b) -> a.isAfter(b) ? a : b);
+  }
+
+  /**
+   * @return the number of users whose last seen time has not been written yet
+   */
+  public int pendingCount() {
+    return pending.size();
+  }
+
+  /**
+   * This method fills in the last seen times that have not been written yet,
+   * so that callers see the same times the database will.
+   *
+   * @param users the users, which are modified
+   */
+  public void applyPending(Iterable<User> users) {
+    for (User user : users) {
+      LocalDateTime seen = pending.get(user.getId());
+      if (seen != null && (user.getLastSeen() == null || seen.isAfter(user.getLastSeen()))) {
+        user.setLastSeen(seen);
+      }
+    }
+  }
+
+  /**
+   * This method writes the recorded last seen times to the database.
+   * Sightings recorded while it runs are kept for the next flush, as are
+   * those whose update fails.
+   */
+  @PreDestroy
+  @Scheduled(fixedDelayString = "${app.users.activity.flushMillis:60000}")
+  public synchronized void flush() {
+    Map<LocalDateTime, List<Long>> byMinute = new TreeMap<>();
+    for (Map.Entry<Long, LocalDateTime> entry : pending.entrySet()) {
+      // only drop the entry if it was not replaced by a newer sighting meanwhile
+      if (pending.remove(entry.getKey(), entry.getValue())) {
+        byMinute.computeIfAbsent(entry.getValue(), m -> new ArrayList<>()).add(entry.getKey());
+      }
+    }
+    int updated = 0;
+    for (Map.Entry<LocalDateTime, List<Long>> minute : byMinute.entrySet()) {
+      List<Long> ids = minute.getValue();
+      for (int from = 0; from < ids.size(); from += FLUSH_CHUNK) {
+        List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + FLUSH_CHUNK));
+        try {
+          updated += userRepository.updateLastSeen(chunk, minute.getKey());
+        } catch (RuntimeException e) {
+          log.error("userActivity could not write last seen for {} users; will retry", chunk.size(), e);
+          chunk.forEach(id -> record(id, minute.getKey()));
+        }
+      }
+    }
+    if (updated > 0) {
+      log.info("userActivity wrote last seen for {} users", updated);
+    }
+  }
+}
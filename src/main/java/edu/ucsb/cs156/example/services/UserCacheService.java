@@ -0,0 +1,91 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.User;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that caches users by email, so that the user of each
+ * request (see CurrentUserServiceImpl) is not read from the database every time.
+ *
+ * A user is kept for {@code app.users.cacheSeconds} seconds, and at most
+ * MAX_CACHED_USERS users are kept, the least recently used being dropped
+ * first. The cache holds its own copy of each user and hands out a new copy
+ * on each hit, since User is a mutable entity: neither a caller's changes nor
+ * concurrent requests of the same user can reach the cached copy.
+ */
+
+@Service("userCache")
+public class UserCacheService {
+  static final int MAX_CACHED_USERS = 1000;
+
+  @Value("${app.users.cacheSeconds:60}")
+  private long cacheSeconds = 60;
+
+  private record CachedUser(User user, LocalDateTime expires) {
+  }
+
+  private final Map<String, CachedUser> cache = new LinkedHashMap<>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, CachedUser> eldest) {
+      return size() > MAX_CACHED_USERS;
+    }
+  };
+
+  /**
+   * @param email the user's email
+   * @return Optional of a copy of the cached user (empty if not cached or expired)
+   */
+  public Optional<User> get(String email) {
+    return get(email, LocalDateTime.now());
+  }
+
+  /**
+   * @param email the user's email
+   * @param now   the time
+   * @return Optional of a copy of the user cached at that time (empty if not cached or expired)
+   */
+  public Optional<User> get(String email, LocalDateTime now) {
+    synchronized (cache) {
+      CachedUser cached = cache.get(email);
+      if (cached == null || !now.isBefore(cached.expires())) {
+        return Optional.empty();
+      }
+      return Optional.of(cached.user().toBuilder().build());
+    }
+  }
+
+  /**
+   * This method caches a copy of a user, replacing any cached user with the same email.
+   *
+   * @param user the user, as read from the database
+   */
+  public void put(User user) {
+    put(user, LocalDateTime.now());
+  }
+
+  /**
+   * This method caches a copy of a user at a time.
+   *
+   * @param user the user, as read from the database
+   * @param now  the time
+   */
+  public void put(User user, LocalDateTime now) {
+    synchronized (cache) {
+      cache.put(user.getEmail(), new CachedUser(user.toBuilder().build(), now.plusSeconds(cacheSeconds)));
+    }
+  }
+
+  /** @return the number of cached users, including expired ones not yet dropped */
+  int size() {
+    synchronized (cache) {
+      return cache.size();
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package edu.ucsb.cs156.example.structures;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe Bloom filter over strings.
+ *
+ * A Bloom filter answers "is this key in the set?" with either
+ * "definitely not" or "maybe". It never gives false negatives, so a
+ * {@code false} from {@link #mightContain(String)} can be trusted without
+ * checking the database.
+ *
+ * The filter uses the Kirsch-Mitzenmacher double hashing technique: two
+ * 64-bit hashes of the key are combined to produce the k bit positions.
+ */
+public class BloomFilter {
+
+  private final AtomicLongArray bits;
+  private final long numBits;
+  private final int numHashes;
+
+  /**
+   * Create a Bloom filter sized for the expected number of insertions and
+   * the desired false positive probability.
+   *
+   * @param expectedInsertions expected number of distinct keys
+   * @param falsePositiveRate  desired false positive probability, e.g. 0.01
+   */
+  public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+    if (expectedInsertions < 1) {
+      throw new IllegalArgumentException("expectedInsertions must be positive");
+    }
+    if (falsePositiveRate <= 0.0 || falsePositiveRate >= 1.0) {
+      throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+    }
+    long m = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    this.numBits = Math.max(64, ((m + 63) / 64) * 64);
+    this.numHashes = Math.max(1, (int) Math.round((double) numBits / expectedInsertions * Math.log(2)));
+    this.bits = new AtomicLongArray((int) (numBits / 64));
+  }
+
+  /**
+   * Add a key to the filter.
+   *
+   * @param key the key to add
+   */
+  public void put(String key) {
+    long h1 = hash(key);
+    long h2 = mix(h1);
+    for (int i = 0; i < numHashes; i++) {
+      long bit = Math.floorMod(h1 + i * h2, numBits);
+      int word = (int) (bit >>> 6);
+      long mask = 1L << bit;
+      long old;
+      do {
+        old = bits.get(word);
+      } while ((old & mask) == 0 && !bits.compareAndSet(word, old, old | mask));
+    }
+  }
+
+  /**
+   * Check whether a key might have been added to the filter.
+   *
+   * @param key the key to look up
+   * @return false if the key was definitely never added, true if it may have been
+   */
+  public boolean mightContain(String key) {
+    long h1 = hash(key);
+    long h2 = mix(h1);
+    for (int i = 0; i < numHashes; i++) {
+      long bit = Math.floorMod(h1 + i * h2, numBits);
+      if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the number of bits in the filter
+   */
+  public long getNumBits() {
+    return numBits;
+  }
+
+  /**
+   * @return the number of hash functions used per key
+   */
+  public int getNumHashes() {
+    return numHashes;
+  }
+
+  /** 64-bit FNV-1a over the UTF-8 bytes of the key */
+  private static long hash(String key) {
+    long h = 0xcbf29ce484222325L;
+    for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+      h ^= (b & 0xff);
+      h *= 0x100000001b3L;
+    }
+    return mix(h);
+  }
+
+  /** murmur3 fmix64 finalizer, used to derive the second hash */
+  private static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h | 1L;
+  }
+}
@@ -0,0 +1,207 @@
+package edu.ucsb.cs156.example.structures;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * An index of values by time and by bucket (for example, by quarter), for
+ * range queries such as "between two times" and "the next n after a time".
+ *
+ * Values are kept in a TreeMap from time to the values at that time, so a
+ * range query costs O(log n) plus the size of the result. Each value is also
+ * kept in its bucket, sorted by time. Values with no time are left out of the
+ * time queries and listed last in their bucket. Values at the same time are
+ * ordered by key.
+ *
+ * Reads may run concurrently with each other; writes are exclusive.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class CalendarIndex<K extends Comparable<K>, V> {
+
+  private record Slot<K>(K key, LocalDateTime time, String bucket) {
+  }
+
+  private final Function<V, K> keyOf;
+  private final Function<V, LocalDateTime> timeOf;
+  private final Function<V, String> bucketOf;
+
+  private final NavigableMap<LocalDateTime, NavigableMap<K, V>> byTime = new TreeMap<>();
+  private final Map<String, NavigableMap<Slot<K>, V>> byBucket = new HashMap<>();
+  private final Map<K, Slot<K>> slots = new HashMap<>();
+  private final Comparator<Slot<K>> slotOrder = Comparator
+      .comparing(Slot<K>::time, Comparator.nullsLast(Comparator.naturalOrder()))
+      .thenComparing(Slot::key);
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /**
+   * Create an empty index.
+   *
+   * @param keyOf    reads the unique key of a value
+   * @param timeOf   reads the time of a value, which may be null
+   * @param bucketOf reads the bucket of a value, which may be null
+   */
+  public CalendarIndex(Function<V, K> keyOf, Function<V, LocalDateTime> timeOf, Function<V, String> bucketOf) {
+    this.keyOf = keyOf;
+    this.timeOf = timeOf;
+    this.bucketOf = bucketOf;
+  }
+
+  /**
+   * Add a value, replacing any value with the same key.
+   *
+   * @param value the value
+   */
+  public void put(V value) {
+    K key = keyOf.apply(value);
+    Slot<K> slot = new Slot<>(key, timeOf.apply(value), bucketOf.apply(value));
+    lock.writeLock().lock();
+    try {
+      unindex(key);
+      slots.put(key, slot);
+      if (slot.time() != null) {
+        byTime.computeIfAbsent(slot.time(), t -> new TreeMap<>()).put(key, value);
+      }
+      if (slot.bucket() != null) {
+        byBucket.computeIfAbsent(slot.bucket(), b -> new TreeMap<>(slotOrder)).put(slot, value);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Remove the value with a key, if there is one.
+   *
+   * @param key the key
+   */
+  public void remove(K key) {
+    lock.writeLock().lock();
+    try {
+      unindex(key);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Remove every value.
+   */
+  public void clear() {
+    lock.writeLock().lock();
+    try {
+      byTime.clear();
+      byBucket.clear();
+      slots.clear();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * @return the number of values in the index
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return slots.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Find the values in a bucket.
+   *
+   * @param bucket the bucket
+   * @return the values, in time order
+   */
+  public List<V> inBucket(String bucket) {
+    lock.readLock().lock();
+    try {
+      NavigableMap<Slot<K>, V> values = byBucket.get(bucket);
+      return values == null ? List.of() : new ArrayList<>(values.values());
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Find the values whose time is in [start, end).
+   *
+   * @param start the first time to include
+   * @param end   the first time after start to leave out
+   * @return the values, in time order
+   */
+  public List<V> between(LocalDateTime start, LocalDateTime end) {
+    List<V> result = new ArrayList<>();
+    if (!start.isBefore(end)) {
+      return result;
+    }
+    lock.readLock().lock();
+    try {
+      for (NavigableMap<K, V> values : byTime.subMap(start, true, end, false).values()) {
+        result.addAll(values.values());
+      }
+      return result;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Find the first values at or after a time.
+   *
+   * @param start the first time to include
+   * @param limit the maximum number of values to return
+   * @return the values, in time order
+   */
+  public List<V> after(LocalDateTime start, int limit) {
+    List<V> result = new ArrayList<>();
+    lock.readLock().lock();
+    try {
+      for (NavigableMap<K, V> values : byTime.tailMap(start, true).values()) {
+        for (V value : values.values()) {
+          if (result.size() >= limit) {
+            return result;
+          }
+          result.add(value);
+        }
+      }
+      return result;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private void unindex(K key) {
+    Slot<K> slot = slots.remove(key);
+    if (slot == null) {
+      return;
+    }
+    if (slot.time() != null) {
+      NavigableMap<K, V> values = byTime.get(slot.time());
+      values.remove(key);
+      if (values.isEmpty()) {
+        byTime.remove(slot.time());
+      }
+    }
+    if (slot.bucket() != null) {
+      NavigableMap<Slot<K>, V> values = byBucket.get(slot.bucket());
+      values.remove(slot);
+      if (values.isEmpty()) {
+        byBucket.remove(slot.bucket());
+      }
+    }
+  }
+}
@@ -0,0 +1,232 @@
+package edu.ucsb.cs156.example.structures;
+
+import edu.ucsb.cs156.example.errors.BadRequestException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * An index of the boolean flags of a set of entities, one RoaringBitmap per flag.
+ *
+ * Each key is given a small int ordinal when it is first added; the bitmaps
+ * hold ordinals, so keys need not be ints. Filters are boolean expressions over
+ * the flag names, for example {@code hasSackMeal and not (hasDiningCam or hasTakeOutMeal)}.
+ * The keywords {@code and}, {@code or} and {@code not} are case insensitive and
+ * may also be written {@code &}, {@code |} and {@code !}; {@code not} binds
+ * tightest and {@code or} loosest. A blank filter matches every key.
+ *
+ * Reads may run concurrently with each other; writes are exclusive.
+ *
+ * @param <K> the type of the keys
+ * @param <E> the type of the entities
+ */
+public class FlagIndex<K, E> {
+
+  private final Map<String, Predicate<E>> flags;
+  private final Map<String, RoaringBitmap> bitmaps = new HashMap<>();
+  private RoaringBitmap all = new RoaringBitmap();
+  private final Map<K, Integer> ordinals = new HashMap<>();
+  private final List<K> keys = new ArrayList<>();
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /**
+   * Create an index for the given flags.
+   *
+   * @param flags the name of each flag and how to read it from an entity
+   */
+  public FlagIndex(Map<String, Predicate<E>> flags) {
+    this.flags = new LinkedHashMap<>(flags);
+    for (String flag : flags.keySet()) {
+      bitmaps.put(flag, new RoaringBitmap());
+    }
+  }
+
+  /**
+   * @return the names of the flags, in the order they were given
+   */
+  public Set<String> getFlags() {
+    return flags.keySet();
+  }
+
+  /**
+   * Add or replace the flags of an entity.
+   *
+   * @param key    the entity's id
+   * @param entity the entity
+   */
+  public void put(K key, E entity) {
+    lock.writeLock().lock();
+    try {
+      Integer ordinal = ordinals.get(key);
+      if (ordinal == null) {
+        ordinal = keys.size();
+        ordinals.put(key, ordinal);
+        keys.add(key);
+      }
+      all.add(ordinal);
+      for (Map.Entry<String, Predicate<E>> flag : flags.entrySet()) {
+        if (flag.getValue().test(entity)) {
+          bitmaps.get(flag.getKey()).add(ordinal);
+        } else {
+          bitmaps.get(flag.getKey()).remove(ordinal);
+        }
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Remove an entity. Its ordinal is kept, so that it is reused if the key
+   * is added again.
+   *
+   * @param key the entity's id
+   */
+  public void remove(K key) {
+    lock.writeLock().lock();
+    try {
+      Integer ordinal = ordinals.get(key);
+      if (ordinal != null) {
+        all.remove(ordinal);
+        for (RoaringBitmap bitmap : bitmaps.values()) {
+          bitmap.remove(ordinal);
+        }
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Remove every entity.
+   */
+  public void clear() {
+    lock.writeLock().lock();
+    try {
+      bitmaps.replaceAll((flag, bitmap) -> new RoaringBitmap());
+      all = new RoaringBitmap();
+      ordinals.clear();
+      keys.clear();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Find the keys of the entities that match a filter.
+   *
+   * @param filter the filter, see above
+   * @return the matching keys, in the order they were first added
+   * @throws BadRequestException if the filter is malformed or names an unknown flag
+   */
+  public List<K> select(String filter) {
+    lock.readLock().lock();
+    try {
+      RoaringBitmap matches = evaluate(filter);
+      List<K> result = new ArrayList<>((int) matches.cardinality());
+      matches.forEach(ordinal -> result.add(keys.get(ordinal)));
+      return result;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Count the entities that match a filter.
+   *
+   * @param filter the filter, see above
+   * @return the number of matching entities
+   * @throws BadRequestException if the filter is malformed or names an unknown flag
+   */
+  public long count(String filter) {
+    lock.readLock().lock();
+    try {
+      return evaluate(filter).cardinality();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private RoaringBitmap evaluate(String filter) {
+    if (filter == null || filter.isBlank()) {
+      return all;
+    }
+    Parser parser = new Parser(filter);
+    RoaringBitmap result = parser.or();
+    if (parser.peek() != null) {
+      throw new BadRequestException("Unexpected '%s' in filter".formatted(parser.peek()));
+    }
+    return result;
+  }
+
+  /** A recursive descent parser that evaluates as it goes */
+  private final class Parser {
+    private final List<String> tokens = new ArrayList<>();
+    private int position = 0;
+
+    Parser(String filter) {
+      for (String token : filter.replaceAll("([()!&|])", " $1 ").trim().split("\\s+")) {
+        switch (token.toLowerCase(Locale.ROOT)) {
+          case "and" -> tokens.add("&");
+          case "or" -> tokens.add("|");
+          case "not" -> tokens.add("!");
+          default -> tokens.add(token);
+        }
+      }
+    }
+
+    String peek() {
+      return position < tokens.size() ? tokens.get(position) : null;
+    }
+
+    RoaringBitmap or() {
+      RoaringBitmap result = and();
+      while ("|".equals(peek())) {
+        position++;
+        result = RoaringBitmap.or(result, and());
+      }
+      return result;
+    }
+
+    RoaringBitmap and() {
+      RoaringBitmap result = not();
+      while ("&".equals(peek())) {
+        position++;
+        result = RoaringBitmap.and(result, not());
+      }
+      return result;
+    }
+
+    RoaringBitmap not() {
+      String token = peek();
+      if (token == null) {
+        throw new BadRequestException("Unexpected end of filter");
+      }
+      position++;
+      if (token.equals("!")) {
+        return RoaringBitmap.andNot(all, not());
+      }
+      if (token.equals("(")) {
+        RoaringBitmap result = or();
+        if (!")".equals(peek())) {
+          throw new BadRequestException("Missing ')' in filter");
+        }
+        position++;
+        return result;
+      }
+      RoaringBitmap bitmap = bitmaps.get(token);
+      if (bitmap == null) {
+        throw new BadRequestException("Unknown flag '%s'; expected one of %s".formatted(token, flags.keySet()));
+      }
+      return bitmap;
+    }
+  }
+}
@@ -0,0 +1,181 @@
+package edu.ucsb.cs156.example.structures;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * An immutable k-d tree of points on the Earth's surface, for k nearest
+ * neighbour queries by great-circle (haversine) distance.
+ *
+ * Each latitude/longitude is stored as a point on the unit sphere in three
+ * dimensions. The straight-line (chord) distance between two such points
+ * increases with the great-circle distance, so the nearest points by one are
+ * the nearest by the other, and the tree can prune with ordinary planes. This
+ * also means there is no special case at the poles or the antimeridian.
+ *
+ * @param <V> the type of the values stored at the points
+ */
+public class GeoKdTree<V> {
+
+  /** Mean radius of the Earth in meters (IUGG) */
+  public static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+  /**
+   * A value at a location.
+   *
+   * @param latitude  degrees north
+   * @param longitude degrees east
+   * @param value     the value
+   * @param <V>       the type of the value
+   */
+  public record Point<V>(double latitude, double longitude, V value) {
+  }
+
+  /**
+   * A value found by a nearest neighbour query.
+   *
+   * @param value          the value
+   * @param distanceMeters great-circle distance from the query point
+   * @param <V>            the type of the value
+   */
+  public record Neighbor<V>(V value, double distanceMeters) {
+  }
+
+  private final double[][] xyz;
+  private final List<V> values;
+
+  /**
+   * Build a balanced tree from the given points.
+   *
+   * @param points the points; the list is not modified
+   */
+  public GeoKdTree(List<Point<V>> points) {
+    List<Node<V>> nodes = new ArrayList<>(points.size());
+    for (Point<V> point : points) {
+      nodes.add(new Node<>(toXyz(point.latitude(), point.longitude()), point.value()));
+    }
+    xyz = new double[nodes.size()][];
+    values = new ArrayList<>(nodes.size());
+    for (int i = 0; i < nodes.size(); i++) {
+      values.add(null);
+    }
+    build(nodes, 0, nodes.size(), 0);
+  }
+
+  /**
+   * @return the number of points in the tree
+   */
+  public int size() {
+    return xyz.length;
+  }
+
+  /**
+   * Find the k points nearest to a location whose values pass a filter.
+   * The filter is applied as the tree is searched, so the result holds k
+   * matching points whenever there are that many.
+   *
+   * @param latitude  degrees north
+   * @param longitude degrees east
+   * @param k         the maximum number of points to return
+   * @param filter    which values may be returned
+   * @return the nearest points, nearest first
+   */
+  public List<Neighbor<V>> nearest(double latitude, double longitude, int k, Predicate<? super V> filter) {
+    if (k < 1 || xyz.length == 0) {
+      return List.of();
+    }
+    double[] target = toXyz(latitude, longitude);
+    // max-heap on squared chord length, so the worst of the best k is on top
+    PriorityQueue<double[]> best = new PriorityQueue<>(k + 1,
+        Comparator.comparingDouble((double[] e) -> e[0]).reversed());
+    search(0, xyz.length, 0, target, k, filter, best);
+
+    List<double[]> found = new ArrayList<>(best);
+    found.sort(Comparator.comparingDouble((double[] e) -> e[0]).thenComparingDouble(e -> e[1]));
+    List<Neighbor<V>> result = new ArrayList<>(found.size());
+    for (double[] e : found) {
+      double chord = Math.sqrt(e[0]);
+      double distance = 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, chord / 2));
+      result.add(new Neighbor<>(values.get((int) e[1]), distance));
+    }
+    return result;
+  }
+
+  /**
+   * The great-circle distance between two locations by the haversine formula.
+   *
+   * @param lat1 latitude of the first location, degrees north
+   * @param lon1 longitude of the first location, degrees east
+   * @param lat2 latitude of the second location, degrees north
+   * @param lon2 longitude of the second location, degrees east
+   * @return the distance in meters
+   */
+  public static double haversineMeters(double lat1, double lon1, double lat2, double lon2) {
+    double dLat = Math.toRadians(lat2 - lat1);
+    double dLon = Math.toRadians(lon2 - lon1);
+    double h = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+        + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+    return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(h)));
+  }
+
+  /** Lay out nodes[from, to) as an implicit tree: the median at the middle, halves either side */
+  private void build(List<Node<V>> nodes, int from, int to, int depth) {
+    if (from >= to) {
+      return;
+    }
+    int axis = depth % 3;
+    nodes.subList(from, to).sort(Comparator.comparingDouble(n -> n.xyz[axis]));
+    int mid = (from + to) >>> 1;
+    xyz[mid] = nodes.get(mid).xyz;
+    values.set(mid, nodes.get(mid).value);
+    build(nodes, from, mid, depth + 1);
+    build(nodes, mid + 1, to, depth + 1);
+  }
+
+  private void search(int from, int to, int depth, double[] target, int k, Predicate<? super V> filter,
+      PriorityQueue<double[]> best) {
+    if (from >= to) {
+      return;
+    }
+    int axis = depth % 3;
+    int mid = (from + to) >>> 1;
+    double[] point = xyz[mid];
+
+    if (filter.test(values.get(mid))) {
+      double dx = point[0] - target[0];
+      double dy = point[1] - target[1];
+      double dz = point[2] - target[2];
+      best.add(new double[] { dx * dx + dy * dy + dz * dz, mid });
+      if (best.size() > k) {
+        best.poll();
+      }
+    }
+
+    double delta = target[axis] - point[axis];
+    boolean left = delta < 0;
+    if (left) {
+      search(from, mid, depth + 1, target, k, filter, best);
+    } else {
+      search(mid + 1, to, depth + 1, target, k, filter, best);
+    }
+    if (best.size() < k || delta * delta < best.peek()[0]) {
+      if (left) {
+        search(mid + 1, to, depth + 1, target, k, filter, best);
+      } else {
+        search(from, mid, depth + 1, target, k, filter, best);
+      }
+    }
+  }
+
+  private static double[] toXyz(double latitude, double longitude) {
+    double lat = Math.toRadians(latitude);
+    double lon = Math.toRadians(longitude);
+    return new double[] { Math.cos(lat) * Math.cos(lon), Math.cos(lat) * Math.sin(lon), Math.sin(lat) };
+  }
+
+  private record Node<V>(double[] xyz, V value) {
+  }
+}
@@ -0,0 +1,167 @@
+package edu.ucsb.cs156.example.structures;
+
+/**
+ * A HyperLogLog sketch, for estimating the number of distinct longs offered
+ * to it in a fixed amount of memory.
+ *
+ * Each value is hashed to 64 bits; the top {@code precision} bits pick one of
+ * 2^precision registers, and the register keeps the largest number of leading
+ * zeros (plus one) seen in the remaining bits. The estimate is computed from
+ * the histogram of the registers with Ertl's improved estimator ("New
+ * cardinality estimation algorithms for HyperLogLog sketches", 2017), which,
+ * unlike the original harmonic mean with linear counting, has no bias around
+ * the switch between the two and needs no correction tables. The standard
+ * error is about 1.04 / sqrt(2^precision), e.g. 1.6% at precision 12 (4 KB).
+ *
+ * Sketches of the same precision can be merged (register-wise max), giving
+ * the sketch of the union, so per-day sketches can be combined into any range
+ * of days. Merging is idempotent, so the same sketch may be merged twice.
+ *
+ * This class is not thread safe.
+ */
+public class HyperLogLog {
+
+  private final int precision;
+  private final byte[] registers;
+
+  /**
+   * Create an empty sketch.
+   *
+   * @param precision the number of index bits, from 4 to 16
+   */
+  public HyperLogLog(int precision) {
+    if (precision < 4 || precision > 16) {
+      throw new IllegalArgumentException("precision must be between 4 and 16");
+    }
+    this.precision = precision;
+    this.registers = new byte[1 << precision];
+  }
+
+  /**
+   * Read a sketch written by {@link #toBytes()}.
+   *
+   * @param registers the registers
+   * @return the sketch
+   * @throws IllegalArgumentException if the length is not a power of two from 2^4 to 2^16,
+   *                                  or a register is out of range
+   */
+  public static HyperLogLog fromBytes(byte[] registers) {
+    int precision = Integer.numberOfTrailingZeros(registers.length);
+    if (Integer.bitCount(registers.length) != 1 || precision < 4 || precision > 16) {
+      throw new IllegalArgumentException("%d is not a valid number of registers".formatted(registers.length));
+    }
+    for (byte register : registers) {
+      if (register < 0 || register > 65 - precision) {
+        throw new IllegalArgumentException("register value %d is out of range".formatted(register));
+      }
+    }
+    HyperLogLog sketch = new HyperLogLog(precision);
+    System.arraycopy(registers, 0, sketch.registers, 0, registers.length);
+    return sketch;
+  }
+
+  /**
+   * @return the number of index bits
+   */
+  public int getPrecision() {
+    return precision;
+  }
+
+  /**
+   * Offer a value to the sketch.
+   *
+   * @param value the value, for example a user id
+   */
+  public void offer(long value) {
+    long hash = mix(value);
+    int index = (int) (hash >>> (64 - precision));
+    long rest = hash << precision;
+    int rank = Math.min(Long.numberOfLeadingZeros(rest), 64 - precision) + 1;
+    if (rank > registers[index]) {
+      registers[index] = (byte) rank;
+    }
+  }
+
+  /**
+   * Merge another sketch into this one, so that this one estimates the union.
+   *
+   * @param other a sketch of the same precision
+   */
+  public void merge(HyperLogLog other) {
+    if (other.precision != precision) {
+      throw new IllegalArgumentException("cannot merge precision %d into %d".formatted(other.precision, precision));
+    }
+    for (int i = 0; i < registers.length; i++) {
+      if (other.registers[i] > registers[i]) {
+        registers[i] = other.registers[i];
+      }
+    }
+  }
+
+  /**
+   * @return the estimated number of distinct values offered
+   */
+  public long estimate() {
+    int m = registers.length;
+    int q = 64 - precision;
+    int[] histogram = new int[q + 2];
+    for (byte register : registers) {
+      histogram[register]++;
+    }
+    double z = m * tau(1 - (double) histogram[q + 1] / m);
+    for (int k = q; k >= 1; k--) {
+      z = 0.5 * (z + histogram[k]);
+    }
+    z += m * sigma((double) histogram[0] / m);
+    return Math.round(m * (m / (2 * Math.log(2))) / z);
+  }
+
+  private static double sigma(double x) {
+    if (x == 1) {
+      return Double.POSITIVE_INFINITY;
+    }
+    double y = 1;
+    double z = x;
+    double previous;
+    do {
+      x *= x;
+      previous = z;
+      z += x * y;
+      y += y;
+    } while (z != previous);
+    return z;
+  }
+
+  private static double tau(double x) {
+    if (x == 0 || x == 1) {
+      return 0;
+    }
+    double y = 1;
+    double z = 1 - x;
+    double previous;
+    do {
+      x = Math.sqrt(x);
+      previous = z;
+      y *= 0.5;
+      z -= (1 - x) * (1 - x) * y;
+    } while (z != previous);
+    return z / 3;
+  }
+
+  /**
+   * @return a copy of the registers, one byte each
+   */
+  public byte[] toBytes() {
+    return registers.clone();
+  }
+
+  /** murmur3 fmix64 finalizer, so that sequential ids spread over the registers */
+  private static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
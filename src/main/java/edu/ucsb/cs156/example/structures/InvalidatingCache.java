@@ -0,0 +1,165 @@
+package edu.ucsb.cs156.example.structures;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * A thread-safe cache of values that are dropped when what they were read
+ * from is written to.
+ *
+ * Each key belongs to a group (e.g. the entity class it was read from), and
+ * {@link #invalidate(Object)} drops the values of a group. A value that was
+ * being read when its group was invalidated may already be out of date, so
+ * it is not cached: {@link #lookup(Object, LocalDateTime)} returns the
+ * group's generation along with a miss, and {@link #put} only caches the
+ * value if no invalidation of the group came in between.
+ *
+ * Values may expire at a time, and the cache may be given a maximum total
+ * weight (e.g. a number of entries, or of bytes), past which the least
+ * recently used values are dropped.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class InvalidatingCache<K, V> {
+
+  /**
+   * The result of a lookup: the cached value, or null and the generation of
+   * the key's group to pass to put.
+   *
+   * @param value      the cached value, or null if there is none
+   * @param generation the generation of the key's group when it was looked up
+   * @param <V>        the type of the values
+   */
+  public record Lookup<V>(V value, long generation) {
+    /** @return true if a value was cached */
+    public boolean hit() {
+      return value != null;
+    }
+  }
+
+  private record Entry<V>(V value, LocalDateTime expires, long weight) {
+  }
+
+  private final Function<? super K, ?> groupOf;
+  private final ToLongFunction<? super V> weigher;
+  private final LongSupplier maxWeight;
+
+  private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<Object, Long> generations = new HashMap<>();
+  private long weight = 0;
+
+  /**
+   * Create a cache without a maximum weight.
+   *
+   * @param groupOf the group of a key
+   */
+  public InvalidatingCache(Function<? super K, ?> groupOf) {
+    this(groupOf, value -> 1, () -> Long.MAX_VALUE);
+  }
+
+  /**
+   * Create a cache with a maximum weight.
+   *
+   * @param groupOf   the group of a key
+   * @param weigher   the weight of a value
+   * @param maxWeight the maximum total weight; it is read on each put, so it
+   *                  may come from a field that is set after the cache is made
+   */
+  public InvalidatingCache(Function<? super K, ?> groupOf, ToLongFunction<? super V> weigher,
+      LongSupplier maxWeight) {
+    this.groupOf = groupOf;
+    this.weigher = weigher;
+    this.maxWeight = maxWeight;
+  }
+
+  /**
+   * Look up a value that has not expired at the current time.
+   *
+   * @param key the key
+   * @return the value, or the generation to pass to put
+   */
+  public Lookup<V> lookup(K key) {
+    return lookup(key, LocalDateTime.now());
+  }
+
+  /**
+   * Look up a value that has not expired at a time.
+   *
+   * @param key the key
+   * @param now the time
+   * @return the value, or the generation to pass to put
+   */
+  public synchronized Lookup<V> lookup(K key, LocalDateTime now) {
+    Entry<V> entry = entries.get(key);
+    if (entry != null && (entry.expires() == null || now.isBefore(entry.expires()))) {
+      return new Lookup<>(entry.value(), 0);
+    }
+    return new Lookup<>(null, generation(groupOf.apply(key)));
+  }
+
+  /**
+   * Cache a value, unless its group was invalidated since the lookup that
+   * missed, or it weighs more than the maximum weight on its own.
+   *
+   * @param key        the key
+   * @param value      the value
+   * @param generation the generation returned by the lookup
+   * @param expires    when the value expires, or null if it does not
+   * @return true if the value was cached
+   */
+  public synchronized boolean put(K key, V value, long generation, LocalDateTime expires) {
+    long max = maxWeight.getAsLong();
+    long valueWeight = weigher.applyAsLong(value);
+    if (generation(groupOf.apply(key)) != generation || valueWeight > max) {
+      return false;
+    }
+    Entry<V> old = entries.put(key, new Entry<>(value, expires, valueWeight));
+    weight += valueWeight - (old == null ? 0 : old.weight());
+    Iterator<Entry<V>> eldest = entries.values().iterator();
+    while (weight > max) {
+      weight -= eldest.next().weight();
+      eldest.remove();
+    }
+    return true;
+  }
+
+  /**
+   * Drop the values of a group, and keep values that were being read
+   * from being cached.
+   *
+   * @param group the group
+   */
+  public synchronized void invalidate(Object group) {
+    generations.put(group, generation(group) + 1);
+    Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<K, Entry<V>> entry = iterator.next();
+      if (Objects.equals(groupOf.apply(entry.getKey()), group)) {
+        weight -= entry.getValue().weight();
+        iterator.remove();
+      }
+    }
+  }
+
+  /** @return the number of cached values */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /** @return the total weight of the cached values */
+  public synchronized long weight() {
+    return weight;
+  }
+
+  private long generation(Object group) {
+    return generations.getOrDefault(group, 0L);
+  }
+}
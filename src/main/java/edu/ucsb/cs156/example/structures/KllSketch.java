@@ -0,0 +1,248 @@
+package edu.ucsb.cs156.example.structures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A KLL quantile sketch (Karnin, Lang and Liberty, "Optimal quantile
+ * approximation in streams", 2016), for estimating quantiles of a stream of
+ * doubles in a small amount of memory.
+ *
+ * Items are kept in levels; an item at level h stands for 2^h of the items
+ * offered. When the sketch is full, the lowest level that is at its capacity
+ * is sorted and every other item (starting at a random one of the first two)
+ * is promoted to the level above, halving that level. Capacities shrink by a
+ * factor of 2/3 per level below the top, so the sketch keeps about 3k items
+ * however many are offered, and the rank error is about 1.7% at k = 200.
+ *
+ * Sketches with the same k can be merged, giving the sketch of the combined
+ * stream, so per-hour sketches can be combined into any range of hours.
+ *
+ * This class is not thread safe.
+ */
+public class KllSketch {
+
+  private static final double SHRINK = 2.0 / 3.0;
+
+  private static final class Level {
+    double[] items = new double[8];
+    int size;
+
+    void add(double value) {
+      if (size == items.length) {
+        items = Arrays.copyOf(items, size * 2);
+      }
+      items[size++] = value;
+    }
+  }
+
+  private final int k;
+  private final List<Level> levels = new ArrayList<>();
+  private long n;
+  private int retained;
+  private double min = Double.NaN;
+  private double max = Double.NaN;
+
+  /**
+   * Create an empty sketch.
+   *
+   * @param k the size parameter, from 8 to 65535; larger is more accurate
+   */
+  public KllSketch(int k) {
+    if (k < 8 || k > 65535) {
+      throw new IllegalArgumentException("k must be between 8 and 65535");
+    }
+    this.k = k;
+    levels.add(new Level());
+  }
+
+  /**
+   * @return the size parameter
+   */
+  public int getK() {
+    return k;
+  }
+
+  /**
+   * @return the number of items offered, including those of merged sketches
+   */
+  public long getN() {
+    return n;
+  }
+
+  /**
+   * @return the number of items kept
+   */
+  public int getRetained() {
+    return retained;
+  }
+
+  /**
+   * @return the smallest item offered, or NaN if there were none
+   */
+  public double getMin() {
+    return min;
+  }
+
+  /**
+   * @return the largest item offered, or NaN if there were none
+   */
+  public double getMax() {
+    return max;
+  }
+
+  /**
+   * Offer an item to the sketch.
+   *
+   * @param value the item, which must not be NaN
+   */
+  public void update(double value) {
+    if (Double.isNaN(value)) {
+      throw new IllegalArgumentException("value must not be NaN");
+    }
+    levels.get(0).add(value);
+    retained++;
+    n++;
+    min = n == 1 ? value : Math.min(min, value);
+    max = n == 1 ? value : Math.max(max, value);
+    compress();
+  }
+
+  /**
+   * Merge another sketch into this one, so that this one sketches both streams.
+   *
+   * @param other a sketch with the same k
+   */
+  public void merge(KllSketch other) {
+    if (other.k != k) {
+      throw new IllegalArgumentException("cannot merge k %d into %d".formatted(other.k, k));
+    }
+    if (other.n == 0) {
+      return;
+    }
+    List<double[]> incoming = new ArrayList<>();
+    for (Level level : other.levels) {
+      incoming.add(Arrays.copyOf(level.items, level.size));
+    }
+    for (int h = 0; h < incoming.size(); h++) {
+      if (h == levels.size()) {
+        levels.add(new Level());
+      }
+      for (double value : incoming.get(h)) {
+        levels.get(h).add(value);
+      }
+      retained += incoming.get(h).length;
+    }
+    min = n == 0 ? other.min : Math.min(min, other.min);
+    max = n == 0 ? other.max : Math.max(max, other.max);
+    n += other.n;
+    compress();
+  }
+
+  /**
+   * Estimate a quantile, e.g. 0.5 for the median.
+   *
+   * @param fraction the fraction of items that should be at or below the result, from 0 to 1
+   * @return the estimated quantile, or NaN if no items were offered
+   */
+  public double quantile(double fraction) {
+    if (!(fraction >= 0 && fraction <= 1)) {
+      throw new IllegalArgumentException("fraction must be between 0 and 1");
+    }
+    if (n == 0) {
+      return Double.NaN;
+    }
+    if (fraction == 0) {
+      return min;
+    }
+    if (fraction == 1) {
+      return max;
+    }
+    double[] values = new double[retained];
+    long[] weights = new long[retained];
+    int count = 0;
+    for (int h = 0; h < levels.size(); h++) {
+      Level level = levels.get(h);
+      for (int i = 0; i < level.size; i++) {
+        values[count] = level.items[i];
+        weights[count++] = 1L << h;
+      }
+    }
+    Integer[] order = new Integer[count];
+    for (int i = 0; i < count; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+    double target = Math.max(1, Math.ceil(fraction * n));
+    long cumulative = 0;
+    for (int i = 0; i < count - 1; i++) {
+      cumulative += weights[order[i]];
+      if (cumulative >= target) {
+        return values[order[i]];
+      }
+    }
+    return values[order[count - 1]];
+  }
+
+  /**
+   * Estimate the rank of a value.
+   *
+   * @param value a value
+   * @return the estimated fraction of items at or below it, or NaN if no items were offered
+   */
+  public double rank(double value) {
+    if (n == 0) {
+      return Double.NaN;
+    }
+    long below = 0;
+    for (int h = 0; h < levels.size(); h++) {
+      Level level = levels.get(h);
+      for (int i = 0; i < level.size; i++) {
+        if (level.items[i] <= value) {
+          below += 1L << h;
+        }
+      }
+    }
+    return (double) below / n;
+  }
+
+  private int capacity(int level) {
+    int depth = levels.size() - level - 1;
+    return Math.max(2, (int) Math.ceil(k * Math.pow(SHRINK, depth)));
+  }
+
+  private int totalCapacity() {
+    int total = 0;
+    for (int h = 0; h < levels.size(); h++) {
+      total += capacity(h);
+    }
+    return total;
+  }
+
+  /** Compact the lowest full level until the items fit */
+  private void compress() {
+    while (retained > totalCapacity()) {
+      int h = 0;
+      while (levels.get(h).size < capacity(h)) {
+        h++;
+      }
+      if (h + 1 == levels.size()) {
+        levels.add(new Level());
+      }
+      Level level = levels.get(h);
+      Level above = levels.get(h + 1);
+      Arrays.sort(level.items, 0, level.size);
+      // an odd item out stays at this level
+      int odd = level.size % 2;
+      int pairs = level.size / 2;
+      int offset = ThreadLocalRandom.current().nextInt(2);
+      for (int i = 0; i < pairs; i++) {
+        above.add(level.items[odd + 2 * i + offset]);
+      }
+      level.size = odd;
+      retained -= pairs;
+    }
+  }
+}
@@ -0,0 +1,227 @@
+package edu.ucsb.cs156.example.structures;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A radix trie (compressed prefix tree) from string keys to values, used for
+ * prefix lookups such as autocomplete.
+ *
+ * Each edge is labelled with a string rather than a single character, and a
+ * node with no values and a single child is merged into that child, so the
+ * trie has at most one internal node per branching point. A key may hold more
+ * than one value. Keys are compared exactly; callers that want case
+ * insensitive lookups should normalize keys and prefixes themselves.
+ *
+ * Reads may run concurrently with each other; writes are exclusive.
+ *
+ * @param <V> the type of the values
+ */
+public class RadixTrie<V> {
+
+  /**
+   * A key and one of its values.
+   *
+   * @param key   the key
+   * @param value the value
+   * @param <V>   the type of the value
+   */
+  public record Entry<V>(String key, V value) {
+  }
+
+  private final Node<V> root = new Node<>("");
+  private int size = 0;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /**
+   * Add a value under a key. Adding a value the key already holds does nothing.
+   *
+   * @param key   the key
+   * @param value the value
+   */
+  public void put(String key, V value) {
+    lock.writeLock().lock();
+    try {
+      Node<V> node = root;
+      int depth = 0;
+      while (depth < key.length()) {
+        Node<V> child = node.children.get(key.charAt(depth));
+        if (child == null) {
+          child = new Node<>(key.substring(depth));
+          node.children.put(key.charAt(depth), child);
+          node = child;
+          depth = key.length();
+          break;
+        }
+        int common = commonPrefix(child.label, key, depth);
+        if (common < child.label.length()) {
+          child = split(node, child, common);
+        }
+        node = child;
+        depth += common;
+      }
+      if (node.values == null) {
+        node.values = new LinkedHashSet<>();
+      }
+      if (node.values.add(value)) {
+        size++;
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Remove a value from a key.
+   *
+   * @param key   the key
+   * @param value the value
+   * @return true if the key held the value
+   */
+  public boolean remove(String key, V value) {
+    lock.writeLock().lock();
+    try {
+      return remove(root, key, 0, value);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Remove every key from the trie.
+   */
+  public void clear() {
+    lock.writeLock().lock();
+    try {
+      root.children.clear();
+      root.values = null;
+      size = 0;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * @return the number of key/value pairs in the trie
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return size;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Find every key/value pair whose key starts with the prefix.
+   *
+   * @param prefix the prefix; the empty string matches every key
+   * @return the matching pairs, in key order
+   */
+  public List<Entry<V>> findByPrefix(String prefix) {
+    lock.readLock().lock();
+    try {
+      List<Entry<V>> result = new ArrayList<>();
+      Node<V> node = root;
+      int depth = 0;
+      while (depth < prefix.length()) {
+        node = node.children.get(prefix.charAt(depth));
+        if (node == null) {
+          return result;
+        }
+        int common = commonPrefix(node.label, prefix, depth);
+        if (common < node.label.length() && depth + common < prefix.length()) {
+          return result;
+        }
+        depth += node.label.length();
+      }
+      collect(node, new StringBuilder(prefix.substring(0, depth - node.label.length()) + node.label), result);
+      return result;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private boolean remove(Node<V> node, String key, int depth, V value) {
+    if (depth == key.length()) {
+      if (node.values == null || !node.values.remove(value)) {
+        return false;
+      }
+      if (node.values.isEmpty()) {
+        node.values = null;
+      }
+      size--;
+      return true;
+    }
+    Node<V> child = node.children.get(key.charAt(depth));
+    if (child == null || !key.startsWith(child.label, depth)) {
+      return false;
+    }
+    if (!remove(child, key, depth + child.label.length(), value)) {
+      return false;
+    }
+    if (child.values == null && child.children.isEmpty()) {
+      node.children.remove(key.charAt(depth));
+    } else if (child.values == null && child.children.size() == 1) {
+      Node<V> grandchild = child.children.values().iterator().next();
+      Node<V> merged = new Node<>(child.label + grandchild.label);
+      merged.values = grandchild.values;
+      merged.children.putAll(grandchild.children);
+      node.children.put(key.charAt(depth), merged);
+    }
+    return true;
+  }
+
+  /** Split child's edge after `common` characters, returning the new middle node */
+  private Node<V> split(Node<V> parent, Node<V> child, int common) {
+    Node<V> middle = new Node<>(child.label.substring(0, common));
+    Node<V> rest = new Node<>(child.label.substring(common));
+    rest.values = child.values;
+    rest.children.putAll(child.children);
+    middle.children.put(rest.label.charAt(0), rest);
+    parent.children.put(middle.label.charAt(0), middle);
+    return middle;
+  }
+
+  private void collect(Node<V> node, StringBuilder key, List<Entry<V>> result) {
+    if (node.values != null) {
+      String k = key.toString();
+      for (V value : node.values) {
+        result.add(new Entry<>(k, value));
+      }
+    }
+    for (Node<V> child : node.children.values()) {
+      int length = key.length();
+      key.append(child.label);
+      collect(child, key, result);
+      key.setLength(length);
+    }
+  }
+
+  /** The length of the common prefix of label and key.substring(offset) */
+  private static int commonPrefix(String label, String key, int offset) {
+    int max = Math.min(label.length(), key.length() - offset);
+    int i = 0;
+    while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+      i++;
+    }
+    return i;
+  }
+
+  private static final class Node<V> {
+    final String label;
+    final Map<Character, Node<V>> children = new TreeMap<>();
+    Set<V> values;
+
+    Node(String label) {
+      this.label = label;
+    }
+  }
+}
@@ -0,0 +1,557 @@
+package edu.ucsb.cs156.example.structures;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A compressed bitmap of non-negative ints, in the style of Roaring bitmaps.
+ *
+ * The int space is cut into chunks of 65536 values by the high 16 bits. Each
+ * chunk that holds any value has a container for the low 16 bits: a sorted
+ * array of {@code char}s while it holds at most 4096 values, and a plain
+ * 65536 bit bitmap once it holds more. Sparse sets therefore cost two bytes
+ * per value, dense sets one bit per value, and the set operations work a
+ * whole container (or 64 values) at a time.
+ *
+ * Bitmaps are not thread-safe; {@link #and}, {@link #or} and {@link #andNot}
+ * return new bitmaps and never modify their arguments.
+ */
+public class RoaringBitmap {
+
+  /** The most values an array container holds before it becomes a bitmap container */
+  static final int ARRAY_MAX = 4096;
+
+  private char[] keys = new char[4];
+  private Container[] containers = new Container[4];
+  private int size = 0;
+
+  /**
+   * Create a bitmap holding the given values.
+   *
+   * @param values the values
+   * @return the bitmap
+   */
+  public static RoaringBitmap of(int... values) {
+    RoaringBitmap bitmap = new RoaringBitmap();
+    for (int value : values) {
+      bitmap.add(value);
+    }
+    return bitmap;
+  }
+
+  /**
+   * Add a value.
+   *
+   * @param value a non-negative int
+   */
+  public void add(int value) {
+    if (value < 0) {
+      throw new IllegalArgumentException("value must not be negative");
+    }
+    char high = (char) (value >>> 16);
+    int i = find(high);
+    if (i < 0) {
+      i = -i - 1;
+      insert(i, high, new ArrayContainer());
+    }
+    containers[i] = containers[i].add((char) value);
+  }
+
+  /**
+   * Remove a value.
+   *
+   * @param value the value
+   */
+  public void remove(int value) {
+    if (value < 0) {
+      return;
+    }
+    int i = find((char) (value >>> 16));
+    if (i < 0) {
+      return;
+    }
+    containers[i] = containers[i].remove((char) value);
+    if (containers[i].cardinality() == 0) {
+      System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+      System.arraycopy(containers, i + 1, containers, i, size - i - 1);
+      size--;
+      containers[size] = null;
+    }
+  }
+
+  /**
+   * @param value the value
+   * @return true if the bitmap holds the value
+   */
+  public boolean contains(int value) {
+    if (value < 0) {
+      return false;
+    }
+    int i = find((char) (value >>> 16));
+    return i >= 0 && containers[i].contains((char) value);
+  }
+
+  /**
+   * @return the number of values in the bitmap
+   */
+  public long cardinality() {
+    long total = 0;
+    for (int i = 0; i < size; i++) {
+      total += containers[i].cardinality();
+    }
+    return total;
+  }
+
+  /**
+   * @return true if the bitmap holds no values
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Call the consumer with each value, in increasing order.
+   *
+   * @param consumer the consumer
+   */
+  public void forEach(IntConsumer consumer) {
+    for (int i = 0; i < size; i++) {
+      containers[i].forEach(keys[i] << 16, consumer);
+    }
+  }
+
+  /**
+   * @return the values, in increasing order
+   */
+  public int[] toArray() {
+    int[] result = new int[(int) cardinality()];
+    int[] n = { 0 };
+    forEach(value -> result[n[0]++] = value);
+    return result;
+  }
+
+  /**
+   * @return a copy of this bitmap
+   */
+  public RoaringBitmap copy() {
+    RoaringBitmap result = new RoaringBitmap();
+    result.keys = Arrays.copyOf(keys, keys.length);
+    result.containers = new Container[containers.length];
+    for (int i = 0; i < size; i++) {
+      result.containers[i] = containers[i].copy();
+    }
+    result.size = size;
+    return result;
+  }
+
+  /**
+   * @param a a bitmap
+   * @param b a bitmap
+   * @return the values in both a and b
+   */
+  public static RoaringBitmap and(RoaringBitmap a, RoaringBitmap b) {
+    RoaringBitmap result = new RoaringBitmap();
+    int i = 0;
+    int j = 0;
+    while (i < a.size && j < b.size) {
+      if (a.keys[i] < b.keys[j]) {
+        i++;
+      } else if (a.keys[i] > b.keys[j]) {
+        j++;
+      } else {
+        result.append(a.keys[i], a.containers[i].and(b.containers[j]));
+        i++;
+        j++;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @param a a bitmap
+   * @param b a bitmap
+   * @return the values in a or b
+   */
+  public static RoaringBitmap or(RoaringBitmap a, RoaringBitmap b) {
+    RoaringBitmap result = new RoaringBitmap();
+    int i = 0;
+    int j = 0;
+    while (i < a.size || j < b.size) {
+      if (j == b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+        result.append(a.keys[i], a.containers[i].copy());
+        i++;
+      } else if (i == a.size || a.keys[i] > b.keys[j]) {
+        result.append(b.keys[j], b.containers[j].copy());
+        j++;
+      } else {
+        result.append(a.keys[i], a.containers[i].or(b.containers[j]));
+        i++;
+        j++;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @param a a bitmap
+   * @param b a bitmap
+   * @return the values in a but not in b
+   */
+  public static RoaringBitmap andNot(RoaringBitmap a, RoaringBitmap b) {
+    RoaringBitmap result = new RoaringBitmap();
+    int j = 0;
+    for (int i = 0; i < a.size; i++) {
+      while (j < b.size && b.keys[j] < a.keys[i]) {
+        j++;
+      }
+      if (j < b.size && b.keys[j] == a.keys[i]) {
+        result.append(a.keys[i], a.containers[i].andNot(b.containers[j]));
+      } else {
+        result.append(a.keys[i], a.containers[i].copy());
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof RoaringBitmap other) || other.size != size) {
+      return false;
+    }
+    return Arrays.equals(toArray(), other.toArray());
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(toArray());
+  }
+
+  @Override
+  public String toString() {
+    return Arrays.toString(toArray());
+  }
+
+  /** Index of the container for a high key, or (-(insertion point) - 1) */
+  private int find(char high) {
+    int lo = 0;
+    int hi = size - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      if (keys[mid] < high) {
+        lo = mid + 1;
+      } else if (keys[mid] > high) {
+        hi = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -(lo + 1);
+  }
+
+  private void insert(int i, char high, Container container) {
+    if (size == keys.length) {
+      keys = Arrays.copyOf(keys, size * 2);
+      containers = Arrays.copyOf(containers, size * 2);
+    }
+    System.arraycopy(keys, i, keys, i + 1, size - i);
+    System.arraycopy(containers, i, containers, i + 1, size - i);
+    keys[i] = high;
+    containers[i] = container;
+    size++;
+  }
+
+  /** Add a container after all the others, dropping it if it is empty */
+  private void append(char high, Container container) {
+    if (container.cardinality() > 0) {
+      insert(size, high, container);
+    }
+  }
+
+  /** The low 16 bits of the values in one chunk */
+  private abstract static class Container {
+    abstract Container add(char value);
+
+    abstract Container remove(char value);
+
+    abstract boolean contains(char value);
+
+    abstract int cardinality();
+
+    abstract void forEach(int base, IntConsumer consumer);
+
+    abstract Container copy();
+
+    abstract Container and(Container other);
+
+    abstract Container or(Container other);
+
+    abstract Container andNot(Container other);
+  }
+
+  /** A sorted array of values, for chunks holding at most ARRAY_MAX values */
+  private static final class ArrayContainer extends Container {
+    char[] values;
+    int cardinality;
+
+    ArrayContainer() {
+      this(new char[4], 0);
+    }
+
+    ArrayContainer(char[] values, int cardinality) {
+      this.values = values;
+      this.cardinality = cardinality;
+    }
+
+    @Override
+    Container add(char value) {
+      int i = Arrays.binarySearch(values, 0, cardinality, value);
+      if (i >= 0) {
+        return this;
+      }
+      if (cardinality == ARRAY_MAX) {
+        return toBitmap().add(value);
+      }
+      i = -i - 1;
+      if (cardinality == values.length) {
+        values = Arrays.copyOf(values, Math.min(ARRAY_MAX, Math.max(4, cardinality * 2)));
+      }
+      System.arraycopy(values, i, values, i + 1, cardinality - i);
+      values[i] = value;
+      cardinality++;
+      return this;
+    }
+
+    @Override
+    Container remove(char value) {
+      int i = Arrays.binarySearch(values, 0, cardinality, value);
+      if (i >= 0) {
+        System.arraycopy(values, i + 1, values, i, cardinality - i - 1);
+        cardinality--;
+      }
+      return this;
+    }
+
+    @Override
+    boolean contains(char value) {
+      return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+    }
+
+    @Override
+    int cardinality() {
+      return cardinality;
+    }
+
+    @Override
+    void forEach(int base, IntConsumer consumer) {
+      for (int i = 0; i < cardinality; i++) {
+        consumer.accept(base | values[i]);
+      }
+    }
+
+    @Override
+    Container copy() {
+      return new ArrayContainer(Arrays.copyOf(values, Math.max(1, cardinality)), cardinality);
+    }
+
+    BitmapContainer toBitmap() {
+      BitmapContainer bitmap = new BitmapContainer();
+      for (int i = 0; i < cardinality; i++) {
+        bitmap.add(values[i]);
+      }
+      return bitmap;
+    }
+
+    @Override
+    Container and(Container other) {
+      char[] result = new char[cardinality];
+      int n = 0;
+      if (other instanceof ArrayContainer array) {
+        int i = 0;
+        int j = 0;
+        while (i < cardinality && j < array.cardinality) {
+          if (values[i] < array.values[j]) {
+            i++;
+          } else if (values[i] > array.values[j]) {
+            j++;
+          } else {
+            result[n++] = values[i];
+            i++;
+            j++;
+          }
+        }
+      } else {
+        for (int i = 0; i < cardinality; i++) {
+          if (other.contains(values[i])) {
+            result[n++] = values[i];
+          }
+        }
+      }
+      return new ArrayContainer(result, n);
+    }
+
+    @Override
+    Container or(Container other) {
+      if (other instanceof BitmapContainer bitmap) {
+        return bitmap.or(this);
+      }
+      ArrayContainer array = (ArrayContainer) other;
+      char[] result = new char[cardinality + array.cardinality];
+      int n = 0;
+      int i = 0;
+      int j = 0;
+      while (i < cardinality || j < array.cardinality) {
+        if (j == array.cardinality || (i < cardinality && values[i] < array.values[j])) {
+          result[n++] = values[i++];
+        } else if (i == cardinality || values[i] > array.values[j]) {
+          result[n++] = array.values[j++];
+        } else {
+          result[n++] = values[i++];
+          j++;
+        }
+      }
+      ArrayContainer merged = new ArrayContainer(result, n);
+      return n > ARRAY_MAX ? merged.toBitmap() : merged;
+    }
+
+    @Override
+    Container andNot(Container other) {
+      char[] result = new char[cardinality];
+      int n = 0;
+      for (int i = 0; i < cardinality; i++) {
+        if (!other.contains(values[i])) {
+          result[n++] = values[i];
+        }
+      }
+      return new ArrayContainer(result, n);
+    }
+  }
+
+  /** A 65536 bit bitmap, for chunks holding more than ARRAY_MAX values */
+  private static final class BitmapContainer extends Container {
+    final long[] words;
+    int cardinality;
+
+    BitmapContainer() {
+      this(new long[1024], 0);
+    }
+
+    BitmapContainer(long[] words, int cardinality) {
+      this.words = words;
+      this.cardinality = cardinality;
+    }
+
+    @Override
+    Container add(char value) {
+      long before = words[value >>> 6];
+      words[value >>> 6] = before | (1L << value);
+      if (before != words[value >>> 6]) {
+        cardinality++;
+      }
+      return this;
+    }
+
+    @Override
+    Container remove(char value) {
+      long before = words[value >>> 6];
+      words[value >>> 6] = before & ~(1L << value);
+      if (before != words[value >>> 6]) {
+        cardinality--;
+      }
+      return cardinality <= ARRAY_MAX ? toArrayContainer() : this;
+    }
+
+    @Override
+    boolean contains(char value) {
+      return (words[value >>> 6] & (1L << value)) != 0;
+    }
+
+    @Override
+    int cardinality() {
+      return cardinality;
+    }
+
+    @Override
+    void forEach(int base, IntConsumer consumer) {
+      for (int w = 0; w < words.length; w++) {
+        long word = words[w];
+        while (word != 0) {
+          consumer.accept(base | (w << 6) | Long.numberOfTrailingZeros(word));
+          word &= word - 1;
+        }
+      }
+    }
+
+    @Override
+    Container copy() {
+      return new BitmapContainer(words.clone(), cardinality);
+    }
+
+    @Override
+    Container and(Container other) {
+      if (other instanceof ArrayContainer array) {
+        return array.and(this);
+      }
+      long[] otherWords = ((BitmapContainer) other).words;
+      long[] result = new long[1024];
+      int count = 0;
+      for (int w = 0; w < 1024; w++) {
+        result[w] = words[w] & otherWords[w];
+        count += Long.bitCount(result[w]);
+      }
+      return shrink(new BitmapContainer(result, count));
+    }
+
+    @Override
+    Container or(Container other) {
+      BitmapContainer result = (BitmapContainer) copy();
+      if (other instanceof ArrayContainer array) {
+        for (int i = 0; i < array.cardinality; i++) {
+          result.add(array.values[i]);
+        }
+        return result;
+      }
+      long[] otherWords = ((BitmapContainer) other).words;
+      int count = 0;
+      for (int w = 0; w < 1024; w++) {
+        result.words[w] |= otherWords[w];
+        count += Long.bitCount(result.words[w]);
+      }
+      result.cardinality = count;
+      return result;
+    }
+
+    @Override
+    Container andNot(Container other) {
+      BitmapContainer result = (BitmapContainer) copy();
+      if (other instanceof ArrayContainer array) {
+        for (int i = 0; i < array.cardinality; i++) {
+          char value = array.values[i];
+          if (result.contains(value)) {
+            result.words[value >>> 6] &= ~(1L << value);
+            result.cardinality--;
+          }
+        }
+        return shrink(result);
+      }
+      long[] otherWords = ((BitmapContainer) other).words;
+      int count = 0;
+      for (int w = 0; w < 1024; w++) {
+        result.words[w] &= ~otherWords[w];
+        count += Long.bitCount(result.words[w]);
+      }
+      result.cardinality = count;
+      return shrink(result);
+    }
+
+    ArrayContainer toArrayContainer() {
+      char[] values = new char[cardinality];
+      int[] n = { 0 };
+      forEach(0, value -> values[n[0]++] = (char) value);
+      return new ArrayContainer(values, cardinality);
+    }
+
+    private static Container shrink(BitmapContainer bitmap) {
+      return bitmap.cardinality <= ARRAY_MAX ? bitmap.toArrayContainer() : bitmap;
+    }
+  }
+}
@@ -0,0 +1,225 @@
+package edu.ucsb.cs156.example.structures;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A hierarchical timing wheel: a set of keyed timers that fire when the wheel
+ * is advanced past their deadlines.
+ *
+ * Time is counted in ticks of a fixed number of milliseconds. The wheel has
+ * eleven levels of 64 slots each, which covers every 64-bit tick. A timer is
+ * kept at the highest level at which its deadline differs from the current
+ * tick, in the slot given by the deadline's six bits at that level; when the
+ * current tick reaches the start of that slot, the slot is emptied and its
+ * timers move down a level, until they reach level 0 and fire. Scheduling and
+ * cancelling are O(1); advancing jumps straight to the next occupied slot, so
+ * it costs O(levels) per slot emptied plus O(1) per timer moved or fired,
+ * however far the wheel is advanced.
+ *
+ * A timer never fires early: deadlines are rounded up to a whole tick and the
+ * current time is rounded down. A deadline that has already passed fires on
+ * the next advance. The wheel does not go backwards.
+ *
+ * This class is not thread safe.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values returned when timers fire
+ */
+public class TimingWheel<K, V> {
+
+  private static final int BITS = 6;
+  private static final int SLOTS = 1 << BITS;
+  private static final int LEVELS = 11;
+  /** the list of timers that are due on the next advance, kept after the levels */
+  private static final int DUE = LEVELS;
+
+  private static final class Node<K, V> {
+    final K key;
+    final V value;
+    final long deadline;
+    int level;
+    int slot;
+    Node<K, V> prev;
+    Node<K, V> next;
+
+    Node(K key, V value, long deadline) {
+      this.key = key;
+      this.value = value;
+      this.deadline = deadline;
+    }
+  }
+
+  private final long tickMillis;
+  private final Node<K, V>[][] heads;
+  private final long[] occupied = new long[LEVELS];
+  private final Map<K, Node<K, V>> nodes = new HashMap<>();
+  private long current;
+
+  /**
+   * Create an empty wheel.
+   *
+   * @param tickMillis  the length of a tick in milliseconds
+   * @param startMillis the current time in milliseconds
+   */
+  @SuppressWarnings("unchecked")
+  public TimingWheel(long tickMillis, long startMillis) {
+    if (tickMillis < 1) {
+      throw new IllegalArgumentException("tickMillis must be positive");
+    }
+    this.tickMillis = tickMillis;
+    this.heads = (Node<K, V>[][]) new Node[LEVELS + 1][SLOTS];
+    this.current = Math.floorDiv(startMillis, tickMillis);
+  }
+
+  /**
+   * @return the number of timers that have not fired or been cancelled
+   */
+  public int size() {
+    return nodes.size();
+  }
+
+  /**
+   * Add a timer, replacing any timer with the same key.
+   *
+   * @param key            the key
+   * @param value          the value to return when the timer fires
+   * @param deadlineMillis when the timer should fire, in milliseconds
+   */
+  public void schedule(K key, V value, long deadlineMillis) {
+    cancel(key);
+    Node<K, V> node = new Node<>(key, value, Math.ceilDiv(deadlineMillis, tickMillis));
+    nodes.put(key, node);
+    place(node);
+  }
+
+  /**
+   * Remove the timer with a key, if there is one.
+   *
+   * @param key the key
+   * @return whether there was a timer to remove
+   */
+  public boolean cancel(K key) {
+    Node<K, V> node = nodes.remove(key);
+    if (node == null) {
+      return false;
+    }
+    unlink(node);
+    return true;
+  }
+
+  /**
+   * Advance the wheel to a time and fire the timers whose deadlines are at or
+   * before it. Fired timers are removed.
+   *
+   * @param nowMillis the current time in milliseconds
+   * @return the values of the fired timers: any that were already due, then the rest
+   *         in deadline order to the nearest tick
+   */
+  public List<V> advance(long nowMillis) {
+    List<V> fired = new ArrayList<>();
+    fire(DUE, 0, fired);
+    long target = Math.floorDiv(nowMillis, tickMillis);
+    while (current < target) {
+      long next = nextOccupiedTick();
+      if (next > target) {
+        current = target;
+        break;
+      }
+      current = next;
+      // empty the higher slots that start at this tick, top down, so their timers can fall through
+      for (int level = LEVELS - 1; level > 0; level--) {
+        int shift = BITS * level;
+        if ((current & ((1L << shift) - 1)) == 0) {
+          cascade(level, (int) (current >>> shift) & (SLOTS - 1));
+        }
+      }
+      fire(0, (int) current & (SLOTS - 1), fired);
+      fire(DUE, 0, fired);
+    }
+    return fired;
+  }
+
+  /** The first tick after the current one at which some slot starts, or Long.MAX_VALUE if none */
+  private long nextOccupiedTick() {
+    long next = Long.MAX_VALUE;
+    for (int level = 0; level < LEVELS; level++) {
+      int shift = BITS * level;
+      int index = (int) (current >>> shift) & (SLOTS - 1);
+      // slots at or behind the current index are always empty
+      long ahead = occupied[level] & (-2L << index);
+      if (ahead != 0) {
+        long slot = Long.numberOfTrailingZeros(ahead);
+        next = Math.min(next, (((current >>> shift) & ~(long) (SLOTS - 1)) | slot) << shift);
+      }
+    }
+    return next;
+  }
+
+  private void place(Node<K, V> node) {
+    if (node.deadline <= current) {
+      link(node, DUE, 0);
+      return;
+    }
+    int level = (63 - Long.numberOfLeadingZeros(node.deadline ^ current)) / BITS;
+    link(node, level, (int) (node.deadline >>> (BITS * level)) & (SLOTS - 1));
+  }
+
+  private void cascade(int level, int slot) {
+    Node<K, V> node = detach(level, slot);
+    while (node != null) {
+      Node<K, V> next = node.next;
+      place(node);
+      node = next;
+    }
+  }
+
+  private void fire(int level, int slot, List<V> fired) {
+    Node<K, V> node = detach(level, slot);
+    while (node != null) {
+      nodes.remove(node.key);
+      fired.add(node.value);
+      node = node.next;
+    }
+  }
+
+  private void link(Node<K, V> node, int level, int slot) {
+    node.level = level;
+    node.slot = slot;
+    node.prev = null;
+    node.next = heads[level][slot];
+    if (node.next != null) {
+      node.next.prev = node;
+    }
+    heads[level][slot] = node;
+    if (level < LEVELS) {
+      occupied[level] |= 1L << slot;
+    }
+  }
+
+  private void unlink(Node<K, V> node) {
+    if (node.prev != null) {
+      node.prev.next = node.next;
+    } else {
+      heads[node.level][node.slot] = node.next;
+    }
+    if (node.next != null) {
+      node.next.prev = node.prev;
+    }
+    if (heads[node.level][node.slot] == null && node.level < LEVELS) {
+      occupied[node.level] &= ~(1L << node.slot);
+    }
+  }
+
+  /** Empty a slot, returning its old list */
+  private Node<K, V> detach(int level, int slot) {
+    Node<K, V> head = heads[level][slot];
+    heads[level][slot] = null;
+    if (level < LEVELS) {
+      occupied[level] &= ~(1L << slot);
+    }
+    return head;
+  }
+}
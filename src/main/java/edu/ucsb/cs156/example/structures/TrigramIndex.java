@@ -0,0 +1,260 @@
+package edu.ucsb.cs156.example.structures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory trigram index for fuzzy text search, keyed by entity id.
+ *
+ * Text is broken into trigrams the same way as the Postgres {@code pg_trgm}
+ * extension: it is lower-cased, split into words of letters and digits, and
+ * each word is padded with two spaces in front and one behind before the
+ * three character substrings are taken. An inverted index maps each trigram
+ * to the documents whose text contains it, so that scoring a query only touches
+ * documents that share at least one trigram with it.
+ *
+ * Documents live in dense integer slots so that posting lists are plain
+ * {@code int} arrays and shared trigrams are counted in an {@code int[]}.
+ * Replacing or removing a document only marks its old slot dead; the posting
+ * lists are compacted once dead slots outnumber live ones.
+ *
+ * Reads may run concurrently with each other; writes are exclusive.
+ */
+public class TrigramIndex {
+
+  private static final int MIN_COMPACT = 1024;
+
+  /** Orders matches from best to worst: higher score first, then smaller key */
+  public static final Comparator<Match> BEST_FIRST = Comparator.comparingDouble(Match::score).reversed()
+      .thenComparingLong(Match::key);
+
+  /**
+   * A key and its similarity score.
+   *
+   * @param key   the key
+   * @param score similarity to the query, in (0, 1]
+   */
+  public record Match(long key, double score) {
+  }
+
+  private final Map<String, IntList> postings = new HashMap<>();
+  private final Map<Long, Integer> slotOf = new HashMap<>();
+  private long[] keys = new long[16];
+  private String[][] grams = new String[16][];
+  private int slots = 0;
+  private int dead = 0;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /**
+   * Add or replace the text stored for a key.
+   *
+   * @param key  the key
+   * @param text the text to index; null is treated as empty
+   */
+  public void put(long key, String text) {
+    String[] docGrams = trigrams(text).toArray(new String[0]);
+    lock.writeLock().lock();
+    try {
+      removeLocked(key);
+      addLocked(key, docGrams);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Remove a key from the index.
+   *
+   * @param key the key
+   */
+  public void remove(long key) {
+    lock.writeLock().lock();
+    try {
+      removeLocked(key);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Remove every key from the index.
+   */
+  public void clear() {
+    lock.writeLock().lock();
+    try {
+      postings.clear();
+      slotOf.clear();
+      keys = new long[16];
+      grams = new String[16][];
+      slots = 0;
+      dead = 0;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * @return the number of keys in the index
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return slotOf.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Find the keys whose text is most similar to the query.
+   *
+   * With {@code wordSimilarity} false, the score is the {@code pg_trgm}
+   * {@code similarity}: shared trigrams divided by the trigrams in either
+   * string. With {@code wordSimilarity} true, the score is the fraction of
+   * the query's trigrams found in the text, which suits matching a short
+   * query against a long text (like {@code pg_trgm}'s {@code word_similarity}).
+   *
+   * @param query          the search string
+   * @param wordSimilarity how to score, see above
+   * @param minScore       the lowest score to return
+   * @param limit          the maximum number of keys to return
+   * @return the best matches, best first (ties broken by smaller key)
+   */
+  public List<Match> search(String query, boolean wordSimilarity, double minScore, int limit) {
+    Set<String> queryGrams = trigrams(query);
+    if (queryGrams.isEmpty() || limit < 1) {
+      return List.of();
+    }
+    int querySize = queryGrams.size();
+    lock.readLock().lock();
+    try {
+      int[] shared = new int[slots];
+      IntList touched = new IntList();
+      for (String gram : queryGrams) {
+        IntList list = postings.getOrDefault(gram, IntList.EMPTY);
+        for (int i = 0; i < list.size; i++) {
+          int slot = list.data[i];
+          if (shared[slot]++ == 0) {
+            touched.add(slot);
+          }
+        }
+      }
+
+      // bounded heap with the worst of the best `limit` matches on top
+      PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, BEST_FIRST.reversed());
+      for (int i = 0; i < touched.size; i++) {
+        int slot = touched.data[i];
+        if (grams[slot] == null) {
+          continue;
+        }
+        int count = shared[slot];
+        double score = wordSimilarity
+            ? (double) count / querySize
+            : (double) count / (querySize + grams[slot].length - count);
+        if (score >= minScore) {
+          best.add(new Match(keys[slot], score));
+          if (best.size() > limit) {
+            best.poll();
+          }
+        }
+      }
+      List<Match> result = new ArrayList<>(best);
+      result.sort(BEST_FIRST);
+      return result;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Break a string into {@code pg_trgm} style trigrams.
+   *
+   * @param text the text; null is treated as empty
+   * @return the set of trigrams, in order of first appearance
+   */
+  public static Set<String> trigrams(String text) {
+    Set<String> result = new LinkedHashSet<>();
+    if (text == null) {
+      return result;
+    }
+    for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+      if (word.isEmpty()) {
+        continue;
+      }
+      String padded = "  " + word + " ";
+      for (int i = 0; i + 3 <= padded.length(); i++) {
+        result.add(padded.substring(i, i + 3));
+      }
+    }
+    return result;
+  }
+
+  private void addLocked(long key, String[] docGrams) {
+    if (slots == keys.length) {
+      keys = Arrays.copyOf(keys, slots * 2);
+      grams = Arrays.copyOf(grams, slots * 2);
+    }
+    int slot = slots++;
+    keys[slot] = key;
+    grams[slot] = docGrams;
+    slotOf.put(key, slot);
+    for (String gram : docGrams) {
+      postings.computeIfAbsent(gram, g -> new IntList()).add(slot);
+    }
+  }
+
+  private void removeLocked(long key) {
+    Integer slot = slotOf.remove(key);
+    if (slot == null) {
+      return;
+    }
+    grams[slot] = null;
+    dead++;
+    if (dead >= MIN_COMPACT && dead > slotOf.size()) {
+      compactLocked();
+    }
+  }
+
+  /** Rebuild the posting lists without the dead slots */
+  private void compactLocked() {
+    long[] oldKeys = keys;
+    String[][] oldGrams = grams;
+    int oldSlots = slots;
+    postings.clear();
+    slotOf.clear();
+    keys = new long[Math.max(16, oldSlots - dead)];
+    grams = new String[keys.length][];
+    slots = 0;
+    dead = 0;
+    for (int slot = 0; slot < oldSlots; slot++) {
+      if (oldGrams[slot] != null) {
+        addLocked(oldKeys[slot], oldGrams[slot]);
+      }
+    }
+  }
+
+  /** A growable list of ints, used for posting lists */
+  private static final class IntList {
+    static final IntList EMPTY = new IntList();
+
+    int[] data = new int[4];
+    int size = 0;
+
+    void add(int value) {
+      if (size == data.length) {
+        data = Arrays.copyOf(data, size * 2);
+      }
+      data[size++] = value;
+    }
+  }
+}
@@ -9,8 +9,15 @@ import org.springframework.context.annotation.Import;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
+import edu.ucsb.cs156.example.services.ActiveUserStatsService;
 import edu.ucsb.cs156.example.services.CurrentUserService;
+import edu.ucsb.cs156.example.services.DatabaseDialectService;
+import edu.ucsb.cs156.example.services.EntityAggregationService;
+import edu.ucsb.cs156.example.services.EntityCountService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
+import edu.ucsb.cs156.example.services.ResponseCacheService;
+import edu.ucsb.cs156.example.services.UserActivityService;
+import edu.ucsb.cs156.example.services.UserCacheService;
 import edu.ucsb.cs156.example.services.wiremock.WiremockService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import org.springframework.test.web.servlet.MvcResult;
@@ -36,6 +43,27 @@ public abstract class ControllerTestCase {
   @MockBean
   WiremockService mockWiremockService;
 
+  @MockBean
+  public UserActivityService userActivity;
+
+  @MockBean
+  public ActiveUserStatsService activeUsers;
+
+  @MockBean
+  public EntityAggregationService aggregations;
+
+  @MockBean
+  public EntityCountService counts;
+
+  @MockBean
+  public ResponseCacheService responseCache;
+
+  @MockBean
+  public UserCacheService userCache;
+
+  @MockBean
+  public DatabaseDialectService databaseDialect;
+
   protected Map<String, Object> responseToJson(MvcResult result) throws UnsupportedEncodingException, JsonProcessingException {
     String responseString = result.getResponse().getContentAsString();
     return mapper.readValue(responseString, Map.class);
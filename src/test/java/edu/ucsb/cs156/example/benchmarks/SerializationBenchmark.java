@@ -0,0 +1,112 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.helpers.IsoLocalDateTimeSerializer;
+import edu.ucsb.cs156.example.models.HelpRequestDto;
+
+/**
+ * Compares serializing a list of help requests as entities with the
+ * default ObjectMapper (what /api/helprequests/all used to do) against
+ * serializing them as HelpRequestDto records, with and without the Blackbird
+ * module and IsoLocalDateTimeSerializer (see JacksonConfig).
+ *
+ * This is not run by the tests. To run it:
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) edu.ucsb.cs156.example.benchmarks.SerializationBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+  @Param({ "100", "1000" })
+  int size;
+
+  List<HelpRequest> entities;
+
+  List<HelpRequestDto> dtos;
+
+  ObjectMapper reflective = new ObjectMapper()
+      .registerModule(new JavaTimeModule())
+      .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+  ObjectMapper fast = new ObjectMapper()
+      .registerModule(new JavaTimeModule())
+      .registerModule(new SimpleModule().addSerializer(new IsoLocalDateTimeSerializer()))
+      .registerModule(new BlackbirdModule())
+      .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+  @Setup
+  public void setup() {
+    LocalDateTime start = LocalDateTime.parse("2024-10-01T09:00:00");
+    entities = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      entities.add(HelpRequest.builder()
+          .id(i)
+          .requesterEmail("student%d@ucsb.edu".formatted(i))
+          .teamId("f24-%d".formatted(i % 20))
+          .tableOrBreakoutRoom(Integer.toString(i % 12))
+          .requestTime(start.plusMinutes(i))
+          .explanation("Need help with request %d".formatted(i))
+          .solved(i % 3 == 0)
+          .solvedTime(i % 3 == 0 ? start.plusMinutes(i + 17).plusNanos(250_000_000) : null)
+          .build());
+    }
+    dtos = HelpRequestDto.fromAll(entities);
+  }
+
+  @Benchmark
+  public byte[] entitiesReflective() throws Exception {
+    return reflective.writeValueAsBytes(entities);
+  }
+
+  @Benchmark
+  public byte[] dtosReflective() throws Exception {
+    return reflective.writeValueAsBytes(dtos);
+  }
+
+  @Benchmark
+  public byte[] entitiesFast() throws Exception {
+    return fast.writeValueAsBytes(entities);
+  }
+
+  @Benchmark
+  public byte[] dtosMappedAndFast() throws Exception {
+    return fast.writeValueAsBytes(HelpRequestDto.fromAll(entities));
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(SerializationBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -0,0 +1,175 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.models.ActiveUserCount;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@WebMvcTest(controllers = ActiveUsersController.class)
+@Import(TestConfig.class)
+public class ActiveUsersControllerTests extends ControllerTestCase {
+
+  @MockBean
+  UserRepository userRepository;
+
+  LocalDate from = LocalDate.parse("2024-10-01");
+  LocalDate to = LocalDate.parse("2024-12-31");
+
+  @Test
+  public void activeusers__logged_out() throws Exception {
+    mockMvc.perform(get("/api/admin/activeusers"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void activeusers__user_logged_in() throws Exception {
+    mockMvc.perform(get("/api/admin/activeusers"))
+        .andExpect(status().is(403));
+    mockMvc.perform(get("/api/admin/activeusers/range?from=2024-10-01&to=2024-12-31"))
+        .andExpect(status().is(403));
+    mockMvc.perform(get("/api/admin/activeusers/quarter?quarterYYYYQ=20244"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void activeusers__admin_gets_summary() throws Exception {
+
+    // arrange
+
+    LocalDate today = LocalDate.now();
+    List<ActiveUserCount> expected = List.of(
+        ActiveUserCount.builder().period("day").from(today).to(today).estimate(3).build());
+    when(activeUsers.summary(today)).thenReturn(expected);
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/admin/activeusers"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    verify(activeUsers, times(1)).summary(today);
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void activeusers__admin_gets_range() throws Exception {
+
+    // arrange
+
+    ActiveUserCount expected = ActiveUserCount.builder().period("range").from(from).to(to).estimate(1234).build();
+    when(activeUsers.count("range", from, to)).thenReturn(expected);
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/admin/activeusers/range?from=2024-10-01&to=2024-12-31"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    verify(activeUsers, times(1)).count("range", from, to);
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void activeusers__range_of_366_days_is_allowed() throws Exception {
+    mockMvc.perform(get("/api/admin/activeusers/range?from=2024-01-01&to=2024-12-31"))
+        .andExpect(status().isOk());
+    verify(activeUsers, times(1)).count("range", LocalDate.parse("2024-01-01"), LocalDate.parse("2024-12-31"));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void activeusers__range_must_not_be_reversed() throws Exception {
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/admin/activeusers/range?from=2024-12-31&to=2024-10-01"))
+        .andExpect(status().isBadRequest()).andReturn();
+
+    // assert
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("BadRequestException", json.get("type"));
+    assertEquals("to must not be before from", json.get("message"));
+    verify(activeUsers, never()).count(any(), any(), any());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void activeusers__range_must_not_be_too_long() throws Exception {
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/admin/activeusers/range?from=2024-01-01&to=2025-01-01"))
+        .andExpect(status().isBadRequest()).andReturn();
+
+    // assert
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("BadRequestException", json.get("type"));
+    assertEquals("range must be at most 366 days", json.get("message"));
+    verify(activeUsers, never()).count(any(), any(), any());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void activeusers__admin_gets_quarter() throws Exception {
+
+    // arrange
+
+    ActiveUserCount expected = ActiveUserCount.builder().period("quarter 20244").from(from).to(to).estimate(42)
+        .build();
+    when(activeUsers.count("quarter 20244", from, to)).thenReturn(expected);
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/admin/activeusers/quarter?quarterYYYYQ=20244"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    verify(activeUsers, times(1)).count("quarter 20244", from, to);
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void activeusers__quarter_must_be_valid() throws Exception {
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/admin/activeusers/quarter?quarterYYYYQ=20245"))
+        .andExpect(status().isBadRequest()).andReturn();
+
+    // assert
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("BadRequestException", json.get("type"));
+    assertEquals("quarter must be YYYYQ with Q from 1 to 4, e.g. 20244", json.get("message"));
+  }
+}
@@ -0,0 +1,73 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.models.AdminDashboard;
+import edu.ucsb.cs156.example.models.DashboardTile;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.AdminDashboardService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@WebMvcTest(controllers = AdminDashboardController.class)
+@Import(TestConfig.class)
+public class AdminDashboardControllerTests extends ControllerTestCase {
+
+  @MockBean
+  AdminDashboardService adminDashboard;
+
+  @MockBean
+  UserRepository userRepository;
+
+  @Test
+  public void dashboard__logged_out() throws Exception {
+    mockMvc.perform(get("/api/admin/dashboard"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void dashboard__user_logged_in() throws Exception {
+    mockMvc.perform(get("/api/admin/dashboard"))
+        .andExpect(status().is(403));
+    verify(adminDashboard, never()).dashboard();
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void dashboard__admin_gets_the_tiles() throws Exception {
+
+    // arrange
+
+    AdminDashboard expected = AdminDashboard.builder()
+        .generatedAt(LocalDateTime.parse("2024-12-01T12:00:00"))
+        .complete(false)
+        .tiles(List.of(
+            DashboardTile.builder().name("users").value(3L).status(DashboardTile.OK).build(),
+            DashboardTile.builder().name("helpRequestsUnsolved").status(DashboardTile.TIMEOUT).build()))
+        .build();
+    when(adminDashboard.dashboard()).thenReturn(expected);
+
+    // act
+    MvcResult response = mockMvc.perform(get("/api/admin/dashboard"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+}
@@ -7,9 +7,23 @@ import jakarta.validation.Valid;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Articles;
 import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.helpers.EntityAggregation;
+import edu.ucsb.cs156.example.models.AggregateRow;
+import edu.ucsb.cs156.example.models.EntityBatch;
+import edu.ucsb.cs156.example.models.EntityCount;
 import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.services.ArticleUrlIndexService;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import jakarta.servlet.ServletException;
 
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.cglib.core.Local;
@@ -18,6 +32,7 @@ import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
@@ -28,13 +43,20 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -49,6 +71,9 @@ public class ArticlesControllerTests extends ControllerTestCase {
 	@MockBean
 	UserRepository userRepository;
 
+	@MockBean
+	ArticleUrlIndexService articleUrlIndex;
+
 	// Authorization tests for /api/articles/admin/all
 
 	@Test
@@ -139,6 +164,10 @@ public class ArticlesControllerTests extends ControllerTestCase {
 
 		// assert
 		verify(articlesRepository, times(1)).save(article1);
+		verify(aggregations, times(1)).invalidate(Articles.class);
+		verify(counts, times(1)).invalidate(Articles.class);
+		verify(articleUrlIndex, times(1)).claimUrl(article1);
+		verify(articleUrlIndex, times(1)).add(article1);
 
 		String expectedJson = mapper.writeValueAsString(article1);
 		String responseString = response.getResponse().getContentAsString();
@@ -218,6 +247,9 @@ public class ArticlesControllerTests extends ControllerTestCase {
 		// assert
 		verify(articlesRepository, times(1)).findById(123L);
 		verify(articlesRepository, times(1)).save(articleEdited); // should be saved with correct user
+		verify(aggregations, times(1)).invalidate(Articles.class);
+		verify(articleUrlIndex, times(1)).claimUrl(articleEdited);
+		verify(articleUrlIndex, times(1)).add(articleEdited);
 
 		String responseString = response.getResponse().getContentAsString();
 		assertEquals(requestBody, responseString);
@@ -276,7 +308,9 @@ public class ArticlesControllerTests extends ControllerTestCase {
 
 		// assert
 		verify(articlesRepository, times(1)).findById(15L);
-		verify(articlesRepository, times(1)).delete(any());
+		verify(articlesRepository, times(1)).delete(any(Articles.class));
+		verify(aggregations, times(1)).invalidate(Articles.class);
+		verify(counts, times(1)).invalidate(Articles.class);
 
 		Map<String, Object> json = responseToJson(response);
 		assertEquals("Article with id 15 deleted", json.get("message"));
@@ -301,4 +335,488 @@ public class ArticlesControllerTests extends ControllerTestCase {
 		Map<String, Object> json = responseToJson(response);
 		assertEquals("Articles with id 15 not found", json.get("message"));
 	}
+
+	// Tests for url dedupe
+
+	@Test
+	public void logged_out_users_cannot_check_duplicates() throws Exception {
+		mockMvc.perform(get("/api/articles/duplicate?url=ajayliu.com"))
+				.andExpect(status().is(403));
+	}
+
+	@WithMockUser(roles = { "USER" })
+	@Test
+	public void logged_in_user_can_check_a_new_url() throws Exception {
+		// arrange
+		when(articleUrlIndex.findDuplicate(eq("HTTP://AjayLiu.com/"))).thenReturn(Optional.empty());
+
+		// act
+		MvcResult response = mockMvc.perform(get("/api/articles/duplicate").param("url", "HTTP://AjayLiu.com/"))
+				.andExpect(status().isOk()).andReturn();
+
+		// assert
+		verify(articleUrlIndex, times(1)).findDuplicate(eq("HTTP://AjayLiu.com/"));
+		Map<String, Object> json = responseToJson(response);
+		assertEquals("HTTP://AjayLiu.com/", json.get("url"));
+		assertEquals("https://ajayliu.com", json.get("normalizedUrl"));
+		assertEquals(false, json.get("duplicate"));
+		assertEquals(null, json.get("existingId"));
+	}
+
+	@WithMockUser(roles = { "USER" })
+	@Test
+	public void logged_in_user_can_check_a_duplicate_url() throws Exception {
+		// arrange
+		Articles existing = Articles.builder().id(7L).title("TestTitle").url("ajayliu.com").build();
+		when(articleUrlIndex.findDuplicate(eq("ajayliu.com/?utm_source=x"))).thenReturn(Optional.of(existing));
+
+		// act
+		MvcResult response = mockMvc.perform(get("/api/articles/duplicate").param("url", "ajayliu.com/?utm_source=x"))
+				.andExpect(status().isOk()).andReturn();
+
+		// assert
+		Map<String, Object> json = responseToJson(response);
+		assertEquals("https://ajayliu.com", json.get("normalizedUrl"));
+		assertEquals(true, json.get("duplicate"));
+		assertEquals(7, json.get("existingId"));
+	}
+
+	@WithMockUser(roles = { "ADMIN", "USER" })
+	@Test
+	public void admin_posting_a_duplicate_url_with_reject_gets_a_conflict() throws Exception {
+		// arrange
+		Articles existing = Articles.builder().id(7L).title("TestTitle").url("ajayliu.com").build();
+		when(articleUrlIndex.claimUrl(any())).thenReturn(Optional.of(existing));
+
+		// act
+		MvcResult response = mockMvc.perform(
+				post("/api/articles/post?title=TestTitle&url=ajayliu.com&explanation=TestExplanation&email=test@email.com&dateAdded=2022-01-03T00:00:00&rejectDuplicate=true")
+						.with(csrf()))
+				.andExpect(status().isConflict()).andReturn();
+
+		// assert
+		verify(articlesRepository, times(0)).save(any());
+		Map<String, Object> json = responseToJson(response);
+		assertEquals("DuplicateEntityException", json.get("type"));
+		assertEquals("Articles with url ajayliu.com already exists (id 7)", json.get("message"));
+	}
+
+	@WithMockUser(roles = { "ADMIN", "USER" })
+	@Test
+	public void admin_posting_a_duplicate_url_without_reject_still_saves() throws Exception {
+		// arrange
+		LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
+		Articles existing = Articles.builder().id(7L).title("TestTitle").url("ajayliu.com").build();
+		Articles article1 = Articles.builder().title("TestTitle").url("ajayliu.com")
+				.explanation("TestExplanation")
+				.email("test@email.com").dateAdded(ldt1).build();
+
+		when(articleUrlIndex.claimUrl(any())).thenReturn(Optional.of(existing));
+		when(articlesRepository.save(eq(article1))).thenReturn(article1);
+
+		// act
+		MvcResult response = mockMvc.perform(
+				post("/api/articles/post?title=TestTitle&url=ajayliu.com&explanation=TestExplanation&email=test@email.com&dateAdded=2022-01-03T00:00:00")
+						.with(csrf()))
+				.andExpect(status().isOk()).andReturn();
+
+		// assert
+		verify(articlesRepository, times(1)).save(article1);
+		verify(aggregations, times(1)).invalidate(Articles.class);
+		verify(counts, times(1)).invalidate(Articles.class);
+		String expectedJson = mapper.writeValueAsString(article1);
+		String responseString = response.getResponse().getContentAsString();
+		assertEquals(expectedJson, responseString);
+	}
+
+	MockHttpServletRequestBuilder postAjayliu(boolean rejectDuplicate) {
+		return post("/api/articles/post?title=TestTitle&url=ajayliu.com&explanation=TestExplanation&email=test@email.com&dateAdded=2022-01-03T00:00:00&rejectDuplicate="
+				+ rejectDuplicate).with(csrf());
+	}
+
+	void claimSucceeds() {
+		when(articleUrlIndex.claimUrl(any())).thenAnswer(invocation -> {
+			invocation.<Articles>getArgument(0).setUrlHash("hash");
+			return Optional.empty();
+		});
+	}
+
+	@WithMockUser(roles = { "ADMIN", "USER" })
+	@Test
+	public void admin_posting_a_url_posted_at_the_same_time_with_reject_gets_a_conflict() throws Exception {
+		// arrange
+		Articles holder = Articles.builder().id(9L).title("TestTitle").url("ajayliu.com").build();
+		claimSucceeds();
+		when(articlesRepository.save(any())).thenThrow(new DataIntegrityViolationException("URL_HASH"));
+		when(articlesRepository.findByUrlHash("hash")).thenReturn(Optional.of(holder));
+
+		// act
+		MvcResult response = mockMvc.perform(postAjayliu(true))
+				.andExpect(status().isConflict()).andReturn();
+
+		// assert
+		verify(articlesRepository, times(1)).save(any());
+		verify(aggregations, times(0)).invalidate(Articles.class);
+		Map<String, Object> json = responseToJson(response);
+		assertEquals("DuplicateEntityException", json.get("type"));
+		assertEquals("Articles with url ajayliu.com already exists (id 9)", json.get("message"));
+	}
+
+	@WithMockUser(roles = { "ADMIN", "USER" })
+	@Test
+	public void admin_posting_a_url_posted_at_the_same_time_without_reject_saves_it_without_the_hash()
+			throws Exception {
+		// arrange
+		Articles holder = Articles.builder().id(9L).title("TestTitle").url("ajayliu.com").build();
+		claimSucceeds();
+		when(articlesRepository.save(any()))
+				.thenThrow(new DataIntegrityViolationException("URL_HASH"))
+				.thenAnswer(invocation -> invocation.getArgument(0));
+		when(articlesRepository.findByUrlHash("hash")).thenReturn(Optional.of(holder));
+
+		// act
+		mockMvc.perform(postAjayliu(false)).andExpect(status().isOk());
+
+		// assert
+		ArgumentCaptor<Articles> saved = ArgumentCaptor.forClass(Articles.class);
+		verify(articlesRepository, times(2)).save(saved.capture());
+		assertNull(saved.getValue().getUrlHash());
+		verify(aggregations, times(1)).invalidate(Articles.class);
+	}
+
+	@WithMockUser(roles = { "ADMIN", "USER" })
+	@Test
+	public void other_integrity_violations_on_post_are_not_caught() throws Exception {
+		// arrange
+		DataIntegrityViolationException violation = new DataIntegrityViolationException("TITLE");
+		claimSucceeds();
+		when(articlesRepository.save(any())).thenThrow(violation);
+		when(articlesRepository.findByUrlHash("hash")).thenReturn(Optional.empty());
+
+		// act
+		ServletException thrown = assertThrows(ServletException.class,
+				() -> mockMvc.perform(postAjayliu(true)));
+
+		// assert
+		assertSame(violation, thrown.getCause());
+		verify(articlesRepository, times(1)).save(any());
+	}
+
+	@WithMockUser(roles = { "ADMIN", "USER" })
+	@Test
+	public void integrity_violations_of_articles_without_a_url_hash_are_not_caught() throws Exception {
+		// arrange
+		DataIntegrityViolationException violation = new DataIntegrityViolationException("TITLE");
+		when(articleUrlIndex.claimUrl(any())).thenReturn(Optional.empty());
+		when(articlesRepository.save(any())).thenThrow(violation);
+
+		// act
+		ServletException thrown = assertThrows(ServletException.class,
+				() -> mockMvc.perform(postAjayliu(false)));
+
+		// assert
+		assertSame(violation, thrown.getCause());
+		verify(articlesRepository, times(0)).findByUrlHash(any());
+	}
+
+	@WithMockUser(roles = { "ADMIN", "USER" })
+	@Test
+	public void admin_editing_to_a_url_posted_at_the_same_time_saves_it_without_the_hash() throws Exception {
+		// arrange
+		Articles original = Articles.builder().id(123L).title("TestTitle").url("old.com")
+				.dateAdded(LocalDateTime.parse("2023-01-03T00:00:00")).email("a@b.com").explanation("expl").build();
+		Articles edited = Articles.builder().id(123L).title("TestTitle").url("ajayliu.com")
+				.dateAdded(LocalDateTime.parse("2023-01-03T00:00:00")).email("a@b.com").explanation("expl").build();
+		Articles holder = Articles.builder().id(9L).title("TestTitle").url("ajayliu.com").build();
+		when(articlesRepository.findById(eq(123L))).thenReturn(Optional.of(original));
+		claimSucceeds();
+		when(articlesRepository.save(any()))
+				.thenThrow(new DataIntegrityViolationException("URL_HASH"))
+				.thenAnswer(invocation -> invocation.getArgument(0));
+		when(articlesRepository.findByUrlHash("hash")).thenReturn(Optional.of(holder));
+
+		// act
+		mockMvc.perform(put("/api/articles?id=123")
+				.contentType(MediaType.APPLICATION_JSON)
+				.characterEncoding("utf-8")
+				.content(mapper.writeValueAsString(edited))
+				.with(csrf()))
+				.andExpect(status().isOk());
+
+		// assert
+		verify(articlesRepository, times(2)).save(original);
+		assertNull(original.getUrlHash());
+		assertEquals("ajayliu.com", original.getUrl());
+	}
+
+	// Tests for /api/articles/all?from=...&to=...
+
+	@WithMockUser(roles = { "USER" })
+	@Test
+	public void logged_in_user_can_list_articles_added_in_a_range() throws Exception {
+
+		// arrange
+
+		LocalDateTime from = LocalDateTime.parse("2024-10-01T00:00:00");
+		LocalDateTime to = LocalDateTime.parse("2024-11-01T00:00:00");
+		List<Articles> expected = List.of(Articles.builder()
+				.id(3L)
+				.title("Range")
+				.url("https://example.org/range")
+				.explanation("in range")
+				.email("foo@ucsb.edu")
+				.dateAdded(LocalDateTime.parse("2024-10-15T12:00:00"))
+				.build());
+		when(articlesRepository.findByDateAddedGreaterThanEqualAndDateAddedLessThanOrderByDateAddedAscIdAsc(from, to))
+				.thenReturn(expected);
+
+		// act
+		MvcResult response = mockMvc.perform(get("/api/articles/all?from=2024-10-01T00:00:00&to=2024-11-01T00:00:00"))
+				.andExpect(status().isOk()).andReturn();
+
+		// assert
+		verify(articlesRepository, times(0)).findAll();
+		assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+	}
+
+	@WithMockUser(roles = { "USER" })
+	@Test
+	public void a_range_may_be_open_at_either_end() throws Exception {
+
+		// arrange
+
+		LocalDateTime time = LocalDateTime.parse("2024-10-01T00:00:00");
+
+		// act
+		mockMvc.perform(get("/api/articles/all?from=2024-10-01T00:00:00")).andExpect(status().isOk());
+		mockMvc.perform(get("/api/articles/all?to=2024-10-01T00:00:00")).andExpect(status().isOk());
+
+		// assert
+		verify(articlesRepository, times(1))
+				.findByDateAddedGreaterThanEqualAndDateAddedLessThanOrderByDateAddedAscIdAsc(time, ApiController.LATEST);
+		verify(articlesRepository, times(1))
+				.findByDateAddedGreaterThanEqualAndDateAddedLessThanOrderByDateAddedAscIdAsc(ApiController.EARLIEST, time);
+	}
+
+	@WithMockUser(roles = { "USER" })
+	@Test
+	public void a_range_that_ends_before_it_starts_is_a_bad_request() throws Exception {
+
+		// act
+		MvcResult response = mockMvc.perform(get("/api/articles/all?from=2024-10-01T00:00:00&to=2024-10-01T00:00:00"))
+				.andExpect(status().isBadRequest()).andReturn();
+
+		// assert
+		Map<String, Object> json = responseToJson(response);
+		assertEquals("BadRequestException", json.get("type"));
+		assertEquals("to must be after from", json.get("message"));
+	}
+
+	// Tests for /api/articles/all?filter=...&sort=...
+
+	@WithMockUser(roles = { "USER" })
+	@Test
+	public void logged_in_user_can_filter_and_sort_articles() throws Exception {
+
+		// arrange
+
+		List<Articles> expected = List.of(Articles.builder()
+				.id(4L)
+				.title("Filtered")
+				.url("https://example.org/filtered")
+				.explanation("filtered")
+				.email("cgaucho@ucsb.edu")
+				.dateAdded(LocalDateTime.parse("2024-10-15T12:00:00"))
+				.build());
+		when(articlesRepository.findAll(any(Specification.class), eq(Sort.by(Sort.Order.desc("dateAdded"), Sort.Order.asc("id")))))
+				.thenReturn(expected);
+
+		// act
+		MvcResult response = mockMvc.perform(get("/api/articles/all?filter=email:eq:cgaucho@ucsb.edu&sort=-dateAdded"))
+				.andExpect(status().isOk()).andReturn();
+
+		// assert
+		verify(articlesRepository, times(0)).findAll();
+		assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+	}
+
+	@WithMockUser(roles = { "USER" })
+	@Test
+	public void an_invalid_filter_is_a_bad_request() throws Exception {
+
+		// act
+		MvcResult response = mockMvc.perform(get("/api/articles/all?filter=explanation:eq:x"))
+				.andExpect(status().isBadRequest()).andReturn();
+
+		// assert
+		verify(articlesRepository, times(0)).findAll(any(Specification.class), any(Sort.class));
+		Map<String, Object> json = responseToJson(response);
+		assertEquals("BadRequestException", json.get("type"));
+		assertEquals("Unknown field 'explanation'; expected one of [title, url, email, dateAdded]", json.get("message"));
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@WithMockUser(roles = { "USER" })
+	@Test
+	public void a_filter_is_combined_with_the_range() throws Exception {
+
+		// arrange
+
+		ArgumentCaptor<Specification<Articles>> where = ArgumentCaptor.forClass(Specification.class);
+		Root root = mock(Root.class);
+		Path path = mock(Path.class);
+		CriteriaBuilder cb = mock(CriteriaBuilder.class);
+		when(root.get(anyString())).thenReturn(path);
+
+		// act
+		mockMvc.perform(get("/api/articles/all?filter=title:prefix:A&to=2024-10-01T00:00:00")).andExpect(status().isOk());
+
+		// assert
+		verify(articlesRepository, times(1)).findAll(where.capture(), eq(Sort.by(Sort.Order.asc("id"))));
+		where.getValue().toPredicate(root, null, cb);
+		verify(cb, times(1)).like(path, "A%", '\\');
+		verify(root, times(2)).get("dateAdded");
+		verify(cb, times(1)).lessThan(path, (Comparable) LocalDateTime.parse("2024-10-01T00:00:00"));
+	}
+
+	// Tests for /api/articles/aggregate
+
+	@Test
+	public void logged_out_users_cannot_aggregate() throws Exception {
+		mockMvc.perform(get("/api/articles/aggregate"))
+				.andExpect(status().is(403));
+	}
+
+	@WithMockUser(roles = { "USER" })
+	@Test
+	public void logged_in_regular_users_cannot_aggregate() throws Exception {
+		mockMvc.perform(get("/api/articles/aggregate"))
+				.andExpect(status().is(403)); // only admins can aggregate
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@WithMockUser(roles = { "ADMIN", "USER" })
+	@Test
+	public void an_admin_can_aggregate_articles() throws Exception {
+
+		// arrange
+
+		ArgumentCaptor<EntityAggregation.Query<Articles>> query = ArgumentCaptor.forClass(EntityAggregation.Query.class);
+		List<AggregateRow> rows = List.of(AggregateRow.builder().group(Map.of()).values(Map.of("count", 2)).build());
+		when(aggregations.aggregate(eq(articlesRepository), any(EntityAggregation.Query.class))).thenReturn(rows);
+
+		// act
+		MvcResult response = mockMvc.perform(get("/api/articles/aggregate?groupBy=email&metrics=count,max:dateAdded"))
+				.andExpect(status().isOk()).andReturn();
+
+		// assert
+		verify(aggregations, times(1)).aggregate(eq(articlesRepository), query.capture());
+		assertEquals("email|count,max:dateAdded|", query.getValue().key());
+		assertEquals(mapper.writeValueAsString(rows), response.getResponse().getContentAsString());
+	}
+
+	@WithMockUser(roles = { "ADMIN", "USER" })
+	@Test
+	public void an_invalid_aggregate_is_a_bad_request() throws Exception {
+
+		// act
+		MvcResult response = mockMvc.perform(get("/api/articles/aggregate?groupBy=title"))
+				.andExpect(status().isBadRequest()).andReturn();
+
+		// assert
+		verify(aggregations, times(0)).aggregate(any(), any());
+		Map<String, Object> json = responseToJson(response);
+		assertEquals("BadRequestException", json.get("type"));
+		assertEquals("Unknown key 'title'; expected one of [email]", json.get("message"));
+	}
+
+	// Tests for GET /api/articles?ids=...
+
+	@Test
+	public void logged_out_users_cannot_get_by_ids() throws Exception {
+		mockMvc.perform(get("/api/articles?ids=1"))
+				.andExpect(status().is(403)); // logged out users can't get by ids
+	}
+
+	@WithMockUser(roles = { "USER" })
+	@Test
+	public void logged_in_user_can_get_several_articles_by_id() throws Exception {
+
+		// arrange
+
+		Articles first = Articles.builder().id(1L).build();
+		Articles third = Articles.builder().id(3L).build();
+		when(articlesRepository.findAllById(List.of(3L, 1L, 2L))).thenReturn(List.of(first, third));
+
+		// act
+		MvcResult response = mockMvc.perform(get("/api/articles?ids=3,1,2,1"))
+				.andExpect(status().isOk()).andReturn();
+
+		// assert
+		verify(articlesRepository, times(1)).findAllById(List.of(3L, 1L, 2L));
+		EntityBatch<Articles, Long> expected = EntityBatch.<Articles, Long>builder()
+				.items(List.of(third, first))
+				.missingIds(List.of(2L))
+				.build();
+		assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+	}
+
+	// Tests for /api/articles/count
+
+	@Test
+	public void logged_out_users_cannot_count() throws Exception {
+		mockMvc.perform(get("/api/articles/count"))
+				.andExpect(status().is(403));
+	}
+
+	@WithMockUser(roles = { "USER" })
+	@Test
+	public void logged_in_user_can_count_all() throws Exception {
+
+		// arrange
+		EntityCount expected = EntityCount.builder().count(123456).approximate(true).build();
+		when(counts.count(Articles.class, articlesRepository, true)).thenReturn(expected);
+
+		// act
+		MvcResult response = mockMvc.perform(get("/api/articles/count?approximate=true"))
+				.andExpect(status().isOk()).andReturn();
+
+		// assert
+		verify(articlesRepository, times(0)).findAll();
+		assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+	}
+
+	@SuppressWarnings("unchecked")
+	@WithMockUser(roles = { "USER" })
+	@Test
+	public void logged_in_user_can_count_those_that_match_a_filter() throws Exception {
+
+		// arrange
+		when(articlesRepository.count(any(Specification.class))).thenReturn(2L);
+
+		// act
+		MvcResult response = mockMvc.perform(get("/api/articles/count?filter=email:eq:cgaucho@ucsb.edu&approximate=true"))
+				.andExpect(status().isOk()).andReturn();
+
+		// assert
+		verify(counts, times(0)).count(any(), any(), anyBoolean());
+		assertEquals("{\"count\":2,\"approximate\":false}", response.getResponse().getContentAsString());
+	}
+
+	@SuppressWarnings("unchecked")
+	@WithMockUser(roles = { "USER" })
+	@Test
+	public void logged_in_user_can_count_those_in_a_range() throws Exception {
+
+		// arrange
+		when(articlesRepository.count(any(Specification.class))).thenReturn(3L);
+
+		// act
+		MvcResult response = mockMvc.perform(get("/api/articles/count?from=2024-09-01T00:00:00"))
+				.andExpect(status().isOk()).andReturn();
+
+		// assert
+		verify(counts, times(0)).count(any(), any(), anyBoolean());
+		assertEquals("{\"count\":3,\"approximate\":false}", response.getResponse().getContentAsString());
+	}
 }
@@ -0,0 +1,108 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.models.BatchPart;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.BatchService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import jakarta.servlet.ServletException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.util.List;
+import java.util.Map;
+
+@WebMvcTest(controllers = BatchController.class)
+@Import(TestConfig.class)
+public class BatchControllerTests extends ControllerTestCase {
+
+  @MockBean
+  BatchService batchService;
+
+  @MockBean
+  UserRepository userRepository;
+
+  @Test
+  public void batch__logged_out_users_get_the_status_of_each_part() throws Exception {
+
+    // arrange
+
+    List<String> urls = List.of("/api/currentUser", "/api/systemInfo");
+    when(batchService.dispatch(any(), eq(urls))).thenReturn(List.of(
+        BatchPart.builder().url("/api/currentUser").status(403).build(),
+        BatchPart.builder().url("/api/systemInfo").status(200).body("{\"springH2ConsoleEnabled\":false}").build()));
+
+    // act
+    MvcResult response = mockMvc.perform(post("/api/batch").with(csrf())
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(mapper.writeValueAsString(urls)))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals("[{\"url\":\"/api/currentUser\",\"status\":403,\"body\":null},"
+        + "{\"url\":\"/api/systemInfo\",\"status\":200,\"body\":{\"springH2ConsoleEnabled\":false}}]",
+        response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void batch__an_invalid_batch_is_a_bad_request() throws Exception {
+
+    // arrange
+    when(batchService.dispatch(any(), eq(List.of("/csrf"))))
+        .thenThrow(new BadRequestException("'/csrf' is not an /api/ url"));
+
+    // act
+    MvcResult response = mockMvc.perform(post("/api/batch").with(csrf())
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("[\"/csrf\"]"))
+        .andExpect(status().isBadRequest()).andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("BadRequestException", json.get("type"));
+    assertEquals("'/csrf' is not an /api/ url", json.get("message"));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void batch__other_illegal_arguments_are_not_sent_back() throws Exception {
+
+    // arrange
+    when(batchService.dispatch(any(), eq(List.of("/api/currentUser"))))
+        .thenThrow(new IllegalArgumentException("internal detail"));
+
+    // act and assert
+    assertThrows(ServletException.class, () -> mockMvc.perform(post("/api/batch").with(csrf())
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("[\"/api/currentUser\"]")));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void batch__needs_a_csrf_token() throws Exception {
+    mockMvc.perform(post("/api/batch")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("[\"/api/currentUser\"]"))
+        .andExpect(status().is(403));
+    verify(batchService, never()).dispatch(any(), any());
+  }
+}
@@ -0,0 +1,111 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.models.HelpRequestArchiveRun;
+import edu.ucsb.cs156.example.models.HelpRequestArchiveStatus;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.HelpRequestArchiveService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.time.LocalDateTime;
+
+@WebMvcTest(controllers = HelpRequestArchiveController.class)
+@Import(TestConfig.class)
+public class HelpRequestArchiveControllerTests extends ControllerTestCase {
+
+  @MockBean
+  HelpRequestArchiveService helpRequestArchive;
+
+  @MockBean
+  UserRepository userRepository;
+
+  HelpRequestArchiveRun run = HelpRequestArchiveRun.builder()
+      .startedAt(LocalDateTime.parse("2024-12-01T03:30:00"))
+      .cutoff(LocalDateTime.parse("2024-11-01T03:30:00"))
+      .batches(2)
+      .moved(700)
+      .millis(42)
+      .build();
+
+  @Test
+  public void archive__logged_out() throws Exception {
+    mockMvc.perform(get("/api/admin/helprequests/archive"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void archive__user_logged_in() throws Exception {
+    mockMvc.perform(get("/api/admin/helprequests/archive"))
+        .andExpect(status().is(403));
+    mockMvc.perform(post("/api/admin/helprequests/archive").with(csrf()))
+        .andExpect(status().is(403));
+    verify(helpRequestArchive, never()).archive(any());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void archive__admin_gets_status() throws Exception {
+
+    // arrange
+
+    HelpRequestArchiveStatus expected = HelpRequestArchiveStatus.builder()
+        .afterDays(30)
+        .batchSize(500)
+        .runs(1)
+        .totalMoved(700)
+        .lastRun(run)
+        .build();
+    when(helpRequestArchive.status()).thenReturn(expected);
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/admin/helprequests/archive"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void archive__admin_runs_the_archive_now() throws Exception {
+
+    // arrange
+
+    when(helpRequestArchive.archive(any())).thenReturn(run);
+    LocalDateTime before = LocalDateTime.now();
+
+    // act
+
+    MvcResult response = mockMvc.perform(post("/api/admin/helprequests/archive").with(csrf()))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    ArgumentCaptor<LocalDateTime> now = ArgumentCaptor.forClass(LocalDateTime.class);
+    verify(helpRequestArchive, times(1)).archive(now.capture());
+    assertTrue(!now.getValue().isBefore(before) && !now.getValue().isAfter(LocalDateTime.now()));
+    assertEquals(mapper.writeValueAsString(run), response.getResponse().getContentAsString());
+  }
+}
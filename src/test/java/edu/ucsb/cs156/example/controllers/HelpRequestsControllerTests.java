@@ -1,16 +1,34 @@
 
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.errors.BadRequestException;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.ArchivedHelpRequest;
 import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.helpers.EntityAggregation;
+import edu.ucsb.cs156.example.models.AggregateRow;
+import edu.ucsb.cs156.example.models.EntityBatch;
+import edu.ucsb.cs156.example.models.EntityCount;
+import edu.ucsb.cs156.example.models.HelpRequestStats;
+import edu.ucsb.cs156.example.repositories.ArchivedHelpRequestRepository;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.services.FlagIndexService;
+import edu.ucsb.cs156.example.services.HelpRequestRollupService;
+import edu.ucsb.cs156.example.structures.FlagIndex;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
@@ -25,10 +43,18 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import java.time.LocalDateTime;
 
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -40,6 +66,15 @@ public class HelpRequestsControllerTests extends ControllerTestCase {
         @MockBean
         HelpRequestRepository helpRequestRepository;
 
+        @MockBean
+        ArchivedHelpRequestRepository archivedHelpRequestRepository;
+
+        @MockBean
+        FlagIndexService flagIndex;
+
+        @MockBean
+        HelpRequestRollupService helpRequestRollups;
+
         @MockBean
         UserRepository userRepository;
         
@@ -91,10 +126,73 @@ public class HelpRequestsControllerTests extends ControllerTestCase {
 
                 // assert
                 verify(helpRequestRepository, times(1)).findAll();
+                verify(archivedHelpRequestRepository, never()).findAll();
                     String expectedJson = mapper.writeValueAsString(expectedRequests);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
         }
+
+        static ArchivedHelpRequest archived(long id) {
+                return ArchivedHelpRequest.builder()
+                                .id(id)
+                                .requesterEmail("old@bar.com")
+                                .teamId("10-s24")
+                                .tableOrBreakoutRoom("br3")
+                                .requestTime(LocalDateTime.parse("2024-04-01T10:00:00"))
+                                .explanation("archived")
+                                .solved(true)
+                                .solvedTime(LocalDateTime.parse("2024-04-01T10:15:00"))
+                                .archivedTime(LocalDateTime.parse("2024-05-02T03:30:00"))
+                                .build();
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_users_can_get_all_including_archived() throws Exception {
+                // arrange
+
+                HelpRequest hot = HelpRequest.builder()
+                                .id(9L)
+                                .requesterEmail("foo@bar.com")
+                                .teamId("10-f24")
+                                .requestTime(LocalDateTime.parse("2024-10-29T00:00:00"))
+                                .solved(false)
+                                .build();
+                when(helpRequestRepository.findAll()).thenReturn(List.of(hot));
+                when(archivedHelpRequestRepository.findAll()).thenReturn(List.of(archived(3L)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/helprequests/all?includeArchived=true"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                String expectedJson = mapper.writeValueAsString(List.of(hot, archived(3L).toHelpRequest()));
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+
+        // Tests for /api/helprequests/archived
+
+        @Test
+        public void logged_out_users_cannot_get_archived() throws Exception {
+                mockMvc.perform(get("/api/helprequests/archived"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_users_can_get_archived() throws Exception {
+                // arrange
+
+                List<ArchivedHelpRequest> expected = List.of(archived(3L), archived(4L));
+                when(archivedHelpRequestRepository.findAll()).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/helprequests/archived"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
         //Authorization tests for /api/helprequests/post
 
         @Test
@@ -126,7 +224,8 @@ public class HelpRequestsControllerTests extends ControllerTestCase {
                                 .solved(true)
                                 .build();
 
-                when(helpRequestRepository.save(eq(helpRequest1))).thenReturn(helpRequest1);
+                when(helpRequestRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+                LocalDateTime beforePost = LocalDateTime.now();
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -135,12 +234,51 @@ public class HelpRequestsControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(helpRequestRepository, times(1)).save(helpRequest1);
+                ArgumentCaptor<HelpRequest> saved = ArgumentCaptor.forClass(HelpRequest.class);
+                verify(helpRequestRepository, times(1)).save(saved.capture());
+                verify(aggregations, times(1)).invalidate(HelpRequest.class);
+                verify(counts, times(1)).invalidate(HelpRequest.class);
+                LocalDateTime solvedTime = saved.getValue().getSolvedTime();
+                assertTrue(!solvedTime.isBefore(beforePost) && !solvedTime.isAfter(LocalDateTime.now()));
+                helpRequest1.setSolvedTime(solvedTime);
+                assertEquals(helpRequest1, saved.getValue());
+                verify(flagIndex, times(1)).add(helpRequest1);
+                verify(helpRequestRollups, times(1)).add(helpRequest1);
                 String expectedJson = mapper.writeValueAsString(helpRequest1);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
         }
         
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_unsolved_helprequest_is_posted_without_a_solved_time() throws Exception {
+                // arrange
+
+                HelpRequest helpRequest1 = HelpRequest.builder()
+                                .requesterEmail("foo@bar.com")
+                                .teamId("10-f24")
+                                .tableOrBreakoutRoom("br10")
+                                .requestTime(LocalDateTime.parse("2024-10-29T00:00:00"))
+                                .explanation("testing")
+                                .solved(false)
+                                .build();
+
+                when(helpRequestRepository.save(eq(helpRequest1))).thenReturn(helpRequest1);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                post("/api/helprequests/post?requesterEmail=foo@bar.com&teamId=10-f24&tableOrBreakoutRoom=br10&requestTime=2024-10-29T00:00:00&explanation=testing&solved=false")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(helpRequestRepository, times(1)).save(helpRequest1);
+                verify(aggregations, times(1)).invalidate(HelpRequest.class);
+                verify(counts, times(1)).invalidate(HelpRequest.class);
+                verify(helpRequestRollups, times(1)).add(helpRequest1);
+                assertEquals(mapper.writeValueAsString(helpRequest1), response.getResponse().getContentAsString());
+        }
+
         @Test
         public void logged_out_users_cannot_get_by_id() throws Exception {
                 mockMvc.perform(get("/api/helprequests?id=7"))
@@ -192,10 +330,50 @@ public class HelpRequestsControllerTests extends ControllerTestCase {
                 // assert
 
                 verify(helpRequestRepository, times(1)).findById(eq(7L));
+                verify(archivedHelpRequestRepository, never()).findById(any());
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("EntityNotFoundException", json.get("type"));
                 assertEquals("HelpRequest with id 7 not found", json.get("message"));
         }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_an_archived_request_by_id() throws Exception {
+
+                // arrange
+
+                when(helpRequestRepository.findById(eq(3L))).thenReturn(Optional.empty());
+                when(archivedHelpRequestRepository.findById(eq(3L))).thenReturn(Optional.of(archived(3L)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/helprequests?id=3&includeArchived=true"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                assertEquals(mapper.writeValueAsString(archived(3L).toHelpRequest()),
+                                response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_by_id_including_archived_when_the_id_does_not_exist() throws Exception {
+
+                // arrange
+
+                when(helpRequestRepository.findById(eq(7L))).thenReturn(Optional.empty());
+                when(archivedHelpRequestRepository.findById(eq(7L))).thenReturn(Optional.empty());
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/helprequests?id=7&includeArchived=true"))
+                                .andExpect(status().isNotFound()).andReturn();
+
+                // assert
+
+                verify(archivedHelpRequestRepository, times(1)).findById(eq(7L));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("HelpRequest with id 7 not found", json.get("message"));
+        }
         
         @WithMockUser(roles = { "ADMIN", "USER" })
         @Test
@@ -224,6 +402,7 @@ public class HelpRequestsControllerTests extends ControllerTestCase {
                                 .build();
 
                 String requestBody = mapper.writeValueAsString(helpRequestEdited);
+                HelpRequest helpRequestBefore = helpRequestOrig.toBuilder().build();
 
                 when(helpRequestRepository.findById(eq(67L))).thenReturn(Optional.of(helpRequestOrig));
 
@@ -239,10 +418,117 @@ public class HelpRequestsControllerTests extends ControllerTestCase {
                 // assert
                 verify(helpRequestRepository, times(1)).findById(67L);
                 verify(helpRequestRepository, times(1)).save(helpRequestEdited); // should be saved with correct user
+                verify(aggregations, times(1)).invalidate(HelpRequest.class);
+                verify(flagIndex, times(1)).add(helpRequestEdited);
+                verify(helpRequestRollups, times(1)).remove(helpRequestBefore);
+                verify(helpRequestRollups, times(1)).add(helpRequestEdited);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(requestBody, responseString);
         }
 
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void solving_a_helprequest_records_when_it_was_solved() throws Exception {
+                // arrange
+
+                HelpRequest helpRequestOrig = HelpRequest.builder()
+                                .id(67L)
+                                .teamId("10-f24")
+                                .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .solved(false)
+                                .build();
+                HelpRequest helpRequestBefore = helpRequestOrig.toBuilder().build();
+                HelpRequest incoming = helpRequestOrig.toBuilder()
+                                .solved(true)
+                                .solvedTime(LocalDateTime.parse("2000-01-01T00:00:00"))
+                                .build();
+
+                when(helpRequestRepository.findById(eq(67L))).thenReturn(Optional.of(helpRequestOrig));
+                LocalDateTime beforePut = LocalDateTime.now();
+
+                // act
+                mockMvc.perform(
+                                put("/api/helprequests?id=67")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(mapper.writeValueAsString(incoming))
+                                                .with(csrf()))
+                                .andExpect(status().isOk());
+
+                // assert
+                assertTrue(helpRequestOrig.getSolved());
+                assertTrue(!helpRequestOrig.getSolvedTime().isBefore(beforePut)
+                                && !helpRequestOrig.getSolvedTime().isAfter(LocalDateTime.now()));
+                verify(helpRequestRepository, times(1)).save(helpRequestOrig);
+                verify(aggregations, times(1)).invalidate(HelpRequest.class);
+                verify(helpRequestRollups, times(1)).remove(helpRequestBefore);
+                verify(helpRequestRollups, times(1)).add(helpRequestOrig);
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void editing_a_solved_helprequest_keeps_when_it_was_solved() throws Exception {
+                // arrange
+
+                LocalDateTime solvedTime = LocalDateTime.parse("2022-01-03T00:10:00");
+                HelpRequest helpRequestOrig = HelpRequest.builder()
+                                .id(67L)
+                                .teamId("10-f24")
+                                .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .explanation("testing")
+                                .solved(true)
+                                .solvedTime(solvedTime)
+                                .build();
+                HelpRequest incoming = helpRequestOrig.toBuilder()
+                                .explanation("edited")
+                                .solvedTime(null)
+                                .build();
+
+                when(helpRequestRepository.findById(eq(67L))).thenReturn(Optional.of(helpRequestOrig));
+
+                // act
+                mockMvc.perform(
+                                put("/api/helprequests?id=67")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(mapper.writeValueAsString(incoming))
+                                                .with(csrf()))
+                                .andExpect(status().isOk());
+
+                // assert
+                assertEquals("edited", helpRequestOrig.getExplanation());
+                assertEquals(solvedTime, helpRequestOrig.getSolvedTime());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void unsolving_a_helprequest_clears_when_it_was_solved() throws Exception {
+                // arrange
+
+                HelpRequest helpRequestOrig = HelpRequest.builder()
+                                .id(67L)
+                                .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .solved(true)
+                                .solvedTime(LocalDateTime.parse("2022-01-03T00:10:00"))
+                                .build();
+                HelpRequest incoming = helpRequestOrig.toBuilder().solved(false).build();
+
+                when(helpRequestRepository.findById(eq(67L))).thenReturn(Optional.of(helpRequestOrig));
+
+                // act
+                mockMvc.perform(
+                                put("/api/helprequests?id=67")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(mapper.writeValueAsString(incoming))
+                                                .with(csrf()))
+                                .andExpect(status().isOk());
+
+                // assert
+                assertEquals(false, helpRequestOrig.getSolved());
+                assertNull(helpRequestOrig.getSolvedTime());
+        }
+
         @WithMockUser(roles = { "ADMIN", "USER" })
         @Test
         public void admin_cannot_edit_helprequest_that_does_not_exist() throws Exception {
@@ -305,7 +591,11 @@ public class HelpRequestsControllerTests extends ControllerTestCase {
 
                 // assert
                 verify(helpRequestRepository, times(1)).findById(15L);
-                verify(helpRequestRepository, times(1)).delete(any());
+                verify(helpRequestRepository, times(1)).delete(any(HelpRequest.class));
+                verify(aggregations, times(1)).invalidate(HelpRequest.class);
+                verify(counts, times(1)).invalidate(HelpRequest.class);
+                verify(flagIndex, times(1)).removeHelpRequest(15L);
+                verify(helpRequestRollups, times(1)).remove(helpRequest1);
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("HelpRequest with id 15 deleted", json.get("message"));
@@ -330,4 +620,502 @@ public class HelpRequestsControllerTests extends ControllerTestCase {
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("HelpRequest with id 15 not found", json.get("message"));
         }
+
+        // Tests for /api/helprequests/flags
+
+        @Test
+        public void logged_out_users_cannot_filter_by_flags() throws Exception {
+                mockMvc.perform(get("/api/helprequests/flags?filter=not solved"))
+                                .andExpect(status().is(403));
+                mockMvc.perform(get("/api/helprequests/flags/count?filter=not solved"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_filter_by_flags() throws Exception {
+                // arrange
+
+                FlagIndex<Long, HelpRequest> index = new FlagIndex<>(Map.of("solved", HelpRequest::getSolved));
+                HelpRequest solved = HelpRequest.builder().id(1L).solved(true).build();
+                HelpRequest unsolved = HelpRequest.builder().id(2L).solved(false).build();
+                index.put(1L, solved);
+                index.put(2L, unsolved);
+                List<HelpRequest> expected = List.of(unsolved);
+                when(flagIndex.getHelpRequests()).thenReturn(index);
+                when(helpRequestRepository.findAllById(eq(List.of(2L)))).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/helprequests/flags?filter=not solved"))
+                                .andExpect(status().isOk()).andReturn();
+                MvcResult countResponse = mockMvc.perform(get("/api/helprequests/flags/count?filter=not solved"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(helpRequestRepository, times(1)).findAllById(List.of(2L));
+                String expectedJson = mapper.writeValueAsString(expected);
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+                assertEquals(expected.size(), responseToJson(countResponse).get("count"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void bad_flag_filter_gets_bad_request() throws Exception {
+                // arrange
+
+                FlagIndex<Long, HelpRequest> index = new FlagIndex<>(Map.of("solved", HelpRequest::getSolved));
+                when(flagIndex.getHelpRequests()).thenReturn(index);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/helprequests/flags/count?filter=bogus"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("BadRequestException", json.get("type"));
+                assertEquals("Unknown flag 'bogus'; expected one of %s".formatted(index.getFlags()), json.get("message"));
+        }
+
+        // Tests for /api/helprequests/stats
+
+        @Test
+        public void logged_out_users_cannot_get_stats() throws Exception {
+                mockMvc.perform(get("/api/helprequests/stats?from=2024-10-29T00:00:00&to=2024-10-30T00:00:00"))
+                                .andExpect(status().is(403));
+                mockMvc.perform(get("/api/helprequests/stats/teams?from=2024-10-29T00:00:00&to=2024-10-30T00:00:00"))
+                                .andExpect(status().is(403));
+                mockMvc.perform(get("/api/helprequests/stats/hours?from=2024-10-29T00:00:00&to=2024-10-30T00:00:00"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_stats() throws Exception {
+                // arrange
+
+                LocalDateTime from = LocalDateTime.parse("2024-10-29T00:00:00");
+                LocalDateTime to = LocalDateTime.parse("2024-10-30T00:00:00");
+                HelpRequestStats all = HelpRequestStats.builder().from(from).to(to).requests(3).solved(2)
+                                .medianSolveSeconds(60L).p90SolveSeconds(600L).p99SolveSeconds(600L).build();
+                HelpRequestStats team = HelpRequestStats.builder().teamId("10-f24").from(from).to(to).requests(1)
+                                .build();
+                when(helpRequestRollups.totals(from, to, null)).thenReturn(all);
+                when(helpRequestRollups.totals(from, to, "10-f24")).thenReturn(team);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/helprequests/stats?from=2024-10-29T00:00:00&to=2024-10-30T00:00:00"))
+                                .andExpect(status().isOk()).andReturn();
+                MvcResult teamResponse = mockMvc.perform(get("/api/helprequests/stats?from=2024-10-29T00:00:00&to=2024-10-30T00:00:00&teamId=10-f24"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                assertEquals(mapper.writeValueAsString(all), response.getResponse().getContentAsString());
+                assertEquals(mapper.writeValueAsString(team), teamResponse.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_stats_by_team_and_hour() throws Exception {
+                // arrange
+
+                LocalDateTime from = LocalDateTime.parse("2024-10-29T00:00:00");
+                LocalDateTime to = LocalDateTime.parse("2024-10-30T00:00:00");
+                List<HelpRequestStats> teams = List.of(
+                                HelpRequestStats.builder().teamId("10-f24").from(from).to(to).requests(2).build(),
+                                HelpRequestStats.builder().teamId("11-f24").from(from).to(to).requests(1).build());
+                List<HelpRequestStats> hours = List.of(
+                                HelpRequestStats.builder().teamId("10-f24").from(from).to(from.plusHours(1)).requests(2).build());
+                when(helpRequestRollups.byTeam(from, to)).thenReturn(teams);
+                when(helpRequestRollups.byHour(from, to, "10-f24")).thenReturn(hours);
+
+                // act
+                MvcResult teamsResponse = mockMvc.perform(get("/api/helprequests/stats/teams?from=2024-10-29T00:00:00&to=2024-10-30T00:00:00"))
+                                .andExpect(status().isOk()).andReturn();
+                MvcResult hoursResponse = mockMvc.perform(get("/api/helprequests/stats/hours?from=2024-10-29T00:00:00&to=2024-10-30T00:00:00&teamId=10-f24"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                assertEquals(mapper.writeValueAsString(teams), teamsResponse.getResponse().getContentAsString());
+                assertEquals(mapper.writeValueAsString(hours), hoursResponse.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void bad_stats_range_gets_bad_request() throws Exception {
+                // arrange
+
+                LocalDateTime from = LocalDateTime.parse("2024-10-30T00:00:00");
+                LocalDateTime to = LocalDateTime.parse("2024-10-29T00:00:00");
+                when(helpRequestRollups.byHour(from, to, null)).thenThrow(new BadRequestException("to must be after from"));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/helprequests/stats/hours?from=2024-10-30T00:00:00&to=2024-10-29T00:00:00"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("BadRequestException", json.get("type"));
+                assertEquals("to must be after from", json.get("message"));
+        }
+
+        // Tests for /api/helprequests/all?from=...&to=...
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_list_help_requests_made_in_a_range() throws Exception {
+
+                // arrange
+
+                LocalDateTime from = LocalDateTime.parse("2024-04-01T00:00:00");
+                LocalDateTime to = LocalDateTime.parse("2024-11-01T00:00:00");
+                HelpRequest hot = HelpRequest.builder()
+                                .id(9L)
+                                .requesterEmail("foo@bar.com")
+                                .teamId("10-f24")
+                                .requestTime(LocalDateTime.parse("2024-10-29T00:00:00"))
+                                .solved(false)
+                                .build();
+                when(helpRequestRepository.findByRequestTimeGreaterThanEqualAndRequestTimeLessThanOrderByRequestTimeAscIdAsc(from, to))
+                                .thenReturn(List.of(hot));
+                when(archivedHelpRequestRepository.findByRequestTimeGreaterThanEqualAndRequestTimeLessThanOrderByRequestTimeAscIdAsc(from, to))
+                                .thenReturn(List.of(archived(3L)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/helprequests/all?from=2024-04-01T00:00:00&to=2024-11-01T00:00:00"))
+                                .andExpect(status().isOk()).andReturn();
+                MvcResult withArchived = mockMvc.perform(get("/api/helprequests/all?from=2024-04-01T00:00:00&to=2024-11-01T00:00:00&includeArchived=true"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(helpRequestRepository, never()).findAll();
+                verify(archivedHelpRequestRepository, never()).findAll();
+                assertEquals(mapper.writeValueAsString(List.of(hot)), response.getResponse().getContentAsString());
+                assertEquals(mapper.writeValueAsString(List.of(hot, archived(3L).toHelpRequest())),
+                                withArchived.getResponse().getContentAsString());
+        }
+
+        // Tests for /api/helprequests/all?filter=...&sort=...
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_filter_and_sort_help_requests() throws Exception {
+
+                // arrange
+
+                List<HelpRequest> expected = List.of(HelpRequest.builder()
+                                .id(4L)
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .teamId("s22-5pm-3")
+                                .tableOrBreakoutRoom("7")
+                                .requestTime(LocalDateTime.parse("2024-10-15T12:00:00"))
+                                .explanation("filtered")
+                                .solved(false)
+                                .build());
+                when(helpRequestRepository.findAll(any(Specification.class), eq(Sort.by(Sort.Order.desc("requestTime"), Sort.Order.asc("id")))))
+                                .thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/helprequests/all?filter=teamId:eq:s22-5pm-3,solved:eq:false&sort=-requestTime"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(helpRequestRepository, times(0)).findAll();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void an_invalid_filter_is_a_bad_request() throws Exception {
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/helprequests/all?filter=solved:lt:true"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                verify(helpRequestRepository, times(0)).findAll(any(Specification.class), any(Sort.class));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("BadRequestException", json.get("type"));
+                assertEquals("lt cannot be used on solved", json.get("message"));
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void a_filter_is_combined_with_the_range() throws Exception {
+
+                // arrange
+
+                ArgumentCaptor<Specification<HelpRequest>> where = ArgumentCaptor.forClass(Specification.class);
+                Root root = mock(Root.class);
+                Path path = mock(Path.class);
+                CriteriaBuilder cb = mock(CriteriaBuilder.class);
+                when(root.get(anyString())).thenReturn(path);
+
+                // act
+                mockMvc.perform(get("/api/helprequests/all?filter=solved:eq:true&to=2024-10-01T00:00:00")).andExpect(status().isOk());
+
+                // assert
+                verify(helpRequestRepository, times(1)).findAll(where.capture(), eq(Sort.by(Sort.Order.asc("id"))));
+                where.getValue().toPredicate(root, null, cb);
+                verify(cb, times(1)).equal(path, true);
+                verify(root, times(2)).get("requestTime");
+                verify(cb, times(1)).lessThan(path, (Comparable) LocalDateTime.parse("2024-10-01T00:00:00"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void archived_requests_cannot_be_filtered() throws Exception {
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/helprequests/all?includeArchived=true&sort=teamId"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                verify(helpRequestRepository, times(0)).findAll(any(Specification.class), any(Sort.class));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("includeArchived cannot be combined with filter or sort", json.get("message"));
+        }
+
+        // Tests for /api/helprequests/aggregate
+
+        @Test
+        public void logged_out_users_cannot_aggregate() throws Exception {
+                mockMvc.perform(get("/api/helprequests/aggregate"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_aggregate() throws Exception {
+                mockMvc.perform(get("/api/helprequests/aggregate"))
+                                .andExpect(status().is(403)); // only admins can aggregate
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_admin_can_aggregate_help_requests() throws Exception {
+
+                // arrange
+
+                ArgumentCaptor<EntityAggregation.Query<HelpRequest>> query = ArgumentCaptor.forClass(EntityAggregation.Query.class);
+                List<AggregateRow> rows = List.of(AggregateRow.builder().group(Map.of()).values(Map.of("count", 2)).build());
+                when(aggregations.aggregate(eq(helpRequestRepository), any(EntityAggregation.Query.class))).thenReturn(rows);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/helprequests/aggregate?groupBy=teamId,solved&metrics=count,max:requestTime&filter=solved:eq:false"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(aggregations, times(1)).aggregate(eq(helpRequestRepository), query.capture());
+                assertEquals("teamId,solved|count,max:requestTime|solved:eq:false", query.getValue().key());
+                assertEquals(mapper.writeValueAsString(rows), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_invalid_aggregate_is_a_bad_request() throws Exception {
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/helprequests/aggregate?metrics=avg:requestTime"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                verify(aggregations, times(0)).aggregate(any(), any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("BadRequestException", json.get("type"));
+                assertEquals("avg cannot be used on requestTime", json.get("message"));
+        }
+
+        // Tests for GET /api/helprequests?ids=...
+
+        @Test
+        public void logged_out_users_cannot_get_by_ids() throws Exception {
+                mockMvc.perform(get("/api/helprequests?ids=1"))
+                                .andExpect(status().is(403)); // logged out users can't get by ids
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_several_help_requests_by_id() throws Exception {
+
+                // arrange
+
+                HelpRequest first = HelpRequest.builder().id(1L).build();
+                HelpRequest third = HelpRequest.builder().id(3L).build();
+                when(helpRequestRepository.findAllById(List.of(3L, 1L, 2L))).thenReturn(List.of(first, third));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/helprequests?ids=3,1,2,1"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(helpRequestRepository, times(1)).findAllById(List.of(3L, 1L, 2L));
+                EntityBatch<HelpRequest, Long> expected = EntityBatch.<HelpRequest, Long>builder()
+                                .items(List.of(third, first))
+                                .missingIds(List.of(2L))
+                                .build();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_several_archived_requests_by_id() throws Exception {
+
+                // arrange
+
+                HelpRequest hot = HelpRequest.builder().id(1L).build();
+                ArchivedHelpRequest archived = ArchivedHelpRequest.builder().id(2L).build();
+                when(helpRequestRepository.findAllById(List.of(2L, 1L, 3L))).thenReturn(List.of(hot));
+                when(archivedHelpRequestRepository.findAllById(List.of(2L, 1L, 3L))).thenReturn(List.of(archived));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/helprequests?ids=2,1,3&includeArchived=true"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                EntityBatch<HelpRequest, Long> expected = EntityBatch.<HelpRequest, Long>builder()
+                                .items(List.of(archived.toHelpRequest(), hot))
+                                .missingIds(List.of(3L))
+                                .build();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void the_archive_is_not_searched_when_all_ids_are_found() throws Exception {
+
+                // arrange
+
+                HelpRequest hot = HelpRequest.builder().id(1L).build();
+                when(helpRequestRepository.findAllById(List.of(1L))).thenReturn(List.of(hot));
+
+                // act
+                mockMvc.perform(get("/api/helprequests?ids=1&includeArchived=true"))
+                                .andExpect(status().isOk());
+
+                // assert
+                verify(archivedHelpRequestRepository, times(0)).findAllById(any());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void the_archive_is_not_searched_unless_asked() throws Exception {
+
+                // act
+                mockMvc.perform(get("/api/helprequests?ids=1"))
+                                .andExpect(status().isOk());
+
+                // assert
+                verify(helpRequestRepository, times(1)).findAllById(List.of(1L));
+                verify(archivedHelpRequestRepository, times(0)).findAllById(any());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void more_ids_than_the_limit_are_a_bad_request() throws Exception {
+
+                // arrange
+
+                String ids = LongStream.rangeClosed(1, 101).mapToObj(Long::toString).collect(Collectors.joining(","));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/helprequests?ids=" + ids))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                verify(helpRequestRepository, times(0)).findAllById(any());
+                assertEquals("At most 100 ids can be asked for at once", responseToJson(response).get("message"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void the_limit_counts_distinct_ids() throws Exception {
+
+                // arrange
+
+                String ids = "1," + "2,".repeat(100) + "3";
+
+                // act
+                mockMvc.perform(get("/api/helprequests?ids=" + ids))
+                                .andExpect(status().isOk());
+
+                // assert
+                verify(helpRequestRepository, times(1)).findAllById(List.of(1L, 2L, 3L));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void empty_or_blank_ids_are_a_bad_request() throws Exception {
+
+                // act
+                MvcResult empty = mockMvc.perform(get("/api/helprequests?ids="))
+                                .andExpect(status().isBadRequest()).andReturn();
+                MvcResult blank = mockMvc.perform(get("/api/helprequests?ids=1,,2"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                verify(helpRequestRepository, times(0)).findAllById(any());
+                assertEquals("ids must be a list of ids separated by commas", responseToJson(empty).get("message"));
+                assertEquals("ids must be a list of ids separated by commas", responseToJson(blank).get("message"));
+        }
+
+        // Tests for /api/helprequests/count
+
+        @Test
+        public void logged_out_users_cannot_count() throws Exception {
+                mockMvc.perform(get("/api/helprequests/count"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_count_all() throws Exception {
+
+                // arrange
+                EntityCount expected = EntityCount.builder().count(123456).approximate(true).build();
+                when(counts.count(HelpRequest.class, helpRequestRepository, true)).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/helprequests/count?approximate=true"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(helpRequestRepository, times(0)).findAll();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @SuppressWarnings("unchecked")
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_count_those_that_match_a_filter() throws Exception {
+
+                // arrange
+                when(helpRequestRepository.count(any(Specification.class))).thenReturn(2L);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/helprequests/count?filter=solved:eq:false&approximate=true"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(counts, times(0)).count(any(), any(), anyBoolean());
+                assertEquals("{\"count\":2,\"approximate\":false}", response.getResponse().getContentAsString());
+        }
+
+        @SuppressWarnings("unchecked")
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_count_those_in_a_range() throws Exception {
+
+                // arrange
+                when(helpRequestRepository.count(any(Specification.class))).thenReturn(3L);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/helprequests/count?from=2024-09-01T00:00:00"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(counts, times(0)).count(any(), any(), anyBoolean());
+                assertEquals("{\"count\":3,\"approximate\":false}", response.getResponse().getContentAsString());
+        }
 }
@@ -5,13 +5,25 @@ import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
 import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.helpers.EntityAggregation;
+import edu.ucsb.cs156.example.models.AggregateRow;
+import edu.ucsb.cs156.example.models.EntityBatch;
+import edu.ucsb.cs156.example.models.EntityCount;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
 
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
@@ -29,7 +41,10 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -44,6 +59,9 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
     @MockBean
     MenuItemReviewRepository menuItemReviewRepository;
 
+    @MockBean
+    UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
+
     @MockBean
     UserRepository userRepository;
 
@@ -198,6 +216,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                                 .dateReviewed(ldt1)
                                 .build();
 
+                when(ucsbDiningCommonsMenuItemRepository.existsById(eq(1L))).thenReturn(true);
                 when(menuItemReviewRepository.save(eq(menuItemReview1))).thenReturn(menuItemReview1);
 
                 // act
@@ -208,11 +227,32 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
 
                 // assert
                 verify(menuItemReviewRepository, times(1)).save(menuItemReview1);
+                verify(aggregations, times(1)).invalidate(MenuItemReview.class);
+                verify(counts, times(1)).invalidate(MenuItemReview.class);
                 String expectedJson = mapper.writeValueAsString(menuItemReview1);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_admin_user_cannot_post_a_review_of_a_menu_item_that_does_not_exist() throws Exception {
+                // arrange
+
+                when(ucsbDiningCommonsMenuItemRepository.existsById(eq(1L))).thenReturn(false);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                post("/api/menuitemreview/post?itemId=1&reviewerEmail=test1@gmail.com&stars=3&comments=okay&dateReviewed=2022-01-03T00:00:00")
+                                                .with(csrf()))
+                                .andExpect(status().isNotFound()).andReturn();
+
+                // assert
+                verify(menuItemReviewRepository, times(0)).save(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("UCSBDiningCommonsMenuItem with id 1 not found", json.get("message"));
+        }
+
         //delete
 
         @WithMockUser(roles = { "ADMIN", "USER" })
@@ -235,7 +275,9 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
                 // assert
                 verify(menuItemReviewRepository, times(1)).findById(15L);
-                verify(menuItemReviewRepository, times(1)).delete(any());
+                verify(menuItemReviewRepository, times(1)).delete(any(MenuItemReview.class));
+                verify(aggregations, times(1)).invalidate(MenuItemReview.class);
+                verify(counts, times(1)).invalidate(MenuItemReview.class);
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("menuitemreview with id 15 deleted", json.get("message"));
         }
@@ -287,6 +329,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                 String requestBody = mapper.writeValueAsString(menuItemReviewEdited);
 
                 when(menuItemReviewRepository.findById(eq(67L))).thenReturn(Optional.of(menuItemReviewOrig));
+                when(ucsbDiningCommonsMenuItemRepository.existsById(eq(2L))).thenReturn(true);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -300,10 +343,54 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                 // assert
                 verify(menuItemReviewRepository, times(1)).findById(67L);
                 verify(menuItemReviewRepository, times(1)).save(menuItemReviewEdited); // should be saved with correct user
+                verify(aggregations, times(1)).invalidate(MenuItemReview.class);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(requestBody, responseString);
         }
 
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_cannot_edit_a_review_to_refer_to_a_menu_item_that_does_not_exist() throws Exception {
+                // arrange
+
+                LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
+
+                MenuItemReview menuItemReviewOrig = MenuItemReview.builder()
+                                .itemId(1)
+                                .reviewerEmail("test1@gmail.com")
+                                .stars(3)
+                                .comments("okay")
+                                .dateReviewed(ldt1)
+                                .build();
+
+                MenuItemReview menuItemReviewEdited = MenuItemReview.builder()
+                                .itemId(2)
+                                .reviewerEmail("test1@gmail.com")
+                                .stars(3)
+                                .comments("okay")
+                                .dateReviewed(ldt1)
+                                .build();
+
+                String requestBody = mapper.writeValueAsString(menuItemReviewEdited);
+
+                when(menuItemReviewRepository.findById(eq(67L))).thenReturn(Optional.of(menuItemReviewOrig));
+                when(ucsbDiningCommonsMenuItemRepository.existsById(eq(2L))).thenReturn(false);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                put("/api/menuitemreview?id=67")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isNotFound()).andReturn();
+
+                // assert
+                verify(menuItemReviewRepository, times(0)).save(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("UCSBDiningCommonsMenuItem with id 2 not found", json.get("message"));
+        }
+
         @WithMockUser(roles = { "ADMIN", "USER" })
         @Test
         public void admin_cannot_edit_ucsbdate_that_does_not_exist() throws Exception {
@@ -339,4 +426,244 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
 
         }
 
-}
\ No newline at end of file
+    // Tests for /api/menuitemreview/all?from=...&to=...
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_list_reviews_made_in_a_range() throws Exception {
+
+        // arrange
+
+        LocalDateTime from = LocalDateTime.parse("2024-10-01T00:00:00");
+        LocalDateTime to = LocalDateTime.parse("2024-11-01T00:00:00");
+        List<MenuItemReview> expected = List.of(MenuItemReview.builder()
+                .id(4L)
+                .itemId(7L)
+                .reviewerEmail("foo@ucsb.edu")
+                .stars(5)
+                .dateReviewed(LocalDateTime.parse("2024-10-15T12:00:00"))
+                .comments("great")
+                .build());
+        when(menuItemReviewRepository.findByDateReviewedGreaterThanEqualAndDateReviewedLessThanOrderByDateReviewedAscIdAsc(from, to))
+                .thenReturn(expected);
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/menuitemreview/all?from=2024-10-01T00:00:00&to=2024-11-01T00:00:00"))
+                .andExpect(status().isOk()).andReturn();
+        mockMvc.perform(get("/api/menuitemreview/all?from=2024-10-01T00:00:00")).andExpect(status().isOk());
+
+        // assert
+        verify(menuItemReviewRepository, times(0)).findAll();
+        verify(menuItemReviewRepository, times(1))
+                .findByDateReviewedGreaterThanEqualAndDateReviewedLessThanOrderByDateReviewedAscIdAsc(from, ApiController.LATEST);
+        assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+    }
+
+    // Tests for /api/menuitemreview/all?filter=...&sort=...
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_filter_and_sort_reviews() throws Exception {
+
+        // arrange
+
+        List<MenuItemReview> expected = List.of(MenuItemReview.builder()
+                .id(4L)
+                .itemId(7L)
+                .reviewerEmail("foo@ucsb.edu")
+                .stars(5)
+                .dateReviewed(LocalDateTime.parse("2024-10-15T12:00:00"))
+                .comments("great")
+                .build());
+        when(menuItemReviewRepository.findAll(any(Specification.class), eq(Sort.by(Sort.Order.desc("stars"), Sort.Order.asc("dateReviewed"), Sort.Order.asc("id")))))
+                .thenReturn(expected);
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/menuitemreview/all?filter=itemId:eq:7,stars:ge:4&sort=-stars,dateReviewed"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(menuItemReviewRepository, times(0)).findAll();
+        assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void an_invalid_filter_is_a_bad_request() throws Exception {
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/menuitemreview/all?filter=stars:ge:many"))
+                .andExpect(status().isBadRequest()).andReturn();
+
+        // assert
+        verify(menuItemReviewRepository, times(0)).findAll(any(Specification.class), any(Sort.class));
+        Map<String, Object> json = responseToJson(response);
+        assertEquals("BadRequestException", json.get("type"));
+        assertEquals("'many' is not a valid value for stars", json.get("message"));
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void a_filter_is_combined_with_the_range() throws Exception {
+
+        // arrange
+
+        ArgumentCaptor<Specification<MenuItemReview>> where = ArgumentCaptor.forClass(Specification.class);
+        Root root = mock(Root.class);
+        Path path = mock(Path.class);
+        CriteriaBuilder cb = mock(CriteriaBuilder.class);
+        when(root.get(anyString())).thenReturn(path);
+
+        // act
+        mockMvc.perform(get("/api/menuitemreview/all?filter=itemId:eq:7&to=2024-10-01T00:00:00")).andExpect(status().isOk());
+
+        // assert
+        verify(menuItemReviewRepository, times(1)).findAll(where.capture(), eq(Sort.by(Sort.Order.asc("id"))));
+        where.getValue().toPredicate(root, null, cb);
+        verify(cb, times(1)).equal(path, 7L);
+        verify(root, times(2)).get("dateReviewed");
+        verify(cb, times(1)).lessThan(path, (Comparable) LocalDateTime.parse("2024-10-01T00:00:00"));
+    }
+
+    // Tests for /api/menuitemreview/aggregate
+
+    @Test
+    public void logged_out_users_cannot_aggregate() throws Exception {
+        mockMvc.perform(get("/api/menuitemreview/aggregate"))
+                .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_regular_users_cannot_aggregate() throws Exception {
+        mockMvc.perform(get("/api/menuitemreview/aggregate"))
+                .andExpect(status().is(403)); // only admins can aggregate
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void an_admin_can_aggregate_reviews() throws Exception {
+
+        // arrange
+
+        ArgumentCaptor<EntityAggregation.Query<MenuItemReview>> query = ArgumentCaptor.forClass(EntityAggregation.Query.class);
+        List<AggregateRow> rows = List.of(AggregateRow.builder().group(Map.of()).values(Map.of("count", 2)).build());
+        when(aggregations.aggregate(eq(menuItemReviewRepository), any(EntityAggregation.Query.class))).thenReturn(rows);
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/menuitemreview/aggregate?groupBy=itemId&metrics=count,avg:stars"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(aggregations, times(1)).aggregate(eq(menuItemReviewRepository), query.capture());
+        assertEquals("itemId|count,avg:stars|", query.getValue().key());
+        assertEquals(mapper.writeValueAsString(rows), response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void an_invalid_aggregate_is_a_bad_request() throws Exception {
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/menuitemreview/aggregate?groupBy=itemId,itemId"))
+                .andExpect(status().isBadRequest()).andReturn();
+
+        // assert
+        verify(aggregations, times(0)).aggregate(any(), any());
+        Map<String, Object> json = responseToJson(response);
+        assertEquals("BadRequestException", json.get("type"));
+        assertEquals("'itemId' is grouped by twice", json.get("message"));
+    }
+
+    // Tests for GET /api/menuitemreview?ids=...
+
+    @Test
+    public void logged_out_users_cannot_get_by_ids() throws Exception {
+        mockMvc.perform(get("/api/menuitemreview?ids=1"))
+                .andExpect(status().is(403)); // logged out users can't get by ids
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_several_reviews_by_id() throws Exception {
+
+        // arrange
+
+        MenuItemReview first = MenuItemReview.builder().id(1L).build();
+        MenuItemReview third = MenuItemReview.builder().id(3L).build();
+        when(menuItemReviewRepository.findAllById(List.of(3L, 1L, 2L))).thenReturn(List.of(first, third));
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/menuitemreview?ids=3,1,2,1"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(menuItemReviewRepository, times(1)).findAllById(List.of(3L, 1L, 2L));
+        EntityBatch<MenuItemReview, Long> expected = EntityBatch.<MenuItemReview, Long>builder()
+                .items(List.of(third, first))
+                .missingIds(List.of(2L))
+                .build();
+        assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+    }
+
+        // Tests for /api/menuitemreview/count
+
+        @Test
+        public void logged_out_users_cannot_count() throws Exception {
+                mockMvc.perform(get("/api/menuitemreview/count"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_count_all() throws Exception {
+
+                // arrange
+                EntityCount expected = EntityCount.builder().count(123456).approximate(true).build();
+                when(counts.count(MenuItemReview.class, menuItemReviewRepository, true)).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/menuitemreview/count?approximate=true"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(menuItemReviewRepository, times(0)).findAll();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @SuppressWarnings("unchecked")
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_count_those_that_match_a_filter() throws Exception {
+
+                // arrange
+                when(menuItemReviewRepository.count(any(Specification.class))).thenReturn(2L);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/menuitemreview/count?filter=stars:ge:4&approximate=true"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(counts, times(0)).count(any(), any(), anyBoolean());
+                assertEquals("{\"count\":2,\"approximate\":false}", response.getResponse().getContentAsString());
+        }
+
+        @SuppressWarnings("unchecked")
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_count_those_in_a_range() throws Exception {
+
+                // arrange
+                when(menuItemReviewRepository.count(any(Specification.class))).thenReturn(3L);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/menuitemreview/count?from=2024-09-01T00:00:00"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(counts, times(0)).count(any(), any(), anyBoolean());
+                assertEquals("{\"count\":3,\"approximate\":false}", response.getResponse().getContentAsString());
+        }
+}
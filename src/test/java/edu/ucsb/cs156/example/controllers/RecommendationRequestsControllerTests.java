@@ -5,13 +5,28 @@ import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
 import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.helpers.EntityAggregation;
+import edu.ucsb.cs156.example.models.AggregateRow;
+import edu.ucsb.cs156.example.models.EntityBatch;
+import edu.ucsb.cs156.example.models.EntityCount;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.services.FlagIndexService;
+import edu.ucsb.cs156.example.services.RecommendationDeadlineService;
+import edu.ucsb.cs156.example.services.RecommendationReminderService;
+import edu.ucsb.cs156.example.structures.FlagIndex;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
@@ -29,7 +44,11 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -42,6 +61,15 @@ public class RecommendationRequestsControllerTests extends ControllerTestCase {
     @MockBean
         RecommendationRequestRepository recommendationRequestRepository;
 
+        @MockBean
+        FlagIndexService flagIndex;
+
+        @MockBean
+        RecommendationDeadlineService recommendationDeadlines;
+
+        @MockBean
+        RecommendationReminderService recommendationReminders;
+
         @MockBean
         UserRepository userRepository;
 
@@ -205,6 +233,11 @@ public class RecommendationRequestsControllerTests extends ControllerTestCase {
 
             // assert
             verify(recommendationRequestRepository, times(1)).save(recommendationRequest1);
+            verify(aggregations, times(1)).invalidate(RecommendationRequest.class);
+            verify(counts, times(1)).invalidate(RecommendationRequest.class);
+            verify(flagIndex, times(1)).add(recommendationRequest1);
+            verify(recommendationDeadlines, times(1)).add(recommendationRequest1);
+            verify(recommendationReminders, times(1)).add(recommendationRequest1);
             String expectedJson = mapper.writeValueAsString(recommendationRequest1);
             String responseString = response.getResponse().getContentAsString();
             assertEquals(expectedJson, responseString);
@@ -255,6 +288,10 @@ public class RecommendationRequestsControllerTests extends ControllerTestCase {
                 // assert
                 verify(recommendationRequestRepository, times(1)).findById(67L);
                 verify(recommendationRequestRepository, times(1)).save(recRequestEdited); // should be saved with correct user
+                verify(aggregations, times(1)).invalidate(RecommendationRequest.class);
+                verify(flagIndex, times(1)).add(recRequestEdited);
+                verify(recommendationDeadlines, times(1)).add(recRequestEdited);
+                verify(recommendationReminders, times(1)).add(recRequestEdited);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(requestBody, responseString);
         }
@@ -324,7 +361,12 @@ public class RecommendationRequestsControllerTests extends ControllerTestCase {
 
                 // assert
                 verify(recommendationRequestRepository, times(1)).findById(15L);
-                verify(recommendationRequestRepository, times(1)).delete(any());
+                verify(recommendationRequestRepository, times(1)).delete(any(RecommendationRequest.class));
+                verify(aggregations, times(1)).invalidate(RecommendationRequest.class);
+                verify(counts, times(1)).invalidate(RecommendationRequest.class);
+                verify(flagIndex, times(1)).removeRecommendationRequest(15L);
+                verify(recommendationDeadlines, times(1)).remove(15L);
+                verify(recommendationReminders, times(1)).remove(15L);
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("RecommendationRequest with id 15 deleted", json.get("message"));
@@ -350,4 +392,494 @@ public class RecommendationRequestsControllerTests extends ControllerTestCase {
                 assertEquals("RecommendationRequest with id 15 not found", json.get("message"));
         }
 
-}
\ No newline at end of file
+        // Tests for /api/recommendationrequests/flags
+
+        @Test
+        public void logged_out_users_cannot_filter_by_flags() throws Exception {
+                mockMvc.perform(get("/api/recommendationrequests/flags?filter=done"))
+                                .andExpect(status().is(403));
+                mockMvc.perform(get("/api/recommendationrequests/flags/count?filter=done"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_filter_by_flags() throws Exception {
+                // arrange
+
+                FlagIndex<Long, RecommendationRequest> index = new FlagIndex<>(Map.of("done", RecommendationRequest::getDone));
+                RecommendationRequest done = RecommendationRequest.builder().id(1L).done(true).build();
+                RecommendationRequest notDone = RecommendationRequest.builder().id(2L).done(false).build();
+                index.put(1L, done);
+                index.put(2L, notDone);
+                List<RecommendationRequest> expected = List.of(done);
+                when(flagIndex.getRecommendationRequests()).thenReturn(index);
+                when(recommendationRequestRepository.findAllById(eq(List.of(1L)))).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/recommendationrequests/flags?filter=done"))
+                                .andExpect(status().isOk()).andReturn();
+                MvcResult countResponse = mockMvc.perform(get("/api/recommendationrequests/flags/count?filter=done"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(recommendationRequestRepository, times(1)).findAllById(List.of(1L));
+                String expectedJson = mapper.writeValueAsString(expected);
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+                assertEquals(expected.size(), responseToJson(countResponse).get("count"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void bad_flag_filter_gets_bad_request() throws Exception {
+                // arrange
+
+                FlagIndex<Long, RecommendationRequest> index = new FlagIndex<>(Map.of("done", RecommendationRequest::getDone));
+                when(flagIndex.getRecommendationRequests()).thenReturn(index);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/recommendationrequests/flags/count?filter=bogus"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("BadRequestException", json.get("type"));
+                assertEquals("Unknown flag 'bogus'; expected one of %s".formatted(index.getFlags()), json.get("message"));
+        }
+
+        // Tests for /api/recommendationrequests/upcoming, /overdue and /professor
+
+        @Test
+        public void logged_out_users_cannot_get_deadline_lists() throws Exception {
+                mockMvc.perform(get("/api/recommendationrequests/upcoming"))
+                                .andExpect(status().is(403));
+                mockMvc.perform(get("/api/recommendationrequests/overdue"))
+                                .andExpect(status().is(403));
+                mockMvc.perform(get("/api/recommendationrequests/professor?professorEmail=phtcon@ucsb.edu"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_requests_due_in_the_next_seven_days() throws Exception {
+                // arrange
+
+                RecommendationRequest dueSoon = RecommendationRequest.builder()
+                                .id(1L)
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .professorEmail("phtcon@ucsb.edu")
+                                .explanation("BS/MS program")
+                                .dateRequested(LocalDateTime.parse("2022-04-20T00:00:00"))
+                                .dateNeeded(LocalDateTime.now().plusDays(2))
+                                .done(false)
+                                .build();
+
+                when(recommendationDeadlines.upcoming(any(), any(), isNull())).thenReturn(List.of(dueSoon));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/recommendationrequests/upcoming"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                ArgumentCaptor<LocalDateTime> start = ArgumentCaptor.forClass(LocalDateTime.class);
+                ArgumentCaptor<LocalDateTime> end = ArgumentCaptor.forClass(LocalDateTime.class);
+                verify(recommendationDeadlines, times(1)).upcoming(start.capture(), end.capture(), isNull());
+                assertEquals(start.getValue().plusDays(7), end.getValue());
+                String expectedJson = mapper.writeValueAsString(List.of(dueSoon));
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void upcoming_days_are_clamped_and_can_be_limited_to_a_professor() throws Exception {
+                // act
+                mockMvc.perform(get("/api/recommendationrequests/upcoming?days=1000&professorEmail=phtcon@ucsb.edu"))
+                                .andExpect(status().isOk());
+                mockMvc.perform(get("/api/recommendationrequests/upcoming?days=0&professorEmail=phtcon@ucsb.edu"))
+                                .andExpect(status().isOk());
+
+                // assert
+                ArgumentCaptor<LocalDateTime> start = ArgumentCaptor.forClass(LocalDateTime.class);
+                ArgumentCaptor<LocalDateTime> end = ArgumentCaptor.forClass(LocalDateTime.class);
+                verify(recommendationDeadlines, times(2)).upcoming(start.capture(), end.capture(), eq("phtcon@ucsb.edu"));
+                assertEquals(start.getAllValues().get(0).plusDays(365), end.getAllValues().get(0));
+                assertEquals(start.getAllValues().get(1).plusDays(1), end.getAllValues().get(1));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_overdue_requests() throws Exception {
+                // arrange
+
+                RecommendationRequest overdue = RecommendationRequest.builder()
+                                .id(1L)
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .professorEmail("phtcon@ucsb.edu")
+                                .explanation("BS/MS program")
+                                .dateRequested(LocalDateTime.parse("2022-04-20T00:00:00"))
+                                .dateNeeded(LocalDateTime.parse("2022-05-01T00:00:00"))
+                                .done(false)
+                                .build();
+
+                when(recommendationRequestRepository.findByDoneFalseAndDateNeededBeforeOrderByDateNeededAscIdAsc(any()))
+                                .thenReturn(List.of(overdue));
+                when(recommendationRequestRepository.findByProfessorEmailAndDoneFalseAndDateNeededBeforeOrderByDateNeededAscIdAsc(eq("phtcon@ucsb.edu"), any()))
+                                .thenReturn(List.of(overdue));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/recommendationrequests/overdue"))
+                                .andExpect(status().isOk()).andReturn();
+                MvcResult professorResponse = mockMvc.perform(get("/api/recommendationrequests/overdue?professorEmail=phtcon@ucsb.edu"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(recommendationRequestRepository, times(1)).findByDoneFalseAndDateNeededBeforeOrderByDateNeededAscIdAsc(any());
+                verify(recommendationRequestRepository, times(1)).findByProfessorEmailAndDoneFalseAndDateNeededBeforeOrderByDateNeededAscIdAsc(eq("phtcon@ucsb.edu"), any());
+                String expectedJson = mapper.writeValueAsString(List.of(overdue));
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+                assertEquals(expectedJson, professorResponse.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_the_requests_to_a_professor() throws Exception {
+                // arrange
+
+                RecommendationRequest request = RecommendationRequest.builder()
+                                .id(1L)
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .professorEmail("phtcon@ucsb.edu")
+                                .explanation("BS/MS program")
+                                .dateRequested(LocalDateTime.parse("2022-04-20T00:00:00"))
+                                .dateNeeded(LocalDateTime.parse("2022-05-01T00:00:00"))
+                                .done(true)
+                                .build();
+
+                when(recommendationRequestRepository.findByProfessorEmailOrderByDateNeededAscIdAsc(eq("phtcon@ucsb.edu")))
+                                .thenReturn(List.of(request));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/recommendationrequests/professor?professorEmail=phtcon@ucsb.edu"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(recommendationRequestRepository, times(1)).findByProfessorEmailOrderByDateNeededAscIdAsc("phtcon@ucsb.edu");
+                String expectedJson = mapper.writeValueAsString(List.of(request));
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+
+        // Tests for /api/recommendationrequests/all?from=...&to=...&by=...
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_list_requests_made_in_a_range() throws Exception {
+
+                // arrange
+
+                LocalDateTime from = LocalDateTime.parse("2024-10-01T00:00:00");
+                LocalDateTime to = LocalDateTime.parse("2024-11-01T00:00:00");
+                List<RecommendationRequest> expected = List.of(RecommendationRequest.builder()
+                                .id(6L)
+                                .requesterEmail("student@ucsb.edu")
+                                .professorEmail("prof@ucsb.edu")
+                                .explanation("grad school")
+                                .dateRequested(LocalDateTime.parse("2024-10-02T00:00:00"))
+                                .dateNeeded(LocalDateTime.parse("2024-12-01T00:00:00"))
+                                .done(false)
+                                .build());
+                when(recommendationRequestRepository
+                                .findByDateRequestedGreaterThanEqualAndDateRequestedLessThanOrderByDateRequestedAscIdAsc(from, to))
+                                .thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/recommendationrequests/all?from=2024-10-01T00:00:00&to=2024-11-01T00:00:00"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(recommendationRequestRepository, times(0)).findAll();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_list_requests_needed_in_a_range() throws Exception {
+
+                // arrange
+
+                LocalDateTime from = LocalDateTime.parse("2024-12-01T00:00:00");
+                List<RecommendationRequest> expected = List.of(RecommendationRequest.builder()
+                                .id(7L)
+                                .requesterEmail("student@ucsb.edu")
+                                .professorEmail("prof@ucsb.edu")
+                                .explanation("internship")
+                                .dateRequested(LocalDateTime.parse("2024-10-02T00:00:00"))
+                                .dateNeeded(LocalDateTime.parse("2024-12-15T00:00:00"))
+                                .done(false)
+                                .build());
+                when(recommendationRequestRepository
+                                .findByDateNeededGreaterThanEqualAndDateNeededLessThanOrderByDateNeededAscIdAsc(from, ApiController.LATEST))
+                                .thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/recommendationrequests/all?from=2024-12-01T00:00:00&by=dateNeeded"))
+                                .andExpect(status().isOk()).andReturn();
+                mockMvc.perform(get("/api/recommendationrequests/all?by=dateNeeded")).andExpect(status().isOk());
+
+                // assert
+                verify(recommendationRequestRepository, times(1)).findAll();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void listing_by_an_unknown_time_is_a_bad_request() throws Exception {
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/recommendationrequests/all?from=2024-12-01T00:00:00&by=done"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("BadRequestException", json.get("type"));
+                assertEquals("by must be dateRequested or dateNeeded", json.get("message"));
+        }
+
+        // Tests for /api/recommendationrequests/all?filter=...&sort=...
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_filter_and_sort_recommendation_requests() throws Exception {
+
+                // arrange
+
+                List<RecommendationRequest> expected = List.of(RecommendationRequest.builder()
+                                .id(4L)
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .professorEmail("pconrad@ucsb.edu")
+                                .explanation("filtered")
+                                .dateRequested(LocalDateTime.parse("2024-10-15T12:00:00"))
+                                .dateNeeded(LocalDateTime.parse("2024-12-15T12:00:00"))
+                                .done(false)
+                                .build());
+                when(recommendationRequestRepository.findAll(any(Specification.class), eq(Sort.by(Sort.Order.asc("dateNeeded"), Sort.Order.asc("id")))))
+                                .thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/recommendationrequests/all?filter=professorEmail:eq:pconrad@ucsb.edu,done:eq:false&sort=dateNeeded"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(recommendationRequestRepository, times(0)).findAll();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void an_invalid_filter_is_a_bad_request() throws Exception {
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/recommendationrequests/all?filter=explanation:eq:x"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                verify(recommendationRequestRepository, times(0)).findAll(any(Specification.class), any(Sort.class));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("BadRequestException", json.get("type"));
+                assertEquals("Unknown field 'explanation'; expected one of [requesterEmail, professorEmail, dateRequested, dateNeeded, done]", json.get("message"));
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void a_filter_is_combined_with_the_range() throws Exception {
+
+                // arrange
+
+                ArgumentCaptor<Specification<RecommendationRequest>> where = ArgumentCaptor.forClass(Specification.class);
+                Root root = mock(Root.class);
+                Path path = mock(Path.class);
+                CriteriaBuilder cb = mock(CriteriaBuilder.class);
+                when(root.get(anyString())).thenReturn(path);
+
+                // act
+                mockMvc.perform(get("/api/recommendationrequests/all?filter=done:eq:false&by=dateNeeded&to=2024-10-01T00:00:00")).andExpect(status().isOk());
+
+                // assert
+                verify(recommendationRequestRepository, times(1)).findAll(where.capture(), eq(Sort.by(Sort.Order.asc("id"))));
+                where.getValue().toPredicate(root, null, cb);
+                verify(cb, times(1)).equal(path, false);
+                verify(root, times(2)).get("dateNeeded");
+                verify(cb, times(1)).lessThan(path, (Comparable) LocalDateTime.parse("2024-10-01T00:00:00"));
+        }
+
+        // Tests for /api/recommendationrequests/aggregate
+
+        @Test
+        public void logged_out_users_cannot_aggregate() throws Exception {
+                mockMvc.perform(get("/api/recommendationrequests/aggregate"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_aggregate() throws Exception {
+                mockMvc.perform(get("/api/recommendationrequests/aggregate"))
+                                .andExpect(status().is(403)); // only admins can aggregate
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_admin_can_aggregate_recommendation_requests() throws Exception {
+
+                // arrange
+
+                ArgumentCaptor<EntityAggregation.Query<RecommendationRequest>> query = ArgumentCaptor.forClass(EntityAggregation.Query.class);
+                List<AggregateRow> rows = List.of(AggregateRow.builder().group(Map.of()).values(Map.of("count", 2)).build());
+                when(aggregations.aggregate(eq(recommendationRequestRepository), any(EntityAggregation.Query.class))).thenReturn(rows);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/recommendationrequests/aggregate?groupBy=professorEmail&metrics=count,min:dateNeeded&filter=done:eq:false"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(aggregations, times(1)).aggregate(eq(recommendationRequestRepository), query.capture());
+                assertEquals("professorEmail|count,min:dateNeeded|done:eq:false", query.getValue().key());
+                assertEquals(mapper.writeValueAsString(rows), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_invalid_aggregate_is_a_bad_request() throws Exception {
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/recommendationrequests/aggregate?metrics=max"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                verify(aggregations, times(0)).aggregate(any(), any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("BadRequestException", json.get("type"));
+                assertEquals("max needs a field, one of [dateRequested, dateNeeded]", json.get("message"));
+        }
+
+        // Tests for GET /api/recommendationrequests?ids=...
+
+        @Test
+        public void logged_out_users_cannot_get_by_ids() throws Exception {
+                mockMvc.perform(get("/api/recommendationrequests?ids=1"))
+                                .andExpect(status().is(403)); // logged out users can't get by ids
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_several_recommendation_requests_by_id() throws Exception {
+
+                // arrange
+
+                RecommendationRequest first = RecommendationRequest.builder().id(1L).build();
+                RecommendationRequest third = RecommendationRequest.builder().id(3L).build();
+                when(recommendationRequestRepository.findAllById(List.of(3L, 1L, 2L))).thenReturn(List.of(first, third));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/recommendationrequests?ids=3,1,2,1"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(recommendationRequestRepository, times(1)).findAllById(List.of(3L, 1L, 2L));
+                EntityBatch<RecommendationRequest, Long> expected = EntityBatch.<RecommendationRequest, Long>builder()
+                                .items(List.of(third, first))
+                                .missingIds(List.of(2L))
+                                .build();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        // Tests for /api/recommendationrequests/count
+
+        @Test
+        public void logged_out_users_cannot_count() throws Exception {
+                mockMvc.perform(get("/api/recommendationrequests/count"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_count_all() throws Exception {
+
+                // arrange
+                EntityCount expected = EntityCount.builder().count(123456).approximate(true).build();
+                when(counts.count(RecommendationRequest.class, recommendationRequestRepository, true)).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/recommendationrequests/count?approximate=true"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(recommendationRequestRepository, times(0)).findAll();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @SuppressWarnings("unchecked")
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_count_those_that_match_a_filter() throws Exception {
+
+                // arrange
+                when(recommendationRequestRepository.count(any(Specification.class))).thenReturn(2L);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/recommendationrequests/count?filter=done:eq:false&approximate=true"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(counts, times(0)).count(any(), any(), anyBoolean());
+                assertEquals("{\"count\":2,\"approximate\":false}", response.getResponse().getContentAsString());
+        }
+
+        @SuppressWarnings("unchecked")
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_count_those_in_a_range() throws Exception {
+
+                // arrange
+                when(recommendationRequestRepository.count(any(Specification.class))).thenReturn(3L);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/recommendationrequests/count?from=2024-09-01T00:00:00"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(counts, times(0)).count(any(), any(), anyBoolean());
+                assertEquals("{\"count\":3,\"approximate\":false}", response.getResponse().getContentAsString());
+        }
+
+        @SuppressWarnings("unchecked")
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_count_those_needed_in_a_range() throws Exception {
+
+                // arrange
+                when(recommendationRequestRepository.count(any(Specification.class))).thenReturn(4L);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/recommendationrequests/count?by=dateNeeded&to=2024-09-01T00:00:00"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                assertEquals("{\"count\":4,\"approximate\":false}", response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void counting_by_another_time_is_a_bad_request() throws Exception {
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/recommendationrequests/count?by=dateDone"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                verify(counts, times(0)).count(any(), any(), anyBoolean());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("by must be dateRequested or dateNeeded", json.get("message"));
+        }
+}
@@ -4,12 +4,18 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.models.EntityBatch;
+import edu.ucsb.cs156.example.models.EntityCount;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.services.RestaurantSearchService;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
@@ -25,6 +31,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -37,6 +44,9 @@ public class RestaurantsControllerTests extends ControllerTestCase {
         @MockBean
         RestaurantRepository restaurantRepository;
 
+        @MockBean
+        RestaurantSearchService restaurantSearch;
+
         @MockBean
         UserRepository userRepository;
 
@@ -61,6 +71,12 @@ public class RestaurantsControllerTests extends ControllerTestCase {
                                 .andExpect(status().is(403)); // logged out users can't get by id
         }
 
+        @Test
+        public void logged_out_users_cannot_search() throws Exception {
+                mockMvc.perform(get("/api/restaurants/search?q=taco"))
+                                .andExpect(status().is(403));
+        }
+
         // Authorization tests for /api/phones/post
         // (Perhaps should also have these for put and delete)
 
@@ -177,6 +193,9 @@ public class RestaurantsControllerTests extends ControllerTestCase {
 
                 // assert
                 verify(restaurantRepository, times(1)).save(restaurant1);
+                verify(counts, times(1)).invalidate(Restaurant.class);
+                verify(responseCache, times(1)).invalidate(Restaurant.class);
+                verify(restaurantSearch, times(1)).add(restaurant1);
                 String expectedJson = mapper.writeValueAsString(restaurant1);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -202,7 +221,10 @@ public class RestaurantsControllerTests extends ControllerTestCase {
 
                 // assert
                 verify(restaurantRepository, times(1)).findById(15L);
-                verify(restaurantRepository, times(1)).delete(any());
+                verify(restaurantRepository, times(1)).delete(any(Restaurant.class));
+                verify(counts, times(1)).invalidate(Restaurant.class);
+                verify(responseCache, times(1)).invalidate(Restaurant.class);
+                verify(restaurantSearch, times(1)).remove(15L);
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("Restaurant with id 15 deleted", json.get("message"));
@@ -259,6 +281,8 @@ public class RestaurantsControllerTests extends ControllerTestCase {
                 // assert
                 verify(restaurantRepository, times(1)).findById(67L);
                 verify(restaurantRepository, times(1)).save(restaurantEdited); // should be saved with correct user
+                verify(responseCache, times(1)).invalidate(Restaurant.class);
+                verify(restaurantSearch, times(1)).add(restaurantEdited);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(requestBody, responseString);
         }
@@ -294,4 +318,159 @@ public class RestaurantsControllerTests extends ControllerTestCase {
                 assertEquals("Restaurant with id 67 not found", json.get("message"));
 
         }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_search_restaurants() throws Exception {
+                // arrange
+
+                Restaurant restaurant1 = Restaurant.builder()
+                                .id(1L)
+                                .name("Taco Bell")
+                                .description("Mexican")
+                                .build();
+
+                List<Restaurant> expectedRestaurants = List.of(restaurant1);
+
+                when(restaurantSearch.search(eq("tacco bel"), eq(10))).thenReturn(expectedRestaurants);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/restaurants/search?q=tacco bel"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(restaurantSearch, times(1)).search("tacco bel", 10);
+                String expectedJson = mapper.writeValueAsString(expectedRestaurants);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void search_limit_is_clamped() throws Exception {
+                // act
+                mockMvc.perform(get("/api/restaurants/search?q=taco&limit=500"))
+                                .andExpect(status().isOk());
+                mockMvc.perform(get("/api/restaurants/search?q=taco&limit=0"))
+                                .andExpect(status().isOk());
+                mockMvc.perform(get("/api/restaurants/search?q=taco&limit=100"))
+                                .andExpect(status().isOk());
+
+                // assert
+                verify(restaurantSearch, times(2)).search("taco", 100);
+                verify(restaurantSearch, times(1)).search("taco", 1);
+        }
+
+        // Tests for /api/restaurants/all?filter=...&sort=...
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_filter_and_sort_restaurants() throws Exception {
+
+                // arrange
+
+                List<Restaurant> expected = List.of(Restaurant.builder()
+                                .id(4L)
+                                .name("Freebirds")
+                                .description("Burritos")
+                                .build());
+                when(restaurantRepository.findAll(any(Specification.class), eq(Sort.by(Sort.Order.asc("name"), Sort.Order.asc("id")))))
+                                .thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/restaurants/all?filter=name:prefix:Free&sort=name"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(restaurantRepository, times(0)).findAll();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void an_invalid_filter_is_a_bad_request() throws Exception {
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/restaurants/all?filter=name:eq"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                verify(restaurantRepository, times(0)).findAll(any(Specification.class), any(Sort.class));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("BadRequestException", json.get("type"));
+                assertEquals("name:eq needs a value", json.get("message"));
+        }
+
+        // Tests for GET /api/restaurants?ids=...
+
+        @Test
+        public void logged_out_users_cannot_get_by_ids() throws Exception {
+                mockMvc.perform(get("/api/restaurants?ids=1"))
+                                .andExpect(status().is(403)); // logged out users can't get by ids
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_several_restaurants_by_id() throws Exception {
+
+                // arrange
+
+                Restaurant first = Restaurant.builder().id(1L).build();
+                Restaurant third = Restaurant.builder().id(3L).build();
+                when(restaurantRepository.findAllById(List.of(3L, 1L, 2L))).thenReturn(List.of(first, third));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/restaurants?ids=3,1,2,1"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(restaurantRepository, times(1)).findAllById(List.of(3L, 1L, 2L));
+                EntityBatch<Restaurant, Long> expected = EntityBatch.<Restaurant, Long>builder()
+                                .items(List.of(third, first))
+                                .missingIds(List.of(2L))
+                                .build();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        // Tests for /api/restaurants/count
+
+        @Test
+        public void logged_out_users_cannot_count() throws Exception {
+                mockMvc.perform(get("/api/restaurants/count"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_count_all() throws Exception {
+
+                // arrange
+                EntityCount expected = EntityCount.builder().count(123456).approximate(true).build();
+                when(counts.count(Restaurant.class, restaurantRepository, true)).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/restaurants/count?approximate=true"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(restaurantRepository, times(0)).findAll();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @SuppressWarnings("unchecked")
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_count_those_that_match_a_filter() throws Exception {
+
+                // arrange
+                when(restaurantRepository.count(any(Specification.class))).thenReturn(2L);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/restaurants/count?filter=name:prefix:Freebirds&approximate=true"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(counts, times(0)).count(any(), any(), anyBoolean());
+                assertEquals("{\"count\":2,\"approximate\":false}", response.getResponse().getContentAsString());
+        }
 }
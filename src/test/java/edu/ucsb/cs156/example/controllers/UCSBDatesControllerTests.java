@@ -4,12 +4,24 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.helpers.EntityAggregation;
+import edu.ucsb.cs156.example.models.AggregateRow;
+import edu.ucsb.cs156.example.models.EntityBatch;
+import edu.ucsb.cs156.example.models.EntityCount;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.services.UCSBDateCalendarService;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
@@ -26,8 +38,12 @@ import java.time.LocalDateTime;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -39,6 +55,9 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
         @MockBean
         UCSBDateRepository ucsbDateRepository;
 
+        @MockBean
+        UCSBDateCalendarService ucsbDateCalendar;
+
         @MockBean
         UserRepository userRepository;
 
@@ -189,6 +208,9 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
 
                 // assert
                 verify(ucsbDateRepository, times(1)).save(ucsbDate1);
+                verify(aggregations, times(1)).invalidate(UCSBDate.class);
+                verify(counts, times(1)).invalidate(UCSBDate.class);
+                verify(ucsbDateCalendar, times(1)).add(ucsbDate1);
                 String expectedJson = mapper.writeValueAsString(ucsbDate1);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -217,7 +239,10 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
 
                 // assert
                 verify(ucsbDateRepository, times(1)).findById(15L);
-                verify(ucsbDateRepository, times(1)).delete(any());
+                verify(ucsbDateRepository, times(1)).delete(any(UCSBDate.class));
+                verify(aggregations, times(1)).invalidate(UCSBDate.class);
+                verify(counts, times(1)).invalidate(UCSBDate.class);
+                verify(ucsbDateCalendar, times(1)).remove(15L);
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDate with id 15 deleted", json.get("message"));
@@ -279,6 +304,8 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                 // assert
                 verify(ucsbDateRepository, times(1)).findById(67L);
                 verify(ucsbDateRepository, times(1)).save(ucsbDateEdited); // should be saved with correct user
+                verify(aggregations, times(1)).invalidate(UCSBDate.class);
+                verify(ucsbDateCalendar, times(1)).add(ucsbDateEdited);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(requestBody, responseString);
         }
@@ -315,4 +342,387 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                 assertEquals("UCSBDate with id 67 not found", json.get("message"));
 
         }
+
+        // Tests for /api/ucsbdates/quarter, /between and /upcoming
+
+        @Test
+        public void logged_out_users_cannot_get_calendar_queries() throws Exception {
+                mockMvc.perform(get("/api/ucsbdates/quarter?quarterYYYYQ=20222"))
+                                .andExpect(status().is(403));
+                mockMvc.perform(get("/api/ucsbdates/between?start=2022-01-01T00:00:00&end=2022-02-01T00:00:00"))
+                                .andExpect(status().is(403));
+                mockMvc.perform(get("/api/ucsbdates/upcoming"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_the_dates_in_a_quarter() throws Exception {
+                // arrange
+
+                UCSBDate ucsbDate1 = UCSBDate.builder()
+                                .id(1L)
+                                .name("firstDayOfClasses")
+                                .quarterYYYYQ("20222")
+                                .localDateTime(LocalDateTime.parse("2022-03-28T00:00:00"))
+                                .build();
+
+                when(ucsbDateCalendar.inQuarter(eq("20222"))).thenReturn(List.of(ucsbDate1));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/quarter?quarterYYYYQ=20222"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDateCalendar, times(1)).inQuarter("20222");
+                String expectedJson = mapper.writeValueAsString(List.of(ucsbDate1));
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_the_dates_between_two_times() throws Exception {
+                // arrange
+
+                LocalDateTime start = LocalDateTime.parse("2022-01-01T00:00:00");
+                LocalDateTime end = LocalDateTime.parse("2022-02-01T00:00:00");
+
+                UCSBDate ucsbDate1 = UCSBDate.builder()
+                                .id(1L)
+                                .name("firstDayOfClasses")
+                                .quarterYYYYQ("20221")
+                                .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .build();
+
+                when(ucsbDateCalendar.between(eq(start), eq(end))).thenReturn(List.of(ucsbDate1));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/between?start=2022-01-01T00:00:00&end=2022-02-01T00:00:00"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDateCalendar, times(1)).between(start, end);
+                String expectedJson = mapper.writeValueAsString(List.of(ucsbDate1));
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_the_dates_between_a_time_and_itself() throws Exception {
+                // arrange
+
+                LocalDateTime start = LocalDateTime.parse("2022-01-01T00:00:00");
+                when(ucsbDateCalendar.between(eq(start), eq(start))).thenReturn(List.of());
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/between?start=2022-01-01T00:00:00&end=2022-01-01T00:00:00"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDateCalendar, times(1)).between(start, start);
+                assertEquals("[]", response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void dates_between_gives_400_when_end_is_before_start() throws Exception {
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/between?start=2022-02-01T00:00:00&end=2022-01-01T00:00:00"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                verify(ucsbDateCalendar, times(0)).between(any(), any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("end must not be before start", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_the_upcoming_dates_from_a_time() throws Exception {
+                // arrange
+
+                LocalDateTime from = LocalDateTime.parse("2022-01-01T00:00:00");
+
+                UCSBDate ucsbDate1 = UCSBDate.builder()
+                                .id(1L)
+                                .name("firstDayOfClasses")
+                                .quarterYYYYQ("20221")
+                                .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .build();
+
+                when(ucsbDateCalendar.upcoming(eq(from), eq(2))).thenReturn(List.of(ucsbDate1));
+                when(ucsbDateCalendar.upcoming(eq(from), eq(100))).thenReturn(List.of(ucsbDate1));
+                when(ucsbDateCalendar.upcoming(eq(from), eq(1))).thenReturn(List.of(ucsbDate1));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/upcoming?from=2022-01-01T00:00:00&count=2"))
+                                .andExpect(status().isOk()).andReturn();
+                mockMvc.perform(get("/api/ucsbdates/upcoming?from=2022-01-01T00:00:00&count=1000"))
+                                .andExpect(status().isOk());
+                mockMvc.perform(get("/api/ucsbdates/upcoming?from=2022-01-01T00:00:00&count=0"))
+                                .andExpect(status().isOk());
+
+                // assert
+                verify(ucsbDateCalendar, times(1)).upcoming(from, 2);
+                verify(ucsbDateCalendar, times(1)).upcoming(from, 100);
+                verify(ucsbDateCalendar, times(1)).upcoming(from, 1);
+                String expectedJson = mapper.writeValueAsString(List.of(ucsbDate1));
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void upcoming_dates_default_to_the_next_five_from_now() throws Exception {
+                // arrange
+
+                LocalDateTime before = LocalDateTime.now();
+
+                // act
+                mockMvc.perform(get("/api/ucsbdates/upcoming"))
+                                .andExpect(status().isOk());
+
+                // assert
+                ArgumentCaptor<LocalDateTime> from = ArgumentCaptor.forClass(LocalDateTime.class);
+                verify(ucsbDateCalendar, times(1)).upcoming(from.capture(), eq(5));
+                assertFalse(from.getValue().isBefore(before));
+                assertFalse(from.getValue().isAfter(LocalDateTime.now()));
+        }
+
+        // Tests for /api/ucsbdates/all?from=...&to=...
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_list_dates_in_a_range() throws Exception {
+
+                // arrange
+
+                LocalDateTime from = LocalDateTime.parse("2024-10-01T00:00:00");
+                LocalDateTime to = LocalDateTime.parse("2024-11-01T00:00:00");
+                List<UCSBDate> expected = List.of(UCSBDate.builder()
+                                .id(5L)
+                                .quarterYYYYQ("20244")
+                                .name("halloween")
+                                .localDateTime(LocalDateTime.parse("2024-10-31T00:00:00"))
+                                .build());
+                when(ucsbDateCalendar.between(from, to)).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/all?from=2024-10-01T00:00:00&to=2024-11-01T00:00:00"))
+                                .andExpect(status().isOk()).andReturn();
+                mockMvc.perform(get("/api/ucsbdates/all?to=2024-11-01T00:00:00")).andExpect(status().isOk());
+
+                // assert
+                verify(ucsbDateRepository, times(0)).findAll();
+                verify(ucsbDateCalendar, times(1)).between(ApiController.EARLIEST, to);
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        // Tests for /api/ucsbdates/all?filter=...&sort=...
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_filter_and_sort_dates() throws Exception {
+
+                // arrange
+
+                List<UCSBDate> expected = List.of(UCSBDate.builder()
+                                .id(5L)
+                                .quarterYYYYQ("20244")
+                                .name("halloween")
+                                .localDateTime(LocalDateTime.parse("2024-10-31T00:00:00"))
+                                .build());
+                when(ucsbDateRepository.findAll(any(Specification.class), eq(Sort.by(Sort.Order.asc("localDateTime"), Sort.Order.asc("id")))))
+                                .thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/all?filter=quarterYYYYQ:eq:20244&sort=localDateTime"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDateRepository, times(0)).findAll();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void an_invalid_filter_is_a_bad_request() throws Exception {
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/all?filter=name:like:h"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                verify(ucsbDateRepository, times(0)).findAll(any(Specification.class), any(Sort.class));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("BadRequestException", json.get("type"));
+                assertEquals("Unknown operator in 'name:like:h'; expected one of [eq, ne, lt, le, gt, ge, in, prefix, null, notnull]", json.get("message"));
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void a_filter_is_combined_with_the_range() throws Exception {
+
+                // arrange
+
+                ArgumentCaptor<Specification<UCSBDate>> where = ArgumentCaptor.forClass(Specification.class);
+                Root root = mock(Root.class);
+                Path path = mock(Path.class);
+                CriteriaBuilder cb = mock(CriteriaBuilder.class);
+                when(root.get(anyString())).thenReturn(path);
+
+                // act
+                mockMvc.perform(get("/api/ucsbdates/all?filter=name:prefix:h&from=2024-09-01T00:00:00&to=2024-10-01T00:00:00")).andExpect(status().isOk());
+
+                // assert
+                verify(ucsbDateRepository, times(1)).findAll(where.capture(), eq(Sort.by(Sort.Order.asc("id"))));
+                where.getValue().toPredicate(root, null, cb);
+                verify(cb, times(1)).like(path, "h%", '\\');
+                verify(root, times(2)).get("localDateTime");
+                verify(cb, times(1)).lessThan(path, (Comparable) LocalDateTime.parse("2024-10-01T00:00:00"));
+        }
+
+        // Tests for /api/ucsbdates/aggregate
+
+        @Test
+        public void logged_out_users_cannot_aggregate() throws Exception {
+                mockMvc.perform(get("/api/ucsbdates/aggregate"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_aggregate() throws Exception {
+                mockMvc.perform(get("/api/ucsbdates/aggregate"))
+                                .andExpect(status().is(403)); // only admins can aggregate
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_admin_can_aggregate_ucsbdates() throws Exception {
+
+                // arrange
+
+                ArgumentCaptor<EntityAggregation.Query<UCSBDate>> query = ArgumentCaptor.forClass(EntityAggregation.Query.class);
+                List<AggregateRow> rows = List.of(AggregateRow.builder().group(Map.of()).values(Map.of("count", 2)).build());
+                when(aggregations.aggregate(eq(ucsbDateRepository), any(EntityAggregation.Query.class))).thenReturn(rows);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/aggregate?groupBy=quarterYYYYQ&metrics=count,min:localDateTime"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(aggregations, times(1)).aggregate(eq(ucsbDateRepository), query.capture());
+                assertEquals("quarterYYYYQ|count,min:localDateTime|", query.getValue().key());
+                assertEquals(mapper.writeValueAsString(rows), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_invalid_aggregate_is_a_bad_request() throws Exception {
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/aggregate?metrics=count:name"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                verify(aggregations, times(0)).aggregate(any(), any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("BadRequestException", json.get("type"));
+                assertEquals("count does not take a field", json.get("message"));
+        }
+
+        // Tests for GET /api/ucsbdates?ids=...
+
+        @Test
+        public void logged_out_users_cannot_get_by_ids() throws Exception {
+                mockMvc.perform(get("/api/ucsbdates?ids=1"))
+                                .andExpect(status().is(403)); // logged out users can't get by ids
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_several_ucsbdates_by_id() throws Exception {
+
+                // arrange
+
+                UCSBDate first = UCSBDate.builder().id(1L).build();
+                UCSBDate third = UCSBDate.builder().id(3L).build();
+                when(ucsbDateRepository.findAllById(List.of(3L, 1L, 2L))).thenReturn(List.of(first, third));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates?ids=3,1,2,1"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDateRepository, times(1)).findAllById(List.of(3L, 1L, 2L));
+                EntityBatch<UCSBDate, Long> expected = EntityBatch.<UCSBDate, Long>builder()
+                                .items(List.of(third, first))
+                                .missingIds(List.of(2L))
+                                .build();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        // Tests for /api/ucsbdates/count
+
+        @Test
+        public void logged_out_users_cannot_count() throws Exception {
+                mockMvc.perform(get("/api/ucsbdates/count"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_count_all() throws Exception {
+
+                // arrange
+                EntityCount expected = EntityCount.builder().count(123456).approximate(true).build();
+                when(counts.count(UCSBDate.class, ucsbDateRepository, true)).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/count?approximate=true"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDateRepository, times(0)).findAll();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @SuppressWarnings("unchecked")
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_count_those_that_match_a_filter() throws Exception {
+
+                // arrange
+                when(ucsbDateRepository.count(any(Specification.class))).thenReturn(2L);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/count?filter=quarterYYYYQ:eq:20244&approximate=true"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(counts, times(0)).count(any(), any(), anyBoolean());
+                assertEquals("{\"count\":2,\"approximate\":false}", response.getResponse().getContentAsString());
+        }
+
+        @SuppressWarnings("unchecked")
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_count_those_in_a_range() throws Exception {
+
+                // arrange
+                when(ucsbDateRepository.count(any(Specification.class))).thenReturn(3L);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/count?from=2024-09-01T00:00:00"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(counts, times(0)).count(any(), any(), anyBoolean());
+                assertEquals("{\"count\":3,\"approximate\":false}", response.getResponse().getContentAsString());
+        }
 }
@@ -4,12 +4,27 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.helpers.EntityAggregation;
+import edu.ucsb.cs156.example.models.AggregateRow;
+import edu.ucsb.cs156.example.models.EntityBatch;
+import edu.ucsb.cs156.example.models.EntityCount;
+import edu.ucsb.cs156.example.models.NearbyDiningCommons;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.services.DiningCommonsLocatorService;
+import edu.ucsb.cs156.example.services.DiningCommonsMenuService;
+import edu.ucsb.cs156.example.services.FlagIndexService;
+import edu.ucsb.cs156.example.structures.FlagIndex;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
@@ -25,7 +40,10 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -37,6 +55,15 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
         @MockBean
         UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
 
+        @MockBean
+        DiningCommonsLocatorService diningCommonsLocator;
+
+        @MockBean
+        FlagIndexService flagIndex;
+
+        @MockBean
+        DiningCommonsMenuService diningCommonsMenu;
+
         @MockBean
         UserRepository userRepository;
 
@@ -197,6 +224,11 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
                 // assert
                 verify(ucsbDiningCommonsRepository, times(1)).save(ortega);
+                verify(aggregations, times(1)).invalidate(UCSBDiningCommons.class);
+                verify(counts, times(1)).invalidate(UCSBDiningCommons.class);
+                verify(responseCache, times(1)).invalidate(UCSBDiningCommons.class);
+                verify(diningCommonsLocator, times(1)).add(ortega);
+                verify(flagIndex, times(1)).add(ortega);
                 String expectedJson = mapper.writeValueAsString(ortega);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -227,12 +259,53 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
                 // assert
                 verify(ucsbDiningCommonsRepository, times(1)).findById("portola");
-                verify(ucsbDiningCommonsRepository, times(1)).delete(any());
+                verify(ucsbDiningCommonsRepository, times(1)).delete(any(UCSBDiningCommons.class));
+                verify(aggregations, times(1)).invalidate(UCSBDiningCommons.class);
+                verify(counts, times(1)).invalidate(UCSBDiningCommons.class);
+                verify(responseCache, times(1)).invalidate(UCSBDiningCommons.class);
+                verify(diningCommonsLocator, times(1)).remove("portola");
+                verify(flagIndex, times(1)).removeDiningCommons("portola");
+                verify(diningCommonsMenu, times(1)).invalidate("portola");
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDiningCommons with id portola deleted", json.get("message"));
         }
 
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_cannot_delete_commons_that_still_has_menu_items() throws Exception {
+                // arrange
+
+                UCSBDiningCommons portola = UCSBDiningCommons.builder()
+                                .name("Portola")
+                                .code("portola")
+                                .build();
+
+                when(ucsbDiningCommonsRepository.findById(eq("portola"))).thenReturn(Optional.of(portola));
+                doThrow(new DataIntegrityViolationException("FK_MENUITEMS_DININGCOMMONS"))
+                                .when(ucsbDiningCommonsRepository).delete(any(UCSBDiningCommons.class));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                delete("/api/ucsbdiningcommons?code=portola")
+                                                .with(csrf()))
+                                .andExpect(status().isConflict()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsRepository, times(1)).delete(any(UCSBDiningCommons.class));
+                verify(aggregations, never()).invalidate(UCSBDiningCommons.class);
+                verify(counts, never()).invalidate(UCSBDiningCommons.class);
+                verify(responseCache, never()).invalidate(UCSBDiningCommons.class);
+                verify(diningCommonsLocator, never()).remove("portola");
+                verify(flagIndex, never()).removeDiningCommons("portola");
+                verify(diningCommonsMenu, never()).invalidate("portola");
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("EntityInUseException", json.get("type"));
+                assertEquals("UCSBDiningCommons with id portola is still used by some UCSBDiningCommonsMenuItem",
+                                json.get("message"));
+        }
+
         @WithMockUser(roles = { "ADMIN", "USER" })
         @Test
         public void admin_tries_to_delete_non_existant_commons_and_gets_right_error_message()
@@ -294,6 +367,10 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                 // assert
                 verify(ucsbDiningCommonsRepository, times(1)).findById("carrillo");
                 verify(ucsbDiningCommonsRepository, times(1)).save(carrilloEdited); // should be saved with updated info
+                verify(aggregations, times(1)).invalidate(UCSBDiningCommons.class);
+                verify(responseCache, times(1)).invalidate(UCSBDiningCommons.class);
+                verify(diningCommonsLocator, times(1)).add(carrilloEdited);
+                verify(flagIndex, times(1)).add(carrilloEdited);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(requestBody, responseString);
         }
@@ -332,4 +409,297 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                 assertEquals("UCSBDiningCommons with id munger-hall not found", json.get("message"));
 
         }
+
+        // Tests for /api/ucsbdiningcommons/nearest
+
+        @Test
+        public void logged_out_users_cannot_get_nearest() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommons/nearest?lat=34.41&lon=-119.85"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_nearest_commons() throws Exception {
+                // arrange
+
+                UCSBDiningCommons ortega = UCSBDiningCommons.builder()
+                                .name("Ortega")
+                                .code("ortega")
+                                .hasSackMeal(true)
+                                .hasTakeOutMeal(true)
+                                .hasDiningCam(true)
+                                .latitude(34.410987)
+                                .longitude(-119.84709)
+                                .build();
+
+                List<NearbyDiningCommons> expected = List.of(new NearbyDiningCommons(ortega, 123.4));
+
+                when(diningCommonsLocator.nearest(eq(34.41), eq(-119.85), eq(3), eq(null), eq(null)))
+                                .thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/nearest?lat=34.41&lon=-119.85"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(diningCommonsLocator, times(1)).nearest(34.41, -119.85, 3, null, null);
+                String expectedJson = mapper.writeValueAsString(expected);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void nearest_passes_filters_and_clamps_k() throws Exception {
+                // act
+                mockMvc.perform(get("/api/ucsbdiningcommons/nearest?lat=-90&lon=180&k=500&hasSackMeal=true"))
+                                .andExpect(status().isOk());
+                mockMvc.perform(get("/api/ucsbdiningcommons/nearest?lat=90&lon=-180&k=0&hasTakeOutMeal=false"))
+                                .andExpect(status().isOk());
+                mockMvc.perform(get("/api/ucsbdiningcommons/nearest?lat=0&lon=0&k=100&hasSackMeal=true"))
+                                .andExpect(status().isOk());
+
+                // assert
+                verify(diningCommonsLocator, times(1)).nearest(-90.0, 180.0, 100, true, null);
+                verify(diningCommonsLocator, times(1)).nearest(90.0, -180.0, 1, null, false);
+                verify(diningCommonsLocator, times(1)).nearest(0.0, 0.0, 100, true, null);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void nearest_rejects_out_of_range_coordinates() throws Exception {
+                for (String query : List.of("lat=90.1&lon=0", "lat=-90.1&lon=0", "lat=0&lon=180.1",
+                                "lat=0&lon=-180.1", "lat=NaN&lon=0")) {
+                        MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/nearest?" + query))
+                                        .andExpect(status().isBadRequest()).andReturn();
+
+                        Map<String, Object> json = responseToJson(response);
+                        assertEquals("BadRequestException", json.get("type"));
+                        assertEquals("lat must be in [-90, 90] and lon in [-180, 180]", json.get("message"));
+                }
+        }
+
+        // Tests for /api/ucsbdiningcommons/flags
+
+        @Test
+        public void logged_out_users_cannot_filter_by_flags() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommons/flags?filter=hasSackMeal and not hasDiningCam"))
+                                .andExpect(status().is(403));
+                mockMvc.perform(get("/api/ucsbdiningcommons/flags/count?filter=hasSackMeal and not hasDiningCam"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_filter_by_flags() throws Exception {
+                // arrange
+
+                FlagIndex<String, UCSBDiningCommons> index = new FlagIndex<>(Map.of("hasSackMeal", UCSBDiningCommons::getHasSackMeal, "hasDiningCam", UCSBDiningCommons::getHasDiningCam));
+                UCSBDiningCommons ortega = UCSBDiningCommons.builder().code("ortega").hasSackMeal(true).hasDiningCam(true).build();
+                UCSBDiningCommons portola = UCSBDiningCommons.builder().code("portola").hasSackMeal(true).hasDiningCam(false).build();
+                index.put("ortega", ortega);
+                index.put("portola", portola);
+                List<UCSBDiningCommons> expected = List.of(portola);
+                when(flagIndex.getDiningCommons()).thenReturn(index);
+                when(ucsbDiningCommonsRepository.findAllById(eq(List.of("portola")))).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/flags?filter=hasSackMeal and not hasDiningCam"))
+                                .andExpect(status().isOk()).andReturn();
+                MvcResult countResponse = mockMvc.perform(get("/api/ucsbdiningcommons/flags/count?filter=hasSackMeal and not hasDiningCam"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsRepository, times(1)).findAllById(List.of("portola"));
+                String expectedJson = mapper.writeValueAsString(expected);
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+                assertEquals(expected.size(), responseToJson(countResponse).get("count"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void bad_flag_filter_gets_bad_request() throws Exception {
+                // arrange
+
+                FlagIndex<String, UCSBDiningCommons> index = new FlagIndex<>(Map.of("hasSackMeal", UCSBDiningCommons::getHasSackMeal, "hasDiningCam", UCSBDiningCommons::getHasDiningCam));
+                when(flagIndex.getDiningCommons()).thenReturn(index);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/flags/count?filter=bogus"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("BadRequestException", json.get("type"));
+                assertEquals("Unknown flag 'bogus'; expected one of %s".formatted(index.getFlags()), json.get("message"));
+        }
+
+        // Tests for /api/ucsbdiningcommons/all?filter=...&sort=...
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_filter_and_sort_commons() throws Exception {
+
+                // arrange
+
+                List<UCSBDiningCommons> expected = List.of(UCSBDiningCommons.builder()
+                                .code("ortega")
+                                .name("Ortega")
+                                .hasSackMeal(true)
+                                .hasTakeOutMeal(true)
+                                .hasDiningCam(true)
+                                .latitude(34.410987)
+                                .longitude(-119.84709)
+                                .build());
+                when(ucsbDiningCommonsRepository.findAll(any(Specification.class), eq(Sort.by(Sort.Order.desc("latitude"), Sort.Order.asc("code")))))
+                                .thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/all?filter=hasSackMeal:eq:true&sort=-latitude"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsRepository, times(0)).findAll();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void an_invalid_filter_is_a_bad_request() throws Exception {
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/all?filter=latitude:gt:north"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsRepository, times(0)).findAll(any(Specification.class), any(Sort.class));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("BadRequestException", json.get("type"));
+                assertEquals("'north' is not a valid value for latitude", json.get("message"));
+        }
+
+        // Tests for /api/ucsbdiningcommons/aggregate
+
+        @Test
+        public void logged_out_users_cannot_aggregate() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommons/aggregate"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_aggregate() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommons/aggregate"))
+                                .andExpect(status().is(403)); // only admins can aggregate
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_admin_can_aggregate_commons() throws Exception {
+
+                // arrange
+
+                ArgumentCaptor<EntityAggregation.Query<UCSBDiningCommons>> query = ArgumentCaptor.forClass(EntityAggregation.Query.class);
+                List<AggregateRow> rows = List.of(AggregateRow.builder().group(Map.of()).values(Map.of("count", 2)).build());
+                when(aggregations.aggregate(eq(ucsbDiningCommonsRepository), any(EntityAggregation.Query.class))).thenReturn(rows);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/aggregate?groupBy=hasSackMeal&metrics=count,avg:latitude&filter=hasDiningCam:eq:true"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(aggregations, times(1)).aggregate(eq(ucsbDiningCommonsRepository), query.capture());
+                assertEquals("hasSackMeal|count,avg:latitude|hasDiningCam:eq:true", query.getValue().key());
+                assertEquals(mapper.writeValueAsString(rows), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_invalid_aggregate_is_a_bad_request() throws Exception {
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/aggregate?metrics=sum:latitude"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                verify(aggregations, times(0)).aggregate(any(), any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("BadRequestException", json.get("type"));
+                assertEquals("Unknown metric 'sum:latitude'; expected count or one of [min, max, avg] with :field", json.get("message"));
+        }
+
+        // Tests for GET /api/ucsbdiningcommons?ids=...
+
+        @Test
+        public void logged_out_users_cannot_get_by_ids() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommons?ids=carrillo"))
+                                .andExpect(status().is(403)); // logged out users can't get by ids
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_several_commons_by_code() throws Exception {
+
+                // arrange
+
+                UCSBDiningCommons first = UCSBDiningCommons.builder().code("carrillo").build();
+                UCSBDiningCommons third = UCSBDiningCommons.builder().code("ortega").build();
+                when(ucsbDiningCommonsRepository.findAllById(List.of("ortega", "carrillo", "dlg"))).thenReturn(List.of(first, third));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons?ids=ortega,carrillo,dlg,carrillo"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsRepository, times(1)).findAllById(List.of("ortega", "carrillo", "dlg"));
+                EntityBatch<UCSBDiningCommons, String> expected = EntityBatch.<UCSBDiningCommons, String>builder()
+                                .items(List.of(third, first))
+                                .missingIds(List.of("dlg"))
+                                .build();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        // Tests for /api/ucsbdiningcommons/count
+
+        @Test
+        public void logged_out_users_cannot_count() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommons/count"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_count_all() throws Exception {
+
+                // arrange
+                EntityCount expected = EntityCount.builder().count(123456).approximate(true).build();
+                when(counts.count(UCSBDiningCommons.class, ucsbDiningCommonsRepository, true)).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/count?approximate=true"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsRepository, times(0)).findAll();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @SuppressWarnings("unchecked")
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_count_those_that_match_a_filter() throws Exception {
+
+                // arrange
+                when(ucsbDiningCommonsRepository.count(any(Specification.class))).thenReturn(2L);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/count?filter=hasSackMeal:eq:true&approximate=true"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(counts, times(0)).count(any(), any(), anyBoolean());
+                assertEquals("{\"count\":2,\"approximate\":false}", response.getResponse().getContentAsString());
+        }
 }
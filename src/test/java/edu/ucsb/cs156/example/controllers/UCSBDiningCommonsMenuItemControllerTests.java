@@ -3,13 +3,29 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.helpers.EntityAggregation;
+import edu.ucsb.cs156.example.models.AggregateRow;
+import edu.ucsb.cs156.example.models.EntityBatch;
+import edu.ucsb.cs156.example.models.EntityCount;
+import edu.ucsb.cs156.example.models.MenuItemDetails;
+import edu.ucsb.cs156.example.models.MenuItemReviewSummary;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.services.DiningCommonsMenuService;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
@@ -25,7 +41,10 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -37,6 +56,15 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
         @MockBean
         UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
 
+        @MockBean
+        UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+        @MockBean
+        MenuItemReviewRepository menuItemReviewRepository;
+
+        @MockBean
+        DiningCommonsMenuService diningCommonsMenu;
+
         @MockBean
         UserRepository userRepository;
 
@@ -157,6 +185,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                                 .station("pizza")
                                 .build();
 
+                when(ucsbDiningCommonsRepository.existsById(eq("carrillo"))).thenReturn(true);
                 when(ucsbDiningCommonsMenuItemRepository.save(eq(menuItem1))).thenReturn(menuItem1);
 
                 // act
@@ -167,11 +196,33 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
 
                 // assert
                 verify(ucsbDiningCommonsMenuItemRepository, times(1)).save(menuItem1);
+                verify(aggregations, times(1)).invalidate(UCSBDiningCommonsMenuItem.class);
+                verify(diningCommonsMenu, times(1)).invalidate("carrillo");
+                verify(counts, times(1)).invalidate(UCSBDiningCommonsMenuItem.class);
                 String expectedJson = mapper.writeValueAsString(menuItem1);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_admin_user_cannot_post_a_menu_item_at_a_dining_commons_that_does_not_exist() throws Exception {
+                // arrange
+
+                when(ucsbDiningCommonsRepository.existsById(eq("carrillo"))).thenReturn(false);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                post("/api/ucsbdiningcommonsmenuitems/post?diningCommonsCode=carrillo&name=pizza&station=pizza")
+                                                .with(csrf()))
+                                .andExpect(status().isNotFound()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsMenuItemRepository, times(0)).save(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("UCSBDiningCommons with id carrillo not found", json.get("message"));
+        }
+
         @WithMockUser(roles = { "ADMIN", "USER" })
         @Test
         public void admin_can_delete_a_menu_item() throws Exception {
@@ -193,12 +244,48 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
 
                 // assert
                 verify(ucsbDiningCommonsMenuItemRepository, times(1)).findById(15L);
-                verify(ucsbDiningCommonsMenuItemRepository, times(1)).delete(any());
+                verify(ucsbDiningCommonsMenuItemRepository, times(1)).delete(any(UCSBDiningCommonsMenuItem.class));
+                verify(aggregations, times(1)).invalidate(UCSBDiningCommonsMenuItem.class);
+                verify(diningCommonsMenu, times(1)).invalidate("carrillo");
+                verify(counts, times(1)).invalidate(UCSBDiningCommonsMenuItem.class);
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDiningCommonsMenuItem with id 15 deleted", json.get("message"));
         }
 
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_cannot_delete_a_menu_item_that_has_reviews() throws Exception {
+                // arrange
+
+                UCSBDiningCommonsMenuItem menuItem1 = UCSBDiningCommonsMenuItem.builder()
+                                .diningCommonsCode("carrillo")
+                                .name("pizza")
+                                .station("pizza")
+                                .build();
+
+                when(ucsbDiningCommonsMenuItemRepository.findById(eq(15L))).thenReturn(Optional.of(menuItem1));
+                doThrow(new DataIntegrityViolationException("FK_MENUITEMREVIEW_MENUITEMS"))
+                                .when(ucsbDiningCommonsMenuItemRepository).delete(any(UCSBDiningCommonsMenuItem.class));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                delete("/api/ucsbdiningcommonsmenuitems?id=15")
+                                                .with(csrf()))
+                                .andExpect(status().isConflict()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsMenuItemRepository, times(1)).delete(any(UCSBDiningCommonsMenuItem.class));
+                verify(aggregations, never()).invalidate(UCSBDiningCommonsMenuItem.class);
+                verify(counts, never()).invalidate(UCSBDiningCommonsMenuItem.class);
+                verify(diningCommonsMenu, never()).invalidate("carrillo");
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("EntityInUseException", json.get("type"));
+                assertEquals("UCSBDiningCommonsMenuItem with id 15 is still used by some MenuItemReview",
+                                json.get("message"));
+        }
+
         @WithMockUser(roles = { "ADMIN", "USER" })
         @Test
         public void admin_tries_to_delete_non_existant_ucsbdiningcommonsmenuitem_and_gets_right_error_message()
@@ -239,6 +326,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                 String requestBody = mapper.writeValueAsString(ucsbDiningCommonsMenuItemEdited);
 
                 when(ucsbDiningCommonsMenuItemRepository.findById(eq(67L))).thenReturn(Optional.of(ucsbDiningCommonsMenuItemOrig));
+                when(ucsbDiningCommonsRepository.existsById(eq("ortega"))).thenReturn(true);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -252,10 +340,88 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                 // assert
                 verify(ucsbDiningCommonsMenuItemRepository, times(1)).findById(67L);
                 verify(ucsbDiningCommonsMenuItemRepository, times(1)).save(ucsbDiningCommonsMenuItemEdited); // should be saved with correct user
+                verify(aggregations, times(1)).invalidate(UCSBDiningCommonsMenuItem.class);
+                verify(diningCommonsMenu, times(1)).invalidate("carrillo");
+                verify(diningCommonsMenu, times(1)).invalidate("ortega");
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(requestBody, responseString);
         }
 
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_edit_a_menu_item_to_have_no_dining_commons() throws Exception {
+                // arrange
+
+                UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItemOrig = UCSBDiningCommonsMenuItem.builder()
+                                .diningCommonsCode("carrillo")
+                                .name("pizza")
+                                .station("pizza")
+                                .build();
+
+                UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItemEdited = UCSBDiningCommonsMenuItem.builder()
+                                .name("pizza")
+                                .station("pizza")
+                                .build();
+
+                String requestBody = mapper.writeValueAsString(ucsbDiningCommonsMenuItemEdited);
+
+                when(ucsbDiningCommonsMenuItemRepository.findById(eq(67L))).thenReturn(Optional.of(ucsbDiningCommonsMenuItemOrig));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                put("/api/ucsbdiningcommonsmenuitems?id=67")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsRepository, times(0)).existsById(any());
+                verify(ucsbDiningCommonsMenuItemRepository, times(1)).save(ucsbDiningCommonsMenuItemEdited);
+                verify(aggregations, times(1)).invalidate(UCSBDiningCommonsMenuItem.class);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(requestBody, responseString);
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_cannot_edit_a_menu_item_to_be_at_a_dining_commons_that_does_not_exist() throws Exception {
+                // arrange
+
+                UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItemOrig = UCSBDiningCommonsMenuItem.builder()
+                                .diningCommonsCode("carrillo")
+                                .name("pizza")
+                                .station("pizza")
+                                .build();
+
+                UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItemEdited = UCSBDiningCommonsMenuItem.builder()
+                                .diningCommonsCode("nowhere")
+                                .name("pizza")
+                                .station("pizza")
+                                .build();
+
+                String requestBody = mapper.writeValueAsString(ucsbDiningCommonsMenuItemEdited);
+
+                when(ucsbDiningCommonsMenuItemRepository.findById(eq(67L))).thenReturn(Optional.of(ucsbDiningCommonsMenuItemOrig));
+                when(ucsbDiningCommonsRepository.existsById(eq("nowhere"))).thenReturn(false);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                put("/api/ucsbdiningcommonsmenuitems?id=67")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isNotFound()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsMenuItemRepository, times(0)).save(any());
+                verify(diningCommonsMenu, times(0)).invalidate(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("UCSBDiningCommons with id nowhere not found", json.get("message"));
+        }
+
         @WithMockUser(roles = { "ADMIN", "USER" })
         @Test
         public void admin_cannot_edit_ucsbdiningcommonsmenuitem_that_does_not_exist() throws Exception {
@@ -286,4 +452,300 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                 assertEquals("UCSBDiningCommonsMenuItem with id 67 not found", json.get("message"));
 
         }
+
+        // Tests for /api/ucsbdiningcommonsmenuitems/bystation
+
+        @Test
+        public void logged_out_users_cannot_get_menu_by_station() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommonsmenuitems/bystation?diningCommonsCode=carrillo"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_menu_by_station() throws Exception {
+                // arrange
+
+                UCSBDiningCommonsMenuItem salad = UCSBDiningCommonsMenuItem.builder()
+                                .id(1L)
+                                .diningCommonsCode("carrillo")
+                                .name("Caesar Salad")
+                                .station("Salads")
+                                .build();
+
+                UCSBDiningCommonsMenuItem pizza = UCSBDiningCommonsMenuItem.builder()
+                                .id(2L)
+                                .diningCommonsCode("carrillo")
+                                .name("Cheese Pizza")
+                                .station("Pizza")
+                                .build();
+
+                Map<String, List<UCSBDiningCommonsMenuItem>> expected = new LinkedHashMap<>();
+                expected.put("Pizza", List.of(pizza));
+                expected.put("Salads", List.of(salad));
+
+                when(diningCommonsMenu.byStation(eq("carrillo"))).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitems/bystation?diningCommonsCode=carrillo"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(diningCommonsMenu, times(1)).byStation("carrillo");
+                String expectedJson = mapper.writeValueAsString(expected);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        // Tests for /api/ucsbdiningcommonsmenuitems/details
+
+        @Test
+        public void logged_out_users_cannot_get_menu_item_details() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommonsmenuitems/details"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_details_of_all_menu_items() throws Exception {
+                // arrange
+
+                UCSBDiningCommons carrillo = UCSBDiningCommons.builder().code("carrillo").name("Carrillo").build();
+                UCSBDiningCommons ortega = UCSBDiningCommons.builder().code("ortega").name("Ortega").build();
+
+                UCSBDiningCommonsMenuItem pizza = UCSBDiningCommonsMenuItem.builder()
+                                .id(1L)
+                                .diningCommonsCode("carrillo")
+                                .name("Cheese Pizza")
+                                .station("Pizza")
+                                .diningCommons(carrillo)
+                                .build();
+
+                UCSBDiningCommonsMenuItem burrito = UCSBDiningCommonsMenuItem.builder()
+                                .id(2L)
+                                .diningCommonsCode("ortega")
+                                .name("Breakfast Burrito")
+                                .station("Entrees")
+                                .diningCommons(ortega)
+                                .build();
+
+                when(ucsbDiningCommonsMenuItemRepository.findAllWithDiningCommonsByOrderByDiningCommonsCodeAscStationAscNameAsc())
+                                .thenReturn(List.of(pizza, burrito));
+                when(menuItemReviewRepository.summarizeByItem())
+                                .thenReturn(List.of(new MenuItemReviewSummary(2L, 3L, 4.5)));
+
+                List<MenuItemDetails> expected = List.of(
+                                new MenuItemDetails(pizza, carrillo, 0, null),
+                                new MenuItemDetails(burrito, ortega, 3, 4.5));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitems/details"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsMenuItemRepository, times(1)).findAllWithDiningCommonsByOrderByDiningCommonsCodeAscStationAscNameAsc();
+                verify(menuItemReviewRepository, times(1)).summarizeByItem();
+                String expectedJson = mapper.writeValueAsString(expected);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_details_of_the_menu_items_of_one_dining_commons() throws Exception {
+                // arrange
+
+                UCSBDiningCommons carrillo = UCSBDiningCommons.builder().code("carrillo").name("Carrillo").build();
+
+                UCSBDiningCommonsMenuItem pizza = UCSBDiningCommonsMenuItem.builder()
+                                .id(1L)
+                                .diningCommonsCode("carrillo")
+                                .name("Cheese Pizza")
+                                .station("Pizza")
+                                .diningCommons(carrillo)
+                                .build();
+
+                when(ucsbDiningCommonsMenuItemRepository.findWithDiningCommonsByDiningCommonsCodeOrderByStationAscNameAsc(eq("carrillo")))
+                                .thenReturn(List.of(pizza));
+                when(menuItemReviewRepository.summarizeByItemForDiningCommons(eq("carrillo")))
+                                .thenReturn(List.of(new MenuItemReviewSummary(1L, 2L, 3.0)));
+
+                List<MenuItemDetails> expected = List.of(new MenuItemDetails(pizza, carrillo, 2, 3.0));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitems/details?diningCommonsCode=carrillo"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsMenuItemRepository, times(1)).findWithDiningCommonsByDiningCommonsCodeOrderByStationAscNameAsc("carrillo");
+                verify(menuItemReviewRepository, times(1)).summarizeByItemForDiningCommons("carrillo");
+                String expectedJson = mapper.writeValueAsString(expected);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        // Tests for /api/ucsbdiningcommonsmenuitems/all?filter=...&sort=...
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_filter_and_sort_menu_items() throws Exception {
+
+                // arrange
+
+                List<UCSBDiningCommonsMenuItem> expected = List.of(UCSBDiningCommonsMenuItem.builder()
+                                .id(4L)
+                                .diningCommonsCode("ortega")
+                                .name("Baked Ziti")
+                                .station("Entrees")
+                                .build());
+                when(ucsbDiningCommonsMenuItemRepository.findAll(any(Specification.class), eq(Sort.by(Sort.Order.asc("station"), Sort.Order.asc("name"), Sort.Order.asc("id")))))
+                                .thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitems/all?filter=diningCommonsCode:eq:ortega,station:eq:Entrees&sort=station,name"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsMenuItemRepository, times(0)).findAll();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void an_invalid_filter_is_a_bad_request() throws Exception {
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitems/all?sort=price"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsMenuItemRepository, times(0)).findAll(any(Specification.class), any(Sort.class));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("BadRequestException", json.get("type"));
+                assertEquals("Unknown field 'price'; expected one of [diningCommonsCode, name, station]", json.get("message"));
+        }
+
+        // Tests for /api/ucsbdiningcommonsmenuitems/aggregate
+
+        @Test
+        public void logged_out_users_cannot_aggregate() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommonsmenuitems/aggregate"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_aggregate() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommonsmenuitems/aggregate"))
+                                .andExpect(status().is(403)); // only admins can aggregate
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_admin_can_aggregate_menu_items() throws Exception {
+
+                // arrange
+
+                ArgumentCaptor<EntityAggregation.Query<UCSBDiningCommonsMenuItem>> query = ArgumentCaptor.forClass(EntityAggregation.Query.class);
+                List<AggregateRow> rows = List.of(AggregateRow.builder().group(Map.of()).values(Map.of("count", 2)).build());
+                when(aggregations.aggregate(eq(ucsbDiningCommonsMenuItemRepository), any(EntityAggregation.Query.class))).thenReturn(rows);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitems/aggregate?groupBy=diningCommonsCode,station"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(aggregations, times(1)).aggregate(eq(ucsbDiningCommonsMenuItemRepository), query.capture());
+                assertEquals("diningCommonsCode,station|count|", query.getValue().key());
+                assertEquals(mapper.writeValueAsString(rows), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_invalid_aggregate_is_a_bad_request() throws Exception {
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitems/aggregate?metrics=max:name"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                verify(aggregations, times(0)).aggregate(any(), any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("BadRequestException", json.get("type"));
+                assertEquals("Unknown field 'name'; expected one of []", json.get("message"));
+        }
+
+        // Tests for GET /api/ucsbdiningcommonsmenuitems?ids=...
+
+        @Test
+        public void logged_out_users_cannot_get_by_ids() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommonsmenuitems?ids=1"))
+                                .andExpect(status().is(403)); // logged out users can't get by ids
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_several_menu_items_by_id() throws Exception {
+
+                // arrange
+
+                UCSBDiningCommonsMenuItem first = UCSBDiningCommonsMenuItem.builder().id(1L).build();
+                UCSBDiningCommonsMenuItem third = UCSBDiningCommonsMenuItem.builder().id(3L).build();
+                when(ucsbDiningCommonsMenuItemRepository.findAllById(List.of(3L, 1L, 2L))).thenReturn(List.of(first, third));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitems?ids=3,1,2,1"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsMenuItemRepository, times(1)).findAllById(List.of(3L, 1L, 2L));
+                EntityBatch<UCSBDiningCommonsMenuItem, Long> expected = EntityBatch.<UCSBDiningCommonsMenuItem, Long>builder()
+                                .items(List.of(third, first))
+                                .missingIds(List.of(2L))
+                                .build();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        // Tests for /api/ucsbdiningcommonsmenuitems/count
+
+        @Test
+        public void logged_out_users_cannot_count() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommonsmenuitems/count"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_count_all() throws Exception {
+
+                // arrange
+                EntityCount expected = EntityCount.builder().count(123456).approximate(true).build();
+                when(counts.count(UCSBDiningCommonsMenuItem.class, ucsbDiningCommonsMenuItemRepository, true)).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitems/count?approximate=true"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsMenuItemRepository, times(0)).findAll();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @SuppressWarnings("unchecked")
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_count_those_that_match_a_filter() throws Exception {
+
+                // arrange
+                when(ucsbDiningCommonsMenuItemRepository.count(any(Specification.class))).thenReturn(2L);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitems/count?filter=station:eq:Entrees&approximate=true"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(counts, times(0)).count(any(), any(), anyBoolean());
+                assertEquals("{\"count\":2,\"approximate\":false}", response.getResponse().getContentAsString());
+        }
 }
@@ -5,12 +5,23 @@ import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.helpers.EntityAggregation;
+import edu.ucsb.cs156.example.models.AggregateRow;
+import edu.ucsb.cs156.example.models.EntityBatch;
+import edu.ucsb.cs156.example.models.EntityCount;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.services.FlagIndexService;
+import edu.ucsb.cs156.example.services.OrganizationAutocompleteService;
+import edu.ucsb.cs156.example.structures.FlagIndex;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
@@ -26,6 +37,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -37,6 +49,12 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
     @MockBean
     UCSBOrganizationRepository ucsbOrganizationRepository;
 
+    @MockBean
+    OrganizationAutocompleteService organizationAutocomplete;
+
+    @MockBean
+    FlagIndexService flagIndex;
+
     @MockBean
     UserRepository userRepository;
 
@@ -89,6 +107,11 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
 
         // assert
         verify(ucsbOrganizationRepository, times(1)).save(sigmanu);
+        verify(aggregations, times(1)).invalidate(UCSBOrganization.class);
+        verify(counts, times(1)).invalidate(UCSBOrganization.class);
+        verify(responseCache, times(1)).invalidate(UCSBOrganization.class);
+        verify(organizationAutocomplete, times(1)).add(sigmanu);
+        verify(flagIndex, times(1)).add(sigmanu);
         String expectedJson = mapper.writeValueAsString(sigmanu);
         String responseString = response.getResponse().getContentAsString();
         assertEquals(expectedJson, responseString);
@@ -218,6 +241,10 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
         // assert
         verify(ucsbOrganizationRepository, times(1)).findById("SKY");
         verify(ucsbOrganizationRepository, times(1)).save(skyEdited); // should be saved with updated info
+        verify(aggregations, times(1)).invalidate(UCSBOrganization.class);
+        verify(responseCache, times(1)).invalidate(UCSBOrganization.class);
+        verify(organizationAutocomplete, times(1)).add(skyEdited);
+        verify(flagIndex, times(1)).add(skyEdited);
         String responseString = response.getResponse().getContentAsString();
         assertEquals(requestBody, responseString);
     }
@@ -308,10 +335,285 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
         
         // assert
         verify(ucsbOrganizationRepository, times(1)).findById("SKY");
-        verify(ucsbOrganizationRepository, times(1)).delete(any());
+        verify(ucsbOrganizationRepository, times(1)).delete(any(UCSBOrganization.class));
+        verify(aggregations, times(1)).invalidate(UCSBOrganization.class);
+        verify(counts, times(1)).invalidate(UCSBOrganization.class);
+        verify(responseCache, times(1)).invalidate(UCSBOrganization.class);
+        verify(organizationAutocomplete, times(1)).remove("SKY");
+        verify(flagIndex, times(1)).removeOrganization("SKY");
 
         Map<String, Object> json = responseToJson(response);
         assertEquals("UCSBOrganization with id SKY deleted", json.get("message"));
     }
 
-}
\ No newline at end of file
+    // Tests for autocomplete
+
+    @Test
+    public void logged_out_users_cannot_autocomplete() throws Exception {
+        mockMvc.perform(get("/api/ucsborganizations/autocomplete?q=sky"))
+                .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_autocomplete() throws Exception {
+        // arrange
+
+        UCSBOrganization sky = UCSBOrganization.builder()
+                .orgCode("SKY")
+                .orgTranslationShort("SKYDIVING CLUB")
+                .orgTranslation("SKYDIVING CLUB AT UCSB")
+                .inactive(false)
+                .build();
+
+        List<UCSBOrganization> expected = List.of(sky);
+
+        when(organizationAutocomplete.autocomplete(eq("sky"), eq(false), eq(10))).thenReturn(expected);
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/ucsborganizations/autocomplete?q=sky"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(organizationAutocomplete, times(1)).autocomplete("sky", false, 10);
+        String expectedJson = mapper.writeValueAsString(expected);
+        String responseString = response.getResponse().getContentAsString();
+        assertEquals(expectedJson, responseString);
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void autocomplete_passes_include_inactive_and_clamps_limit() throws Exception {
+        // act
+        mockMvc.perform(get("/api/ucsborganizations/autocomplete?q=sky&includeInactive=true&limit=500"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/ucsborganizations/autocomplete?q=sky&includeInactive=true&limit=0"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/ucsborganizations/autocomplete?q=sky&includeInactive=true&limit=100"))
+                .andExpect(status().isOk());
+
+        // assert
+        verify(organizationAutocomplete, times(2)).autocomplete("sky", true, 100);
+        verify(organizationAutocomplete, times(1)).autocomplete("sky", true, 1);
+    }
+
+    // Tests for /api/ucsborganizations/flags
+
+    @Test
+    public void logged_out_users_cannot_filter_by_flags() throws Exception {
+        mockMvc.perform(get("/api/ucsborganizations/flags?filter=not inactive"))
+                .andExpect(status().is(403));
+        mockMvc.perform(get("/api/ucsborganizations/flags/count?filter=not inactive"))
+                .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_filter_by_flags() throws Exception {
+        // arrange
+
+        FlagIndex<String, UCSBOrganization> index = new FlagIndex<>(Map.of("inactive", UCSBOrganization::getInactive));
+        UCSBOrganization sky = UCSBOrganization.builder().orgCode("SKY").inactive(false).build();
+        UCSBOrganization snu = UCSBOrganization.builder().orgCode("SNU").inactive(true).build();
+        index.put("SKY", sky);
+        index.put("SNU", snu);
+        List<UCSBOrganization> expected = List.of(sky);
+        when(flagIndex.getOrganizations()).thenReturn(index);
+        when(ucsbOrganizationRepository.findAllById(eq(List.of("SKY")))).thenReturn(expected);
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/ucsborganizations/flags?filter=not inactive"))
+                .andExpect(status().isOk()).andReturn();
+        MvcResult countResponse = mockMvc.perform(get("/api/ucsborganizations/flags/count?filter=not inactive"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(ucsbOrganizationRepository, times(1)).findAllById(List.of("SKY"));
+        String expectedJson = mapper.writeValueAsString(expected);
+        assertEquals(expectedJson, response.getResponse().getContentAsString());
+        assertEquals(expected.size(), responseToJson(countResponse).get("count"));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void bad_flag_filter_gets_bad_request() throws Exception {
+        // arrange
+
+        FlagIndex<String, UCSBOrganization> index = new FlagIndex<>(Map.of("inactive", UCSBOrganization::getInactive));
+        when(flagIndex.getOrganizations()).thenReturn(index);
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/ucsborganizations/flags/count?filter=bogus"))
+                .andExpect(status().isBadRequest()).andReturn();
+
+        // assert
+        Map<String, Object> json = responseToJson(response);
+        assertEquals("BadRequestException", json.get("type"));
+        assertEquals("Unknown flag 'bogus'; expected one of %s".formatted(index.getFlags()), json.get("message"));
+    }
+
+    // Tests for /api/ucsborganizations/all?filter=...&sort=...
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_filter_and_sort_organizations() throws Exception {
+
+        // arrange
+
+        List<UCSBOrganization> expected = List.of(UCSBOrganization.builder()
+                .orgCode("SKY")
+                .orgTranslationShort("SKYDIVING CLUB")
+                .orgTranslation("SKYDIVING CLUB AT UCSB")
+                .inactive(false)
+                .build());
+        when(ucsbOrganizationRepository.findAll(any(Specification.class), eq(Sort.by(Sort.Order.asc("orgTranslationShort"), Sort.Order.asc("orgCode")))))
+                .thenReturn(expected);
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/ucsborganizations/all?filter=inactive:eq:false&sort=orgTranslationShort"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(ucsbOrganizationRepository, times(0)).findAll();
+        assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void an_invalid_filter_is_a_bad_request() throws Exception {
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/ucsborganizations/all?filter=inactive:null:x"))
+                .andExpect(status().isBadRequest()).andReturn();
+
+        // assert
+        verify(ucsbOrganizationRepository, times(0)).findAll(any(Specification.class), any(Sort.class));
+        Map<String, Object> json = responseToJson(response);
+        assertEquals("BadRequestException", json.get("type"));
+        assertEquals("inactive:null does not take a value", json.get("message"));
+    }
+
+    // Tests for /api/ucsborganizations/aggregate
+
+    @Test
+    public void logged_out_users_cannot_aggregate() throws Exception {
+        mockMvc.perform(get("/api/ucsborganizations/aggregate"))
+                .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_regular_users_cannot_aggregate() throws Exception {
+        mockMvc.perform(get("/api/ucsborganizations/aggregate"))
+                .andExpect(status().is(403)); // only admins can aggregate
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void an_admin_can_aggregate_organizations() throws Exception {
+
+        // arrange
+
+        ArgumentCaptor<EntityAggregation.Query<UCSBOrganization>> query = ArgumentCaptor.forClass(EntityAggregation.Query.class);
+        List<AggregateRow> rows = List.of(AggregateRow.builder().group(Map.of()).values(Map.of("count", 2)).build());
+        when(aggregations.aggregate(eq(ucsbOrganizationRepository), any(EntityAggregation.Query.class))).thenReturn(rows);
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/ucsborganizations/aggregate?groupBy=inactive&filter=orgTranslationShort:prefix:ZETA"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(aggregations, times(1)).aggregate(eq(ucsbOrganizationRepository), query.capture());
+        assertEquals("inactive|count|orgTranslationShort:prefix:ZETA", query.getValue().key());
+        assertEquals(mapper.writeValueAsString(rows), response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void an_invalid_aggregate_is_a_bad_request() throws Exception {
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/ucsborganizations/aggregate?filter=inactive:eq:maybe"))
+                .andExpect(status().isBadRequest()).andReturn();
+
+        // assert
+        verify(aggregations, times(0)).aggregate(any(), any());
+        Map<String, Object> json = responseToJson(response);
+        assertEquals("BadRequestException", json.get("type"));
+        assertEquals("'maybe' is not a valid value for inactive", json.get("message"));
+    }
+
+    // Tests for GET /api/ucsborganizations?ids=...
+
+    @Test
+    public void logged_out_users_cannot_get_by_ids() throws Exception {
+        mockMvc.perform(get("/api/ucsborganizations?ids=KRC"))
+                .andExpect(status().is(403)); // logged out users can't get by ids
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_several_organizations_by_code() throws Exception {
+
+        // arrange
+
+        UCSBOrganization first = UCSBOrganization.builder().orgCode("KRC").build();
+        UCSBOrganization third = UCSBOrganization.builder().orgCode("ZPR").build();
+        when(ucsbOrganizationRepository.findAllById(List.of("ZPR", "KRC", "OSLI"))).thenReturn(List.of(first, third));
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/ucsborganizations?ids=ZPR,KRC,OSLI,KRC"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(ucsbOrganizationRepository, times(1)).findAllById(List.of("ZPR", "KRC", "OSLI"));
+        EntityBatch<UCSBOrganization, String> expected = EntityBatch.<UCSBOrganization, String>builder()
+                .items(List.of(third, first))
+                .missingIds(List.of("OSLI"))
+                .build();
+        assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+    }
+
+    // Tests for /api/ucsborganizations/count
+
+    @Test
+    public void logged_out_users_cannot_count() throws Exception {
+        mockMvc.perform(get("/api/ucsborganizations/count"))
+                .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_count_all() throws Exception {
+
+        // arrange
+        EntityCount expected = EntityCount.builder().count(123456).approximate(true).build();
+        when(counts.count(UCSBOrganization.class, ucsbOrganizationRepository, true)).thenReturn(expected);
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/ucsborganizations/count?approximate=true"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(ucsbOrganizationRepository, times(0)).findAll();
+        assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+    }
+
+    @SuppressWarnings("unchecked")
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_count_those_that_match_a_filter() throws Exception {
+
+        // arrange
+        when(ucsbOrganizationRepository.count(any(Specification.class))).thenReturn(2L);
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/ucsborganizations/count?filter=inactive:eq:false&approximate=true"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(counts, times(0)).count(any(), any(), anyBoolean());
+        assertEquals("{\"count\":2,\"approximate\":false}", response.getResponse().getContentAsString());
+    }
+}
@@ -66,6 +66,7 @@ public class UsersControllerTests extends ControllerTestCase {
     // assert
 
     verify(userRepository, times(1)).findAll();
+    verify(userActivity, times(1)).applyPending(expectedUsers);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
 
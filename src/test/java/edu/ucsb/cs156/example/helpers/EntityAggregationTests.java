@@ -0,0 +1,139 @@
+package edu.ucsb.cs156.example.helpers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.models.AggregateRow;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class EntityAggregationTests {
+
+  private final EntityAggregation<MenuItemReview> aggregates = EntityAggregation.of(
+      EntityFilter.of(MenuItemReview.class, "itemId", "reviewerEmail", "stars", "dateReviewed", "comments"),
+      List.of("itemId", "reviewerEmail", "stars", "comments"), List.of("itemId", "stars", "dateReviewed"));
+
+  private String error(String groupBy, String metrics, String where) {
+    return assertThrows(BadRequestException.class, () -> aggregates.compile(groupBy, metrics, where))
+        .getMessage();
+  }
+
+  @Test
+  public void a_query_groups_by_the_keys_and_computes_the_metrics() {
+    EntityAggregation.Query<MenuItemReview> query = aggregates.compile("itemId, stars",
+        "count,avg:stars, max:dateReviewed", " stars:ge:3 ");
+    assertEquals(MenuItemReview.class, query.type());
+    assertEquals(List.of("itemId", "stars"), query.groupBy());
+    assertEquals(List.of(
+        new EntityAggregation.Metric("count", EntityAggregation.Function.COUNT, null),
+        new EntityAggregation.Metric("avg:stars", EntityAggregation.Function.AVG, "stars"),
+        new EntityAggregation.Metric("max:dateReviewed", EntityAggregation.Function.MAX, "dateReviewed")),
+        query.metrics());
+    assertEquals("itemId,stars|count,avg:stars,max:dateReviewed|stars:ge:3", query.key());
+  }
+
+  @Test
+  public void the_default_is_the_count_of_the_whole_table() {
+    EntityAggregation.Query<MenuItemReview> query = aggregates.compile(null, null, null);
+    assertEquals(List.of(), query.groupBy());
+    assertEquals(List.of(new EntityAggregation.Metric("count", EntityAggregation.Function.COUNT, null)),
+        query.metrics());
+    assertEquals("|count|", query.key());
+    assertEquals("|count|", aggregates.compile(" ", "", null).key());
+  }
+
+  @Test
+  public void invalid_keys_are_rejected() {
+    assertEquals("Unknown key 'dateReviewed'; expected one of [itemId, reviewerEmail, stars, comments]",
+        error("dateReviewed", null, null));
+    assertEquals("Unknown key ''; expected one of [itemId, reviewerEmail, stars, comments]",
+        error("itemId,", null, null));
+    assertEquals("'stars' is grouped by twice", error("stars,stars", null, null));
+    assertEquals("Group by at most 3 keys", error("itemId,reviewerEmail,stars,comments", null, null));
+  }
+
+  @Test
+  public void invalid_metrics_are_rejected() {
+    assertEquals("Unknown metric 'sum:stars'; expected count or one of [min, max, avg] with :field",
+        error(null, "sum:stars", null));
+    assertEquals("count does not take a field", error(null, "count:stars", null));
+    assertEquals("max needs a field, one of [itemId, stars, dateReviewed]", error(null, "max", null));
+    assertEquals("Unknown field 'comments'; expected one of [itemId, stars, dateReviewed]",
+        error(null, "min:comments", null));
+    assertEquals("avg cannot be used on dateReviewed", error(null, "avg:dateReviewed", null));
+    assertEquals("'count' is asked for twice", error(null, "count,count", null));
+    assertEquals("'x' is not a valid value for stars", error(null, null, "stars:eq:x"));
+  }
+
+  @Test
+  public void avg_is_only_for_numbers_and_min_and_max_are_not_for_booleans() {
+    EntityAggregation<EntityFilterTests.Wrapped> wrapped = EntityAggregation.of(
+        EntityFilter.of(EntityFilterTests.Wrapped.class, "flag", "count", "total", "ratio"),
+        List.of("flag"), List.of("flag", "count", "total", "ratio"));
+    assertEquals(6, wrapped.compile(null, "avg:count,avg:total,avg:ratio,min:count,max:total,min:ratio", null)
+        .metrics().size());
+    assertEquals("min cannot be used on flag",
+        assertThrows(BadRequestException.class, () -> wrapped.compile(null, "min:flag", null)).getMessage());
+    assertEquals("avg cannot be used on flag",
+        assertThrows(BadRequestException.class, () -> wrapped.compile(null, "avg:flag", null)).getMessage());
+    EntityAggregation<MenuItemReview> emails = EntityAggregation.of(
+        EntityFilter.of(MenuItemReview.class, "reviewerEmail"), List.of(), List.of("reviewerEmail"));
+    assertEquals(1, emails.compile(null, "max:reviewerEmail", null).metrics().size());
+  }
+
+  @Test
+  public void queries_are_limited_to_max_metrics() {
+    String eight = "count,min:itemId,max:itemId,avg:itemId,min:stars,max:stars,avg:stars,min:dateReviewed";
+    assertEquals(EntityAggregation.MAX_METRICS, aggregates.compile(null, eight, null).metrics().size());
+    assertEquals("At most 8 metrics", error(null, eight + ",max:dateReviewed", null));
+  }
+
+  @Test
+  public void of_rejects_keys_and_fields_the_filter_does_not_allow() {
+    EntityFilter<MenuItemReview> filter = EntityFilter.of(MenuItemReview.class, "stars");
+    assertEquals("itemId is not a field of the filter", assertThrows(IllegalArgumentException.class,
+        () -> EntityAggregation.of(filter, List.of("itemId"), List.of())).getMessage());
+    assertEquals("dateReviewed is not a field of the filter", assertThrows(IllegalArgumentException.class,
+        () -> EntityAggregation.of(filter, List.of("stars"), List.of("dateReviewed"))).getMessage());
+  }
+
+  @Test
+  public void results_are_converted_to_rows() {
+    EntityAggregation.Query<MenuItemReview> query = aggregates.compile("itemId,stars", "count,avg:stars", null);
+    List<AggregateRow> rows = query.rows(List.of(new Object[] { 7L, 5, 2L, 5.0 }, new Object[] { 8L, null, 1L, null }));
+    Map<String, Object> nulls = new LinkedHashMap<>();
+    nulls.put("itemId", 8L);
+    nulls.put("stars", null);
+    Map<String, Object> noAverage = new LinkedHashMap<>();
+    noAverage.put("count", 1L);
+    noAverage.put("avg:stars", null);
+    assertEquals(List.of(
+        AggregateRow.builder().group(Map.of("itemId", 7L, "stars", 5))
+            .values(Map.of("count", 2L, "avg:stars", 5.0)).build(),
+        AggregateRow.builder().group(nulls).values(noAverage).build()), rows);
+    assertEquals(List.of("count", "avg:stars"), List.copyOf(rows.get(0).getValues().keySet()));
+  }
+
+  @Test
+  public void too_many_groups_are_rejected() {
+    EntityAggregation.Query<MenuItemReview> query = aggregates.compile("itemId", null, null);
+    assertEquals(EntityAggregation.MAX_GROUPS,
+        query.rows(Collections.nCopies(EntityAggregation.MAX_GROUPS, new Object[] { 1L, 1L })).size());
+    assertEquals("More than 1000 groups; group by fewer keys or add a filter",
+        assertThrows(BadRequestException.class,
+            () -> query.rows(Collections.nCopies(EntityAggregation.MAX_GROUPS + 1, new Object[] { 1L, 1L })))
+            .getMessage());
+  }
+
+  @Test
+  public void functions_are_named_in_lower_case() {
+    assertEquals("avg", EntityAggregation.Function.AVG.toString());
+  }
+}
@@ -0,0 +1,228 @@
+package edu.ucsb.cs156.example.helpers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import jakarta.persistence.Id;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+@SuppressWarnings({ "unchecked", "rawtypes" })
+public class EntityFilterTests {
+
+  static class Wrapped {
+    @Id
+    Long id;
+    Boolean flag;
+    Integer count;
+    Long total;
+    double ratio;
+  }
+
+  static class NoId {
+    String name;
+  }
+
+  static class Unsupported {
+    @Id
+    long id;
+    List<String> tags;
+  }
+
+  private final EntityFilter<HelpRequest> filter = EntityFilter.of(HelpRequest.class,
+      "requesterEmail", "teamId", "requestTime", "solved");
+
+  private final Root root = mock(Root.class);
+  private final Path path = mock(Path.class);
+  private final CriteriaBuilder cb = mock(CriteriaBuilder.class);
+
+  private void apply(EntityFilter<?> entityFilter, String text) {
+    when(root.get(anyString())).thenReturn(path);
+    entityFilter.compile(text, null).where().toPredicate(root, null, cb);
+  }
+
+  private String error(EntityFilter<?> entityFilter, String text, String sort) {
+    return assertThrows(BadRequestException.class, () -> entityFilter.compile(text, sort)).getMessage();
+  }
+
+  @Test
+  public void an_empty_filter_matches_everything_sorted_by_id() {
+    EntityFilter.Query<HelpRequest> query = filter.compile(null, null);
+    assertNull(query.where().toPredicate(root, null, cb));
+    assertEquals(Sort.by(Sort.Order.asc("id")), query.sort());
+    assertEquals(Sort.by(Sort.Order.asc("id")), filter.compile(" ", " ").sort());
+  }
+
+  @Test
+  public void sort_is_followed_by_the_id() {
+    assertEquals(Sort.by(Sort.Order.desc("requestTime"), Sort.Order.asc("teamId"), Sort.Order.asc("id")),
+        filter.compile(null, "-requestTime, teamId").sort());
+    assertEquals(Sort.by(Sort.Order.desc("id")), filter.compile(null, "-id").sort());
+    assertEquals(Sort.by(Sort.Order.asc("solved"), Sort.Order.asc("id")), filter.compile("", "solved").sort());
+  }
+
+  @Test
+  public void comparisons_compile_to_predicates() {
+    apply(filter, "teamId:eq:t1");
+    verify(cb).equal(path, "t1");
+    apply(filter, "solved:ne:true");
+    verify(cb).notEqual(path, Boolean.TRUE);
+    LocalDateTime time = LocalDateTime.parse("2024-01-02T03:04:05");
+    apply(filter, "requestTime:lt:2024-01-02T03:04:05");
+    verify(cb).lessThan((Path<Comparable>) path, (Comparable) time);
+    apply(filter, "requestTime:le:2024-01-02T03:04:05");
+    verify(cb).lessThanOrEqualTo((Path<Comparable>) path, (Comparable) time);
+    apply(filter, "requestTime:gt:2024-01-02T03:04:05");
+    verify(cb).greaterThan((Path<Comparable>) path, (Comparable) time);
+    apply(filter, "requestTime:ge:2024-01-02T03:04:05");
+    verify(cb).greaterThanOrEqualTo((Path<Comparable>) path, (Comparable) time);
+  }
+
+  @Test
+  public void in_null_and_notnull_compile_to_predicates() {
+    apply(filter, "teamId:in:t1|t\\|2");
+    verify(path).in(List.of("t1", "t|2"));
+    apply(filter, "teamId:null");
+    verify(cb).isNull(path);
+    apply(filter, "teamId:notnull");
+    verify(cb).isNotNull(path);
+  }
+
+  @Test
+  public void prefix_escapes_like_wildcards() {
+    apply(filter, "requesterEmail:prefix:a%_\\\\b");
+    verify(cb).like(path, "a\\%\\_\\\\b%", '\\');
+  }
+
+  @Test
+  public void values_can_contain_escaped_commas_and_colons() {
+    apply(filter, "teamId:eq:a\\,b:c, requesterEmail:eq:x\\");
+    verify(cb).equal(path, "a,b:c");
+    verify(cb).equal(path, "x\\");
+  }
+
+  @Test
+  public void values_are_read_as_the_field_type() {
+    apply(EntityFilter.of(MenuItemReview.class, "itemId", "stars"), "itemId:eq:7,stars:ge:4");
+    verify(cb).equal(path, 7L);
+    verify(cb).greaterThanOrEqualTo((Path<Comparable>) path, (Comparable) 4);
+    apply(EntityFilter.of(UCSBDiningCommons.class, "latitude"), "latitude:lt:34.5");
+    verify(cb).lessThan((Path<Comparable>) path, (Comparable) 34.5);
+    apply(EntityFilter.of(Wrapped.class, "flag", "count", "total", "ratio"),
+        "flag:eq:false,count:eq:1,total:eq:2,ratio:eq:0.5");
+    verify(cb).equal(path, Boolean.FALSE);
+    verify(cb).equal(path, 1);
+    verify(cb).equal(path, 2L);
+    verify(cb).equal(path, 0.5);
+  }
+
+  @Test
+  public void invalid_values_are_rejected() {
+    assertEquals("'yes' is not a valid value for solved", error(filter, "solved:eq:yes", null));
+    assertEquals("'soon' is not a valid value for requestTime", error(filter, "requestTime:lt:soon", null));
+    EntityFilter<MenuItemReview> reviews = EntityFilter.of(MenuItemReview.class, "stars");
+    assertEquals("'x' is not a valid value for stars", error(reviews, "stars:in:1|x", null));
+  }
+
+  @Test
+  public void invalid_clauses_are_rejected() {
+    assertEquals("Unknown field 'explanation'; expected one of [requesterEmail, teamId, requestTime, solved]",
+        error(filter, "explanation:eq:x", null));
+    assertEquals("Unknown operator in 'teamId'; expected one of [eq, ne, lt, le, gt, ge, in, prefix, null, notnull]",
+        error(filter, "teamId", null));
+    assertEquals("Unknown operator in 'teamId:like:x'; expected one of [eq, ne, lt, le, gt, ge, in, prefix, null, notnull]",
+        error(filter, "teamId:like:x", null));
+    assertEquals("teamId:eq needs a value", error(filter, "teamId:eq", null));
+    assertEquals("teamId:null does not take a value", error(filter, "teamId:null:x", null));
+    assertEquals("lt cannot be used on solved", error(filter, "solved:lt:true", null));
+    assertEquals("prefix cannot be used on requestTime", error(filter, "requestTime:prefix:2024", null));
+    EntityFilter<Wrapped> wrapped = EntityFilter.of(Wrapped.class, "flag");
+    assertEquals("ge cannot be used on flag", error(wrapped, "flag:ge:true", null));
+  }
+
+  @Test
+  public void invalid_sorts_are_rejected() {
+    assertEquals("Unknown field 'explanation'; expected one of [requesterEmail, teamId, requestTime, solved]",
+        error(filter, null, "-explanation"));
+    assertEquals("Unknown field ''; expected one of [requesterEmail, teamId, requestTime, solved]",
+        error(filter, null, "teamId,"));
+  }
+
+  @Test
+  public void filters_are_limited_to_max_clauses() {
+    filter.compile(String.join(",", Collections.nCopies(EntityFilter.MAX_CLAUSES, "teamId:notnull")), null);
+    assertEquals("A filter can have at most 16 clauses",
+        error(filter, String.join(",", Collections.nCopies(EntityFilter.MAX_CLAUSES + 1, "teamId:notnull")), null));
+  }
+
+  @Test
+  public void plans_are_cached_by_shape() {
+    filter.compile("teamId:eq:t1", "-requestTime");
+    filter.compile("teamId:eq:t2", "-requestTime");
+    assertEquals(1, filter.cachedShapes());
+    filter.compile("teamId:eq:t2", null);
+    filter.compile("teamId:in:t1|t2", null);
+    filter.compile("teamId:in:t3|t4", null);
+    filter.compile("teamId:in:t1|t2|t3", null);
+    assertEquals(4, filter.cachedShapes());
+    assertThrows(BadRequestException.class, () -> filter.compile("teamId:eq", null));
+    assertEquals(4, filter.cachedShapes());
+  }
+
+  @Test
+  public void a_cached_plan_still_checks_the_values() {
+    filter.compile("solved:eq:true", null);
+    assertEquals("'maybe' is not a valid value for solved", error(filter, "solved:eq:maybe", null));
+  }
+
+  @Test
+  public void the_cache_keeps_the_most_recent_shapes() {
+    for (int i = 1; i <= EntityFilter.MAX_SHAPES + 10; i++) {
+      filter.compile("teamId:in:" + "t|".repeat(i) + "t", null);
+    }
+    assertEquals(EntityFilter.MAX_SHAPES, filter.cachedShapes());
+  }
+
+  @Test
+  public void of_rejects_fields_that_cannot_be_filtered() {
+    assertEquals("NoId has no @Id field",
+        assertThrows(IllegalArgumentException.class, () -> EntityFilter.of(NoId.class, "name")).getMessage());
+    assertEquals("HelpRequest has no field nope",
+        assertThrows(IllegalArgumentException.class, () -> EntityFilter.of(HelpRequest.class, "nope")).getMessage());
+    assertEquals("tags of type List cannot be filtered",
+        assertThrows(IllegalArgumentException.class, () -> EntityFilter.of(Unsupported.class, "tags")).getMessage());
+  }
+
+  @Test
+  public void getFields_returns_the_allowed_fields() {
+    assertEquals(Set.of("requesterEmail", "teamId", "requestTime", "solved"), filter.getFields());
+  }
+
+  @Test
+  public void between_compiles_to_a_half_open_range() {
+    LocalDateTime start = LocalDateTime.parse("2024-01-01T00:00:00");
+    LocalDateTime end = LocalDateTime.parse("2024-02-01T00:00:00");
+    when(root.get("requestTime")).thenReturn(path);
+    EntityFilter.<HelpRequest>between("requestTime", start, end).toPredicate(root, null, cb);
+    verify(cb).greaterThanOrEqualTo((Path<Comparable>) path, (Comparable) start);
+    verify(cb).lessThan((Path<Comparable>) path, (Comparable) end);
+  }
+}
@@ -0,0 +1,91 @@
+package edu.ucsb.cs156.example.helpers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.models.HelpRequestDto;
+
+public class IsoLocalDateTimeSerializerTests {
+
+  ObjectMapper jsr310 = new ObjectMapper()
+      .registerModule(new JavaTimeModule())
+      .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+  ObjectMapper fast = new ObjectMapper()
+      .registerModule(new JavaTimeModule())
+      .registerModule(new SimpleModule().addSerializer(new IsoLocalDateTimeSerializer()))
+      .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+  private static String format(LocalDateTime value) {
+    char[] chars = new char[IsoLocalDateTimeSerializer.MAX_LENGTH];
+    return new String(chars, 0, IsoLocalDateTimeSerializer.format(value, chars));
+  }
+
+  @Test
+  public void format_matches_iso_local_date_time() {
+    for (String value : List.of("2022-01-03T00:00:00", "2022-01-03T00:00:00.5", "0001-12-31T23:59:59.000000001",
+        "9999-12-31T23:59:59.999999999", "2024-02-29T12:34:56.120", "0000-01-01T00:00:00")) {
+      LocalDateTime dateTime = LocalDateTime.parse(value);
+      assertEquals(dateTime.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME), format(dateTime));
+    }
+  }
+
+  @Test
+  public void format_matches_iso_local_date_time_for_random_values() {
+    Random random = new Random(156);
+    for (int i = 0; i < 10000; i++) {
+      LocalDateTime dateTime = LocalDateTime.of(random.nextInt(10000), 1 + random.nextInt(12), 1 + random.nextInt(28),
+          random.nextInt(24), random.nextInt(60), random.nextInt(60),
+          random.nextBoolean() ? 0 : random.nextInt(1_000_000_000) / (int) Math.pow(10, random.nextInt(9)));
+      assertEquals(dateTime.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME), format(dateTime));
+    }
+  }
+
+  @Test
+  public void years_that_need_a_sign_are_left_to_the_formatter() throws Exception {
+    for (LocalDateTime dateTime : List.of(LocalDateTime.of(10000, 1, 1, 0, 0), LocalDateTime.of(-1, 1, 1, 0, 0))) {
+      assertEquals(-1, IsoLocalDateTimeSerializer.format(dateTime, new char[IsoLocalDateTimeSerializer.MAX_LENGTH]));
+      assertEquals(jsr310.writeValueAsString(dateTime), fast.writeValueAsString(dateTime));
+    }
+  }
+
+  @Test
+  public void entities_and_dtos_are_written_as_before() throws Exception {
+    HelpRequest helpRequest = HelpRequest.builder()
+        .id(7)
+        .requesterEmail("cgaucho@ucsb.edu")
+        .teamId("s22-5pm-3")
+        .tableOrBreakoutRoom("7")
+        .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+        .explanation("Need help with Swagger-ui")
+        .solved(true)
+        .solvedTime(LocalDateTime.parse("2022-01-03T00:12:30.25"))
+        .build();
+
+    String expected = jsr310.writeValueAsString(helpRequest);
+
+    assertEquals(expected, fast.writeValueAsString(helpRequest));
+    assertEquals(expected, fast.writeValueAsString(HelpRequestDto.from(helpRequest)));
+  }
+
+  @Test
+  public void timestamps_are_left_to_the_jsr310_serializer() throws Exception {
+    LocalDateTime dateTime = LocalDateTime.parse("2022-01-03T00:00:00.5");
+    jsr310.enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    fast.enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    assertEquals(jsr310.writeValueAsString(dateTime), fast.writeValueAsString(dateTime));
+  }
+}
@@ -0,0 +1,55 @@
+package edu.ucsb.cs156.example.helpers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+public class UrlNormalizerTests {
+
+  @Test
+  public void normalize_returns_null_for_null() {
+    assertNull(UrlNormalizer.normalize(null));
+    assertNull(UrlNormalizer.hash(null));
+  }
+
+  @Test
+  public void normalize_treats_scheme_and_host_case_as_equal() {
+    assertEquals("https://example.com/a", UrlNormalizer.normalize("HTTP://Example.COM/a"));
+    assertEquals("https://example.com/a", UrlNormalizer.normalize("https://example.com/a"));
+    assertEquals("https://example.com/a", UrlNormalizer.normalize("  example.com/a  "));
+  }
+
+  @Test
+  public void normalize_removes_trailing_slash_fragment_and_default_port() {
+    assertEquals("https://example.com", UrlNormalizer.normalize("https://example.com/"));
+    assertEquals("https://example.com/a", UrlNormalizer.normalize("https://example.com:443/a//#section"));
+    assertEquals("https://example.com/a", UrlNormalizer.normalize("http://example.com:80/a"));
+    assertEquals("https://example.com:8080/a", UrlNormalizer.normalize("http://example.com:8080/a/"));
+  }
+
+  @Test
+  public void normalize_removes_tracking_params_and_sorts_the_rest() {
+    assertEquals("https://example.com/a?b=2&c=3",
+        UrlNormalizer.normalize("https://example.com/a?utm_source=x&c=3&&fbclid=y&UTM_Medium=z&b=2"));
+    assertEquals("https://example.com/a",
+        UrlNormalizer.normalize("https://example.com/a?gclid=1"));
+    assertEquals("https://example.com/a",
+        UrlNormalizer.normalize("https://example.com/a?"));
+  }
+
+  @Test
+  public void normalize_falls_back_to_lower_case_for_unparseable_urls() {
+    assertEquals("https://not a url", UrlNormalizer.normalize("https://Not A URL"));
+    assertEquals("file:///tmp/a.html", UrlNormalizer.normalize("file:///tmp/A.html"));
+  }
+
+  @Test
+  public void hash_is_sha256_of_normalized_url() {
+    String h = UrlNormalizer.hash("https://example.com/a/?utm_source=x");
+    assertEquals(64, h.length());
+    assertEquals(h, UrlNormalizer.hash("example.com/a"));
+    assertNotEquals(h, UrlNormalizer.hash("example.com/b"));
+  }
+}
@@ -0,0 +1,87 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.example.entities.ArchivedHelpRequest;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.models.HelpRequestHourCounts;
+import edu.ucsb.cs156.example.models.HelpRequestStats;
+import edu.ucsb.cs156.example.repositories.ArchivedHelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.services.HelpRequestRollupService;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("integration")
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class HelpRequestRollupIT {
+        @Autowired
+        HelpRequestRepository helpRequestRepository;
+
+        @Autowired
+        ArchivedHelpRequestRepository archivedHelpRequestRepository;
+
+        @Autowired
+        HelpRequestRollupService helpRequestRollups;
+
+        LocalDateTime ten = LocalDateTime.parse("2024-10-29T10:00:00");
+        LocalDateTime eleven = ten.plusHours(1);
+
+        HelpRequest request(String teamId, LocalDateTime requestTime, Integer solveMinutes) {
+                return HelpRequest.builder()
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .teamId(teamId)
+                                .tableOrBreakoutRoom("7")
+                                .explanation("help")
+                                .requestTime(requestTime)
+                                .solved(solveMinutes != null)
+                                .solvedTime(solveMinutes == null ? null : requestTime.plusMinutes(solveMinutes))
+                                .build();
+        }
+
+        @Test
+        public void the_rollups_are_loaded_from_grouped_counts_and_solve_times() {
+                helpRequestRepository.save(request("t1", ten.plusMinutes(5), 10));
+                helpRequestRepository.save(request("t1", ten.plusMinutes(59), null));
+                helpRequestRepository.save(request("t2", ten.plusMinutes(30), 20));
+                helpRequestRepository.save(request("t1", eleven, 30));
+                HelpRequest archived = request("t1", ten.plusMinutes(10), 40);
+                archivedHelpRequestRepository.save(ArchivedHelpRequest.builder()
+                                .id(100)
+                                .requesterEmail(archived.getRequesterEmail())
+                                .teamId(archived.getTeamId())
+                                .tableOrBreakoutRoom(archived.getTableOrBreakoutRoom())
+                                .explanation(archived.getExplanation())
+                                .requestTime(archived.getRequestTime())
+                                .solved(true)
+                                .solvedTime(archived.getSolvedTime())
+                                .archivedTime(eleven.plusDays(30))
+                                .build());
+
+                assertEquals(List.of(new HelpRequestHourCounts("t1", ten.toLocalDate(), 10, 2L, 1L)),
+                                helpRequestRepository.countByTeamIdAndHour(ten, eleven).stream()
+                                                .filter(counts -> "t1".equals(counts.teamId()))
+                                                .toList());
+
+                helpRequestRollups.rebuild();
+
+                assertEquals(HelpRequestStats.builder().teamId("t1").from(ten).to(eleven)
+                                .requests(3).solved(2).medianSolveSeconds(600L).p90SolveSeconds(2400L)
+                                .p99SolveSeconds(2400L).build(),
+                                helpRequestRollups.totals(ten, eleven, "t1"));
+                assertEquals(5, helpRequestRollups.totals(ten, eleven.plusHours(1), null).getRequests());
+                assertEquals(4, helpRequestRollups.totals(ten, eleven.plusHours(1), null).getSolved());
+        }
+}
@@ -0,0 +1,62 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Checks that the from/to range queries of the list endpoints are index range
+ * scans of the tables as Liquibase creates them (on H2, where the time
+ * columns get b-tree indexes; Postgres gets BRIN indexes instead).
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("integration")
+public class TimeRangeIndexIT {
+        @Autowired
+        JdbcTemplate jdbcTemplate;
+
+        void assertRangeScan(String table, String column, String index) {
+                String plan = jdbcTemplate.queryForObject(
+                                "EXPLAIN SELECT * FROM %s WHERE %s >= ? AND %s < ? ORDER BY %s, ID"
+                                                .formatted(table, column, column, column),
+                                String.class,
+                                LocalDateTime.parse("2024-10-01T00:00:00"), LocalDateTime.parse("2024-11-01T00:00:00"));
+                assertTrue(plan.contains("/* PUBLIC.%s: %s >= ?1".formatted(index, column)), plan);
+        }
+
+        @Test
+        public void help_request_ranges_use_the_request_time_index() {
+                assertRangeScan("HELPREQUESTS", "REQUEST_TIME", "HELPREQUESTS_REQUEST_TIME_IDX");
+                assertRangeScan("ARCHIVEDHELPREQUESTS", "REQUEST_TIME", "ARCHIVEDHELPREQUESTS_REQUEST_TIME_IDX");
+        }
+
+        @Test
+        public void article_ranges_use_the_date_added_index() {
+                assertRangeScan("ARTICLES", "DATE_ADDED", "ARTICLES_DATE_ADDED_IDX");
+        }
+
+        @Test
+        public void menu_item_review_ranges_use_the_date_reviewed_index() {
+                assertRangeScan("MENUITEMREVIEW", "DATE_REVIEWED", "MENUITEMREVIEW_DATE_REVIEWED_IDX");
+        }
+
+        @Test
+        public void recommendation_request_ranges_use_the_date_indexes() {
+                assertRangeScan("RECOMMENDATIONREQUESTS", "DATE_REQUESTED", "RECOMMENDATIONREQUESTS_DATE_REQUESTED_IDX");
+                assertRangeScan("RECOMMENDATIONREQUESTS", "DATE_NEEDED", "RECOMMENDATIONREQUESTS_DATE_NEEDED_IDX");
+        }
+
+        @Test
+        public void ucsb_date_ranges_use_the_local_date_time_index() {
+                assertRangeScan("UCSBDATES", "LOCAL_DATE_TIME", "UCSBDATES_LOCAL_DATE_TIME_IDX");
+        }
+}
@@ -0,0 +1,127 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.CurrentUserServiceImpl;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("integration")
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class UserUpsertIT {
+        @Autowired
+        CurrentUserServiceImpl currentUserService;
+
+        @Autowired
+        UserRepository userRepository;
+
+        @Autowired
+        PlatformTransactionManager transactionManager;
+
+        OAuth2AuthenticationToken login(String email, String name) {
+                Map<String, Object> attributes = Map.of(
+                                "sub", "sub-" + email,
+                                "email", email,
+                                "name", name,
+                                "given_name", name,
+                                "family_name", "Gaucho",
+                                "email_verified", true,
+                                "picture", "https://example.org/" + email + ".png");
+                DefaultOAuth2User principal = new DefaultOAuth2User(AuthorityUtils.createAuthorityList("ROLE_USER"),
+                                attributes, "sub");
+                return new OAuth2AuthenticationToken(principal, principal.getAuthorities(), "google");
+        }
+
+        @Test
+        public void a_login_storm_creates_exactly_one_user_per_email() throws Exception {
+                int students = 25;
+                int logins = 500;
+                ExecutorService pool = Executors.newFixedThreadPool(64);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Long>> futures = new ArrayList<>();
+                for (int i = 0; i < logins; i++) {
+                        String email = "student%d@ucsb.edu".formatted(i % students);
+                        futures.add(pool.submit(() -> {
+                                start.await();
+                                long t0 = System.nanoTime();
+                                User user = currentUserService.getOAuth2AuthenticatedUser(null, login(email, "Chris"));
+                                long elapsed = System.nanoTime() - t0;
+                                assertEquals(email, user.getEmail());
+                                return elapsed;
+                        }));
+                }
+                start.countDown();
+                List<Long> latencies = new ArrayList<>();
+                for (Future<Long> future : futures) {
+                        latencies.add(future.get());
+                }
+                pool.shutdown();
+
+                assertEquals(students, userRepository.count());
+                for (int i = 0; i < students; i++) {
+                        assertTrue(userRepository.findByEmail("student%d@ucsb.edu".formatted(i)).isPresent());
+                }
+
+                Collections.sort(latencies);
+                log.info("{} concurrent logins for {} users: p50={}ms p95={}ms p99={}ms max={}ms", logins, students,
+                                latencies.get(logins / 2) / 1_000_000.0,
+                                latencies.get(logins * 95 / 100) / 1_000_000.0,
+                                latencies.get(logins * 99 / 100) / 1_000_000.0,
+                                latencies.get(logins - 1) / 1_000_000.0);
+        }
+
+        @Test
+        public void logins_refresh_profile_fields_and_never_revoke_admin() {
+                User first = currentUserService.getOAuth2AuthenticatedUser(null, login("admingaucho@ucsb.edu", "Chris"));
+                assertTrue(first.getAdmin());
+
+                User second = currentUserService.getOAuth2AuthenticatedUser(null, login("admingaucho@ucsb.edu", "Kris"));
+
+                assertEquals(first.getId(), second.getId());
+                assertEquals("Kris", second.getFullName());
+                assertTrue(second.getAdmin());
+                assertEquals(1, userRepository.count());
+        }
+
+        @Test
+        public void a_changed_profile_is_read_again_when_the_user_was_already_loaded() {
+                currentUserService.getOAuth2AuthenticatedUser(null, login("cgaucho@ucsb.edu", "Chris"));
+
+                // as with open session in view, the user is already in the persistence context
+                User second = new TransactionTemplate(transactionManager).execute(status -> {
+                        userRepository.findByEmail("cgaucho@ucsb.edu").orElseThrow();
+                        return currentUserService.getOAuth2AuthenticatedUser(null, login("cgaucho@ucsb.edu", "Kris"));
+                });
+
+                assertEquals("Kris", second.getFullName());
+                assertEquals("Kris", userRepository.findByEmail("cgaucho@ucsb.edu").orElseThrow().getFullName());
+        }
+}
@@ -0,0 +1,97 @@
+package edu.ucsb.cs156.example.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.helpers.EntityAggregation;
+import edu.ucsb.cs156.example.helpers.EntityFilter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings({ "unchecked", "rawtypes" })
+public class AggregateRepositoryImplTests {
+
+  private final EntityAggregation<MenuItemReview> aggregates = EntityAggregation.of(
+      EntityFilter.of(MenuItemReview.class, "itemId", "stars"), List.of("itemId", "stars"), List.of("stars"));
+
+  private final EntityManager entityManager = mock(EntityManager.class);
+  private final CriteriaBuilder cb = mock(CriteriaBuilder.class);
+  private final CriteriaQuery criteria = mock(CriteriaQuery.class);
+  private final Root root = mock(Root.class);
+  private final Path itemId = mock(Path.class);
+  private final Path stars = mock(Path.class);
+  private final TypedQuery typedQuery = mock(TypedQuery.class);
+  private final List<Object[]> results = List.<Object[]>of(new Object[] { 7L, 2L });
+
+  private final AggregateRepositoryImpl<MenuItemReview> repository = new AggregateRepositoryImpl<>();
+
+  @BeforeEach
+  public void setUp() {
+    repository.entityManager = entityManager;
+    when(entityManager.getCriteriaBuilder()).thenReturn(cb);
+    when(cb.createQuery(Object[].class)).thenReturn(criteria);
+    when(criteria.from(MenuItemReview.class)).thenReturn(root);
+    when(root.get("itemId")).thenReturn(itemId);
+    when(root.get("stars")).thenReturn(stars);
+    when(entityManager.createQuery(criteria)).thenReturn(typedQuery);
+    when(typedQuery.setMaxResults(EntityAggregation.MAX_GROUPS + 1)).thenReturn(typedQuery);
+    when(typedQuery.getResultList()).thenReturn(results);
+  }
+
+  @Test
+  public void groups_by_the_keys_and_selects_them_with_the_metrics() {
+    Expression count = mock(Expression.class);
+    Expression min = mock(Expression.class);
+    Expression max = mock(Expression.class);
+    Expression avg = mock(Expression.class);
+    Order byItemId = mock(Order.class);
+    Order byStars = mock(Order.class);
+    when(cb.count(root)).thenReturn(count);
+    when(cb.least(stars)).thenReturn(min);
+    when(cb.greatest(stars)).thenReturn(max);
+    when(cb.avg(stars)).thenReturn(avg);
+    when(cb.asc(itemId)).thenReturn(byItemId);
+    when(cb.asc(stars)).thenReturn(byStars);
+
+    List<Object[]> rows = repository.aggregate(
+        aggregates.compile("itemId,stars", "count,min:stars,max:stars,avg:stars", null));
+
+    assertSame(results, rows);
+    verify(criteria).multiselect(List.of(itemId, stars, count, min, max, avg));
+    verify(criteria).groupBy(List.of(itemId, stars));
+    verify(criteria).orderBy(List.of(byItemId, byStars));
+    verify(criteria, never()).where(any(Expression.class));
+    verify(typedQuery).setMaxResults(EntityAggregation.MAX_GROUPS + 1);
+  }
+
+  @Test
+  public void the_filter_is_applied() {
+    Predicate atLeastThree = mock(Predicate.class);
+    Expression count = mock(Expression.class);
+    when(cb.count(root)).thenReturn(count);
+    when(cb.greaterThanOrEqualTo((Expression<Comparable>) stars, (Comparable) 3)).thenReturn(atLeastThree);
+
+    repository.aggregate(aggregates.compile(null, null, "stars:ge:3"));
+
+    verify(criteria).where(atLeastThree);
+    verify(criteria).groupBy(List.of());
+    verify(criteria).multiselect(List.of(count));
+  }
+}
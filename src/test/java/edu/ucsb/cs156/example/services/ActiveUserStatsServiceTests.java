@@ -0,0 +1,173 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import edu.ucsb.cs156.example.entities.ActiveUserSketch;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.models.ActiveUserCount;
+import edu.ucsb.cs156.example.repositories.ActiveUserSketchRepository;
+import edu.ucsb.cs156.example.structures.HyperLogLog;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = ActiveUserStatsService.class)
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class ActiveUserStatsServiceTests {
+
+  @MockBean
+  ActiveUserSketchRepository activeUserSketchRepository;
+
+  @MockBean
+  PlatformTransactionManager transactionManager;
+
+  @Autowired
+  ActiveUserStatsService activeUsers;
+
+  LocalDate today = LocalDate.now();
+  LocalDate yesterday = today.minusDays(1);
+
+  static ActiveUserSketch stored(LocalDate day, long fromId, long toId) {
+    HyperLogLog sketch = new HyperLogLog(ActiveUserStatsService.PRECISION);
+    for (long id = fromId; id <= toId; id++) {
+      sketch.offer(id);
+    }
+    return ActiveUserSketch.builder().activityDate(day).registers(sketch.toBytes()).build();
+  }
+
+  static long estimateOf(ActiveUserSketch sketch) {
+    return HyperLogLog.fromBytes(sketch.getRegisters()).estimate();
+  }
+
+  @Test
+  public void flush_stores_each_days_sketch_merged_with_the_stored_one() {
+    for (long id = 1; id <= 100; id++) {
+      activeUsers.record(id);
+      activeUsers.record(id);
+    }
+    for (long id = 1; id <= 50; id++) {
+      activeUsers.record(id, yesterday);
+    }
+    when(activeUserSketchRepository.findForUpdateByActivityDate(yesterday)).thenReturn(Optional.of(stored(yesterday, 1001, 1050)));
+
+    activeUsers.flush();
+
+    ArgumentCaptor<ActiveUserSketch> saved = ArgumentCaptor.forClass(ActiveUserSketch.class);
+    verify(activeUserSketchRepository, times(2)).save(saved.capture());
+    for (ActiveUserSketch sketch : saved.getAllValues()) {
+      assertEquals(100, estimateOf(sketch), 3);
+      assertEquals(4096, sketch.getRegisters().length);
+    }
+  }
+
+  @Test
+  public void each_day_is_merged_in_its_own_transaction() {
+    activeUsers.record(1L);
+    activeUsers.record(1L, yesterday);
+
+    activeUsers.flush();
+
+    verify(transactionManager, times(2)).commit(any());
+  }
+
+  @Test
+  public void a_day_first_stored_by_another_instance_at_the_same_time_is_merged_again() {
+    for (long id = 1; id <= 100; id++) {
+      activeUsers.record(id);
+    }
+    ActiveUserSketch other = stored(today, 1001, 1100);
+    when(activeUserSketchRepository.findForUpdateByActivityDate(today))
+        .thenReturn(Optional.empty())
+        .thenReturn(Optional.of(other));
+    when(activeUserSketchRepository.save(any()))
+        .thenThrow(new DataIntegrityViolationException("duplicate key"))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+
+    activeUsers.flush();
+
+    ArgumentCaptor<ActiveUserSketch> saved = ArgumentCaptor.forClass(ActiveUserSketch.class);
+    verify(activeUserSketchRepository, times(2)).save(saved.capture());
+    assertEquals(200, estimateOf(saved.getAllValues().get(1)), 6);
+    verify(transactionManager, times(1)).rollback(any());
+    verify(transactionManager, times(1)).commit(any());
+  }
+
+  @Test
+  public void past_days_are_dropped_from_memory_once_flushed() {
+    activeUsers.record(1L, yesterday);
+    activeUsers.record(2L, today);
+
+    activeUsers.flush();
+    activeUsers.flush();
+
+    verify(activeUserSketchRepository, times(1)).save(argThat(s -> s.getActivityDate().equals(yesterday)));
+    verify(activeUserSketchRepository, times(2)).save(argThat(s -> s.getActivityDate().equals(today)));
+  }
+
+  @Test
+  public void estimate_is_the_union_of_stored_and_in_memory_days_in_range() {
+    when(activeUserSketchRepository.findByActivityDateBetweenOrderByActivityDateAsc(yesterday, today))
+        .thenReturn(List.of(stored(yesterday, 1, 300), stored(today, 201, 400)));
+    for (long id = 351; id <= 500; id++) {
+      activeUsers.record(id, today);
+    }
+    for (long id = 1001; id <= 2000; id++) {
+      activeUsers.record(id, today.minusDays(2));
+      activeUsers.record(id, today.plusDays(1));
+    }
+
+    assertEquals(500, activeUsers.estimate(yesterday, today), 10);
+  }
+
+  @Test
+  public void summary_counts_today_the_last_week_and_the_quarter() {
+    LocalDate day = LocalDate.parse("2024-11-15");
+    when(activeUserSketchRepository.findByActivityDateBetweenOrderByActivityDateAsc(any(), any()))
+        .thenReturn(List.of(stored(day, 1, 10)));
+
+    List<ActiveUserCount> summary = activeUsers.summary(day);
+
+    assertEquals(List.of(
+        ActiveUserCount.builder().period("day").from(day).to(day).estimate(10).build(),
+        ActiveUserCount.builder().period("week").from(LocalDate.parse("2024-11-09")).to(day).estimate(10).build(),
+        ActiveUserCount.builder().period("quarter 20244").from(LocalDate.parse("2024-10-01")).to(day).estimate(10)
+            .build()),
+        summary);
+  }
+
+  @Test
+  public void quarters_follow_the_ucsb_date_convention() {
+    assertEquals("20241", ActiveUserStatsService.quarterOf(LocalDate.parse("2024-03-31")));
+    assertEquals("20242", ActiveUserStatsService.quarterOf(LocalDate.parse("2024-04-01")));
+    assertEquals("20244", ActiveUserStatsService.quarterOf(LocalDate.parse("2024-12-31")));
+    assertEquals(LocalDate.parse("2024-01-01"), ActiveUserStatsService.quarterStart("20241"));
+    assertEquals(LocalDate.parse("2024-07-01"), ActiveUserStatsService.quarterStart("20243"));
+
+    assertThrows(BadRequestException.class, () -> ActiveUserStatsService.quarterStart(null));
+    assertThrows(BadRequestException.class, () -> ActiveUserStatsService.quarterStart("2024"));
+    BadRequestException e = assertThrows(BadRequestException.class,
+        () -> ActiveUserStatsService.quarterStart("20245"));
+    assertTrue(e.getMessage().contains("YYYYQ"));
+  }
+}
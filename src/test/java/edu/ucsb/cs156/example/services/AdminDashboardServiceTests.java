@@ -0,0 +1,215 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.example.models.AdminDashboard;
+import edu.ucsb.cs156.example.models.DashboardTile;
+import edu.ucsb.cs156.example.repositories.ArchivedHelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = AdminDashboardService.class)
+@TestPropertySource(properties = { "app.dashboard.timeoutMillis=500", "app.dashboard.cacheSeconds=15" })
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class AdminDashboardServiceTests {
+
+  @MockBean
+  UserRepository userRepository;
+
+  @MockBean
+  HelpRequestRepository helpRequestRepository;
+
+  @MockBean
+  ArchivedHelpRequestRepository archivedHelpRequestRepository;
+
+  @MockBean
+  RecommendationRequestRepository recommendationRequestRepository;
+
+  @MockBean
+  MenuItemReviewRepository menuItemReviewRepository;
+
+  @MockBean
+  UCSBDiningCommonsRepository diningCommonsRepository;
+
+  @MockBean
+  UCSBDiningCommonsMenuItemRepository menuItemRepository;
+
+  @MockBean
+  UCSBDateRepository dateRepository;
+
+  @MockBean
+  UCSBOrganizationRepository organizationRepository;
+
+  @MockBean
+  RestaurantRepository restaurantRepository;
+
+  @MockBean
+  ArticlesRepository articlesRepository;
+
+  @Autowired
+  AdminDashboardService adminDashboard;
+
+  LocalDateTime now = LocalDateTime.parse("2024-12-01T12:00:00");
+  LocalDateTime dayAgo = LocalDateTime.parse("2024-11-30T12:00:00");
+
+  private static DashboardTile tile(String name, long value) {
+    return DashboardTile.builder().name(name).value(value).status(DashboardTile.OK).build();
+  }
+
+  @Test
+  public void the_queries_run_at_the_same_time() throws Exception {
+
+    // arrange
+
+    CountDownLatch bothStarted = new CountDownLatch(2);
+    when(userRepository.count()).thenAnswer(invocation -> {
+      bothStarted.countDown();
+      return bothStarted.await(5, TimeUnit.SECONDS) && Thread.currentThread().isVirtual() ? 1L : -1L;
+    });
+    when(articlesRepository.count()).thenAnswer(invocation -> {
+      bothStarted.countDown();
+      return bothStarted.await(5, TimeUnit.SECONDS) ? 16L : -16L;
+    });
+    when(helpRequestRepository.count()).thenReturn(2L);
+    when(helpRequestRepository.countBySolvedFalse()).thenReturn(3L);
+    when(helpRequestRepository.countByRequestTimeGreaterThanEqual(dayAgo)).thenReturn(4L);
+    when(archivedHelpRequestRepository.count()).thenReturn(5L);
+    when(recommendationRequestRepository.count()).thenReturn(6L);
+    when(recommendationRequestRepository.countByDoneFalseAndDateNeededBefore(now)).thenReturn(7L);
+    when(recommendationRequestRepository.countByDateRequestedGreaterThanEqual(dayAgo)).thenReturn(8L);
+    when(menuItemReviewRepository.count()).thenReturn(9L);
+    when(menuItemReviewRepository.countByDateReviewedGreaterThanEqual(dayAgo)).thenReturn(10L);
+    when(diningCommonsRepository.count()).thenReturn(11L);
+    when(menuItemRepository.count()).thenReturn(12L);
+    when(dateRepository.count()).thenReturn(13L);
+    when(organizationRepository.count()).thenReturn(14L);
+    when(restaurantRepository.count()).thenReturn(15L);
+
+    // act
+    AdminDashboard dashboard = adminDashboard.dashboard(now);
+
+    // assert
+    assertEquals(now, dashboard.getGeneratedAt());
+    assertTrue(dashboard.getComplete());
+    assertEquals(List.of(
+        tile("users", 1),
+        tile("helpRequests", 2),
+        tile("helpRequestsUnsolved", 3),
+        tile("helpRequestsLastDay", 4),
+        tile("archivedHelpRequests", 5),
+        tile("recommendationRequests", 6),
+        tile("recommendationRequestsOverdue", 7),
+        tile("recommendationRequestsLastDay", 8),
+        tile("menuItemReviews", 9),
+        tile("menuItemReviewsLastDay", 10),
+        tile("diningCommons", 11),
+        tile("menuItems", 12),
+        tile("ucsbDates", 13),
+        tile("organizations", 14),
+        tile("restaurants", 15),
+        tile("articles", 16)), dashboard.getTiles());
+  }
+
+  @Test
+  public void slow_and_failed_queries_leave_the_other_tiles() throws Exception {
+
+    // arrange
+
+    when(userRepository.count()).thenReturn(1L);
+    when(helpRequestRepository.countBySolvedFalse()).thenAnswer(invocation -> {
+      Thread.sleep(10_000);
+      return 3L;
+    });
+    when(articlesRepository.count()).thenThrow(new IllegalStateException("no connection"));
+
+    // act
+    long start = System.currentTimeMillis();
+    AdminDashboard dashboard = adminDashboard.dashboard(now);
+
+    // assert
+    assertTrue(System.currentTimeMillis() - start < 5_000);
+    assertFalse(dashboard.getComplete());
+    List<DashboardTile> tiles = dashboard.getTiles();
+    assertEquals(16, tiles.size());
+    assertEquals(tile("users", 1), tiles.get(0));
+    assertEquals(DashboardTile.builder().name("helpRequestsUnsolved").status(DashboardTile.TIMEOUT).build(),
+        tiles.get(2));
+    assertEquals(tile("helpRequestsLastDay", 0), tiles.get(3));
+    assertEquals(DashboardTile.builder().name("articles").status(DashboardTile.ERROR).build(), tiles.get(15));
+  }
+
+  @Test
+  public void partial_dashboards_are_not_cached() throws Exception {
+
+    // arrange
+    when(articlesRepository.count()).thenThrow(new IllegalStateException("no connection"));
+
+    // act
+    AdminDashboard first = adminDashboard.dashboard(now);
+    AdminDashboard second = adminDashboard.dashboard(now.plusSeconds(1));
+
+    // assert
+    assertFalse(second.getComplete());
+    assertNotSame(first, second);
+    verify(userRepository, times(2)).count();
+  }
+
+  @Test
+  public void complete_dashboards_are_cached() throws Exception {
+
+    // arrange
+    when(userRepository.count()).thenReturn(1L);
+
+    // act
+    AdminDashboard first = adminDashboard.dashboard(now);
+    AdminDashboard cached = adminDashboard.dashboard(now.plusSeconds(14));
+    AdminDashboard expired = adminDashboard.dashboard(now.plusSeconds(15));
+
+    // assert
+    assertSame(first, cached);
+    assertNotSame(first, expired);
+    assertEquals(now.plusSeconds(15), expired.getGeneratedAt());
+    verify(userRepository, times(2)).count();
+  }
+
+  @Test
+  public void the_dashboard_is_as_of_now() throws Exception {
+    LocalDateTime before = LocalDateTime.now();
+    AdminDashboard dashboard = adminDashboard.dashboard();
+    assertNotNull(dashboard.getGeneratedAt());
+    assertFalse(dashboard.getGeneratedAt().isBefore(before));
+    assertEquals(16, dashboard.getTiles().size());
+  }
+}
@@ -0,0 +1,140 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.helpers.UrlNormalizer;
+import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = ArticleUrlIndexService.class)
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class ArticleUrlIndexServiceTests {
+
+  @MockBean
+  ArticlesRepository articlesRepository;
+
+  @Autowired
+  ArticleUrlIndexService articleUrlIndex;
+
+  private final String hashA = UrlNormalizer.hash("https://example.com/a");
+
+  @Test
+  public void new_url_is_answered_without_a_database_lookup() {
+    when(articlesRepository.findAllUrlHashes()).thenReturn(List.of(hashA));
+    when(articlesRepository.findAllByUrlHashIsNull()).thenReturn(List.of());
+    articleUrlIndex.rebuild();
+
+    assertTrue(articleUrlIndex.findDuplicate("https://example.com/never-posted").isEmpty());
+    assertTrue(articleUrlIndex.findDuplicate(null).isEmpty());
+    verify(articlesRepository, never()).findByUrlHash(any());
+  }
+
+  @Test
+  public void possible_duplicate_is_confirmed_in_the_database() {
+    Articles existing = Articles.builder().id(7L).url("https://example.com/a").urlHash(hashA).build();
+    when(articlesRepository.findAllUrlHashes()).thenReturn(List.of(hashA));
+    when(articlesRepository.findAllByUrlHashIsNull()).thenReturn(List.of());
+    when(articlesRepository.findByUrlHash(eq(hashA))).thenReturn(Optional.of(existing));
+    articleUrlIndex.rebuild();
+
+    Optional<Articles> result = articleUrlIndex.findDuplicate("HTTP://EXAMPLE.com/a/?utm_source=mail");
+
+    assertEquals(Optional.of(existing), result);
+    verify(articlesRepository, times(1)).findByUrlHash(eq(hashA));
+  }
+
+  @Test
+  public void filter_is_built_lazily_when_application_ready_has_not_fired() {
+    when(articlesRepository.findAllUrlHashes()).thenReturn(List.of());
+    when(articlesRepository.findAllByUrlHashIsNull()).thenReturn(List.of());
+
+    assertTrue(articleUrlIndex.findDuplicate("https://example.com/a").isEmpty());
+    verify(articlesRepository, times(1)).findAllUrlHashes();
+  }
+
+  @Test
+  public void rebuild_backfills_hashes_for_older_articles() {
+    Articles first = Articles.builder().id(1L).url("https://example.com/a").build();
+    Articles duplicate = Articles.builder().id(2L).url("example.com/a/").build();
+    Articles noUrl = Articles.builder().id(3L).build();
+    when(articlesRepository.count()).thenReturn(3L);
+    when(articlesRepository.findAllUrlHashes()).thenReturn(List.of());
+    when(articlesRepository.findAllByUrlHashIsNull()).thenReturn(List.of(first, duplicate, noUrl));
+    when(articlesRepository.findByUrlHash(eq(hashA))).thenReturn(Optional.of(first));
+
+    articleUrlIndex.rebuild();
+
+    assertEquals(hashA, first.getUrlHash());
+    assertNull(duplicate.getUrlHash());
+    assertNull(noUrl.getUrlHash());
+    verify(articlesRepository, times(1)).save(first);
+    verify(articlesRepository, never()).save(duplicate);
+    verify(articlesRepository, never()).save(noUrl);
+  }
+
+  @Test
+  public void claimUrl_sets_hash_when_url_is_new() {
+    when(articlesRepository.findAllUrlHashes()).thenReturn(List.of());
+    when(articlesRepository.findAllByUrlHashIsNull()).thenReturn(List.of());
+    articleUrlIndex.rebuild();
+
+    Articles article = Articles.builder().url("https://example.com/a").build();
+    assertTrue(articleUrlIndex.claimUrl(article).isEmpty());
+    assertEquals(hashA, article.getUrlHash());
+  }
+
+  @Test
+  public void claimUrl_clears_hash_when_another_article_holds_the_url() {
+    Articles existing = Articles.builder().id(7L).url("https://example.com/a").urlHash(hashA).build();
+    when(articlesRepository.findAllUrlHashes()).thenReturn(List.of(hashA));
+    when(articlesRepository.findAllByUrlHashIsNull()).thenReturn(List.of());
+    when(articlesRepository.findByUrlHash(eq(hashA))).thenReturn(Optional.of(existing));
+    articleUrlIndex.rebuild();
+
+    Articles article = Articles.builder().id(8L).url("example.com/a").urlHash("stale").build();
+    assertEquals(Optional.of(existing), articleUrlIndex.claimUrl(article));
+    assertNull(article.getUrlHash());
+
+    Articles same = Articles.builder().id(7L).url("https://example.com/a").build();
+    assertTrue(articleUrlIndex.claimUrl(same).isEmpty());
+    assertEquals(hashA, same.getUrlHash());
+  }
+
+  @Test
+  public void add_records_saved_hashes() {
+    when(articlesRepository.findAllUrlHashes()).thenReturn(List.of());
+    when(articlesRepository.findAllByUrlHashIsNull()).thenReturn(List.of());
+    articleUrlIndex.rebuild();
+
+    articleUrlIndex.add(null);
+    articleUrlIndex.add(Articles.builder().id(1L).url("https://example.com/a").build());
+    assertFalse(articleUrlIndex.findDuplicate("https://example.com/a").isPresent());
+    verify(articlesRepository, never()).findByUrlHash(any());
+
+    articleUrlIndex.add(Articles.builder().id(1L).url("https://example.com/a").urlHash(hashA).build());
+    articleUrlIndex.findDuplicate("https://example.com/a");
+    verify(articlesRepository, times(1)).findByUrlHash(eq(hashA));
+  }
+}
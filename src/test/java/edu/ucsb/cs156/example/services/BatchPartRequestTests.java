@@ -0,0 +1,320 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletMapping;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.ServletConnection;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpUpgradeHandler;
+import jakarta.servlet.http.MappingMatch;
+
+public class BatchPartRequestTests {
+
+  MockHttpServletRequest batch = new MockHttpServletRequest("POST", "/app/api/batch");
+
+  @Test
+  public void the_part_has_its_own_path_and_parameters() {
+
+    // arrange
+    batch.setContextPath("/app");
+    batch.addParameter("_csrf", "token");
+
+    // act
+    BatchPartRequest part = new BatchPartRequest(batch, "/api/ucsbdates/all?q=a%20b+c&ids=1&ids=2&flag");
+
+    // assert
+    assertEquals("GET", part.getMethod());
+    assertEquals("/app/api/ucsbdates/all", part.getRequestURI());
+    assertEquals("/app", part.getContextPath());
+    assertEquals("http://localhost:80/app/api/ucsbdates/all", part.getRequestURL().toString());
+    assertEquals("/api/ucsbdates/all", part.getServletPath());
+    assertNull(part.getPathInfo());
+    assertEquals("q=a%20b+c&ids=1&ids=2&flag", part.getQueryString());
+    assertEquals("a b c", part.getParameter("q"));
+    assertEquals("1", part.getParameter("ids"));
+    assertArrayEquals(new String[] { "1", "2" }, part.getParameterValues("ids"));
+    assertEquals("", part.getParameter("flag"));
+    assertNull(part.getParameter("_csrf"));
+    assertNull(part.getParameterValues("_csrf"));
+    assertEquals(List.of("q", "ids", "flag"), List.copyOf(part.getParameterMap().keySet()));
+    assertEquals(List.of("q", "ids", "flag"), Collections.list(part.getParameterNames()));
+    assertEquals("POST", batch.getMethod());
+  }
+
+  @Test
+  public void a_part_without_a_query_has_no_parameters() {
+    BatchPartRequest part = new BatchPartRequest(batch, "/api/currentUser");
+    assertEquals("/api/currentUser", part.getRequestURI());
+    assertNull(part.getQueryString());
+    assertEquals(0, part.getParameterMap().size());
+  }
+
+  @Test
+  public void the_part_accepts_json_and_has_the_other_headers_of_the_batch() {
+
+    // arrange
+    batch.addHeader("Accept", "text/html");
+    batch.addHeader("X-Requested-With", "XMLHttpRequest");
+
+    // act
+    BatchPartRequest part = new BatchPartRequest(batch, "/api/currentUser");
+
+    // assert
+    assertEquals("application/json", part.getHeader("accept"));
+    assertEquals(List.of("application/json"), Collections.list(part.getHeaders("Accept")));
+    assertEquals("XMLHttpRequest", part.getHeader("X-Requested-With"));
+    assertEquals(List.of("XMLHttpRequest"), Collections.list(part.getHeaders("X-Requested-With")));
+  }
+
+  @Test
+  public void the_part_starts_without_attributes_and_keeps_its_own() {
+
+    // arrange
+    batch.setAttribute("batch", "batch");
+    BatchPartRequest part = new BatchPartRequest(batch, "/api/currentUser");
+
+    // act
+    part.setAttribute("own", "part");
+    part.setAttribute("removed", "part");
+    part.removeAttribute("removed");
+    part.setAttribute("nulled", "part");
+    part.setAttribute("nulled", null);
+
+    // assert
+    assertNull(part.getAttribute("batch"));
+    assertEquals("part", part.getAttribute("own"));
+    assertNull(part.getAttribute("removed"));
+    assertNull(part.getAttribute("nulled"));
+    assertEquals(List.of("own"), Collections.list(part.getAttributeNames()));
+    assertNull(batch.getAttribute("own"));
+  }
+
+  @Test
+  public void the_part_has_a_copy_of_the_headers_and_cookies_of_the_batch() {
+
+    // arrange
+    batch.addHeader("X-Count", "3");
+    batch.addHeader("If-Modified-Since", "Thu, 01 Jan 1970 00:00:01 GMT");
+    batch.setCookies(new Cookie("JSESSIONID", "abc"));
+    BatchPartRequest part = new BatchPartRequest(batch, "/api/currentUser");
+
+    // act
+    batch.removeHeader("X-Count");
+    batch.getCookies()[0].setValue("changed");
+    part.getCookies()[0].setValue("changed");
+
+    // assert
+    assertEquals("3", part.getHeader("X-Count"));
+    assertEquals(3, part.getIntHeader("X-Count"));
+    assertEquals(-1, part.getIntHeader("X-Missing"));
+    assertEquals(1000, part.getDateHeader("If-Modified-Since"));
+    assertEquals(-1, part.getDateHeader("X-Missing"));
+    assertEquals(List.of(), Collections.list(part.getHeaders("X-Missing")));
+    assertEquals(Set.of("Accept", "X-Count", "If-Modified-Since", "Cookie"),
+        Set.copyOf(Collections.list(part.getHeaderNames())));
+    assertEquals("abc", part.getCookies()[0].getValue());
+    assertEquals("JSESSIONID", part.getCookies()[0].getName());
+    assertNull(new BatchPartRequest(new MockHttpServletRequest(), "/api/currentUser").getCookies());
+  }
+
+  @Test
+  public void the_part_has_the_user_of_the_batch() throws Exception {
+
+    // arrange
+    TestingAuthenticationToken user = new TestingAuthenticationToken("cgaucho", null, "ROLE_USER", "SCOPE_email");
+    batch.setUserPrincipal(user);
+    batch.setRemoteUser("cgaucho");
+    batch.setAuthType("OAUTH2");
+
+    // act
+    BatchPartRequest part = new BatchPartRequest(batch, "/api/currentUser");
+
+    // assert
+    assertSame(user, part.getUserPrincipal());
+    assertEquals("cgaucho", part.getRemoteUser());
+    assertEquals("OAUTH2", part.getAuthType());
+    assertTrue(part.isUserInRole("USER"));
+    assertTrue(part.isUserInRole("ROLE_USER"));
+    assertFalse(part.isUserInRole("ADMIN"));
+    assertFalse(new BatchPartRequest(new MockHttpServletRequest(), "/api/currentUser").isUserInRole("USER"));
+    assertThrows(ServletException.class, () -> part.authenticate(new MockHttpServletResponse()));
+    assertThrows(ServletException.class, () -> part.login("cgaucho", "secret"));
+    assertThrows(ServletException.class, () -> part.logout());
+  }
+
+  @Test
+  public void the_part_has_a_copy_of_the_session_of_the_batch() {
+
+    // arrange
+    MockHttpSession batchSession = new MockHttpSession(null, "abc");
+    batchSession.setAttribute("user", "cgaucho");
+    batchSession.setAttribute("removed", "batch");
+    batchSession.setMaxInactiveInterval(60);
+    batch.setSession(batchSession);
+    batch.setRequestedSessionId("abc");
+    batch.setRequestedSessionIdFromCookie(true);
+    BatchPartRequest part = new BatchPartRequest(batch, "/api/currentUser");
+    HttpSession session = part.getSession(false);
+
+    // act
+    batchSession.setAttribute("user", "changed");
+    session.setAttribute("own", "part");
+    session.setAttribute("nulled", "part");
+    session.setAttribute("nulled", null);
+    session.removeAttribute("removed");
+    session.setMaxInactiveInterval(120);
+
+    // assert
+    assertSame(session, part.getSession());
+    assertEquals("abc", session.getId());
+    assertEquals(batchSession.getCreationTime(), session.getCreationTime());
+    assertEquals(batchSession.getLastAccessedTime(), session.getLastAccessedTime());
+    assertEquals(120, session.getMaxInactiveInterval());
+    assertEquals(60, batchSession.getMaxInactiveInterval());
+    assertFalse(session.isNew());
+    assertSame(batch.getServletContext(), session.getServletContext());
+    assertEquals("cgaucho", session.getAttribute("user"));
+    assertEquals(Set.of("user", "own"), Set.copyOf(Collections.list(session.getAttributeNames())));
+    assertNull(batchSession.getAttribute("own"));
+    assertEquals("batch", batchSession.getAttribute("removed"));
+    assertEquals("abc", part.getRequestedSessionId());
+    assertTrue(part.isRequestedSessionIdValid());
+    assertTrue(part.isRequestedSessionIdFromCookie());
+    assertFalse(part.isRequestedSessionIdFromURL());
+
+    String id = part.changeSessionId();
+    assertEquals(id, session.getId());
+    assertNotEquals("abc", id);
+    assertEquals("abc", batchSession.getId());
+
+    session.invalidate();
+    assertNull(part.getSession(false));
+    assertFalse(batchSession.isInvalid());
+  }
+
+  @Test
+  public void a_session_the_part_makes_is_its_own() {
+
+    // arrange
+    BatchPartRequest part = new BatchPartRequest(batch, "/api/currentUser");
+
+    // act
+    HttpSession session = part.getSession();
+
+    // assert
+    assertNull(batch.getSession(false));
+    assertTrue(session.isNew());
+    assertEquals(session.getCreationTime(), session.getLastAccessedTime());
+    assertEquals(batch.getServletContext().getSessionTimeout() * 60, session.getMaxInactiveInterval());
+    assertThrows(IllegalStateException.class,
+        () -> new BatchPartRequest(batch, "/api/currentUser").changeSessionId());
+  }
+
+  @Test
+  public void the_part_has_where_the_batch_was_sent_to_and_from() throws Exception {
+
+    // arrange
+    batch.setScheme("https");
+    batch.setServerName("example.org");
+    batch.setServerPort(8443);
+    batch.setSecure(true);
+    batch.setRemoteAddr("10.0.0.1");
+    batch.setRemoteHost("client");
+    batch.setRemotePort(5555);
+    batch.setLocalName("server");
+    batch.setLocalAddr("10.0.0.2");
+    batch.setLocalPort(8443);
+    batch.addPreferredLocale(Locale.FRANCE);
+    MockHttpServletMapping mapping = new MockHttpServletMapping("", "/", "dispatcherServlet", MappingMatch.DEFAULT);
+    batch.setHttpServletMapping(mapping);
+
+    // act
+    BatchPartRequest part = new BatchPartRequest(batch, "/api/currentUser");
+
+    // assert
+    assertEquals("https://example.org:8443/api/currentUser", part.getRequestURL().toString());
+    assertEquals("https", part.getScheme());
+    assertEquals("example.org", part.getServerName());
+    assertEquals(8443, part.getServerPort());
+    assertTrue(part.isSecure());
+    assertEquals("HTTP/1.1", part.getProtocol());
+    assertEquals("10.0.0.1", part.getRemoteAddr());
+    assertEquals("client", part.getRemoteHost());
+    assertEquals(5555, part.getRemotePort());
+    assertEquals("server", part.getLocalName());
+    assertEquals("10.0.0.2", part.getLocalAddr());
+    assertEquals(8443, part.getLocalPort());
+    assertEquals(Locale.FRANCE, part.getLocale());
+    assertEquals(List.of(Locale.FRANCE, Locale.ENGLISH), Collections.list(part.getLocales()));
+    assertSame(batch.getServletContext(), part.getServletContext());
+    assertSame(mapping, part.getHttpServletMapping());
+    assertNotNull(part.getRequestDispatcher("/index.html"));
+    assertEquals(batch.getRequestId(), part.getRequestId());
+    assertEquals("", part.getProtocolRequestId());
+    ServletConnection connection = part.getServletConnection();
+    ServletConnection batchConnection = batch.getServletConnection();
+    assertEquals(batchConnection.getConnectionId(), connection.getConnectionId());
+    assertEquals(batchConnection.getProtocol(), connection.getProtocol());
+    assertEquals(batchConnection.getProtocolConnectionId(), connection.getProtocolConnectionId());
+    assertEquals(batchConnection.isSecure(), connection.isSecure());
+  }
+
+  @Test
+  public void the_part_has_no_body_and_is_not_asynchronous() throws Exception {
+
+    // arrange
+    batch.setContentType("application/json");
+    batch.setContent("[\"/api/currentUser\"]".getBytes(StandardCharsets.UTF_8));
+    batch.setCharacterEncoding("UTF-8");
+
+    // act
+    BatchPartRequest part = new BatchPartRequest(batch, "/api/currentUser");
+    part.setCharacterEncoding("ISO-8859-1");
+
+    // assert
+    assertNull(part.getCharacterEncoding());
+    assertNull(part.getContentType());
+    assertEquals(-1, part.getContentLength());
+    assertEquals(-1, part.getContentLengthLong());
+    ServletInputStream in = part.getInputStream();
+    assertTrue(in.isFinished());
+    assertTrue(in.isReady());
+    assertEquals(-1, in.read());
+    assertThrows(UnsupportedOperationException.class, () -> in.setReadListener(null));
+    assertNull(part.getReader().readLine());
+    assertNull(part.getPathTranslated());
+    assertEquals(DispatcherType.REQUEST, part.getDispatcherType());
+    assertFalse(part.isAsyncStarted());
+    assertFalse(part.isAsyncSupported());
+    assertThrows(IllegalStateException.class, () -> part.startAsync());
+    assertThrows(IllegalStateException.class, () -> part.startAsync(part, new MockHttpServletResponse()));
+    assertThrows(IllegalStateException.class, () -> part.getAsyncContext());
+    assertThrows(ServletException.class, () -> part.getParts());
+    assertThrows(ServletException.class, () -> part.getPart("file"));
+    assertThrows(ServletException.class, () -> part.upgrade(HttpUpgradeHandler.class));
+  }
+}
@@ -0,0 +1,128 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.Cookie;
+
+public class BatchPartResponseTests {
+
+  BatchPartResponse part = new BatchPartResponse();
+
+  @Test
+  public void the_status_is_kept_by_the_part() throws Exception {
+    assertEquals(200, part.getStatus());
+    part.setStatus(201);
+    assertEquals(201, part.getStatus());
+    part.getWriter().write("partial");
+    part.sendError(404);
+    assertEquals(404, part.getStatus());
+    assertNull(part.getBody());
+    part.sendError(500, "broken");
+    assertEquals(500, part.getStatus());
+    assertFalse(part.isCommitted());
+  }
+
+  @Test
+  public void redirects_are_kept_by_the_part() throws Exception {
+    part.getOutputStream().write('x');
+    part.sendRedirect("/login");
+    assertEquals(302, part.getStatus());
+    assertEquals("/login", part.getHeader("Location"));
+    assertNull(part.getBody());
+  }
+
+  @Test
+  public void headers_are_kept_by_the_part() {
+    part.setContentType("application/json");
+    part.setHeader("X-One", "1");
+    part.addHeader("X-One", "2");
+    part.setIntHeader("X-Int", 3);
+    part.addIntHeader("X-Int", 4);
+    part.setDateHeader("X-Date", 0);
+    part.addDateHeader("X-Date", 1000);
+
+    assertEquals("application/json", part.getContentType());
+    assertEquals("application/json", part.getHeader("content-type"));
+    assertTrue(part.containsHeader("x-one"));
+    assertFalse(part.containsHeader("X-Two"));
+    assertEquals("1", part.getHeader("X-One"));
+    assertEquals(List.of("1", "2"), List.copyOf(part.getHeaders("X-One")));
+    assertEquals(List.of("3", "4"), List.copyOf(part.getHeaders("X-Int")));
+    assertEquals(List.of("Thu, 01 Jan 1970 00:00:00 GMT", "Thu, 01 Jan 1970 00:00:01 GMT"),
+        List.copyOf(part.getHeaders("X-Date")));
+    assertEquals(List.of(), List.copyOf(part.getHeaders("X-Two")));
+    assertEquals(List.of("Content-Type", "X-One", "X-Int", "X-Date"), List.copyOf(part.getHeaderNames()));
+  }
+
+  @Test
+  public void the_body_is_written_to_the_part() throws Exception {
+    assertNull(part.getBody());
+    ServletOutputStream out = part.getOutputStream();
+    assertSame(out, part.getOutputStream());
+    assertTrue(out.isReady());
+    assertThrows(UnsupportedOperationException.class, () -> out.setWriteListener(null));
+    out.write('{');
+    out.write("\"é\":1}".getBytes(StandardCharsets.UTF_8));
+    part.flushBuffer();
+    assertEquals("{\"é\":1}", part.getBody());
+  }
+
+  @Test
+  public void the_writer_uses_the_character_encoding() throws Exception {
+    assertEquals("UTF-8", part.getCharacterEncoding());
+    part.setCharacterEncoding("ISO-8859-1");
+    assertEquals("ISO-8859-1", part.getCharacterEncoding());
+    assertSame(part.getWriter(), part.getWriter());
+    part.getWriter().write("café");
+    assertEquals("café", part.getBody());
+  }
+
+  @Test
+  public void settings_are_kept_by_the_part() {
+    assertEquals(4096, part.getBufferSize());
+    assertEquals(Locale.getDefault(), part.getLocale());
+    part.setContentLength(10);
+    part.setContentLengthLong(10L);
+    part.setBufferSize(1);
+    part.setLocale(Locale.FRANCE);
+    assertEquals(1, part.getBufferSize());
+    assertEquals(Locale.FRANCE, part.getLocale());
+    assertFalse(part.containsHeader("Content-Length"));
+  }
+
+  @Test
+  public void cookies_are_kept_by_the_part() {
+    Cookie cookie = new Cookie("theme", "dark");
+    part.addCookie(cookie);
+    assertEquals(List.of(cookie), part.getCookies());
+    assertEquals("/api/ucsbdates", part.encodeURL("/api/ucsbdates"));
+    assertEquals("/login", part.encodeRedirectURL("/login"));
+  }
+
+  @Test
+  public void reset_clears_the_part() throws Exception {
+    part.setStatus(201);
+    part.setContentType("text/plain");
+    part.setCharacterEncoding("ISO-8859-1");
+    part.getWriter().write("gone");
+    part.addCookie(new Cookie("theme", "dark"));
+    part.reset();
+    assertEquals(200, part.getStatus());
+    assertNull(part.getContentType());
+    assertEquals("UTF-8", part.getCharacterEncoding());
+    assertNull(part.getBody());
+    assertEquals(List.of(), part.getCookies());
+  }
+}
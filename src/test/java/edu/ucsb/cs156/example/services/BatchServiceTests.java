@@ -0,0 +1,234 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.models.BatchPart;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = BatchService.class)
+@TestPropertySource(properties = { "app.batch.maxParts=3", "app.batch.timeoutMillis=500" })
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class BatchServiceTests {
+
+  @MockBean
+  DispatcherServlet dispatcherServlet;
+
+  @Autowired
+  BatchService batch;
+
+  MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/batch");
+
+  private BatchPart part(String url, int status, String body) {
+    return BatchPart.builder().url(url).status(status).body(body).build();
+  }
+
+  private String error(List<String> urls) {
+    return assertThrows(BadRequestException.class, () -> batch.dispatch(request, urls)).getMessage();
+  }
+
+  @WithMockUser(username = "cgaucho", roles = { "USER" })
+  @Test
+  public void parts_are_dispatched_at_the_same_time_as_the_user() throws Exception {
+
+    // arrange
+
+    CountDownLatch bothStarted = new CountDownLatch(2);
+    List<String> seen = Collections.synchronizedList(new ArrayList<>());
+    doAnswer(invocation -> {
+      HttpServletRequest part = invocation.getArgument(0);
+      HttpServletResponse out = invocation.getArgument(1);
+      bothStarted.countDown();
+      boolean together = bothStarted.await(5, TimeUnit.SECONDS);
+      seen.add("%s %s %s %s %s".formatted(part.getMethod(), part.getRequestURI(), part.getParameter("id"),
+          SecurityContextHolder.getContext().getAuthentication().getName(), together && Thread.currentThread().isVirtual()));
+      out.setContentType("application/json");
+      out.getWriter().write("{\"id\":%s}".formatted(part.getParameter("id")));
+      return null;
+    }).when(dispatcherServlet).service(any(ServletRequest.class), any(ServletResponse.class));
+
+    // act
+    List<BatchPart> parts = batch.dispatch(request, List.of("/api/ucsbdates?id=1", "/api/restaurants?id=2"));
+
+    // assert
+    assertEquals(List.of(part("/api/ucsbdates?id=1", 200, "{\"id\":1}"), part("/api/restaurants?id=2", 200, "{\"id\":2}")),
+        parts);
+    assertEquals(List.of("GET /api/restaurants 2 cgaucho true", "GET /api/ucsbdates 1 cgaucho true"),
+        seen.stream().sorted().toList());
+    assertEquals("cgaucho", SecurityContextHolder.getContext().getAuthentication().getName());
+  }
+
+  @Test
+  public void bodies_that_are_not_json_are_strings() throws Exception {
+
+    // arrange
+
+    doAnswer(invocation -> {
+      HttpServletRequest part = invocation.getArgument(0);
+      HttpServletResponse out = invocation.getArgument(1);
+      switch (part.getRequestURI()) {
+        case "/api/text" -> out.setContentType("text/plain");
+        case "/api/problem" -> out.setContentType("application/problem+json");
+        default -> {
+        }
+      }
+      out.getWriter().write(part.getRequestURI().equals("/api/problem") ? "{\"status\":400}" : "say \"hi\"");
+      return null;
+    }).when(dispatcherServlet).service(any(ServletRequest.class), any(ServletResponse.class));
+
+    // act
+    List<BatchPart> parts = batch.dispatch(request, List.of("/api/text", "/api/problem", "/api/untyped"));
+
+    // assert
+    assertEquals(List.of(
+        part("/api/text", 200, "\"say \\\"hi\\\"\""),
+        part("/api/problem", 200, "{\"status\":400}"),
+        part("/api/untyped", 200, "\"say \\\"hi\\\"\"")), parts);
+  }
+
+  @Test
+  public void errors_are_the_status_of_their_part() throws Exception {
+
+    // arrange
+
+    doAnswer(invocation -> {
+      HttpServletRequest part = invocation.getArgument(0);
+      HttpServletResponse out = invocation.getArgument(1);
+      switch (part.getRequestURI()) {
+        case "/api/missing" -> out.sendError(404);
+        case "/api/admin" -> throw new ServletException("Request processing failed",
+            new AccessDeniedException("Access Denied"));
+        default -> throw new IllegalStateException("broken");
+      }
+      return null;
+    }).when(dispatcherServlet).service(any(ServletRequest.class), any(ServletResponse.class));
+
+    // act
+    List<BatchPart> parts = batch.dispatch(request, List.of("/api/missing", "/api/admin", "/api/broken"));
+
+    // assert
+    assertEquals(List.of(part("/api/missing", 404, null), part("/api/admin", 403, null), part("/api/broken", 500, null)),
+        parts);
+  }
+
+  @Test
+  public void a_part_that_throws_an_error_gets_500() throws Exception {
+
+    // arrange
+    doThrow(new AssertionError("oops")).when(dispatcherServlet).service(any(ServletRequest.class),
+        any(ServletResponse.class));
+
+    // act
+    List<BatchPart> parts = batch.dispatch(request, List.of("/api/currentUser"));
+
+    // assert
+    assertEquals(List.of(part("/api/currentUser", 500, null)), parts);
+  }
+
+  @Test
+  public void parts_that_take_too_long_get_504() throws Exception {
+
+    // arrange
+
+    doAnswer(invocation -> {
+      HttpServletRequest part = invocation.getArgument(0);
+      if (part.getRequestURI().equals("/api/slow")) {
+        Thread.sleep(10_000);
+      }
+      HttpServletResponse out = invocation.getArgument(1);
+      out.setStatus(204);
+      return null;
+    }).when(dispatcherServlet).service(any(ServletRequest.class), any(ServletResponse.class));
+
+    // act
+    long start = System.currentTimeMillis();
+    List<BatchPart> parts = batch.dispatch(request, List.of("/api/slow", "/api/fast"));
+
+    // assert
+    assertEquals(List.of(part("/api/slow", 504, null), part("/api/fast", 204, null)), parts);
+    assertTrue(System.currentTimeMillis() - start < 5_000);
+  }
+
+  @Test
+  public void a_part_that_runs_on_after_the_batch_only_sees_its_copy() throws Exception {
+
+    // arrange
+
+    request.addHeader("X-Batch", "before");
+    request.getSession().setAttribute("seen", "before");
+    CountDownLatch batchAnswered = new CountDownLatch(1);
+    CountDownLatch partDone = new CountDownLatch(1);
+    List<String> seen = Collections.synchronizedList(new ArrayList<>());
+    doAnswer(invocation -> {
+      HttpServletRequest part = invocation.getArgument(0);
+      boolean answered = false;
+      while (!answered) {
+        try {
+          answered = batchAnswered.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          // like a database call, this does not stop when the part is cancelled
+        }
+      }
+      seen.add(part.getHeader("X-Batch") + " " + part.getSession().getAttribute("seen"));
+      partDone.countDown();
+      return null;
+    }).when(dispatcherServlet).service(any(ServletRequest.class), any(ServletResponse.class));
+
+    // act
+    List<BatchPart> parts = batch.dispatch(request, List.of("/api/stuck"));
+    request.removeHeader("X-Batch");
+    request.getSession().setAttribute("seen", "after");
+    batchAnswered.countDown();
+
+    // assert
+    assertEquals(List.of(part("/api/stuck", 504, null)), parts);
+    assertTrue(partDone.await(5, TimeUnit.SECONDS));
+    assertEquals(List.of("before before"), seen);
+  }
+
+  @Test
+  public void invalid_batches_are_rejected() throws Exception {
+    assertEquals("urls must be a list of /api/ urls", error(null));
+    assertEquals("urls must be a list of /api/ urls", error(List.of()));
+    assertEquals("A batch can have at most 3 parts",
+        error(List.of("/api/a", "/api/b", "/api/c", "/api/d")));
+    assertEquals("'/csrf' is not an /api/ url", error(List.of("/api/a", "/csrf")));
+    assertEquals("'null' is not an /api/ url", error(Arrays.asList("/api/a", null)));
+    assertEquals("'/api/a?q=%zz' is not a valid url: Invalid encoded sequence \"%zz\"",
+        error(List.of("/api/a?q=%zz")));
+    verifyNoInteractions(dispatcherServlet);
+  }
+}
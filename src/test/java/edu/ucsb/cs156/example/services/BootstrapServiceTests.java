@@ -0,0 +1,114 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.Bootstrap;
+import edu.ucsb.cs156.example.models.CurrentUser;
+import edu.ucsb.cs156.example.models.SystemInfo;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { BootstrapService.class, JacksonAutoConfiguration.class })
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class BootstrapServiceTests {
+
+  @MockBean
+  SystemInfoService systemInfoService;
+
+  @MockBean
+  CurrentUserService currentUserService;
+
+  @Autowired
+  BootstrapService bootstrap;
+
+  @Autowired
+  ObjectMapper mapper;
+
+  SystemInfo systemInfo = SystemInfo.builder()
+      .springH2ConsoleEnabled(false)
+      .showSwaggerUILink(true)
+      .oauthLogin("/oauth2/authorization/google")
+      .build();
+
+  private CurrentUser currentUser(String fullName) {
+    User user = User.builder().id(1L).email("cgaucho@ucsb.edu").fullName(fullName).build();
+    return CurrentUser.builder().user(user).roles(List.of(new SimpleGrantedAuthority("ROLE_USER"))).build();
+  }
+
+  @Test
+  public void getBootstrap_has_the_system_info_and_current_user() {
+    CurrentUser currentUser = currentUser("Chris Gaucho");
+    when(systemInfoService.getSystemInfo()).thenReturn(systemInfo);
+    when(currentUserService.getCurrentUser()).thenReturn(currentUser);
+
+    assertEquals(Bootstrap.builder().systemInfo(systemInfo).currentUser(currentUser).build(),
+        bootstrap.getBootstrap());
+  }
+
+  @Test
+  public void getBootstrap_has_no_current_user_when_logged_out() {
+    when(systemInfoService.getSystemInfo()).thenReturn(systemInfo);
+    when(currentUserService.getCurrentUser()).thenReturn(CurrentUser.builder()
+        .roles(List.of(new SimpleGrantedAuthority("ROLE_ANONYMOUS"))).build());
+
+    Bootstrap result = bootstrap.getBootstrap();
+
+    assertEquals(systemInfo, result.getSystemInfo());
+    assertNull(result.getCurrentUser());
+  }
+
+  @Test
+  public void render_puts_a_script_at_the_end_of_the_head() throws Exception {
+
+    // arrange
+
+    when(systemInfoService.getSystemInfo()).thenReturn(systemInfo);
+    when(currentUserService.getCurrentUser()).thenReturn(currentUser("Chris Gaucho"));
+    String json = mapper.writeValueAsString(bootstrap.getBootstrap());
+
+    // act
+    String page = bootstrap.render("<html><head><title>App</title></head><body></body></html>");
+
+    // assert
+    assertEquals("<html><head><title>App</title><script>window.__BOOTSTRAP__=" + json
+        + ";</script></head><body></body></html>", page);
+  }
+
+  @Test
+  public void render_escapes_what_could_end_the_script() throws Exception {
+
+    // arrange
+    when(systemInfoService.getSystemInfo()).thenReturn(systemInfo);
+    when(currentUserService.getCurrentUser()).thenReturn(currentUser("</script><b>&\u2028\u2029"));
+
+    // act
+    String page = bootstrap.render("<body></body>");
+
+    // assert
+    assertTrue(page.startsWith("<script>window.__BOOTSTRAP__={"));
+    assertTrue(page.endsWith(";</script><body></body>"));
+    assertTrue(page.contains("\"fullName\":\"\\u003c/script\\u003e\\u003cb\\u003e\\u0026\\u2028\\u2029\""));
+    assertFalse(page.contains("</script><b>"));
+    String script = page.substring("<script>window.__BOOTSTRAP__=".length(), page.indexOf(";</script>"));
+    assertEquals("</script><b>&\u2028\u2029", mapper.readTree(script).get("currentUser").get("user").get("fullName").asText());
+  }
+}
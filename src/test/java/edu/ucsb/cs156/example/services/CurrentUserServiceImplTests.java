@@ -0,0 +1,128 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { CurrentUserServiceImpl.class, UserCacheService.class })
+@TestPropertySource(properties = { "app.admin.emails=admingaucho@ucsb.edu" })
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class CurrentUserServiceImplTests {
+
+  @MockBean
+  UserRepository userRepository;
+
+  @MockBean
+  GrantedAuthoritiesService grantedAuthoritiesService;
+
+  @MockBean
+  UserActivityService userActivity;
+
+  @MockBean
+  ActiveUserStatsService activeUsers;
+
+  @MockBean
+  DatabaseDialectService databaseDialect;
+
+  @Autowired
+  CurrentUserServiceImpl currentUserService;
+
+  User stored = User.builder().id(7L).email("cgaucho@ucsb.edu").googleSub("sub-cgaucho").fullName("Chris")
+      .givenName("Chris").familyName("Gaucho").emailVerified(true).build();
+
+  OAuth2AuthenticationToken login(String name) {
+    Map<String, Object> attributes = Map.of(
+        "sub", "sub-cgaucho",
+        "email", "cgaucho@ucsb.edu",
+        "name", name,
+        "given_name", name,
+        "family_name", "Gaucho",
+        "email_verified", true);
+    DefaultOAuth2User principal = new DefaultOAuth2User(AuthorityUtils.createAuthorityList("ROLE_USER"),
+        attributes, "sub");
+    return new OAuth2AuthenticationToken(principal, principal.getAuthorities(), "google");
+  }
+
+  @Test
+  public void a_new_user_is_upserted_with_merge_on_h2() {
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.empty(), Optional.of(stored));
+
+    User user = currentUserService.getOAuth2AuthenticatedUser(null, login("Chris"));
+
+    assertEquals(stored, user);
+    verify(userRepository, times(1)).upsertByEmailMerge(any());
+    verify(userRepository, never()).upsertByEmailOnConflict(any());
+    verify(userActivity, times(1)).record(7L);
+    verify(activeUsers, times(1)).record(7L);
+  }
+
+  @Test
+  public void a_new_user_is_upserted_with_on_conflict_on_postgres() {
+    when(databaseDialect.isPostgres()).thenReturn(true);
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.empty(), Optional.of(stored));
+
+    User user = currentUserService.getOAuth2AuthenticatedUser(null, login("Chris"));
+
+    assertEquals(stored, user);
+    verify(userRepository, times(1)).upsertByEmailOnConflict(any());
+    verify(userRepository, never()).upsertByEmailMerge(any());
+  }
+
+  @Test
+  public void an_unchanged_user_is_not_written() {
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(stored));
+
+    User user = currentUserService.getOAuth2AuthenticatedUser(null, login("Chris"));
+
+    assertEquals(stored, user);
+    verify(userRepository, never()).upsertByEmailMerge(any());
+    verify(userRepository, times(1)).findByEmail("cgaucho@ucsb.edu");
+  }
+
+  @Test
+  public void a_changed_profile_is_upserted_and_read_back() {
+    User renamed = stored.toBuilder().fullName("Kris").givenName("Kris").build();
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(stored), Optional.of(renamed));
+
+    User user = currentUserService.getOAuth2AuthenticatedUser(null, login("Kris"));
+
+    assertEquals("Kris", user.getFullName());
+    verify(userRepository, times(1)).upsertByEmailMerge(any());
+    verify(userRepository, times(2)).findByEmail("cgaucho@ucsb.edu");
+  }
+
+  @Test
+  public void a_user_seen_again_is_read_from_the_cache() {
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(stored));
+
+    currentUserService.getOAuth2AuthenticatedUser(null, login("Chris"));
+    User again = currentUserService.getOAuth2AuthenticatedUser(null, login("Chris"));
+
+    assertEquals(stored, again);
+    verify(userRepository, times(1)).findByEmail("cgaucho@ucsb.edu");
+    verify(userActivity, times(2)).record(7L);
+  }
+}
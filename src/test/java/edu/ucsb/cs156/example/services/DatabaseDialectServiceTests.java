@@ -0,0 +1,84 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = DatabaseDialectService.class)
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class DatabaseDialectServiceTests {
+
+  @MockBean
+  DataSource dataSource;
+
+  @Autowired
+  DatabaseDialectService databaseDialect;
+
+  private void connectedTo(String productName) throws SQLException {
+    Connection connection = mock(Connection.class);
+    DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+    doReturn(connection).when(dataSource).getConnection();
+    when(connection.getMetaData()).thenReturn(metaData);
+    when(metaData.getDatabaseProductName()).thenReturn(productName);
+  }
+
+  @Test
+  public void postgres_is_detected_from_the_metadata() throws SQLException {
+    connectedTo("PostgreSQL");
+
+    assertTrue(databaseDialect.isPostgres());
+    assertEquals("PostgreSQL", databaseDialect.productName());
+  }
+
+  @Test
+  public void h2_is_not_postgres() throws SQLException {
+    connectedTo("H2");
+
+    assertFalse(databaseDialect.isPostgres());
+    assertEquals("H2", databaseDialect.productName());
+  }
+
+  @Test
+  public void the_metadata_is_read_once() throws SQLException {
+    connectedTo("PostgreSQL");
+
+    databaseDialect.isPostgres();
+    databaseDialect.isPostgres();
+    databaseDialect.productName();
+
+    verify(dataSource, times(1)).getConnection();
+  }
+
+  @Test
+  public void a_failed_connection_is_reported_and_retried() throws SQLException {
+    when(dataSource.getConnection()).thenThrow(new SQLException("connection refused"));
+
+    IllegalStateException e = assertThrows(IllegalStateException.class, () -> databaseDialect.isPostgres());
+    assertEquals("could not read the database product name", e.getMessage());
+
+    connectedTo("PostgreSQL");
+    assertTrue(databaseDialect.isPostgres());
+  }
+}
@@ -0,0 +1,115 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.models.NearbyDiningCommons;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.structures.GeoKdTree;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = DiningCommonsLocatorService.class)
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class DiningCommonsLocatorServiceTests {
+
+  @MockBean
+  UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @Autowired
+  DiningCommonsLocatorService diningCommonsLocator;
+
+  UCSBDiningCommons carrillo = UCSBDiningCommons.builder().code("carrillo").name("Carrillo")
+      .hasSackMeal(false).hasTakeOutMeal(false).hasDiningCam(true)
+      .latitude(34.409953).longitude(-119.85277).build();
+  UCSBDiningCommons ortega = UCSBDiningCommons.builder().code("ortega").name("Ortega")
+      .hasSackMeal(true).hasTakeOutMeal(true).hasDiningCam(true)
+      .latitude(34.410987).longitude(-119.84709).build();
+  UCSBDiningCommons portola = UCSBDiningCommons.builder().code("portola").name("Portola")
+      .hasSackMeal(true).hasTakeOutMeal(false).hasDiningCam(true)
+      .latitude(34.417723).longitude(-119.867427).build();
+  UCSBDiningCommons nowhere = UCSBDiningCommons.builder().code("nowhere").name("No Location")
+      .hasSackMeal(true).hasTakeOutMeal(true).hasDiningCam(false).build();
+
+  // Storke Tower
+  double lat = 34.412616;
+  double lon = -119.848464;
+
+  private List<String> codes(List<NearbyDiningCommons> nearby) {
+    return nearby.stream().map(n -> n.getCommons().getCode()).toList();
+  }
+
+  @Test
+  public void nearest_orders_by_distance_and_skips_commons_without_location() {
+    when(ucsbDiningCommonsRepository.findAll()).thenReturn(List.of(carrillo, ortega, portola, nowhere));
+    diningCommonsLocator.rebuild();
+
+    List<NearbyDiningCommons> nearby = diningCommonsLocator.nearest(lat, lon, 10, null, null);
+
+    assertEquals(List.of("ortega", "carrillo", "portola"), codes(nearby));
+    assertEquals(GeoKdTree.haversineMeters(lat, lon, 34.410987, -119.84709),
+        nearby.get(0).getDistanceMeters(), 1e-6);
+    assertEquals(List.of("ortega"), codes(diningCommonsLocator.nearest(lat, lon, 1, null, null)));
+  }
+
+  @Test
+  public void nearest_applies_capability_filters() {
+    when(ucsbDiningCommonsRepository.findAll()).thenReturn(List.of(carrillo, ortega, portola, nowhere));
+    diningCommonsLocator.rebuild();
+
+    assertEquals(List.of("ortega", "portola"), codes(diningCommonsLocator.nearest(lat, lon, 10, true, null)));
+    assertEquals(List.of("carrillo"), codes(diningCommonsLocator.nearest(lat, lon, 10, false, null)));
+    assertEquals(List.of("carrillo", "portola"), codes(diningCommonsLocator.nearest(lat, lon, 10, null, false)));
+    assertEquals(List.of("portola"), codes(diningCommonsLocator.nearest(lat, lon, 10, true, false)));
+    assertEquals(List.of("ortega"), codes(diningCommonsLocator.nearest(lat, lon, 10, true, true)));
+  }
+
+  @Test
+  public void nearest_loads_lazily_once() {
+    when(ucsbDiningCommonsRepository.findAll()).thenReturn(List.of(ortega));
+
+    assertEquals(List.of("ortega"), codes(diningCommonsLocator.nearest(lat, lon, 3, null, null)));
+    assertEquals(List.of("ortega"), codes(diningCommonsLocator.nearest(lat, lon, 3, null, null)));
+    verify(ucsbDiningCommonsRepository, times(1)).findAll();
+  }
+
+  @Test
+  public void writes_before_loading_are_read_from_the_database() {
+    when(ucsbDiningCommonsRepository.findAll()).thenReturn(List.of(ortega));
+
+    diningCommonsLocator.add(portola);
+    diningCommonsLocator.remove("ortega");
+
+    assertEquals(List.of("ortega"), codes(diningCommonsLocator.nearest(lat, lon, 3, null, null)));
+  }
+
+  @Test
+  public void add_and_remove_refresh_the_tree() {
+    when(ucsbDiningCommonsRepository.findAll()).thenReturn(List.of(carrillo, ortega));
+    diningCommonsLocator.rebuild();
+
+    UCSBDiningCommons movedOrtega = UCSBDiningCommons.builder().code("ortega").name("Ortega")
+        .hasSackMeal(true).hasTakeOutMeal(true).hasDiningCam(true)
+        .latitude(34.0).longitude(-119.0).build();
+    diningCommonsLocator.add(movedOrtega);
+    diningCommonsLocator.add(portola);
+
+    assertEquals(List.of("carrillo", "portola", "ortega"), codes(diningCommonsLocator.nearest(lat, lon, 10, null, null)));
+
+    diningCommonsLocator.remove("carrillo");
+    assertEquals(List.of("portola", "ortega"), codes(diningCommonsLocator.nearest(lat, lon, 10, null, null)));
+  }
+}
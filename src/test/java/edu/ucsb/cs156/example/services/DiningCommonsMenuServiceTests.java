@@ -0,0 +1,103 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = DiningCommonsMenuService.class)
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class DiningCommonsMenuServiceTests {
+
+  @MockBean
+  UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
+
+  @Autowired
+  DiningCommonsMenuService diningCommonsMenu;
+
+  UCSBDiningCommonsMenuItem water = UCSBDiningCommonsMenuItem.builder().id(3L)
+      .diningCommonsCode("carrillo").name("Water").build();
+  UCSBDiningCommonsMenuItem cheese = UCSBDiningCommonsMenuItem.builder().id(1L)
+      .diningCommonsCode("carrillo").name("Cheese Pizza").station("Pizza").build();
+  UCSBDiningCommonsMenuItem pepperoni = UCSBDiningCommonsMenuItem.builder().id(2L)
+      .diningCommonsCode("carrillo").name("Pepperoni Pizza").station("Pizza").build();
+  UCSBDiningCommonsMenuItem caesar = UCSBDiningCommonsMenuItem.builder().id(4L)
+      .diningCommonsCode("carrillo").name("Caesar Salad").station("Salads").build();
+
+  @Test
+  public void menu_is_grouped_by_station_in_query_order() {
+    // the repository returns items ordered by station (nulls first on H2) and name
+    when(ucsbDiningCommonsMenuItemRepository.findByDiningCommonsCodeOrderByStationAscNameAsc("carrillo"))
+        .thenReturn(List.of(water, cheese, pepperoni, caesar));
+
+    Map<String, List<UCSBDiningCommonsMenuItem>> menu = diningCommonsMenu.byStation("carrillo");
+
+    assertEquals(List.of("", "Pizza", "Salads"), List.copyOf(menu.keySet()));
+    assertEquals(List.of(water), menu.get(""));
+    assertEquals(List.of(cheese, pepperoni), menu.get("Pizza"));
+    assertEquals(List.of(caesar), menu.get("Salads"));
+    assertThrows(UnsupportedOperationException.class, () -> menu.put("Grill", List.of()));
+    assertThrows(UnsupportedOperationException.class, () -> menu.get("Pizza").add(caesar));
+  }
+
+  @Test
+  public void menu_is_cached_until_invalidated() {
+    when(ucsbDiningCommonsMenuItemRepository.findByDiningCommonsCodeOrderByStationAscNameAsc("carrillo"))
+        .thenReturn(List.of(cheese))
+        .thenReturn(List.of(cheese, caesar));
+
+    assertEquals(Map.of("Pizza", List.of(cheese)), diningCommonsMenu.byStation("carrillo"));
+    assertEquals(Map.of("Pizza", List.of(cheese)), diningCommonsMenu.byStation("carrillo"));
+    verify(ucsbDiningCommonsMenuItemRepository, times(1)).findByDiningCommonsCodeOrderByStationAscNameAsc("carrillo");
+
+    diningCommonsMenu.invalidate("ortega");
+    diningCommonsMenu.invalidate(null);
+    assertEquals(Map.of("Pizza", List.of(cheese)), diningCommonsMenu.byStation("carrillo"));
+
+    diningCommonsMenu.invalidate("carrillo");
+    assertEquals(Map.of("Pizza", List.of(cheese), "Salads", List.of(caesar)), diningCommonsMenu.byStation("carrillo"));
+    verify(ucsbDiningCommonsMenuItemRepository, times(2)).findByDiningCommonsCodeOrderByStationAscNameAsc("carrillo");
+  }
+
+  @Test
+  public void empty_menus_are_not_cached() {
+    when(ucsbDiningCommonsMenuItemRepository.findByDiningCommonsCodeOrderByStationAscNameAsc("nowhere"))
+        .thenReturn(List.of());
+
+    assertEquals(Map.of(), diningCommonsMenu.byStation("nowhere"));
+    assertEquals(Map.of(), diningCommonsMenu.byStation("nowhere"));
+    verify(ucsbDiningCommonsMenuItemRepository, times(2)).findByDiningCommonsCodeOrderByStationAscNameAsc("nowhere");
+  }
+
+  @Test
+  public void menu_read_during_a_write_is_not_cached() {
+    when(ucsbDiningCommonsMenuItemRepository.findByDiningCommonsCodeOrderByStationAscNameAsc("carrillo"))
+        .thenAnswer(invocation -> {
+          diningCommonsMenu.invalidate("carrillo");
+          return List.of(cheese);
+        })
+        .thenReturn(List.of(cheese, caesar));
+
+    assertEquals(Map.of("Pizza", List.of(cheese)), diningCommonsMenu.byStation("carrillo"));
+    assertEquals(Map.of("Pizza", List.of(cheese), "Salads", List.of(caesar)), diningCommonsMenu.byStation("carrillo"));
+    assertEquals(Map.of("Pizza", List.of(cheese), "Salads", List.of(caesar)), diningCommonsMenu.byStation("carrillo"));
+    verify(ucsbDiningCommonsMenuItemRepository, times(2)).findByDiningCommonsCodeOrderByStationAscNameAsc("carrillo");
+  }
+}
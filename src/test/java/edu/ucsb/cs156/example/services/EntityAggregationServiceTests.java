@@ -0,0 +1,138 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.helpers.EntityAggregation;
+import edu.ucsb.cs156.example.helpers.EntityFilter;
+import edu.ucsb.cs156.example.models.AggregateRow;
+import edu.ucsb.cs156.example.repositories.AggregateRepository;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = EntityAggregationService.class)
+@TestPropertySource(properties = { "app.aggregates.ttlSeconds=30" })
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+@SuppressWarnings("unchecked")
+public class EntityAggregationServiceTests {
+
+  @Autowired
+  EntityAggregationService aggregations;
+
+  AggregateRepository<HelpRequest> repository = mock(AggregateRepository.class);
+
+  EntityAggregation<HelpRequest> aggregates = EntityAggregation.of(
+      EntityFilter.of(HelpRequest.class, "teamId", "solved"), List.of("teamId", "solved"), List.of());
+
+  EntityAggregation.Query<HelpRequest> byTeam = aggregates.compile("teamId", null, null);
+
+  List<Object[]> results = List.<Object[]>of(new Object[] { "s22-5pm-3", 2L });
+
+  List<AggregateRow> rows = List.of(AggregateRow.builder()
+      .group(Map.of("teamId", "s22-5pm-3"))
+      .values(Map.of("count", 2L))
+      .build());
+
+  LocalDateTime now = LocalDateTime.parse("2024-12-01T10:00:00");
+
+  @Test
+  public void rows_are_cached_for_ttl_seconds() {
+    when(repository.aggregate(byTeam)).thenReturn(results);
+
+    assertEquals(rows, aggregations.aggregate(repository, byTeam, now));
+    assertEquals(rows, aggregations.aggregate(repository, byTeam, now.plusSeconds(29)));
+    verify(repository, times(1)).aggregate(byTeam);
+
+    assertEquals(rows, aggregations.aggregate(repository, byTeam, now.plusSeconds(30)));
+    verify(repository, times(2)).aggregate(byTeam);
+  }
+
+  @Test
+  public void queries_with_different_keys_are_cached_separately() {
+    EntityAggregation.Query<HelpRequest> unsolved = aggregates.compile("teamId", null, "solved:eq:false");
+    when(repository.aggregate(byTeam)).thenReturn(results);
+    when(repository.aggregate(unsolved)).thenReturn(List.of());
+
+    assertEquals(rows, aggregations.aggregate(repository, byTeam, now));
+    assertEquals(List.of(), aggregations.aggregate(repository, unsolved, now));
+    assertEquals(rows, aggregations.aggregate(repository, byTeam, now));
+
+    verify(repository, times(1)).aggregate(byTeam);
+    verify(repository, times(1)).aggregate(unsolved);
+  }
+
+  @Test
+  public void invalidate_drops_the_aggregates_of_the_entity() {
+    AggregateRepository<MenuItemReview> reviews = mock(AggregateRepository.class);
+    EntityAggregation.Query<MenuItemReview> byStars = EntityAggregation.of(
+        EntityFilter.of(MenuItemReview.class, "stars"), List.of("stars"), List.of()).compile("stars", null, null);
+    when(repository.aggregate(byTeam)).thenReturn(results);
+    when(reviews.aggregate(byStars)).thenReturn(List.of());
+    aggregations.aggregate(repository, byTeam, now);
+    aggregations.aggregate(reviews, byStars, now);
+
+    aggregations.invalidate(HelpRequest.class);
+    aggregations.aggregate(repository, byTeam, now);
+    aggregations.aggregate(reviews, byStars, now);
+
+    verify(repository, times(2)).aggregate(byTeam);
+    verify(reviews, times(1)).aggregate(byStars);
+  }
+
+  @Test
+  public void rows_read_while_the_entity_was_written_are_not_cached() {
+    when(repository.aggregate(byTeam)).thenAnswer(invocation -> {
+      aggregations.invalidate(HelpRequest.class);
+      return results;
+    });
+
+    assertEquals(rows, aggregations.aggregate(repository, byTeam, now));
+    assertEquals(0, aggregations.size());
+  }
+
+  @Test
+  public void too_many_groups_are_not_cached() {
+    when(repository.aggregate(byTeam))
+        .thenReturn(Collections.nCopies(EntityAggregation.MAX_GROUPS + 1, new Object[] { "t", 1L }));
+
+    assertThrows(BadRequestException.class, () -> aggregations.aggregate(repository, byTeam, now));
+    assertEquals(0, aggregations.size());
+  }
+
+  @Test
+  public void the_least_recently_used_rows_are_dropped() {
+    for (int i = 0; i <= EntityAggregationService.MAX_ENTRIES; i++) {
+      aggregations.aggregate(repository, aggregates.compile("teamId", null, "teamId:eq:t" + i), now);
+    }
+    assertEquals(EntityAggregationService.MAX_ENTRIES, aggregations.size());
+  }
+
+  @Test
+  public void aggregate_uses_the_current_time() {
+    when(repository.aggregate(byTeam)).thenReturn(results);
+
+    assertEquals(rows, aggregations.aggregate(repository, byTeam));
+    assertEquals(rows, aggregations.aggregate(repository, byTeam));
+    verify(repository, times(1)).aggregate(byTeam);
+  }
+}
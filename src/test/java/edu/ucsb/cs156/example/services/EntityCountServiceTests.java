@@ -0,0 +1,183 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.models.EntityCount;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = EntityCountService.class)
+@TestPropertySource(properties = { "app.counts.ttlSeconds=60", "app.counts.approximateMin=1000" })
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class EntityCountServiceTests {
+
+  @MockBean
+  EntityManager entityManager;
+
+  @MockBean
+  HelpRequestRepository helpRequestRepository;
+
+  @MockBean
+  DatabaseDialectService databaseDialect;
+
+  @Autowired
+  EntityCountService counts;
+
+  LocalDateTime now = LocalDateTime.parse("2024-12-01T12:00:00");
+
+  private void onPostgres(List<?> estimate) {
+    when(databaseDialect.isPostgres()).thenReturn(true);
+    Query query = mock(Query.class);
+    when(entityManager.createNativeQuery(
+        "SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE oid = to_regclass(:table)")).thenReturn(query);
+    when(query.setParameter("table", "helprequests")).thenReturn(query);
+    when(query.getResultList()).thenReturn(estimate);
+  }
+
+  @Test
+  public void a_count_is_read_once_until_it_expires() {
+
+    // arrange
+    when(helpRequestRepository.count()).thenReturn(5L, 8L);
+
+    // act
+    long first = counts.count(HelpRequest.class, helpRequestRepository, now);
+    long kept = counts.count(HelpRequest.class, helpRequestRepository, now.plusSeconds(59));
+    long expired = counts.count(HelpRequest.class, helpRequestRepository, now.plusSeconds(60));
+
+    // assert
+    assertEquals(5, first);
+    assertEquals(5, kept);
+    assertEquals(8, expired);
+    verify(helpRequestRepository, times(2)).count();
+  }
+
+  @Test
+  public void invalidate_drops_the_kept_count() {
+
+    // arrange
+    when(helpRequestRepository.count()).thenReturn(5L, 7L);
+    counts.count(HelpRequest.class, helpRequestRepository, now);
+
+    // act
+    counts.invalidate(HelpRequest.class);
+
+    // assert
+    assertEquals(7, counts.count(HelpRequest.class, helpRequestRepository, now.plusSeconds(1)));
+    verify(helpRequestRepository, times(2)).count();
+  }
+
+  @Test
+  public void a_count_read_during_a_write_is_not_kept() {
+
+    // arrange
+    when(helpRequestRepository.count()).thenAnswer(invocation -> {
+      counts.invalidate(HelpRequest.class);
+      return 5L;
+    }).thenReturn(6L);
+
+    // act
+    long during = counts.count(HelpRequest.class, helpRequestRepository, now);
+    long after = counts.count(HelpRequest.class, helpRequestRepository, now.plusSeconds(1));
+
+    // assert
+    assertEquals(5, during);
+    assertEquals(6, after);
+    verify(helpRequestRepository, times(2)).count();
+  }
+
+  @Test
+  public void approximate_counts_are_exact_on_h2() {
+
+    // arrange
+    when(helpRequestRepository.count()).thenReturn(5L);
+
+    // act
+    EntityCount count = counts.count(HelpRequest.class, helpRequestRepository, true);
+
+    // assert
+    assertEquals(EntityCount.builder().count(5).approximate(false).build(), count);
+    verifyNoInteractions(entityManager);
+  }
+
+  @Test
+  public void large_tables_are_estimated_on_postgres() {
+
+    // arrange
+    onPostgres(List.of(123456L));
+
+    // act
+    EntityCount count = counts.count(HelpRequest.class, helpRequestRepository, true);
+
+    // assert
+    assertEquals(EntityCount.builder().count(123456).approximate(true).build(), count);
+    verifyNoInteractions(helpRequestRepository);
+  }
+
+  @Test
+  public void small_tables_are_counted_on_postgres() {
+
+    // arrange
+    onPostgres(List.of(999L));
+    when(helpRequestRepository.count()).thenReturn(1001L);
+
+    // act
+    EntityCount count = counts.count(HelpRequest.class, helpRequestRepository, true);
+
+    // assert
+    assertEquals(EntityCount.builder().count(1001).approximate(false).build(), count);
+  }
+
+  @Test
+  public void tables_without_statistics_are_counted_on_postgres() {
+
+    // arrange
+    onPostgres(List.of());
+    when(helpRequestRepository.count()).thenReturn(4L);
+
+    // act
+    EntityCount count = counts.count(HelpRequest.class, helpRequestRepository, true);
+
+    // assert
+    assertEquals(-1, counts.estimate(HelpRequest.class));
+    assertEquals(EntityCount.builder().count(4).approximate(false).build(), count);
+  }
+
+  @Test
+  public void exact_counts_do_not_read_the_statistics_on_postgres() {
+
+    // arrange
+    onPostgres(List.of(123456L));
+    when(helpRequestRepository.count()).thenReturn(123457L);
+
+    // act
+    EntityCount count = counts.count(HelpRequest.class, helpRequestRepository, false);
+
+    // assert
+    assertEquals(EntityCount.builder().count(123457).approximate(false).build(), count);
+    verify(entityManager, never()).createNativeQuery(anyString());
+  }
+}
@@ -0,0 +1,120 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = FlagIndexService.class)
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class FlagIndexServiceTests {
+
+  @MockBean
+  HelpRequestRepository helpRequestRepository;
+
+  @MockBean
+  RecommendationRequestRepository recommendationRequestRepository;
+
+  @MockBean
+  UCSBOrganizationRepository ucsbOrganizationRepository;
+
+  @MockBean
+  UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @Autowired
+  FlagIndexService flagIndex;
+
+  HelpRequest solved = HelpRequest.builder().id(1L).solved(true).build();
+  HelpRequest unsolved = HelpRequest.builder().id(2L).solved(false).build();
+  RecommendationRequest done = RecommendationRequest.builder().id(3L).done(true).build();
+  RecommendationRequest notDone = RecommendationRequest.builder().id(4L).done(false).build();
+  UCSBOrganization active = UCSBOrganization.builder().orgCode("SKY").inactive(false).build();
+  UCSBOrganization inactive = UCSBOrganization.builder().orgCode("SNU").inactive(true).build();
+  UCSBDiningCommons ortega = UCSBDiningCommons.builder().code("ortega")
+      .hasSackMeal(true).hasTakeOutMeal(true).hasDiningCam(true).build();
+  UCSBDiningCommons carrillo = UCSBDiningCommons.builder().code("carrillo")
+      .hasSackMeal(false).hasTakeOutMeal(false).hasDiningCam(true).build();
+  UCSBDiningCommons portola = UCSBDiningCommons.builder().code("portola")
+      .hasSackMeal(true).hasTakeOutMeal(false).hasDiningCam(false).build();
+
+  private void mockRepositories() {
+    when(helpRequestRepository.findAll()).thenReturn(List.of(solved, unsolved));
+    when(recommendationRequestRepository.findAll()).thenReturn(List.of(done, notDone));
+    when(ucsbOrganizationRepository.findAll()).thenReturn(List.of(active, inactive));
+    when(ucsbDiningCommonsRepository.findAll()).thenReturn(List.of(ortega, carrillo, portola));
+  }
+
+  @Test
+  public void rebuild_indexes_every_flag() {
+    mockRepositories();
+    flagIndex.rebuild();
+
+    assertEquals(List.of(1L), flagIndex.getHelpRequests().select("solved"));
+    assertEquals(List.of(2L), flagIndex.getHelpRequests().select("not solved"));
+    assertEquals(List.of(3L), flagIndex.getRecommendationRequests().select("done"));
+    assertEquals(List.of("SNU"), flagIndex.getOrganizations().select("inactive"));
+    assertEquals(List.of("ortega", "portola"), flagIndex.getDiningCommons().select("hasSackMeal"));
+    assertEquals(List.of("ortega"), flagIndex.getDiningCommons().select("hasTakeOutMeal"));
+    assertEquals(List.of("ortega", "carrillo"), flagIndex.getDiningCommons().select("hasDiningCam"));
+    assertEquals(1, flagIndex.getDiningCommons().count("hasSackMeal and not hasDiningCam"));
+  }
+
+  @Test
+  public void indexes_load_lazily_once() {
+    mockRepositories();
+
+    assertEquals(2, flagIndex.getHelpRequests().count(""));
+    assertEquals(2, flagIndex.getRecommendationRequests().count(""));
+    assertEquals(2, flagIndex.getOrganizations().count(""));
+    assertEquals(3, flagIndex.getDiningCommons().count(""));
+    verify(helpRequestRepository, times(1)).findAll();
+    verify(ucsbDiningCommonsRepository, times(1)).findAll();
+  }
+
+  @Test
+  public void add_and_remove_keep_indexes_current() {
+    mockRepositories();
+    flagIndex.rebuild();
+
+    flagIndex.add(HelpRequest.builder().id(2L).solved(true).build());
+    flagIndex.add(RecommendationRequest.builder().id(5L).done(true).build());
+    flagIndex.add(UCSBOrganization.builder().orgCode("SNU").inactive(false).build());
+    flagIndex.add(UCSBDiningCommons.builder().code("dlg").hasSackMeal(true).build());
+
+    assertEquals(List.of(1L, 2L), flagIndex.getHelpRequests().select("solved"));
+    assertEquals(List.of(3L, 5L), flagIndex.getRecommendationRequests().select("done"));
+    assertEquals(List.of(), flagIndex.getOrganizations().select("inactive"));
+    assertEquals(List.of("ortega", "portola", "dlg"), flagIndex.getDiningCommons().select("hasSackMeal"));
+
+    flagIndex.removeHelpRequest(1L);
+    flagIndex.removeRecommendationRequest(3L);
+    flagIndex.removeOrganization("SKY");
+    flagIndex.removeDiningCommons("ortega");
+
+    assertEquals(List.of(2L), flagIndex.getHelpRequests().select(""));
+    assertEquals(List.of(4L, 5L), flagIndex.getRecommendationRequests().select(""));
+    assertEquals(List.of("SNU"), flagIndex.getOrganizations().select(""));
+    assertEquals(List.of("carrillo", "portola", "dlg"), flagIndex.getDiningCommons().select(""));
+  }
+}
@@ -0,0 +1,171 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.models.HelpRequestArchiveRun;
+import edu.ucsb.cs156.example.models.HelpRequestArchiveStatus;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = HelpRequestArchiveService.class)
+@TestPropertySource(properties = { "app.helprequests.archive.afterDays=30", "app.helprequests.archive.batchSize=2" })
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class HelpRequestArchiveServiceTests {
+
+  @MockBean
+  HelpRequestRepository helpRequestRepository;
+
+  @MockBean
+  FlagIndexService flagIndex;
+
+  @MockBean
+  EntityAggregationService aggregations;
+
+  @MockBean
+  EntityCountService counts;
+
+  @MockBean
+  PlatformTransactionManager transactionManager;
+
+  @Autowired
+  HelpRequestArchiveService helpRequestArchive;
+
+  LocalDateTime now = LocalDateTime.parse("2024-12-01T03:30:00");
+  LocalDateTime cutoff = LocalDateTime.parse("2024-11-01T03:30:00");
+
+  @Test
+  public void requests_are_moved_in_batches_until_a_batch_is_not_full() {
+    when(helpRequestRepository.findIdsSolvedBefore(cutoff, Limit.of(2)))
+        .thenReturn(List.of(1L, 2L), List.of(3L));
+    when(helpRequestRepository.copyToArchive(List.of(1L, 2L), now)).thenReturn(2);
+    when(helpRequestRepository.deleteSolved(List.of(1L, 2L))).thenReturn(2);
+    when(helpRequestRepository.copyToArchive(List.of(3L), now)).thenReturn(1);
+    when(helpRequestRepository.deleteSolved(List.of(3L))).thenReturn(1);
+
+    HelpRequestArchiveRun run = helpRequestArchive.archive(now);
+
+    assertEquals(now, run.getStartedAt());
+    assertEquals(cutoff, run.getCutoff());
+    assertEquals(2, run.getBatches());
+    assertEquals(3, run.getMoved());
+    verify(helpRequestRepository, times(2)).findIdsSolvedBefore(cutoff, Limit.of(2));
+    verify(transactionManager, times(2)).commit(any());
+    verify(flagIndex, times(1)).removeHelpRequest(1L);
+    verify(flagIndex, times(1)).removeHelpRequest(2L);
+    verify(flagIndex, times(1)).removeHelpRequest(3L);
+    verify(flagIndex, never()).rebuild();
+    verify(aggregations, times(1)).invalidate(HelpRequest.class);
+    verify(counts, times(1)).invalidate(HelpRequest.class);
+  }
+
+  @Test
+  public void a_full_last_batch_is_followed_by_an_empty_one() {
+    when(helpRequestRepository.findIdsSolvedBefore(cutoff, Limit.of(2)))
+        .thenReturn(List.of(1L, 2L), List.of());
+    when(helpRequestRepository.copyToArchive(List.of(1L, 2L), now)).thenReturn(2);
+    when(helpRequestRepository.deleteSolved(List.of(1L, 2L))).thenReturn(2);
+
+    HelpRequestArchiveRun run = helpRequestArchive.archive(now);
+
+    assertEquals(1, run.getBatches());
+    assertEquals(2, run.getMoved());
+    verify(helpRequestRepository, times(2)).findIdsSolvedBefore(cutoff, Limit.of(2));
+  }
+
+  @Test
+  public void requests_unsolved_before_they_are_moved_are_left_and_the_flags_rebuilt() {
+    when(helpRequestRepository.findIdsSolvedBefore(cutoff, Limit.of(2)))
+        .thenReturn(List.of(1L, 2L), List.of());
+    when(helpRequestRepository.copyToArchive(List.of(1L, 2L), now)).thenReturn(1);
+    when(helpRequestRepository.deleteSolved(List.of(1L, 2L))).thenReturn(1);
+
+    HelpRequestArchiveRun run = helpRequestArchive.archive(now);
+
+    assertEquals(1, run.getBatches());
+    assertEquals(1, run.getMoved());
+    verify(flagIndex, never()).removeHelpRequest(anyLong());
+    verify(flagIndex, times(1)).rebuild();
+  }
+
+  @Test
+  public void a_batch_that_moves_nothing_ends_the_run() {
+    when(helpRequestRepository.findIdsSolvedBefore(cutoff, Limit.of(2))).thenReturn(List.of(1L, 2L));
+
+    HelpRequestArchiveRun run = helpRequestArchive.archive(now);
+
+    assertEquals(1, run.getBatches());
+    assertEquals(0, run.getMoved());
+    verify(helpRequestRepository, times(1)).findIdsSolvedBefore(cutoff, Limit.of(2));
+    verify(flagIndex, times(1)).rebuild();
+    verify(aggregations, never()).invalidate(any());
+    verify(counts, never()).invalidate(any());
+  }
+
+  @Test
+  public void a_batch_that_copies_and_deletes_different_numbers_is_rolled_back() {
+    when(helpRequestRepository.findIdsSolvedBefore(cutoff, Limit.of(2))).thenReturn(List.of(1L, 2L));
+    when(helpRequestRepository.copyToArchive(List.of(1L, 2L), now)).thenReturn(2);
+    when(helpRequestRepository.deleteSolved(List.of(1L, 2L))).thenReturn(1);
+
+    IllegalStateException e = assertThrows(IllegalStateException.class, () -> helpRequestArchive.archive(now));
+
+    assertEquals("copied 2 help requests to the archive but deleted 1", e.getMessage());
+    verify(transactionManager, times(1)).rollback(any());
+    verify(transactionManager, never()).commit(any());
+    verify(flagIndex, never()).removeHelpRequest(anyLong());
+    assertNull(helpRequestArchive.status().getLastRun());
+  }
+
+  @Test
+  public void status_has_the_settings_and_totals_of_the_runs() {
+    assertEquals(HelpRequestArchiveStatus.builder().afterDays(30).batchSize(2).build(), helpRequestArchive.status());
+
+    when(helpRequestRepository.findIdsSolvedBefore(cutoff, Limit.of(2))).thenReturn(List.of(1L));
+    when(helpRequestRepository.copyToArchive(List.of(1L), now)).thenReturn(1);
+    when(helpRequestRepository.deleteSolved(List.of(1L))).thenReturn(1);
+    helpRequestArchive.archive(now);
+    when(helpRequestRepository.findIdsSolvedBefore(cutoff.plusDays(1), Limit.of(2))).thenReturn(List.of());
+    HelpRequestArchiveRun second = helpRequestArchive.archive(now.plusDays(1));
+
+    HelpRequestArchiveStatus status = helpRequestArchive.status();
+    assertEquals(2, status.getRuns());
+    assertEquals(1, status.getTotalMoved());
+    assertEquals(second, status.getLastRun());
+    assertEquals(0, second.getBatches());
+  }
+
+  @Test
+  public void the_scheduled_run_archives_up_to_now() {
+    LocalDateTime before = LocalDateTime.now();
+
+    helpRequestArchive.archive();
+
+    HelpRequestArchiveRun run = helpRequestArchive.status().getLastRun();
+    assertEquals(false, run.getStartedAt().isBefore(before));
+    assertEquals(run.getStartedAt().minusDays(30), run.getCutoff());
+  }
+}
@@ -0,0 +1,324 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import edu.ucsb.cs156.example.entities.ArchivedHelpRequest;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.models.HelpRequestHourCounts;
+import edu.ucsb.cs156.example.models.HelpRequestSolveTime;
+import edu.ucsb.cs156.example.models.HelpRequestStats;
+import edu.ucsb.cs156.example.repositories.ArchivedHelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = HelpRequestRollupService.class)
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class HelpRequestRollupServiceTests {
+
+  @MockBean
+  HelpRequestRepository helpRequestRepository;
+
+  @MockBean
+  ArchivedHelpRequestRepository archivedHelpRequestRepository;
+
+  @MockBean
+  PlatformTransactionManager transactionManager;
+
+  @Autowired
+  HelpRequestRollupService helpRequestRollups;
+
+  LocalDateTime ten = LocalDateTime.parse("2024-10-29T10:00:00");
+  LocalDateTime eleven = ten.plusHours(1);
+  LocalDateTime noon = ten.plusHours(2);
+
+  static HelpRequest request(long id, String teamId, LocalDateTime requestTime, Integer solveMinutes) {
+    return HelpRequest.builder()
+        .id(id)
+        .teamId(teamId)
+        .requestTime(requestTime)
+        .solved(solveMinutes != null)
+        .solvedTime(solveMinutes == null || requestTime == null ? null : requestTime.plusMinutes(solveMinutes))
+        .build();
+  }
+
+  static ArchivedHelpRequest archived(HelpRequest request) {
+    return ArchivedHelpRequest.builder()
+        .id(request.getId())
+        .teamId(request.getTeamId())
+        .requestTime(request.getRequestTime())
+        .solved(request.getSolved())
+        .solvedTime(request.getSolvedTime())
+        .archivedTime(LocalDateTime.parse("2024-12-01T03:30:00"))
+        .build();
+  }
+
+  static HelpRequestHourCounts counts(String teamId, LocalDateTime hour, long requests, long solved) {
+    return new HelpRequestHourCounts(teamId, hour.toLocalDate(), hour.getHour(), requests, solved);
+  }
+
+  static HelpRequestSolveTime solveTime(HelpRequest request) {
+    return new HelpRequestSolveTime(request.getTeamId(), request.getRequestTime(), request.getSolvedTime());
+  }
+
+  static HelpRequestStats stats(String teamId, LocalDateTime from, LocalDateTime to, long requests, long solved,
+      Long median, Long p90, Long p99) {
+    return HelpRequestStats.builder().teamId(teamId).from(from).to(to).requests(requests).solved(solved)
+        .medianSolveSeconds(median).p90SolveSeconds(p90).p99SolveSeconds(p99).build();
+  }
+
+  @Test
+  public void rebuild_loads_the_rollups_from_the_table() {
+    when(helpRequestRepository.countByTeamIdAndHour()).thenReturn(List.of(
+        counts("t1", ten, 2, 1),
+        counts("t2", ten, 1, 1),
+        counts("t1", eleven, 1, 1)));
+    when(helpRequestRepository.streamSolveTimes()).thenReturn(Stream.of(
+        solveTime(request(1, "t1", ten.plusMinutes(5), 10)),
+        solveTime(request(3, "t2", ten.plusMinutes(5), 1)),
+        solveTime(request(4, "t1", eleven.plusMinutes(5), 5)),
+        // a row added after the counts were loaded is counted again when it is written
+        solveTime(request(5, "t3", ten.plusMinutes(5), 5))));
+
+    helpRequestRollups.rebuild();
+    // requests without a requestTime are not counted
+    helpRequestRollups.add(request(6, "t1", null, 5));
+
+    assertEquals(stats(null, ten, noon, 4, 3, 300L, 600L, 600L), helpRequestRollups.totals(ten, noon, null));
+    assertEquals(stats("t1", ten, noon, 3, 2, 300L, 600L, 600L), helpRequestRollups.totals(ten, noon, "t1"));
+    assertEquals(stats("t3", ten, noon, 0, 0, null, null, null), helpRequestRollups.totals(ten, noon, "t3"));
+    verify(helpRequestRepository, never())
+        .findByTeamIdAndRequestTimeGreaterThanEqualAndRequestTimeLessThanAndSolvedTrue(any(), any(), any());
+  }
+
+  @Test
+  public void hours_written_to_while_loading_are_counted_again() {
+    HelpRequest loaded = request(1, "t1", ten, 10);
+    HelpRequest added = request(2, "t1", ten.plusMinutes(30), 20);
+    when(helpRequestRepository.countByTeamIdAndHour()).thenReturn(List.of(
+        counts("t1", ten, 1, 1),
+        counts("t2", noon, 1, 0)));
+    when(helpRequestRepository.streamSolveTimes()).thenAnswer(invocation -> {
+      helpRequestRollups.add(added);
+      helpRequestRollups.remove(request(3, "t2", noon, null));
+      return Stream.of(solveTime(loaded));
+    });
+    when(helpRequestRepository.countByTeamIdAndHour(ten, eleven)).thenReturn(List.of(counts("t1", ten, 2, 2)));
+    when(helpRequestRepository.findByTeamIdAndRequestTimeGreaterThanEqualAndRequestTimeLessThanAndSolvedTrue("t1",
+        ten, eleven)).thenReturn(List.of(loaded, added));
+
+    helpRequestRollups.rebuild();
+
+    assertEquals(List.of(stats(null, ten, eleven, 2, 2, 600L, 1200L, 1200L)),
+        helpRequestRollups.byHour(ten, noon.plusHours(1), null));
+    verify(archivedHelpRequestRepository).countByTeamIdAndHour(ten, eleven);
+    verify(archivedHelpRequestRepository).countByTeamIdAndHour(noon, noon.plusHours(1));
+
+    // writes after the load are not counted again by the next one
+    helpRequestRollups.add(request(4, "t1", eleven, null));
+    helpRequestRollups.remove(request(4, "t1", eleven, null));
+    when(helpRequestRepository.streamSolveTimes()).thenReturn(Stream.of(solveTime(loaded)));
+    helpRequestRollups.rebuild();
+    verify(helpRequestRepository, times(1)).countByTeamIdAndHour(ten, eleven);
+    verify(helpRequestRepository, never()).countByTeamIdAndHour(eleven, noon);
+  }
+
+  @Test
+  public void a_failed_rebuild_keeps_the_rollups() {
+    helpRequestRollups.add(request(1, "t1", ten, 10));
+    when(helpRequestRepository.streamSolveTimes()).thenThrow(new IllegalStateException("connection lost"));
+
+    assertThrows(IllegalStateException.class, () -> helpRequestRollups.rebuild());
+
+    helpRequestRollups.add(request(2, "t1", ten, 20));
+    assertEquals(stats(null, ten, eleven, 2, 2, 600L, 1200L, 1200L), helpRequestRollups.totals(ten, eleven, null));
+    verify(helpRequestRepository, never()).countByTeamIdAndHour(ten, eleven);
+  }
+
+  @Test
+  public void ranges_start_at_the_hour_of_from_and_stop_before_to() {
+    helpRequestRollups.add(request(1, "t1", ten.plusMinutes(5), 10));
+    helpRequestRollups.add(request(2, "t1", eleven, 20));
+
+    assertEquals(stats(null, ten, eleven, 1, 1, 600L, 600L, 600L),
+        helpRequestRollups.totals(ten.plusMinutes(30), eleven, null));
+    assertEquals(stats(null, ten, eleven.plusSeconds(1), 2, 2, 600L, 1200L, 1200L),
+        helpRequestRollups.totals(ten.plusMinutes(30), eleven.plusSeconds(1), null));
+  }
+
+  @Test
+  public void to_must_be_after_from() {
+    assertThrows(BadRequestException.class, () -> helpRequestRollups.totals(ten, ten, null));
+    assertThrows(BadRequestException.class, () -> helpRequestRollups.byTeam(eleven, ten));
+    assertThrows(BadRequestException.class, () -> helpRequestRollups.byHour(eleven, ten, null));
+  }
+
+  @Test
+  public void quantiles_are_of_the_time_to_solve_in_seconds() {
+    for (int minutes = 1; minutes <= 100; minutes++) {
+      helpRequestRollups.add(request(minutes, "t1", ten, minutes));
+    }
+    // solved before it was requested counts as no wait
+    helpRequestRollups.add(request(101, "t2", ten.plusMinutes(10), -5));
+    // solved without a solvedTime counts as solved, without a wait
+    helpRequestRollups.add(request(102, "t2", ten, null).toBuilder().solved(true).build());
+
+    assertEquals(stats("t1", ten, eleven, 100, 100, 3000L, 5400L, 5940L), helpRequestRollups.totals(ten, eleven, "t1"));
+    assertEquals(stats("t2", ten, eleven, 2, 2, 0L, 0L, 0L), helpRequestRollups.totals(ten, eleven, "t2"));
+  }
+
+  @Test
+  public void teams_with_the_most_requests_come_first() {
+    helpRequestRollups.add(request(1, "b", ten, 10));
+    helpRequestRollups.add(request(2, "a", eleven, null));
+    helpRequestRollups.add(request(3, null, ten, null));
+    helpRequestRollups.add(request(4, "c", ten, 1));
+    helpRequestRollups.add(request(5, "c", eleven, 3));
+
+    assertEquals(List.of(
+        stats("c", ten, noon, 2, 2, 60L, 180L, 180L),
+        stats(null, ten, noon, 1, 0, null, null, null),
+        stats("a", ten, noon, 1, 0, null, null, null),
+        stats("b", ten, noon, 1, 1, 600L, 600L, 600L)),
+        helpRequestRollups.byTeam(ten, noon));
+  }
+
+  @Test
+  public void hours_are_listed_in_order_when_they_have_requests() {
+    helpRequestRollups.add(request(1, "t1", eleven, 10));
+    helpRequestRollups.add(request(2, "t2", ten, null));
+    helpRequestRollups.add(request(3, "t1", ten.plusMinutes(59), 2));
+    helpRequestRollups.add(request(4, "t2", noon, 2));
+
+    assertEquals(List.of(
+        stats(null, ten, eleven, 2, 1, 120L, 120L, 120L),
+        stats(null, eleven, noon, 1, 1, 600L, 600L, 600L)),
+        helpRequestRollups.byHour(ten, noon, null));
+    assertEquals(List.of(
+        stats("t2", ten, eleven, 1, 0, null, null, null)),
+        helpRequestRollups.byHour(ten, noon, "t2"));
+  }
+
+  @Test
+  public void removed_requests_are_no_longer_counted() {
+    HelpRequest unsolved = request(1, "t1", ten, null);
+    HelpRequest other = request(2, "t2", ten, null);
+    helpRequestRollups.add(unsolved);
+    helpRequestRollups.add(other);
+
+    helpRequestRollups.remove(unsolved);
+    assertEquals(List.of(stats(null, ten, eleven, 1, 0, null, null, null)), helpRequestRollups.byHour(ten, noon, null));
+    assertEquals(List.of(stats("t2", ten, noon, 1, 0, null, null, null)), helpRequestRollups.byTeam(ten, noon));
+
+    helpRequestRollups.remove(other);
+    assertEquals(List.of(), helpRequestRollups.byHour(ten, noon, null));
+    assertEquals(List.of(), helpRequestRollups.byTeam(ten, noon));
+    verify(helpRequestRepository, never())
+        .findByTeamIdAndRequestTimeGreaterThanEqualAndRequestTimeLessThanAndSolvedTrue(any(), any(), any());
+  }
+
+  @Test
+  public void removing_requests_that_were_not_added_is_ignored() {
+    helpRequestRollups.add(request(1, "t1", ten, 10));
+
+    helpRequestRollups.remove(request(2, "t1", null, 10));
+    helpRequestRollups.remove(request(3, "t1", noon, 10));
+    helpRequestRollups.remove(request(4, "t2", ten, 10));
+
+    assertEquals(stats(null, ten, noon, 1, 1, 600L, 600L, 600L), helpRequestRollups.totals(ten, noon, null));
+  }
+
+  @Test
+  public void a_stale_sketch_is_reloaded_from_its_hour_once() {
+    HelpRequest first = request(1, "t1", ten, 10);
+    HelpRequest second = request(2, "t1", ten.plusMinutes(30), 20);
+    helpRequestRollups.add(first);
+    helpRequestRollups.add(second);
+
+    // the second request is edited to take 40 minutes
+    HelpRequest edited = second.toBuilder().solvedTime(second.getRequestTime().plusMinutes(40)).build();
+    helpRequestRollups.remove(second);
+    helpRequestRollups.add(edited);
+    List<HelpRequest> rows = new ArrayList<>(List.of(first, edited));
+    when(helpRequestRepository.findByTeamIdAndRequestTimeGreaterThanEqualAndRequestTimeLessThanAndSolvedTrue("t1",
+        ten, eleven)).thenReturn(rows);
+
+    assertEquals(stats(null, ten, eleven, 2, 2, 600L, 2400L, 2400L), helpRequestRollups.totals(ten, eleven, null));
+    assertEquals(stats(null, ten, eleven, 2, 2, 600L, 2400L, 2400L), helpRequestRollups.totals(ten, eleven, null));
+    verify(helpRequestRepository, times(1))
+        .findByTeamIdAndRequestTimeGreaterThanEqualAndRequestTimeLessThanAndSolvedTrue("t1", ten, eleven);
+
+    // removing an unsolved request or one without a solvedTime does not make the sketch stale
+    helpRequestRollups.add(request(3, "t1", ten, null));
+    helpRequestRollups.remove(request(3, "t1", ten, null));
+    helpRequestRollups.add(request(4, "t1", ten, null).toBuilder().solved(true).build());
+    helpRequestRollups.remove(request(4, "t1", ten, null).toBuilder().solved(true).build());
+    assertEquals(List.of(stats("t1", ten, eleven, 2, 2, 600L, 2400L, 2400L)), helpRequestRollups.byTeam(ten, eleven));
+    verify(helpRequestRepository, times(1))
+        .findByTeamIdAndRequestTimeGreaterThanEqualAndRequestTimeLessThanAndSolvedTrue("t1", ten, eleven);
+
+    // the solvedTime of a request is cleared
+    HelpRequest unsolved = first.toBuilder().solved(false).solvedTime(null).build();
+    helpRequestRollups.remove(first);
+    helpRequestRollups.add(unsolved);
+    rows.remove(first);
+    rows.add(request(5, "t1", ten, null).toBuilder().solved(true).build());
+    helpRequestRollups.add(request(5, "t1", ten, null).toBuilder().solved(true).build());
+    assertEquals(List.of(stats(null, ten, eleven, 3, 2, 2400L, 2400L, 2400L)), helpRequestRollups.byHour(ten, noon, null));
+  }
+
+  @Test
+  public void archived_requests_are_counted() {
+    when(helpRequestRepository.countByTeamIdAndHour()).thenReturn(List.of(counts("t1", ten, 1, 1)));
+    when(helpRequestRepository.streamSolveTimes()).thenReturn(Stream.of(solveTime(request(1, "t1", ten, 10))));
+    when(archivedHelpRequestRepository.countByTeamIdAndHour()).thenReturn(List.of(counts("t1", ten, 1, 1)));
+    when(archivedHelpRequestRepository.streamSolveTimes())
+        .thenReturn(Stream.of(solveTime(request(2, "t1", ten, 30))));
+
+    helpRequestRollups.rebuild();
+
+    assertEquals(stats("t1", ten, eleven, 2, 2, 600L, 1800L, 1800L), helpRequestRollups.totals(ten, eleven, "t1"));
+  }
+
+  @Test
+  public void a_stale_sketch_is_reloaded_from_both_tables() {
+    HelpRequest hot = request(1, "t1", ten, 10);
+    HelpRequest edited = request(2, "t1", ten, 20);
+    when(helpRequestRepository.countByTeamIdAndHour()).thenReturn(List.of(counts("t1", ten, 2, 2)));
+    when(helpRequestRepository.streamSolveTimes()).thenReturn(Stream.of(solveTime(hot), solveTime(edited)));
+    when(archivedHelpRequestRepository.countByTeamIdAndHour()).thenReturn(List.of(counts("t1", ten, 1, 1)));
+    when(archivedHelpRequestRepository.streamSolveTimes())
+        .thenReturn(Stream.of(solveTime(request(3, "t1", ten, 30))));
+    helpRequestRollups.rebuild();
+
+    helpRequestRollups.remove(edited);
+    when(helpRequestRepository.findByTeamIdAndRequestTimeGreaterThanEqualAndRequestTimeLessThanAndSolvedTrue("t1",
+        ten, eleven)).thenReturn(List.of(hot));
+    when(archivedHelpRequestRepository.findByTeamIdAndRequestTimeGreaterThanEqualAndRequestTimeLessThanAndSolvedTrue(
+        "t1", ten, eleven)).thenReturn(List.of(archived(request(3, "t1", ten, 30))));
+
+    assertEquals(stats("t1", ten, eleven, 2, 2, 600L, 1800L, 1800L), helpRequestRollups.totals(ten, eleven, "t1"));
+  }
+}
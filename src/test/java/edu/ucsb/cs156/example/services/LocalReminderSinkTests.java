@@ -0,0 +1,54 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.ucsb.cs156.example.models.DeadlineReminder;
+
+public class LocalReminderSinkTests {
+
+  @TempDir
+  Path tempDir;
+
+  LocalReminderSink localReminderSink = new LocalReminderSink();
+
+  DeadlineReminder reminder = DeadlineReminder.builder()
+      .requestId(7L)
+      .requesterEmail("cgaucho@ucsb.edu")
+      .professorEmail("phtcon@ucsb.edu")
+      .dateNeeded(LocalDateTime.parse("2030-01-02T12:00:00"))
+      .remindAt(LocalDateTime.parse("2030-01-01T12:00:00"))
+      .build();
+
+  @Test
+  public void reminders_are_only_logged_by_default() {
+    assertDoesNotThrow(() -> localReminderSink.deliver(reminder));
+  }
+
+  @Test
+  public void reminders_are_appended_to_the_file() throws Exception {
+    Path file = tempDir.resolve("reminders.log");
+    localReminderSink.file = file.toString();
+
+    localReminderSink.deliver(reminder);
+    localReminderSink.deliver(reminder);
+
+    String line = "2030-01-01T12:00 recommendation request 7 from cgaucho@ucsb.edu to phtcon@ucsb.edu is needed by 2030-01-02T12:00";
+    assertEquals(List.of(line, line), Files.readAllLines(file));
+  }
+
+  @Test
+  public void a_file_that_cannot_be_written_is_logged_and_skipped() {
+    localReminderSink.file = tempDir.toString();
+
+    assertDoesNotThrow(() -> localReminderSink.deliver(reminder));
+  }
+}
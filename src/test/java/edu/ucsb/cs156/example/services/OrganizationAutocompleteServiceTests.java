@@ -0,0 +1,106 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = OrganizationAutocompleteService.class)
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class OrganizationAutocompleteServiceTests {
+
+  @MockBean
+  UCSBOrganizationRepository ucsbOrganizationRepository;
+
+  @Autowired
+  OrganizationAutocompleteService organizationAutocomplete;
+
+  UCSBOrganization sky = UCSBOrganization.builder().orgCode("SKY").orgTranslationShort("SKYDIVING CLUB")
+      .orgTranslation("SKYDIVING CLUB AT UCSB").inactive(false).build();
+  UCSBOrganization ski = UCSBOrganization.builder().orgCode("SKI").orgTranslationShort("SKI CLUB")
+      .orgTranslation("SKI AND SNOWBOARD CLUB").inactive(false).build();
+  UCSBOrganization snu = UCSBOrganization.builder().orgCode("SNU").orgTranslationShort("SIGMA NU")
+      .orgTranslation("SIGMA NU FRATERNITY").inactive(true).build();
+  UCSBOrganization osli = UCSBOrganization.builder().orgCode("OSLI").orgTranslationShort("STUDENT LIFE")
+      .orgTranslation("OFFICE OF STUDENT LIFE").inactive(false).build();
+
+  @Test
+  public void autocomplete_ranks_code_then_names_then_words() {
+    when(ucsbOrganizationRepository.findAll()).thenReturn(List.of(sky, ski, snu, osli));
+    organizationAutocomplete.rebuild();
+
+    // exact code, then other code prefixes, then short names
+    assertEquals(List.of(ski), organizationAutocomplete.autocomplete("ski", false, 10));
+    assertEquals(List.of(ski, sky, osli), organizationAutocomplete.autocomplete("s", false, 10));
+    assertEquals(List.of(ski), organizationAutocomplete.autocomplete("sk", false, 1));
+    // full names, then later words
+    assertEquals(List.of(osli), organizationAutocomplete.autocomplete("Office of", false, 10));
+    assertEquals(List.of(ski, sky), organizationAutocomplete.autocomplete("club", false, 10));
+    assertEquals(List.of(osli), organizationAutocomplete.autocomplete("student-life", false, 10));
+    assertEquals(List.of(), organizationAutocomplete.autocomplete("zzz", false, 10));
+  }
+
+  @Test
+  public void autocomplete_excludes_inactive_unless_requested() {
+    when(ucsbOrganizationRepository.findAll()).thenReturn(List.of(sky, ski, snu, osli));
+    organizationAutocomplete.rebuild();
+
+    assertEquals(List.of(), organizationAutocomplete.autocomplete("sigma", false, 10));
+    assertEquals(List.of(snu), organizationAutocomplete.autocomplete("sigma", true, 10));
+    assertEquals(List.of(ski, sky, snu, osli), organizationAutocomplete.autocomplete("S", true, 10));
+  }
+
+  @Test
+  public void blank_prefix_returns_nothing() {
+    assertEquals(List.of(), organizationAutocomplete.autocomplete(" ", true, 10));
+    assertEquals(List.of(), organizationAutocomplete.autocomplete(null, true, 10));
+    verify(ucsbOrganizationRepository, never()).findAll();
+  }
+
+  @Test
+  public void autocomplete_loads_lazily_once() {
+    when(ucsbOrganizationRepository.findAll()).thenReturn(List.of(sky));
+
+    assertEquals(List.of(sky), organizationAutocomplete.autocomplete("sky", false, 10));
+    assertEquals(List.of(sky), organizationAutocomplete.autocomplete("sky", false, 10));
+    verify(ucsbOrganizationRepository, times(1)).findAll();
+  }
+
+  @Test
+  public void add_and_remove_keep_the_trie_current() {
+    when(ucsbOrganizationRepository.findAll()).thenReturn(List.of(sky, ski));
+    organizationAutocomplete.rebuild();
+
+    UCSBOrganization renamed = UCSBOrganization.builder().orgCode("SKY").orgTranslationShort("PARACHUTE CLUB")
+        .orgTranslation("PARACHUTE CLUB AT UCSB").inactive(false).build();
+    organizationAutocomplete.add(renamed);
+
+    assertEquals(List.of(renamed), organizationAutocomplete.autocomplete("sky", false, 10));
+    assertEquals(List.of(), organizationAutocomplete.autocomplete("skyd", false, 10));
+    assertEquals(List.of(renamed), organizationAutocomplete.autocomplete("para", false, 10));
+
+    organizationAutocomplete.add(snu);
+    assertEquals(List.of(snu), organizationAutocomplete.autocomplete("nu", true, 10));
+
+    organizationAutocomplete.remove("SKY");
+    organizationAutocomplete.remove("NOPE");
+    assertEquals(List.of(), organizationAutocomplete.autocomplete("sky", false, 10));
+    assertEquals(List.of(ski), organizationAutocomplete.autocomplete("club", false, 10));
+  }
+}
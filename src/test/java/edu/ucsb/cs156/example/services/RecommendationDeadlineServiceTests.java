@@ -0,0 +1,134 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = RecommendationDeadlineService.class)
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class RecommendationDeadlineServiceTests {
+
+  @MockBean
+  RecommendationRequestRepository recommendationRequestRepository;
+
+  @Autowired
+  RecommendationDeadlineService recommendationDeadlines;
+
+  LocalDateTime start = LocalDateTime.parse("2030-01-01T00:00:00");
+  LocalDateTime end = LocalDateTime.parse("2030-01-08T00:00:00");
+
+  RecommendationRequest request(long id, String professorEmail, String dateNeeded, boolean done) {
+    return RecommendationRequest.builder()
+        .id(id)
+        .requesterEmail("cgaucho@ucsb.edu")
+        .professorEmail(professorEmail)
+        .explanation("BS/MS program")
+        .dateRequested(LocalDateTime.parse("2029-12-01T00:00:00"))
+        .dateNeeded(dateNeeded == null ? null : LocalDateTime.parse(dateNeeded))
+        .done(done)
+        .build();
+  }
+
+  RecommendationRequest third = request(3L, "phtcon@ucsb.edu", "2030-01-05T00:00:00", false);
+  RecommendationRequest first = request(1L, "ziad@ucsb.edu", "2030-01-02T00:00:00", false);
+  RecommendationRequest second = request(2L, "phtcon@ucsb.edu", "2030-01-02T00:00:00", false);
+  RecommendationRequest later = request(4L, "phtcon@ucsb.edu", "2030-02-01T00:00:00", false);
+
+  @Test
+  public void the_queue_is_loaded_on_first_use() {
+    when(recommendationRequestRepository.findByDoneFalseAndDateNeededGreaterThanEqualOrderByDateNeededAscIdAsc(any()))
+        .thenReturn(List.of(third, later, second, first));
+
+    assertEquals(List.of(first, second, third), recommendationDeadlines.upcoming(start, end, null));
+    assertEquals(List.of(first, second, third), recommendationDeadlines.upcoming(start, end, null));
+    verify(recommendationRequestRepository, times(1))
+        .findByDoneFalseAndDateNeededGreaterThanEqualOrderByDateNeededAscIdAsc(any());
+  }
+
+  @Test
+  public void upcoming_can_be_limited_to_a_professor() {
+    when(recommendationRequestRepository.findByDoneFalseAndDateNeededGreaterThanEqualOrderByDateNeededAscIdAsc(any()))
+        .thenReturn(List.of(first, second, third, later));
+    recommendationDeadlines.rebuild();
+
+    assertEquals(List.of(second, third), recommendationDeadlines.upcoming(start, end, "phtcon@ucsb.edu"));
+    assertEquals(List.of(first), recommendationDeadlines.upcoming(start, end, "ziad@ucsb.edu"));
+  }
+
+  @Test
+  public void overdue_requests_are_dropped_as_time_passes() {
+    when(recommendationRequestRepository.findByDoneFalseAndDateNeededGreaterThanEqualOrderByDateNeededAscIdAsc(any()))
+        .thenReturn(List.of(first, second, third, later));
+    recommendationDeadlines.rebuild();
+
+    LocalDateTime afterSecond = LocalDateTime.parse("2030-01-03T00:00:00");
+    assertEquals(List.of(third, later), recommendationDeadlines.upcoming(afterSecond, afterSecond.plusDays(30), null));
+    assertEquals(2, recommendationDeadlines.queueSize());
+    assertEquals(List.of(), recommendationDeadlines.upcoming(start, LocalDateTime.parse("2030-01-04T00:00:00"), null));
+  }
+
+  @Test
+  public void done_requests_and_requests_with_no_date_are_not_queued() {
+    when(recommendationRequestRepository.findByDoneFalseAndDateNeededGreaterThanEqualOrderByDateNeededAscIdAsc(any()))
+        .thenReturn(List.of(first));
+    recommendationDeadlines.rebuild();
+
+    recommendationDeadlines.add(request(5L, "phtcon@ucsb.edu", "2030-01-03T00:00:00", true));
+    recommendationDeadlines.add(request(6L, "phtcon@ucsb.edu", null, false));
+
+    assertEquals(List.of(first), recommendationDeadlines.upcoming(start, end, null));
+    assertEquals(1, recommendationDeadlines.queueSize());
+  }
+
+  @Test
+  public void add_and_remove_keep_the_queue_current() {
+    when(recommendationRequestRepository.findByDoneFalseAndDateNeededGreaterThanEqualOrderByDateNeededAscIdAsc(any()))
+        .thenReturn(List.of(first, second, third));
+    recommendationDeadlines.rebuild();
+
+    RecommendationRequest movedFirst = request(1L, "ziad@ucsb.edu", "2030-01-06T00:00:00", false);
+    RecommendationRequest doneThird = request(3L, "phtcon@ucsb.edu", "2030-01-05T00:00:00", true);
+    recommendationDeadlines.add(movedFirst);
+    recommendationDeadlines.add(doneThird);
+    recommendationDeadlines.add(later);
+
+    assertEquals(List.of(second, movedFirst, later),
+        recommendationDeadlines.upcoming(start, start.plusDays(60), null));
+
+    recommendationDeadlines.remove(2L);
+    assertEquals(List.of(movedFirst), recommendationDeadlines.upcoming(start, end, null));
+  }
+
+  @Test
+  public void stale_entries_are_compacted_away() {
+    when(recommendationRequestRepository.findByDoneFalseAndDateNeededGreaterThanEqualOrderByDateNeededAscIdAsc(any()))
+        .thenReturn(List.of(first));
+    recommendationDeadlines.rebuild();
+
+    for (int i = 0; i < 100; i++) {
+      recommendationDeadlines.add(request(1L, "ziad@ucsb.edu", "2030-01-0%dT00:00:00".formatted(2 + i % 5), false));
+    }
+
+    assertTrue(recommendationDeadlines.queueSize() <= 18);
+    assertEquals(1, recommendationDeadlines.upcoming(start, end, null).size());
+  }
+}
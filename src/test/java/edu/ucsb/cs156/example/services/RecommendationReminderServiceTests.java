@@ -0,0 +1,200 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.models.DeadlineReminder;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = RecommendationReminderService.class)
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class RecommendationReminderServiceTests {
+
+  @MockBean
+  RecommendationRequestRepository recommendationRequestRepository;
+
+  @MockBean(name = "sink")
+  ReminderSink sink;
+
+  @MockBean(name = "failingSink")
+  ReminderSink failingSink;
+
+  @Autowired
+  RecommendationReminderService recommendationReminders;
+
+  LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+  RecommendationRequest request(long id, LocalDateTime dateNeeded, boolean done) {
+    return RecommendationRequest.builder()
+        .id(id)
+        .requesterEmail("cgaucho@ucsb.edu")
+        .professorEmail("phtcon@ucsb.edu")
+        .explanation("BS/MS program")
+        .dateRequested(now.minusDays(10))
+        .dateNeeded(dateNeeded)
+        .done(done)
+        .build();
+  }
+
+  DeadlineReminder reminderFor(RecommendationRequest request) {
+    return DeadlineReminder.builder()
+        .requestId(request.getId())
+        .requesterEmail(request.getRequesterEmail())
+        .professorEmail(request.getProfessorEmail())
+        .dateNeeded(request.getDateNeeded())
+        .remindAt(request.getDateNeeded().minusHours(24))
+        .build();
+  }
+
+  @Test
+  public void reminders_are_loaded_at_startup_and_sent_a_day_ahead() {
+    RecommendationRequest inTwoDays = request(1L, now.plusHours(48), false);
+    RecommendationRequest inThirtyHours = request(2L, now.plusHours(30), false);
+    when(recommendationRequestRepository.findByDoneFalseAndDateNeededGreaterThanEqualOrderByDateNeededAscIdAsc(any()))
+        .thenReturn(List.of(inThirtyHours, inTwoDays));
+
+    recommendationReminders.rebuild();
+    assertEquals(2, recommendationReminders.pending());
+
+    recommendationReminders.tick(now.plusHours(5));
+    verify(sink, times(0)).deliver(any());
+
+    recommendationReminders.tick(now.plusHours(6));
+    verify(sink, times(1)).deliver(reminderFor(inThirtyHours));
+    assertEquals(1, recommendationReminders.pending());
+
+    recommendationReminders.tick(now.plusHours(24));
+    verify(sink, times(1)).deliver(reminderFor(inTwoDays));
+    verify(sink, times(2)).deliver(any());
+    assertEquals(0, recommendationReminders.pending());
+    verify(recommendationRequestRepository, times(1)).updateRemindedAt(2L, now.plusHours(6));
+    verify(recommendationRequestRepository, times(1)).updateRemindedAt(1L, now.plusHours(24));
+  }
+
+  @Test
+  public void reminders_due_while_the_app_was_down_are_sent_after_startup() {
+    RecommendationRequest inTwoHours = request(1L, now.plusHours(2), false);
+    when(recommendationRequestRepository.findByDoneFalseAndDateNeededGreaterThanEqualOrderByDateNeededAscIdAsc(
+        argThat(start -> !start.isBefore(now) && start.isBefore(now.plusHours(1)))))
+        .thenReturn(List.of(inTwoHours));
+
+    recommendationReminders.rebuild();
+    recommendationReminders.tick(now);
+
+    verify(sink, times(1)).deliver(reminderFor(inTwoHours));
+    verify(recommendationRequestRepository, times(1)).updateRemindedAt(1L, now);
+  }
+
+  @Test
+  public void reminders_already_sent_are_not_sent_again_after_startup() {
+    RecommendationRequest reminded = request(1L, now.plusHours(2), false);
+    reminded.setRemindedAt(now.minusHours(1));
+    RecommendationRequest remindedForAnEarlierDate = request(2L, now.plusHours(30), false);
+    remindedForAnEarlierDate.setRemindedAt(now.minusHours(1));
+    when(recommendationRequestRepository.findByDoneFalseAndDateNeededGreaterThanEqualOrderByDateNeededAscIdAsc(any()))
+        .thenReturn(List.of(reminded, remindedForAnEarlierDate));
+
+    recommendationReminders.rebuild();
+
+    assertEquals(1, recommendationReminders.pending());
+    recommendationReminders.tick(now.plusHours(6));
+    verify(sink, times(1)).deliver(any());
+    verify(sink, times(1)).deliver(reminderFor(remindedForAnEarlierDate));
+  }
+
+  @Test
+  public void saving_a_request_that_was_reminded_does_not_remind_it_again() {
+    RecommendationRequest reminded = request(1L, now.plusHours(2), false);
+    reminded.setRemindedAt(now.minusHours(1));
+
+    recommendationReminders.add(reminded);
+
+    assertEquals(0, recommendationReminders.pending());
+  }
+
+  @Test
+  public void a_reminder_that_cannot_be_recorded_is_still_sent() {
+    RecommendationRequest first = request(1L, now.plusHours(1), false);
+    RecommendationRequest second = request(2L, now.plusHours(2), false);
+    when(recommendationRequestRepository.updateRemindedAt(anyLong(), any()))
+        .thenThrow(new IllegalStateException("database down"));
+    recommendationReminders.add(first);
+    recommendationReminders.add(second);
+
+    recommendationReminders.tick(now);
+
+    verify(sink, times(1)).deliver(reminderFor(first));
+    verify(sink, times(1)).deliver(reminderFor(second));
+  }
+
+  @Test
+  public void requests_saved_inside_the_lead_time_are_reminded_on_the_next_tick() {
+    RecommendationRequest inTwoHours = request(1L, now.plusHours(2), false);
+    recommendationReminders.add(inTwoHours);
+
+    recommendationReminders.tick();
+
+    verify(sink, times(1)).deliver(reminderFor(inTwoHours));
+    verify(failingSink, times(1)).deliver(reminderFor(inTwoHours));
+  }
+
+  @Test
+  public void saving_a_request_moves_or_cancels_its_reminder() {
+    recommendationReminders.add(request(1L, now.plusHours(30), false));
+    recommendationReminders.add(request(2L, now.plusHours(30), false));
+    recommendationReminders.add(request(3L, now.plusHours(30), false));
+    recommendationReminders.add(request(4L, now.plusHours(30), false));
+    RecommendationRequest moved = request(5L, now.plusHours(30), false);
+    recommendationReminders.add(moved);
+    assertEquals(5, recommendationReminders.pending());
+
+    recommendationReminders.add(request(1L, now.plusHours(30), true));
+    recommendationReminders.add(request(2L, null, false));
+    recommendationReminders.add(request(3L, now.minusHours(1), false));
+    recommendationReminders.remove(4L);
+    moved = request(5L, now.plusHours(40), false);
+    recommendationReminders.add(moved);
+    assertEquals(1, recommendationReminders.pending());
+
+    recommendationReminders.tick(now.plusHours(10));
+    verify(sink, times(0)).deliver(any());
+    recommendationReminders.tick(now.plusHours(16));
+    verify(sink, times(1)).deliver(reminderFor(moved));
+  }
+
+  @Test
+  public void a_failing_sink_does_not_stop_the_others() {
+    RecommendationRequest first = request(1L, now.plusHours(1), false);
+    RecommendationRequest second = request(2L, now.plusHours(2), false);
+    doThrow(new IllegalStateException("mail server down")).when(failingSink).deliver(any());
+    recommendationReminders.add(first);
+    recommendationReminders.add(second);
+
+    recommendationReminders.tick(now);
+
+    verify(sink, times(1)).deliver(reminderFor(first));
+    verify(sink, times(1)).deliver(reminderFor(second));
+    verify(failingSink, times(2)).deliver(any());
+  }
+}
@@ -0,0 +1,282 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletResponse;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = ResponseCacheService.class)
+@TestPropertySource(properties = { "app.responseCache.maxBytes=4096", "app.responseCache.gzip=true" })
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class ResponseCacheServiceTests {
+
+  @Autowired
+  ResponseCacheService responseCache;
+
+  AtomicInteger calls = new AtomicInteger();
+
+  String body = "[" + "{\"code\":\"ortega\",\"name\":\"Ortega\"},".repeat(20) + "{}]";
+
+  FilterChain endpoint(int status, String json) {
+    return (request, response) -> {
+      calls.incrementAndGet();
+      response.setContentType("application/json");
+      ((HttpServletResponse) response).setStatus(status);
+      response.getOutputStream().write(json.getBytes(StandardCharsets.UTF_8));
+    };
+  }
+
+  MockHttpServletRequest get(String path, String query) {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+    request.setQueryString(query);
+    return request;
+  }
+
+  MockHttpServletResponse send(MockHttpServletRequest request, FilterChain chain)
+      throws IOException, ServletException {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    responseCache.filter(request, response, chain);
+    return response;
+  }
+
+  void loggedInAs(String... roles) {
+    SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("user", null, roles));
+  }
+
+  @AfterEach
+  public void clearUser() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  public void only_gets_of_the_endpoints_are_cached() {
+    assertTrue(responseCache.caches(get("/api/ucsbdiningcommons/all", null)));
+    assertTrue(responseCache.caches(get("/api/restaurants/all", "filter=name:prefix:F")));
+    assertFalse(responseCache.caches(get("/api/ucsbdates/all", null)));
+    assertFalse(responseCache.caches(new MockHttpServletRequest("POST", "/api/restaurants/all")));
+  }
+
+  @Test
+  public void a_body_is_sent_from_the_cache_after_the_first_request() throws Exception {
+    loggedInAs("ROLE_USER");
+    FilterChain chain = endpoint(200, body);
+
+    MockHttpServletResponse first = send(get("/api/ucsbdiningcommons/all", null), chain);
+    MockHttpServletResponse second = send(get("/api/ucsbdiningcommons/all", null), chain);
+
+    assertEquals(1, calls.get());
+    assertEquals(body, first.getContentAsString());
+    assertEquals(body, second.getContentAsString());
+    assertEquals(200, second.getStatus());
+    assertEquals("application/json", second.getContentType());
+    assertEquals(body.length(), second.getContentLength());
+    assertNull(second.getHeader("Content-Encoding"));
+    assertEquals("Accept-Encoding", second.getHeader("Vary"));
+    assertEquals(1, responseCache.size());
+  }
+
+  @Test
+  public void clients_that_accept_gzip_get_the_gzipped_body() throws Exception {
+    loggedInAs("ROLE_USER");
+    FilterChain chain = endpoint(200, body);
+    send(get("/api/ucsbdiningcommons/all", null), chain);
+    MockHttpServletRequest request = get("/api/ucsbdiningcommons/all", null);
+    request.addHeader("Accept-Encoding", "gzip, deflate");
+
+    MockHttpServletResponse response = send(request, chain);
+
+    assertEquals("gzip", response.getHeader("Content-Encoding"));
+    assertTrue(response.getContentAsByteArray().length < body.length());
+    assertEquals(body, gunzip(response.getContentAsByteArray()));
+  }
+
+  @Test
+  public void bodies_are_cached_by_query_and_role() throws Exception {
+    FilterChain chain = endpoint(200, body);
+
+    loggedInAs("ROLE_USER");
+    send(get("/api/restaurants/all", null), chain);
+    send(get("/api/restaurants/all", "sort=name"), chain);
+    loggedInAs("ROLE_USER", "ROLE_ADMIN");
+    send(get("/api/restaurants/all", null), chain);
+    send(get("/api/restaurants/all", null), chain);
+
+    assertEquals(3, calls.get());
+    assertEquals(3, responseCache.size());
+  }
+
+  @Test
+  public void responses_other_than_200_are_not_cached() throws Exception {
+    FilterChain chain = endpoint(403, "{\"error\":\"Forbidden\"}");
+
+    MockHttpServletResponse first = send(get("/api/restaurants/all", null), chain);
+    send(get("/api/restaurants/all", null), chain);
+
+    assertEquals(2, calls.get());
+    assertEquals(403, first.getStatus());
+    assertEquals("{\"error\":\"Forbidden\"}", first.getContentAsString());
+    assertEquals(0, responseCache.size());
+  }
+
+  @Test
+  public void invalidate_drops_the_bodies_of_an_entity() throws Exception {
+    loggedInAs("ROLE_USER");
+    send(get("/api/restaurants/all", null), endpoint(200, "[]"));
+    send(get("/api/ucsbdiningcommons/all", null), endpoint(200, body));
+
+    responseCache.invalidate(Restaurant.class);
+    MockHttpServletResponse response = send(get("/api/restaurants/all", null), endpoint(200, "[{}]"));
+
+    assertEquals(3, calls.get());
+    assertEquals("[{}]", response.getContentAsString());
+    assertEquals(2, responseCache.size());
+  }
+
+  @Test
+  public void a_body_made_during_a_write_is_not_cached() throws Exception {
+    loggedInAs("ROLE_USER");
+    FilterChain writtenDuring = (request, response) -> {
+      responseCache.invalidate(UCSBDiningCommons.class);
+      endpoint(200, "[]").doFilter(request, response);
+    };
+
+    MockHttpServletResponse response = send(get("/api/ucsbdiningcommons/all", null), writtenDuring);
+
+    assertEquals("[]", response.getContentAsString());
+    assertEquals(0, responseCache.size());
+  }
+
+  @Test
+  public void the_least_recently_used_bodies_are_dropped_past_max_bytes() throws Exception {
+    loggedInAs("ROLE_USER");
+    String big = "[\"" + "x".repeat(1500) + "\"]";
+    FilterChain chain = endpoint(200, big);
+
+    send(get("/api/restaurants/all", "a"), chain);
+    send(get("/api/restaurants/all", "b"), chain);
+    send(get("/api/restaurants/all", "a"), chain);
+    send(get("/api/restaurants/all", "c"), chain);
+    send(get("/api/restaurants/all", "a"), chain);
+    send(get("/api/restaurants/all", "b"), chain);
+
+    // a, b and c do not fit together, so c pushes out b, which is then read again
+    assertEquals(4, calls.get());
+    assertEquals(2, responseCache.size());
+    assertTrue(responseCache.bytes() <= 4096);
+  }
+
+  @Test
+  public void bodies_larger_than_max_bytes_are_not_cached() throws Exception {
+    loggedInAs("ROLE_USER");
+    String huge = "[\"" + "x".repeat(5000) + "\"]";
+
+    MockHttpServletResponse response = send(get("/api/restaurants/all", null), endpoint(200, huge));
+
+    assertEquals(huge, response.getContentAsString());
+    assertEquals(0, responseCache.size());
+  }
+
+  @Test
+  public void authorities_other_than_roles_do_not_change_the_key() throws Exception {
+    FilterChain chain = endpoint(200, body);
+
+    loggedInAs("ROLE_USER");
+    send(get("/api/restaurants/all", null), chain);
+    loggedInAs("ROLE_USER", "SCOPE_email");
+    send(get("/api/restaurants/all", null), chain);
+
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  public void responses_without_a_content_type_are_not_cached() throws Exception {
+    FilterChain chain = (request, response) -> {
+      calls.incrementAndGet();
+      response.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+    };
+
+    MockHttpServletResponse response = send(get("/api/restaurants/all", null), chain);
+
+    assertEquals(body, response.getContentAsString());
+    assertEquals(0, responseCache.size());
+  }
+
+  @Test
+  public void without_gzip_clients_that_accept_it_get_the_plain_body() throws Exception {
+    ReflectionTestUtils.setField(responseCache, "gzip", false);
+    loggedInAs("ROLE_USER");
+    send(get("/api/ucsbdiningcommons/all", null), endpoint(200, body));
+    MockHttpServletRequest request = get("/api/ucsbdiningcommons/all", null);
+    request.addHeader("Accept-Encoding", "gzip");
+
+    MockHttpServletResponse response = send(request, endpoint(200, body));
+
+    assertEquals(1, calls.get());
+    assertNull(response.getHeader("Content-Encoding"));
+    assertEquals(body, response.getContentAsString());
+    assertEquals(body.length(), responseCache.bytes());
+  }
+
+  @Test
+  public void clients_that_do_not_accept_gzip_get_the_plain_body() throws Exception {
+    loggedInAs("ROLE_USER");
+    send(get("/api/ucsbdiningcommons/all", null), endpoint(200, body));
+    MockHttpServletRequest request = get("/api/ucsbdiningcommons/all", null);
+    request.addHeader("Accept-Encoding", "deflate");
+
+    MockHttpServletResponse response = send(request, endpoint(200, body));
+
+    assertNull(response.getHeader("Content-Encoding"));
+    assertEquals(body, response.getContentAsString());
+  }
+
+  @Test
+  public void a_body_cached_by_a_concurrent_request_is_replaced() throws Exception {
+    loggedInAs("ROLE_USER");
+    FilterChain concurrent = (request, response) -> {
+      send(get("/api/restaurants/all", null), endpoint(200, "[]"));
+      endpoint(200, "[{}]").doFilter(request, response);
+    };
+
+    send(get("/api/restaurants/all", null), concurrent);
+    MockHttpServletResponse response = send(get("/api/restaurants/all", null), endpoint(200, "[1]"));
+
+    assertEquals("[{}]", response.getContentAsString());
+    assertEquals(1, responseCache.size());
+    assertEquals(4, responseCache.bytes());
+  }
+
+  private static String gunzip(byte[] bytes) throws IOException {
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+}
@@ -0,0 +1,121 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = RestaurantSearchService.class)
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class RestaurantSearchServiceTests {
+
+  @MockBean
+  RestaurantRepository restaurantRepository;
+
+  @MockBean
+  PlatformTransactionManager transactionManager;
+
+  @MockBean
+  DatabaseDialectService databaseDialect;
+
+  @Autowired
+  RestaurantSearchService restaurantSearch;
+
+  Restaurant tacoBell = Restaurant.builder().id(1L).name("Taco Bell").description("Fast food tacos").build();
+  Restaurant chipotle = Restaurant.builder().id(2L).name("Chipotle").description("Mexican grill").build();
+  Restaurant freebirds = Restaurant.builder().id(3L).name("Freebirds").description("Burritos, Mexican style").build();
+
+  @Test
+  public void search_in_memory_ranks_by_name_and_description() {
+    when(restaurantRepository.findAll()).thenReturn(List.of(tacoBell, chipotle, freebirds));
+    restaurantSearch.rebuild();
+
+    assertFalse(restaurantSearch.usesPostgres());
+    assertEquals(List.of(tacoBell), restaurantSearch.search("tacco bel", 10));
+    assertEquals(List.of(chipotle), restaurantSearch.search("chipolte", 10));
+    // "mexican" is in two descriptions; ties are broken by id
+    assertEquals(List.of(chipotle, freebirds), restaurantSearch.search("mexican", 10));
+    assertEquals(List.of(chipotle), restaurantSearch.search("mexican", 1));
+    assertEquals(List.of(), restaurantSearch.search("sushi", 10));
+    verify(restaurantRepository, never()).searchByTrigramSimilarity(eq("mexican"), eq(10));
+    verify(restaurantRepository, never()).setTrigramThresholds(anyDouble());
+  }
+
+  @Test
+  public void search_loads_index_on_first_use() {
+    when(restaurantRepository.findAll()).thenReturn(List.of(tacoBell));
+
+    assertEquals(List.of(tacoBell), restaurantSearch.search("taco", 10));
+    assertEquals(List.of(tacoBell), restaurantSearch.search("taco", 10));
+    verify(restaurantRepository, times(1)).findAll();
+  }
+
+  @Test
+  public void add_and_remove_keep_index_current() {
+    when(restaurantRepository.findAll()).thenReturn(List.of(tacoBell));
+    restaurantSearch.rebuild();
+
+    restaurantSearch.add(chipotle);
+    assertEquals(List.of(chipotle), restaurantSearch.search("chipotle", 10));
+
+    Restaurant renamed = Restaurant.builder().id(2L).name("Chipotle Mexican Grill").description("Burritos").build();
+    restaurantSearch.add(renamed);
+    assertEquals(List.of(renamed), restaurantSearch.search("chipotle grill", 10));
+
+    restaurantSearch.remove(2L);
+    assertEquals(List.of(), restaurantSearch.search("chipotle", 10));
+  }
+
+  @Test
+  public void search_on_postgres_uses_pg_trgm_query() {
+    when(databaseDialect.isPostgres()).thenReturn(true);
+    when(restaurantRepository.searchByTrigramSimilarity(eq("tacco"), eq(5))).thenReturn(List.of(tacoBell));
+
+    restaurantSearch.rebuild();
+    restaurantSearch.add(chipotle);
+
+    assertTrue(restaurantSearch.usesPostgres());
+    assertEquals(List.of(tacoBell), restaurantSearch.search("tacco", 5));
+    verify(restaurantRepository, never()).findAll();
+    InOrder inOrder = inOrder(restaurantRepository, transactionManager);
+    inOrder.verify(transactionManager).getTransaction(any());
+    inOrder.verify(restaurantRepository).setTrigramThresholds(0.3);
+    inOrder.verify(restaurantRepository).searchByTrigramSimilarity("tacco", 5);
+    inOrder.verify(transactionManager).commit(any());
+  }
+
+  @Test
+  public void search_on_postgres_filters_by_the_configured_threshold() {
+    when(databaseDialect.isPostgres()).thenReturn(true);
+    ReflectionTestUtils.setField(restaurantSearch, "threshold", 0.15);
+    when(restaurantRepository.searchByTrigramSimilarity(eq("tc"), eq(5))).thenReturn(List.of(tacoBell));
+
+    assertEquals(List.of(tacoBell), restaurantSearch.search("tc", 5));
+    verify(restaurantRepository, times(1)).setTrigramThresholds(0.15);
+  }
+}
@@ -0,0 +1,93 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = UCSBDateCalendarService.class)
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class UCSBDateCalendarServiceTests {
+
+  @MockBean
+  UCSBDateRepository ucsbDateRepository;
+
+  @Autowired
+  UCSBDateCalendarService ucsbDateCalendar;
+
+  UCSBDate firstDay = UCSBDate.builder().id(1L).quarterYYYYQ("20241").name("firstDayOfClasses")
+      .localDateTime(LocalDateTime.parse("2024-01-08T00:00:00")).build();
+  UCSBDate lastDay = UCSBDate.builder().id(2L).quarterYYYYQ("20241").name("lastDayOfClasses")
+      .localDateTime(LocalDateTime.parse("2024-03-15T00:00:00")).build();
+  UCSBDate springFirstDay = UCSBDate.builder().id(3L).quarterYYYYQ("20242").name("firstDayOfClasses")
+      .localDateTime(LocalDateTime.parse("2024-04-01T00:00:00")).build();
+
+  LocalDateTime newYear = LocalDateTime.parse("2024-01-01T00:00:00");
+  LocalDateTime april = LocalDateTime.parse("2024-04-01T00:00:00");
+
+  @Test
+  public void queries_go_to_the_database_until_the_index_is_loaded() {
+    when(ucsbDateRepository.findByQuarterYYYYQOrderByLocalDateTimeAscIdAsc("20241"))
+        .thenReturn(List.of(firstDay, lastDay));
+    when(ucsbDateRepository.findByLocalDateTimeGreaterThanEqualAndLocalDateTimeLessThanOrderByLocalDateTimeAscIdAsc(newYear, april))
+        .thenReturn(List.of(firstDay, lastDay));
+    when(ucsbDateRepository.findByLocalDateTimeGreaterThanEqualOrderByLocalDateTimeAscIdAsc(newYear, Limit.of(1)))
+        .thenReturn(List.of(firstDay));
+
+    assertEquals(List.of(firstDay, lastDay), ucsbDateCalendar.inQuarter("20241"));
+    assertEquals(List.of(firstDay, lastDay), ucsbDateCalendar.between(newYear, april));
+    assertEquals(List.of(firstDay), ucsbDateCalendar.upcoming(newYear, 1));
+    verify(ucsbDateRepository, times(0)).findAll();
+  }
+
+  @Test
+  public void queries_use_the_index_once_loaded() {
+    when(ucsbDateRepository.findAll()).thenReturn(List.of(springFirstDay, lastDay, firstDay));
+    ucsbDateCalendar.rebuild();
+
+    assertEquals(List.of(firstDay, lastDay), ucsbDateCalendar.inQuarter("20241"));
+    assertEquals(List.of(firstDay, lastDay), ucsbDateCalendar.between(newYear, april));
+    assertEquals(List.of(firstDay, lastDay), ucsbDateCalendar.upcoming(newYear, 2));
+    assertEquals(List.of(springFirstDay), ucsbDateCalendar.upcoming(april, 5));
+    verify(ucsbDateRepository, times(0)).findByQuarterYYYYQOrderByLocalDateTimeAscIdAsc(any());
+    verify(ucsbDateRepository, times(0))
+        .findByLocalDateTimeGreaterThanEqualAndLocalDateTimeLessThanOrderByLocalDateTimeAscIdAsc(any(), any());
+    verify(ucsbDateRepository, times(0)).findByLocalDateTimeGreaterThanEqualOrderByLocalDateTimeAscIdAsc(any(), any());
+  }
+
+  @Test
+  public void add_and_remove_keep_the_index_current() {
+    when(ucsbDateRepository.findAll()).thenReturn(List.of(firstDay, lastDay));
+    ucsbDateCalendar.rebuild();
+
+    UCSBDate movedLastDay = UCSBDate.builder().id(2L).quarterYYYYQ("20242").name("lastDayOfClasses")
+        .localDateTime(LocalDateTime.parse("2024-06-07T00:00:00")).build();
+    ucsbDateCalendar.add(springFirstDay);
+    ucsbDateCalendar.add(movedLastDay);
+
+    assertEquals(List.of(firstDay), ucsbDateCalendar.inQuarter("20241"));
+    assertEquals(List.of(springFirstDay, movedLastDay), ucsbDateCalendar.inQuarter("20242"));
+
+    ucsbDateCalendar.remove(1L);
+    assertEquals(List.of(), ucsbDateCalendar.inQuarter("20241"));
+    assertEquals(List.of(springFirstDay, movedLastDay), ucsbDateCalendar.upcoming(newYear, 10));
+  }
+}
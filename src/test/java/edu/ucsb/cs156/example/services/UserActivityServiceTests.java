@@ -0,0 +1,117 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = UserActivityService.class)
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class UserActivityServiceTests {
+
+  @MockBean
+  UserRepository userRepository;
+
+  @Autowired
+  UserActivityService userActivity;
+
+  LocalDateTime nine = LocalDateTime.parse("2030-01-01T09:00:00");
+  LocalDateTime ten = LocalDateTime.parse("2030-01-01T10:00:00");
+
+  @Test
+  public void repeated_sightings_coalesce_to_the_latest_minute() {
+    userActivity.record(1L, nine.plusSeconds(30));
+    userActivity.record(1L, ten.plusSeconds(59));
+    userActivity.record(1L, nine);
+    userActivity.record(2L, nine.plusSeconds(5));
+    assertEquals(2, userActivity.pendingCount());
+
+    userActivity.flush();
+
+    verify(userRepository, times(1)).updateLastSeen(List.of(2L), nine);
+    verify(userRepository, times(1)).updateLastSeen(List.of(1L), ten);
+    assertEquals(0, userActivity.pendingCount());
+  }
+
+  @Test
+  public void flush_writes_one_update_per_minute_in_chunks() {
+    int users = UserActivityService.FLUSH_CHUNK + 10;
+    for (long id = 1; id <= users; id++) {
+      userActivity.record(id, nine);
+    }
+    userActivity.record(users + 1, ten);
+    when(userRepository.updateLastSeen(any(), eq(nine))).thenReturn(UserActivityService.FLUSH_CHUNK, 10);
+
+    userActivity.flush();
+
+    verify(userRepository, times(2)).updateLastSeen(any(), eq(nine));
+    verify(userRepository, times(1)).updateLastSeen(List.of(users + 1L), ten);
+  }
+
+  @Test
+  public void flush_with_nothing_recorded_writes_nothing() {
+    userActivity.flush();
+    verifyNoInteractions(userRepository);
+  }
+
+  @Test
+  public void failed_updates_are_kept_for_the_next_flush() {
+    userActivity.record(1L, nine);
+    when(userRepository.updateLastSeen(List.of(1L), nine)).thenThrow(new IllegalStateException("database down"));
+
+    userActivity.flush();
+    assertEquals(1, userActivity.pendingCount());
+  }
+
+  @Test
+  public void sightings_now_are_recorded_to_the_minute() {
+    LocalDateTime before = LocalDateTime.now().withSecond(0).withNano(0);
+    userActivity.record(1L);
+    User user = User.builder().id(1L).build();
+
+    userActivity.applyPending(List.of(user));
+
+    assertEquals(0, user.getLastSeen().getSecond());
+    assertEquals(0, user.getLastSeen().getNano());
+    assertEquals(false, user.getLastSeen().isBefore(before));
+  }
+
+  @Test
+  public void apply_pending_only_moves_last_seen_forward() {
+    userActivity.record(1L, ten);
+    userActivity.record(2L, nine);
+    User seenEarlier = User.builder().id(1L).lastSeen(nine).build();
+    User seenLater = User.builder().id(2L).lastSeen(ten).build();
+    User neverSeen = User.builder().id(3L).build();
+    User notYetWritten = User.builder().id(1L).build();
+    List<User> users = new ArrayList<>(List.of(seenEarlier, seenLater, neverSeen, notYetWritten));
+
+    userActivity.applyPending(users);
+
+    assertEquals(ten, seenEarlier.getLastSeen());
+    assertEquals(ten, seenLater.getLastSeen());
+    assertNull(neverSeen.getLastSeen());
+    assertEquals(ten, notYetWritten.getLastSeen());
+  }
+}
@@ -0,0 +1,98 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.example.entities.User;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = UserCacheService.class)
+@TestPropertySource(properties = { "app.users.cacheSeconds=60" })
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class UserCacheServiceTests {
+
+  @Autowired
+  UserCacheService userCache;
+
+  LocalDateTime now = LocalDateTime.parse("2024-12-01T12:00:00");
+
+  User user(long id, String email) {
+    return User.builder().id(id).email(email).fullName("Chris Gaucho").admin(false).build();
+  }
+
+  @Test
+  public void a_cached_user_is_returned_until_it_expires() {
+    User chris = user(1L, "cgaucho@ucsb.edu");
+
+    userCache.put(chris, now);
+
+    assertEquals(Optional.of(chris), userCache.get("cgaucho@ucsb.edu", now));
+    assertEquals(Optional.of(chris), userCache.get("cgaucho@ucsb.edu", now.plusSeconds(59)));
+    assertEquals(Optional.empty(), userCache.get("cgaucho@ucsb.edu", now.plusSeconds(60)));
+    assertEquals(Optional.empty(), userCache.get("ldelplaya@ucsb.edu", now));
+  }
+
+  @Test
+  public void putting_a_user_again_replaces_it_and_restarts_its_time() {
+    userCache.put(user(1L, "cgaucho@ucsb.edu"), now);
+    User renamed = user(1L, "cgaucho@ucsb.edu").toBuilder().fullName("Kris Gaucho").build();
+
+    userCache.put(renamed, now.plusSeconds(30));
+
+    assertEquals(Optional.of(renamed), userCache.get("cgaucho@ucsb.edu", now.plusSeconds(80)));
+    assertEquals(1, userCache.size());
+  }
+
+  @Test
+  public void the_least_recently_used_users_are_dropped_past_the_maximum() {
+    for (int i = 0; i < UserCacheService.MAX_CACHED_USERS; i++) {
+      userCache.put(user(i, "user%d@ucsb.edu".formatted(i)), now);
+    }
+    // using user0 makes user1 the least recently used
+    assertTrue(userCache.get("user0@ucsb.edu", now).isPresent());
+
+    userCache.put(user(-1L, "newcomer@ucsb.edu"), now);
+
+    assertEquals(UserCacheService.MAX_CACHED_USERS, userCache.size());
+    assertTrue(userCache.get("user0@ucsb.edu", now).isPresent());
+    assertEquals(Optional.empty(), userCache.get("user1@ucsb.edu", now));
+    assertTrue(userCache.get("newcomer@ucsb.edu", now).isPresent());
+  }
+
+  @Test
+  public void changes_to_a_put_or_returned_user_do_not_reach_the_cache() {
+    User chris = user(1L, "cgaucho@ucsb.edu");
+    userCache.put(chris, now);
+    chris.setAdmin(true);
+
+    User hit = userCache.get("cgaucho@ucsb.edu", now).orElseThrow();
+    hit.setFullName("Changed by a request");
+    User again = userCache.get("cgaucho@ucsb.edu", now).orElseThrow();
+
+    assertNotSame(hit, again);
+    assertEquals(false, again.getAdmin());
+    assertEquals("Chris Gaucho", again.getFullName());
+  }
+
+  @Test
+  public void get_and_put_use_the_current_time() {
+    User chris = user(1L, "cgaucho@ucsb.edu");
+
+    userCache.put(chris);
+
+    assertEquals(Optional.of(chris), userCache.get("cgaucho@ucsb.edu"));
+  }
+}
@@ -0,0 +1,63 @@
+package edu.ucsb.cs156.example.structures;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class BloomFilterTests {
+
+  @Test
+  public void constructor_rejects_bad_arguments() {
+    assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+    assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 0.0));
+    assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1.0));
+  }
+
+  @Test
+  public void filter_is_sized_from_expected_insertions_and_false_positive_rate() {
+    BloomFilter filter = new BloomFilter(1000, 0.01);
+    assertEquals(9600, filter.getNumBits());
+    assertEquals(7, filter.getNumHashes());
+
+    BloomFilter tiny = new BloomFilter(1, 0.5);
+    assertEquals(64, tiny.getNumBits());
+  }
+
+  @Test
+  public void filter_has_no_false_negatives() {
+    BloomFilter filter = new BloomFilter(1000, 0.01);
+    for (int i = 0; i < 1000; i++) {
+      filter.put("key" + i);
+    }
+    for (int i = 0; i < 1000; i++) {
+      assertTrue(filter.mightContain("key" + i));
+    }
+  }
+
+  @Test
+  public void filter_false_positive_rate_is_close_to_requested_rate() {
+    BloomFilter filter = new BloomFilter(1000, 0.01);
+    for (int i = 0; i < 1000; i++) {
+      filter.put("key" + i);
+    }
+    int falsePositives = 0;
+    for (int i = 0; i < 100000; i++) {
+      if (filter.mightContain("other" + i)) {
+        falsePositives++;
+      }
+    }
+    assertTrue(falsePositives < 2000, "false positives: " + falsePositives);
+  }
+
+  @Test
+  public void empty_filter_contains_nothing() {
+    BloomFilter filter = new BloomFilter(100, 0.01);
+    assertFalse(filter.mightContain("anything"));
+    filter.put("anything");
+    filter.put("anything");
+    assertTrue(filter.mightContain("anything"));
+  }
+}
@@ -0,0 +1,86 @@
+package edu.ucsb.cs156.example.structures;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CalendarIndexTests {
+
+  record Event(long id, String quarter, LocalDateTime time) {
+  }
+
+  static LocalDateTime day(int month, int day) {
+    return LocalDateTime.of(2024, month, day, 0, 0);
+  }
+
+  Event e1 = new Event(1, "20241", day(1, 8));
+  Event e2 = new Event(2, "20241", day(3, 22));
+  Event e3 = new Event(3, "20242", day(4, 1));
+  Event e4 = new Event(4, "20242", day(4, 1));
+  Event e5 = new Event(5, "20242", null);
+  Event e6 = new Event(6, null, day(6, 14));
+
+  CalendarIndex<Long, Event> index;
+
+  @BeforeEach
+  public void setup() {
+    index = new CalendarIndex<>(Event::id, Event::time, Event::quarter);
+    for (Event e : List.of(e6, e5, e4, e3, e2, e1)) {
+      index.put(e);
+    }
+  }
+
+  @Test
+  public void buckets_are_in_time_order_with_no_time_last() {
+    assertEquals(6, index.size());
+    assertEquals(List.of(e1, e2), index.inBucket("20241"));
+    assertEquals(List.of(e3, e4, e5), index.inBucket("20242"));
+    assertEquals(List.of(), index.inBucket("20243"));
+  }
+
+  @Test
+  public void between_is_half_open() {
+    assertEquals(List.of(e1, e2, e3, e4), index.between(day(1, 8), day(6, 14)));
+    assertEquals(List.of(e2, e3, e4, e6), index.between(day(1, 9), day(12, 31)));
+    assertEquals(List.of(e3, e4), index.between(day(4, 1), day(4, 2)));
+    assertEquals(List.of(), index.between(day(4, 1), day(4, 1)));
+    assertEquals(List.of(), index.between(day(4, 2), day(4, 1)));
+  }
+
+  @Test
+  public void after_returns_at_most_limit() {
+    assertEquals(List.of(e1, e2, e3, e4, e6), index.after(day(1, 1), 10));
+    assertEquals(List.of(e2, e3), index.after(day(1, 9), 2));
+    assertEquals(List.of(e3), index.after(day(4, 1), 1));
+    assertEquals(List.of(e6), index.after(day(4, 2), 3));
+    assertEquals(List.of(), index.after(day(6, 15), 3));
+  }
+
+  @Test
+  public void put_replaces_and_remove_forgets() {
+    Event moved = new Event(3, "20243", day(7, 1));
+    index.put(moved);
+    assertEquals(6, index.size());
+    assertEquals(List.of(e4, e5), index.inBucket("20242"));
+    assertEquals(List.of(moved), index.inBucket("20243"));
+    assertEquals(List.of(e4, e6, moved), index.after(day(4, 1), 10));
+
+    index.remove(4L);
+    index.remove(5L);
+    index.remove(6L);
+    index.remove(99L);
+    assertEquals(3, index.size());
+    assertEquals(List.of(), index.inBucket("20242"));
+    assertEquals(List.of(moved), index.after(day(4, 1), 10));
+    assertEquals(List.of(), index.between(day(4, 1), day(7, 1)));
+
+    index.clear();
+    assertEquals(0, index.size());
+    assertEquals(List.of(), index.inBucket("20241"));
+    assertEquals(List.of(), index.after(day(1, 1), 10));
+  }
+}
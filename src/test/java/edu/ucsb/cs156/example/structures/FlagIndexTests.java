@@ -0,0 +1,117 @@
+package edu.ucsb.cs156.example.structures;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.errors.BadRequestException;
+
+public class FlagIndexTests {
+
+  record Item(boolean red, boolean big, boolean round) {
+  }
+
+  FlagIndex<String, Item> index;
+
+  @BeforeEach
+  public void setup() {
+    Map<String, Predicate<Item>> flags = new LinkedHashMap<>();
+    flags.put("red", Item::red);
+    flags.put("big", Item::big);
+    flags.put("round", Item::round);
+    index = new FlagIndex<>(flags);
+    index.put("apple", new Item(true, false, true));
+    index.put("melon", new Item(false, true, true));
+    index.put("brick", new Item(true, true, false));
+    index.put("pea", new Item(false, false, true));
+  }
+
+  @Test
+  public void flags_are_listed_in_order() {
+    assertEquals(List.of("red", "big", "round"), List.copyOf(index.getFlags()));
+  }
+
+  @Test
+  public void select_single_flags_and_blank() {
+    assertEquals(List.of("apple", "brick"), index.select("red"));
+    assertEquals(List.of("apple", "melon", "brick", "pea"), index.select(""));
+    assertEquals(List.of("apple", "melon", "brick", "pea"), index.select(null));
+    assertEquals(4, index.count(" "));
+  }
+
+  @Test
+  public void select_combinations() {
+    assertEquals(List.of("apple"), index.select("red and round"));
+    assertEquals(List.of("apple"), index.select("red&round"));
+    assertEquals(List.of("melon", "pea"), index.select("NOT red"));
+    assertEquals(List.of("melon", "pea"), index.select("!red"));
+    assertEquals(List.of("apple", "melon", "brick"), index.select("red or big"));
+    assertEquals(List.of("apple", "melon", "brick"), index.select("red|big"));
+    assertEquals(List.of("apple", "pea"), index.select("round and not big"));
+    assertEquals(List.of("apple", "melon", "pea"), index.select("not not round"));
+  }
+
+  @Test
+  public void not_binds_tightest_and_or_loosest() {
+    // (red and big) or round
+    assertEquals(List.of("apple", "melon", "brick", "pea"), index.select("red and big or round"));
+    // red and (big or round)
+    assertEquals(List.of("apple", "brick"), index.select("red and (big or round)"));
+    // (not red) and big
+    assertEquals(List.of("melon"), index.select("not red and big"));
+    assertEquals(List.of("apple", "pea"), index.select("not (red and big) and not (big and round)"));
+    assertEquals(1, index.count("((red) and (big))"));
+  }
+
+  @Test
+  public void bad_filters_are_rejected() {
+    BadRequestException e = assertThrows(BadRequestException.class, () -> index.select("green"));
+    assertEquals("Unknown flag 'green'; expected one of [red, big, round]", e.getMessage());
+
+    e = assertThrows(BadRequestException.class, () -> index.count("red and"));
+    assertEquals("Unexpected end of filter", e.getMessage());
+
+    e = assertThrows(BadRequestException.class, () -> index.count("(red and big"));
+    assertEquals("Missing ')' in filter", e.getMessage());
+
+    e = assertThrows(BadRequestException.class, () -> index.count("red big"));
+    assertEquals("Unexpected 'big' in filter", e.getMessage());
+
+    e = assertThrows(BadRequestException.class, () -> index.count("red)"));
+    assertEquals("Unexpected ')' in filter", e.getMessage());
+  }
+
+  @Test
+  public void put_replaces_and_remove_forgets() {
+    index.put("apple", new Item(false, true, true));
+    index.remove("brick");
+    index.remove("unknown");
+
+    assertEquals(List.of("apple", "melon"), index.select("big"));
+    assertEquals(List.of(), index.select("red"));
+    assertEquals(3, index.count(""));
+
+    // a removed key keeps its ordinal, so it comes back in its old place
+    index.put("brick", new Item(true, true, false));
+    assertEquals(List.of("apple", "melon", "brick"), index.select("big"));
+  }
+
+  @Test
+  public void clear_removes_everything() {
+    index.clear();
+    assertEquals(0, index.count(""));
+    assertEquals(0, index.count("red or not red"));
+
+    index.put("pea", new Item(false, false, true));
+    assertEquals(List.of("pea"), index.select("round"));
+    assertEquals(Set.of("red", "big", "round"), index.getFlags());
+  }
+}
@@ -0,0 +1,96 @@
+package edu.ucsb.cs156.example.structures;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.structures.GeoKdTree.Neighbor;
+import edu.ucsb.cs156.example.structures.GeoKdTree.Point;
+
+public class GeoKdTreeTests {
+
+  @Test
+  public void haversine_of_one_degree_of_latitude() {
+    double expected = 2 * Math.PI * GeoKdTree.EARTH_RADIUS_METERS / 360;
+    assertEquals(expected, GeoKdTree.haversineMeters(0, 0, 1, 0), 1e-6);
+    assertEquals(expected, GeoKdTree.haversineMeters(10, 179.5, 10, -179.5) / Math.cos(Math.toRadians(10)), 5.0);
+    assertEquals(0.0, GeoKdTree.haversineMeters(34.4, -119.8, 34.4, -119.8), 1e-9);
+    assertEquals(Math.PI * GeoKdTree.EARTH_RADIUS_METERS, GeoKdTree.haversineMeters(0, 0, 0, 180), 1e-6);
+  }
+
+  @Test
+  public void nearest_returns_closest_first_with_distances() {
+    GeoKdTree<String> tree = new GeoKdTree<>(List.of(
+        new Point<>(34.409953, -119.85277, "carrillo"),
+        new Point<>(34.411039, -119.84715, "de-la-guerra"),
+        new Point<>(34.410987, -119.84709, "ortega"),
+        new Point<>(34.417723, -119.867427, "portola")));
+
+    List<Neighbor<String>> nearest = tree.nearest(34.4110, -119.8471, 2, s -> true);
+
+    assertEquals(List.of("ortega", "de-la-guerra"), nearest.stream().map(Neighbor::value).toList());
+    assertEquals(GeoKdTree.haversineMeters(34.4110, -119.8471, 34.410987, -119.84709),
+        nearest.get(0).distanceMeters(), 1e-6);
+    assertEquals(4, tree.size());
+  }
+
+  @Test
+  public void filter_is_applied_during_search() {
+    GeoKdTree<String> tree = new GeoKdTree<>(List.of(
+        new Point<>(0, 0, "a"),
+        new Point<>(0, 1, "b"),
+        new Point<>(0, 2, "c"),
+        new Point<>(0, 3, "d")));
+
+    List<Neighbor<String>> nearest = tree.nearest(0, 0, 2, s -> !s.equals("a") && !s.equals("b"));
+
+    assertEquals(List.of("c", "d"), nearest.stream().map(Neighbor::value).toList());
+  }
+
+  @Test
+  public void nearest_crosses_the_antimeridian() {
+    GeoKdTree<String> tree = new GeoKdTree<>(List.of(
+        new Point<>(0, 179.9, "east"),
+        new Point<>(0, 178.0, "farther-east"),
+        new Point<>(0, -170.0, "west")));
+
+    assertEquals(List.of("east", "farther-east", "west"),
+        tree.nearest(0, -179.9, 3, s -> true).stream().map(Neighbor::value).toList());
+  }
+
+  @Test
+  public void empty_tree_or_zero_k_returns_nothing() {
+    assertEquals(List.of(), new GeoKdTree<String>(List.of()).nearest(0, 0, 3, s -> true));
+    assertEquals(List.of(), new GeoKdTree<>(List.of(new Point<>(0, 0, "a"))).nearest(0, 0, 0, s -> true));
+  }
+
+  @Test
+  public void nearest_matches_brute_force() {
+    Random random = new Random(7);
+    List<Point<Integer>> points = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      points.add(new Point<>(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180, i));
+    }
+    GeoKdTree<Integer> tree = new GeoKdTree<>(points);
+
+    for (int q = 0; q < 100; q++) {
+      double lat = random.nextDouble() * 180 - 90;
+      double lon = random.nextDouble() * 360 - 180;
+      List<Integer> expected = points.stream()
+          .filter(p -> p.value() % 3 == 0)
+          .sorted(Comparator.comparingDouble(p -> GeoKdTree.haversineMeters(lat, lon, p.latitude(), p.longitude())))
+          .limit(5)
+          .map(Point::value)
+          .toList();
+
+      List<Integer> actual = tree.nearest(lat, lon, 5, v -> v % 3 == 0).stream().map(Neighbor::value).toList();
+
+      assertEquals(expected, actual);
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package edu.ucsb.cs156.example.structures;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class HyperLogLogTests {
+
+  static void assertWithin(long expected, long actual, double relativeError) {
+    assertTrue(Math.abs(actual - expected) <= expected * relativeError,
+        "expected about %d but was %d".formatted(expected, actual));
+  }
+
+  @Test
+  public void precision_must_be_between_4_and_16() {
+    assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(3));
+    assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(17));
+    assertEquals(12, new HyperLogLog(12).getPrecision());
+  }
+
+  @Test
+  public void an_empty_sketch_estimates_zero() {
+    assertEquals(0, new HyperLogLog(12).estimate());
+  }
+
+  @Test
+  public void small_counts_are_nearly_exact() {
+    HyperLogLog sketch = new HyperLogLog(12);
+    for (long id = 1; id <= 100; id++) {
+      sketch.offer(id);
+      sketch.offer(id);
+    }
+    assertWithin(100, sketch.estimate(), 0.03);
+  }
+
+  @Test
+  public void large_counts_are_within_a_few_standard_errors() {
+    // standard error at precision 12 is about 1.6%
+    HyperLogLog sketch = new HyperLogLog(12);
+    for (long id = 1; id <= 1_000_000; id++) {
+      sketch.offer(id);
+      if (id == 10_000) {
+        assertWithin(10_000, sketch.estimate(), 0.05);
+      }
+    }
+    assertWithin(1_000_000, sketch.estimate(), 0.05);
+  }
+
+  @Test
+  public void counts_near_the_small_range_cutover_are_not_biased() {
+    // the original estimator is biased from about 2.5 * 4096 registers up
+    long total = 0;
+    for (int trial = 0; trial < 20; trial++) {
+      HyperLogLog sketch = new HyperLogLog(12);
+      for (long id = 1; id <= 10_000; id++) {
+        sketch.offer(id + trial * 1_000_000L);
+      }
+      total += sketch.estimate();
+    }
+    assertWithin(10_000, total / 20, 0.01);
+  }
+
+  @Test
+  public void low_precisions_are_still_roughly_right() {
+    for (int precision = 4; precision <= 6; precision++) {
+      HyperLogLog sketch = new HyperLogLog(precision);
+      for (long id = 1; id <= 100_000; id++) {
+        sketch.offer(id);
+      }
+      assertWithin(100_000, sketch.estimate(), 0.5);
+    }
+  }
+
+  @Test
+  public void saturated_sketches_do_not_overflow() {
+    assertEquals(Long.MAX_VALUE, HyperLogLog.fromBytes(filled(16, (byte) 61)).estimate());
+
+    byte[] halfFull = filled(16, (byte) 61);
+    java.util.Arrays.fill(halfFull, 0, 8, (byte) 1);
+    long estimate = HyperLogLog.fromBytes(halfFull).estimate();
+    assertTrue(estimate > 0 && estimate < Long.MAX_VALUE);
+  }
+
+  static byte[] filled(int length, byte value) {
+    byte[] bytes = new byte[length];
+    java.util.Arrays.fill(bytes, value);
+    return bytes;
+  }
+
+  @Test
+  public void merged_sketches_estimate_the_union() {
+    HyperLogLog mondays = new HyperLogLog(12);
+    HyperLogLog tuesdays = new HyperLogLog(12);
+    for (long id = 1; id <= 30_000; id++) {
+      mondays.offer(id);
+      tuesdays.offer(id + 20_000);
+    }
+    mondays.merge(tuesdays);
+    assertWithin(50_000, mondays.estimate(), 0.05);
+
+    long before = mondays.estimate();
+    mondays.merge(tuesdays);
+    assertEquals(before, mondays.estimate());
+  }
+
+  @Test
+  public void sketches_of_different_precision_cannot_be_merged() {
+    assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(12).merge(new HyperLogLog(10)));
+  }
+
+  @Test
+  public void sketches_round_trip_through_bytes() {
+    HyperLogLog sketch = new HyperLogLog(10);
+    for (long id = 1; id <= 5_000; id++) {
+      sketch.offer(id);
+    }
+    byte[] bytes = sketch.toBytes();
+    assertEquals(1024, bytes.length);
+
+    HyperLogLog copy = HyperLogLog.fromBytes(bytes);
+    assertEquals(10, copy.getPrecision());
+    assertEquals(sketch.estimate(), copy.estimate());
+    assertArrayEquals(bytes, copy.toBytes());
+
+    bytes[0] = 99;
+    assertEquals(sketch.estimate(), copy.estimate());
+  }
+
+  @Test
+  public void bytes_must_be_a_valid_number_of_registers() {
+    assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[8]));
+    assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[100]));
+    assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[1 << 17]));
+    assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(filled(16, (byte) 62)));
+    assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(filled(16, (byte) -1)));
+  }
+}
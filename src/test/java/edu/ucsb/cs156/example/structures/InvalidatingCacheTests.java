@@ -0,0 +1,125 @@
+package edu.ucsb.cs156.example.structures;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+public class InvalidatingCacheTests {
+
+  record Key(String group, String name) {
+  }
+
+  static final LocalDateTime NOW = LocalDateTime.parse("2024-10-29T10:00:00");
+
+  InvalidatingCache<Key, String> cache = new InvalidatingCache<>(Key::group);
+
+  Key a1 = new Key("a", "1");
+  Key a2 = new Key("a", "2");
+  Key b1 = new Key("b", "1");
+
+  boolean load(Key key, String value) {
+    return cache.put(key, value, cache.lookup(key).generation(), null);
+  }
+
+  @Test
+  public void a_value_is_returned_until_its_group_is_invalidated() {
+    assertFalse(cache.lookup(a1).hit());
+    assertTrue(load(a1, "a1"));
+    assertTrue(load(a2, "a2"));
+    assertTrue(load(b1, "b1"));
+
+    assertEquals("a1", cache.lookup(a1).value());
+    assertTrue(cache.lookup(a1).hit());
+    assertEquals(3, cache.size());
+
+    cache.invalidate("a");
+    assertNull(cache.lookup(a1).value());
+    assertNull(cache.lookup(a2).value());
+    assertEquals("b1", cache.lookup(b1).value());
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void a_value_read_while_its_group_was_invalidated_is_not_cached() {
+    long generation = cache.lookup(a1).generation();
+    long other = cache.lookup(b1).generation();
+    cache.invalidate("a");
+
+    assertFalse(cache.put(a1, "old a1", generation, null));
+    assertTrue(cache.put(b1, "b1", other, null));
+    assertFalse(cache.lookup(a1).hit());
+    assertEquals("b1", cache.lookup(b1).value());
+
+    // a lookup after the invalidation can cache again
+    assertTrue(load(a1, "a1"));
+    assertEquals("a1", cache.lookup(a1).value());
+  }
+
+  @Test
+  public void a_value_expires_at_its_time() {
+    cache.put(a1, "a1", cache.lookup(a1, NOW).generation(), NOW.plusSeconds(30));
+
+    assertEquals("a1", cache.lookup(a1, NOW.plusSeconds(29)).value());
+    assertFalse(cache.lookup(a1, NOW.plusSeconds(30)).hit());
+
+    // and can be replaced
+    cache.put(a1, "new a1", cache.lookup(a1, NOW.plusSeconds(30)).generation(), NOW.plusSeconds(60));
+    assertEquals("new a1", cache.lookup(a1, NOW.plusSeconds(30)).value());
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void the_least_recently_used_values_are_dropped_past_the_max_weight() {
+    long[] max = { 10 };
+    InvalidatingCache<Key, String> weighed = new InvalidatingCache<>(Key::group, String::length, () -> max[0]);
+    Key a3 = new Key("a", "3");
+
+    assertTrue(weighed.put(a1, "1234", 0, null));
+    assertTrue(weighed.put(a2, "1234", 0, null));
+    // a1 is used, so a2 is dropped first
+    weighed.lookup(a1);
+    assertTrue(weighed.put(a3, "123", 0, null));
+    assertEquals(2, weighed.size());
+    assertEquals(7, weighed.weight());
+    assertTrue(weighed.lookup(a1).hit());
+    assertFalse(weighed.lookup(a2).hit());
+
+    // replacing a value counts its new weight
+    assertTrue(weighed.put(a1, "12", 0, null));
+    assertEquals(5, weighed.weight());
+
+    // a value heavier than the max is not cached
+    assertFalse(weighed.put(b1, "12345678901", 0, null));
+    assertEquals(2, weighed.size());
+
+    // the max is read on each put, and only the values needed to get under it are dropped
+    max[0] = 4;
+    assertTrue(weighed.put(b1, "1", 0, null));
+    assertEquals(2, weighed.size());
+    assertEquals(3, weighed.weight());
+    assertFalse(weighed.lookup(a3).hit());
+
+    weighed.invalidate("b");
+    assertEquals(2, weighed.weight());
+    weighed.invalidate("a");
+    assertEquals(0, weighed.weight());
+  }
+
+  @Test
+  public void keys_can_be_their_own_group() {
+    InvalidatingCache<String, String> byKey = new InvalidatingCache<>(key -> key);
+
+    byKey.put("x", "x", byKey.lookup("x").generation(), null);
+    byKey.put("y", "y", byKey.lookup("y").generation(), null);
+    byKey.invalidate("x");
+    byKey.invalidate(null);
+
+    assertFalse(byKey.lookup("x").hit());
+    assertEquals("y", byKey.lookup("y").value());
+  }
+}
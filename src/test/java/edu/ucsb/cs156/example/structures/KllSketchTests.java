@@ -0,0 +1,115 @@
+package edu.ucsb.cs156.example.structures;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class KllSketchTests {
+
+  @Test
+  public void k_must_be_in_range() {
+    assertThrows(IllegalArgumentException.class, () -> new KllSketch(7));
+    assertThrows(IllegalArgumentException.class, () -> new KllSketch(65536));
+    assertEquals(8, new KllSketch(8).getK());
+    assertEquals(65535, new KllSketch(65535).getK());
+  }
+
+  @Test
+  public void an_empty_sketch_has_no_quantiles() {
+    KllSketch sketch = new KllSketch(200);
+    assertEquals(0, sketch.getN());
+    assertTrue(Double.isNaN(sketch.quantile(0.5)));
+    assertTrue(Double.isNaN(sketch.rank(1)));
+    assertTrue(Double.isNaN(sketch.getMin()));
+    assertTrue(Double.isNaN(sketch.getMax()));
+  }
+
+  @Test
+  public void small_streams_are_kept_exactly() {
+    KllSketch sketch = new KllSketch(200);
+    for (int i = 10; i >= 1; i--) {
+      sketch.update(i);
+    }
+    assertEquals(10, sketch.getN());
+    assertEquals(10, sketch.getRetained());
+    assertEquals(1.0, sketch.quantile(0));
+    assertEquals(1.0, sketch.quantile(0.1));
+    assertEquals(2.0, sketch.quantile(0.11));
+    assertEquals(5.0, sketch.quantile(0.5));
+    assertEquals(9.0, sketch.quantile(0.9));
+    assertEquals(10.0, sketch.quantile(0.95));
+    assertEquals(10.0, sketch.quantile(1));
+    assertEquals(0.0, sketch.rank(0.5));
+    assertEquals(0.3, sketch.rank(3));
+    assertEquals(1.0, sketch.rank(10));
+  }
+
+  @Test
+  public void bad_arguments_are_rejected() {
+    KllSketch sketch = new KllSketch(200);
+    assertThrows(IllegalArgumentException.class, () -> sketch.update(Double.NaN));
+    assertThrows(IllegalArgumentException.class, () -> sketch.quantile(-0.1));
+    assertThrows(IllegalArgumentException.class, () -> sketch.quantile(1.1));
+    assertThrows(IllegalArgumentException.class, () -> sketch.quantile(Double.NaN));
+    assertThrows(IllegalArgumentException.class, () -> sketch.merge(new KllSketch(100)));
+  }
+
+  @Test
+  public void large_streams_stay_small_and_accurate() {
+    KllSketch sketch = new KllSketch(200);
+    Random random = new Random(39);
+    int n = 1_000_000;
+    for (int i = 0; i < n; i++) {
+      sketch.update(random.nextDouble());
+    }
+    assertEquals(n, sketch.getN());
+    // about 3k, plus at least two items for each of the lowest levels
+    assertTrue(sketch.getRetained() < 3 * 200 + 40, "retained " + sketch.getRetained());
+    for (double fraction : new double[] { 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99 }) {
+      assertEquals(fraction, sketch.quantile(fraction), 0.02);
+      assertEquals(fraction, sketch.rank(fraction), 0.02);
+    }
+    assertTrue(sketch.getMin() >= 0 && sketch.getMin() < 0.0001);
+    assertTrue(sketch.getMax() < 1 && sketch.getMax() > 0.9999);
+    assertEquals(sketch.getMin(), sketch.quantile(0));
+    assertEquals(sketch.getMax(), sketch.quantile(1));
+  }
+
+  @Test
+  public void merged_sketches_sketch_the_combined_stream() {
+    KllSketch union = new KllSketch(200);
+    union.merge(new KllSketch(200));
+    assertEquals(0, union.getN());
+    // ten streams over disjoint tenths of 0..100000, in ascending order
+    for (int part = 0; part < 10; part++) {
+      KllSketch sketch = new KllSketch(200);
+      for (int i = 0; i < 10_000; i++) {
+        sketch.update(part * 10_000 + i);
+      }
+      union.merge(sketch);
+    }
+    assertEquals(100_000, union.getN());
+    assertEquals(0.0, union.getMin());
+    assertEquals(99_999.0, union.getMax());
+    for (double fraction : new double[] { 0.05, 0.5, 0.95 }) {
+      assertEquals(fraction * 100_000, union.quantile(fraction), 2_000);
+    }
+  }
+
+  @Test
+  public void a_sketch_can_be_merged_into_itself() {
+    KllSketch sketch = new KllSketch(200);
+    for (int i = 1; i <= 1000; i++) {
+      sketch.update(i);
+    }
+    sketch.merge(sketch);
+    assertEquals(2000, sketch.getN());
+    assertEquals(1.0, sketch.getMin());
+    assertEquals(1000.0, sketch.getMax());
+    assertEquals(500, sketch.quantile(0.5), 20);
+  }
+}
@@ -0,0 +1,131 @@
+package edu.ucsb.cs156.example.structures;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.structures.RadixTrie.Entry;
+
+public class RadixTrieTests {
+
+  @Test
+  public void find_by_prefix_returns_matches_in_key_order() {
+    RadixTrie<Integer> trie = new RadixTrie<>();
+    trie.put("team", 1);
+    trie.put("tea", 2);
+    trie.put("ten", 3);
+    trie.put("toast", 4);
+    trie.put("apple", 5);
+
+    assertEquals(List.of(new Entry<>("tea", 2), new Entry<>("team", 1), new Entry<>("ten", 3)),
+        trie.findByPrefix("te"));
+    assertEquals(List.of(new Entry<>("tea", 2), new Entry<>("team", 1)), trie.findByPrefix("tea"));
+    assertEquals(List.of(new Entry<>("team", 1)), trie.findByPrefix("team"));
+    assertEquals(List.of(new Entry<>("toast", 4)), trie.findByPrefix("toa"));
+    assertEquals(List.of(), trie.findByPrefix("tex"));
+    assertEquals(List.of(), trie.findByPrefix("toasted"));
+    assertEquals(List.of(), trie.findByPrefix("b"));
+    assertEquals(5, trie.findByPrefix("").size());
+    assertEquals(5, trie.size());
+  }
+
+  @Test
+  public void a_key_can_hold_several_values() {
+    RadixTrie<String> trie = new RadixTrie<>();
+    trie.put("sky", "a");
+    trie.put("sky", "b");
+    trie.put("sky", "a");
+
+    assertEquals(2, trie.size());
+    assertEquals(List.of(new Entry<>("sky", "a"), new Entry<>("sky", "b")), trie.findByPrefix("s"));
+
+    assertTrue(trie.remove("sky", "a"));
+    assertFalse(trie.remove("sky", "a"));
+    assertEquals(List.of(new Entry<>("sky", "b")), trie.findByPrefix("sky"));
+  }
+
+  @Test
+  public void remove_merges_and_prunes_nodes() {
+    RadixTrie<Integer> trie = new RadixTrie<>();
+    trie.put("romane", 1);
+    trie.put("romanus", 2);
+    trie.put("romulus", 3);
+    trie.put("rom", 4);
+
+    assertFalse(trie.remove("roman", 1));
+    assertFalse(trie.remove("romx", 1));
+    assertFalse(trie.remove("romane", 2));
+    assertFalse(trie.remove("romanes", 1));
+    assertTrue(trie.remove("rom", 4));
+    assertTrue(trie.remove("romanus", 2));
+    assertEquals(List.of(new Entry<>("romane", 1), new Entry<>("romulus", 3)), trie.findByPrefix("rom"));
+    assertEquals(List.of(new Entry<>("romane", 1)), trie.findByPrefix("roma"));
+    assertTrue(trie.remove("romulus", 3));
+    assertEquals(List.of(new Entry<>("romane", 1)), trie.findByPrefix("r"));
+    assertTrue(trie.remove("romane", 1));
+    assertEquals(List.of(), trie.findByPrefix(""));
+    assertEquals(0, trie.size());
+  }
+
+  @Test
+  public void empty_key_is_allowed() {
+    RadixTrie<Integer> trie = new RadixTrie<>();
+    trie.put("", 1);
+    trie.put("a", 2);
+
+    assertEquals(List.of(new Entry<>("", 1), new Entry<>("a", 2)), trie.findByPrefix(""));
+    assertTrue(trie.remove("", 1));
+    assertEquals(List.of(new Entry<>("a", 2)), trie.findByPrefix(""));
+  }
+
+  @Test
+  public void clear_removes_everything() {
+    RadixTrie<Integer> trie = new RadixTrie<>();
+    trie.put("a", 1);
+    trie.put("ab", 2);
+    trie.clear();
+
+    assertEquals(0, trie.size());
+    assertEquals(List.of(), trie.findByPrefix(""));
+  }
+
+  @Test
+  public void matches_a_sorted_map_under_random_puts_and_removes() {
+    Random random = new Random(42);
+    RadixTrie<Integer> trie = new RadixTrie<>();
+    TreeMap<String, Integer> expected = new TreeMap<>();
+    for (int i = 0; i < 5000; i++) {
+      String key = randomKey(random);
+      if (random.nextInt(3) == 0) {
+        assertEquals(expected.remove(key) != null, trie.remove(key, 0));
+      } else {
+        trie.put(key, 0);
+        expected.put(key, 0);
+      }
+    }
+    assertEquals(expected.size(), trie.size());
+    for (String prefix : List.of("", "a", "ab", "ba", "abc", "cc")) {
+      List<Entry<Integer>> want = new ArrayList<>();
+      for (String key : expected.subMap(prefix, prefix + Character.MAX_VALUE).keySet()) {
+        want.add(new Entry<>(key, 0));
+      }
+      assertEquals(want, trie.findByPrefix(prefix));
+    }
+  }
+
+  private static String randomKey(Random random) {
+    StringBuilder key = new StringBuilder();
+    int length = 1 + random.nextInt(5);
+    for (int i = 0; i < length; i++) {
+      key.append((char) ('a' + random.nextInt(3)));
+    }
+    return key.toString();
+  }
+}
@@ -0,0 +1,139 @@
+package edu.ucsb.cs156.example.structures;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class RoaringBitmapTests {
+
+  @Test
+  public void add_remove_contains() {
+    RoaringBitmap bitmap = RoaringBitmap.of(5, 70000, 3, 5);
+
+    assertArrayEquals(new int[] { 3, 5, 70000 }, bitmap.toArray());
+    assertEquals(3, bitmap.cardinality());
+    assertTrue(bitmap.contains(70000));
+    assertFalse(bitmap.contains(70001));
+    assertFalse(bitmap.contains(-1));
+
+    bitmap.remove(70000);
+    bitmap.remove(4);
+    bitmap.remove(-1);
+    bitmap.remove(1 << 20);
+    assertArrayEquals(new int[] { 3, 5 }, bitmap.toArray());
+    assertFalse(bitmap.contains(70000));
+
+    bitmap.remove(3);
+    bitmap.remove(5);
+    assertTrue(bitmap.isEmpty());
+    assertEquals("[]", bitmap.toString());
+  }
+
+  @Test
+  public void negative_values_are_rejected() {
+    assertThrows(IllegalArgumentException.class, () -> RoaringBitmap.of(-1));
+  }
+
+  @Test
+  public void dense_chunks_switch_to_bitmaps_and_back() {
+    RoaringBitmap bitmap = new RoaringBitmap();
+    for (int i = 0; i < 10000; i++) {
+      bitmap.add(2 * i);
+    }
+    bitmap.add(2);
+    assertEquals(10000, bitmap.cardinality());
+    assertTrue(bitmap.contains(19998));
+    assertFalse(bitmap.contains(19999));
+
+    for (int i = 0; i < 9000; i++) {
+      bitmap.remove(2 * i);
+    }
+    bitmap.remove(1);
+    assertEquals(1000, bitmap.cardinality());
+    assertEquals(18000, bitmap.toArray()[0]);
+  }
+
+  @Test
+  public void equals_hash_code_copy() {
+    RoaringBitmap a = RoaringBitmap.of(1, 2, 100000);
+    RoaringBitmap b = a.copy();
+
+    assertEquals(a, b);
+    assertEquals(a.hashCode(), b.hashCode());
+    b.add(3);
+    assertNotEquals(a, b);
+    assertNotEquals(a, RoaringBitmap.of(1, 2, 100001));
+    assertNotEquals(a, RoaringBitmap.of(1, 2));
+    assertNotEquals(a, "not a bitmap");
+    assertEquals("[1, 2, 100000]", a.toString());
+  }
+
+  @Test
+  public void set_operations_match_bitset() {
+    Random random = new Random(1);
+    // a mix of sparse chunks, dense chunks and chunks only one side has
+    int[][] shapes = { { 200000, 100 }, { 200000, 30000 }, { 70000, 60000 }, { 300000, 3000 } };
+    for (int[] shapeA : shapes) {
+      for (int[] shapeB : shapes) {
+        BitSet expectedA = new BitSet();
+        BitSet expectedB = new BitSet();
+        RoaringBitmap a = randomBitmap(random, shapeA[0], shapeA[1], expectedA);
+        RoaringBitmap b = randomBitmap(random, shapeB[0], shapeB[1], expectedB);
+
+        BitSet and = (BitSet) expectedA.clone();
+        and.and(expectedB);
+        BitSet or = (BitSet) expectedA.clone();
+        or.or(expectedB);
+        BitSet andNot = (BitSet) expectedA.clone();
+        andNot.andNot(expectedB);
+
+        assertArrayEquals(and.stream().toArray(), RoaringBitmap.and(a, b).toArray());
+        assertArrayEquals(or.stream().toArray(), RoaringBitmap.or(a, b).toArray());
+        assertArrayEquals(andNot.stream().toArray(), RoaringBitmap.andNot(a, b).toArray());
+        assertEquals(and.cardinality(), RoaringBitmap.and(a, b).cardinality());
+        // the arguments are not modified
+        assertArrayEquals(expectedA.stream().toArray(), a.toArray());
+        assertArrayEquals(expectedB.stream().toArray(), b.toArray());
+      }
+    }
+  }
+
+  @Test
+  public void results_of_set_operations_can_be_modified() {
+    RoaringBitmap dense = new RoaringBitmap();
+    for (int i = 0; i < 5000; i++) {
+      dense.add(i);
+    }
+    RoaringBitmap sparse = RoaringBitmap.of(1, 2, 3);
+
+    RoaringBitmap and = RoaringBitmap.and(dense, sparse);
+    and.add(4);
+    RoaringBitmap or = RoaringBitmap.or(sparse, RoaringBitmap.of(9));
+    or.add(10);
+    RoaringBitmap andNot = RoaringBitmap.andNot(dense, sparse);
+    andNot.add(1);
+
+    assertArrayEquals(new int[] { 1, 2, 3, 4 }, and.toArray());
+    assertArrayEquals(new int[] { 1, 2, 3, 9, 10 }, or.toArray());
+    assertEquals(4998, andNot.cardinality());
+    assertEquals(5000, dense.cardinality());
+  }
+
+  private static RoaringBitmap randomBitmap(Random random, int range, int count, BitSet expected) {
+    RoaringBitmap bitmap = new RoaringBitmap();
+    for (int i = 0; i < count; i++) {
+      int value = random.nextInt(range);
+      bitmap.add(value);
+      expected.set(value);
+    }
+    return bitmap;
+  }
+}
@@ -0,0 +1,151 @@
+package edu.ucsb.cs156.example.structures;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TimingWheelTests {
+
+  static final long TICK = 1000;
+  static final long START = 1_700_000_000_000L;
+
+  TimingWheel<Long, String> wheel;
+
+  @BeforeEach
+  public void setup() {
+    wheel = new TimingWheel<>(TICK, START);
+  }
+
+  @Test
+  public void ticks_must_be_positive() {
+    assertThrows(IllegalArgumentException.class, () -> new TimingWheel<Long, String>(0, START));
+  }
+
+  @Test
+  public void timers_fire_in_deadline_order_once_their_deadlines_pass() {
+    wheel.schedule(1L, "minute", START + 60_000);
+    wheel.schedule(2L, "second", START + 1_000);
+    wheel.schedule(3L, "day", START + 86_400_000);
+    wheel.schedule(4L, "year", START + 365L * 86_400_000);
+    assertEquals(4, wheel.size());
+
+    assertEquals(List.of(), wheel.advance(START + 999));
+    assertEquals(List.of("second"), wheel.advance(START + 1_000));
+    assertEquals(List.of("minute", "day"), wheel.advance(START + 100_000_000));
+    assertEquals(1, wheel.size());
+    assertEquals(List.of(), wheel.advance(START + 365L * 86_400_000 - 1));
+    assertEquals(List.of("year"), wheel.advance(START + 366L * 86_400_000));
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  public void deadlines_are_rounded_up_to_a_tick() {
+    wheel.schedule(1L, "soon", START + 1);
+    assertEquals(List.of(), wheel.advance(START + 999));
+    assertEquals(List.of("soon"), wheel.advance(START + 1_000));
+  }
+
+  @Test
+  public void timers_that_cross_several_levels_at_once_fire_on_time() {
+    // 64^3 ticks ahead: starts at level 3 and falls through every level when its slot starts
+    long far = START - Math.floorMod(START, TICK * 262_144) + TICK * 262_144 * 2;
+    wheel.schedule(1L, "aligned", far);
+    wheel.schedule(2L, "just after", far + TICK);
+    assertEquals(List.of(), wheel.advance(far - 1));
+    assertEquals(List.of("aligned"), wheel.advance(far));
+    assertEquals(List.of("just after"), wheel.advance(far + TICK));
+  }
+
+  @Test
+  public void past_deadlines_fire_on_the_next_advance() {
+    wheel.advance(START + 10_000);
+    wheel.schedule(1L, "late", START);
+    wheel.schedule(2L, "now", START + 10_000);
+    List<String> fired = wheel.advance(START + 10_000);
+    assertEquals(2, fired.size());
+    assertTrue(fired.containsAll(List.of("late", "now")));
+    assertEquals(List.of(), wheel.advance(START + 10_000));
+  }
+
+  @Test
+  public void the_wheel_does_not_go_backwards() {
+    wheel.schedule(1L, "later", START + 5_000);
+    assertEquals(List.of(), wheel.advance(START - 60_000));
+    assertEquals(List.of("later"), wheel.advance(START + 5_000));
+  }
+
+  @Test
+  public void an_empty_wheel_jumps_to_the_target() {
+    assertEquals(List.of(), wheel.advance(START + 1_000_000_000));
+    wheel.schedule(1L, "after jump", START + 1_000_001_000);
+    assertEquals(List.of("after jump"), wheel.advance(START + 1_000_001_000));
+  }
+
+  @Test
+  public void cancel_and_replace() {
+    wheel.schedule(1L, "a", START + 1_000);
+    wheel.schedule(2L, "b", START + 1_000);
+    wheel.schedule(3L, "c", START + 1_000);
+    wheel.schedule(4L, "d", START + 1_000);
+    wheel.schedule(2L, "b moved", START + 120_000);
+    assertTrue(wheel.cancel(3L));
+    assertTrue(wheel.cancel(4L));
+    assertTrue(wheel.cancel(1L));
+    assertFalse(wheel.cancel(1L));
+    assertFalse(wheel.cancel(99L));
+
+    wheel.advance(START - 1);
+    wheel.schedule(5L, "due", START - 1);
+    assertTrue(wheel.cancel(5L));
+
+    assertEquals(List.of(), wheel.advance(START + 60_000));
+    assertEquals(List.of("b moved"), wheel.advance(START + 120_000));
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  public void a_million_timers_each_fire_once_and_never_early() {
+    int n = 1_000_000;
+    long span = 30L * 86_400_000;
+    Random random = new Random(35);
+    long[] deadlines = new long[n];
+    boolean[] cancelled = new boolean[n];
+    boolean[] fired = new boolean[n];
+    TimingWheel<Integer, Integer> big = new TimingWheel<>(TICK, START);
+
+    for (int i = 0; i < n; i++) {
+      deadlines[i] = START + (long) (random.nextDouble() * span);
+      big.schedule(i, i, deadlines[i]);
+    }
+    // move a tenth of the timers and cancel another tenth
+    for (int i = 0; i < n; i += 10) {
+      deadlines[i] = START + (long) (random.nextDouble() * span);
+      big.schedule(i, i, deadlines[i]);
+      cancelled[i + 1] = big.cancel(i + 1);
+    }
+    assertEquals(n - n / 10, big.size());
+
+    long previous = START;
+    int count = 0;
+    while (previous < START + span) {
+      long now = previous + 1 + (long) (random.nextDouble() * 3_600_000);
+      for (int i : big.advance(now)) {
+        assertFalse(fired[i] || cancelled[i], "timer " + i + " fired twice or after being cancelled");
+        assertTrue(deadlines[i] <= now, "timer " + i + " fired early");
+        assertTrue(deadlines[i] > previous - TICK, "timer " + i + " fired late");
+        fired[i] = true;
+        count++;
+      }
+      previous = now;
+    }
+    assertEquals(n - n / 10, count);
+    assertEquals(0, big.size());
+  }
+}
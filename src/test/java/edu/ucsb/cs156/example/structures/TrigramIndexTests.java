@@ -0,0 +1,100 @@
+package edu.ucsb.cs156.example.structures;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.structures.TrigramIndex.Match;
+
+public class TrigramIndexTests {
+
+  @Test
+  public void trigrams_match_pg_trgm() {
+    assertEquals(List.of("  c", " ca", "cat", "at "), List.copyOf(TrigramIndex.trigrams("Cat")));
+    assertEquals(Set.of("  t", " ta", "tac", "aco", "co ", "  b", " be", "bel", "ell", "ll "),
+        TrigramIndex.trigrams("Taco-Bell!"));
+    assertEquals(Set.of(), TrigramIndex.trigrams(null));
+    assertEquals(Set.of(), TrigramIndex.trigrams(" ,. "));
+  }
+
+  @Test
+  public void similarity_ranks_misspelled_query() {
+    TrigramIndex index = new TrigramIndex();
+    index.put(1L, "Taco Bell");
+    index.put(2L, "McDonalds");
+    index.put(3L, "Taco Truck");
+
+    List<Match> matches = index.search("tacco bel", false, 0.3, 10);
+
+    assertEquals(1, matches.size());
+    assertEquals(1L, matches.get(0).key());
+    // shared 7 of (10 query + 10 text - 7) trigrams
+    assertEquals(7.0 / 13.0, matches.get(0).score(), 1e-9);
+  }
+
+  @Test
+  public void word_similarity_scores_fraction_of_query_found() {
+    TrigramIndex index = new TrigramIndex();
+    index.put(1L, "Authentic mexican food with fresh tortillas");
+    index.put(2L, "Burgers and fries");
+
+    List<Match> matches = index.search("mexican", true, 0.3, 10);
+
+    assertEquals(List.of(new Match(1L, 1.0)), matches);
+  }
+
+  @Test
+  public void search_returns_best_matches_first_up_to_limit() {
+    TrigramIndex index = new TrigramIndex();
+    index.put(5L, "pizza");
+    index.put(4L, "pizza");
+    index.put(3L, "pizza palace");
+    index.put(2L, "burger");
+
+    List<Match> matches = index.search("pizza", false, 0.1, 2);
+
+    assertEquals(List.of(new Match(4L, 1.0), new Match(5L, 1.0)), matches);
+    assertEquals(3, index.search("pizza", false, 0.1, 10).size());
+    assertEquals(List.of(), index.search("pizza", false, 0.1, 0));
+    assertEquals(List.of(), index.search("", false, 0.1, 10));
+    assertEquals(List.of(), index.search("zzzz", false, 0.1, 10));
+  }
+
+  @Test
+  public void put_replaces_and_remove_deletes() {
+    TrigramIndex index = new TrigramIndex();
+    index.put(1L, "pizza");
+    index.put(1L, "sushi");
+    assertEquals(1, index.size());
+    assertEquals(List.of(), index.search("pizza", false, 0.3, 10));
+    assertEquals(1L, index.search("sushi", false, 0.3, 10).get(0).key());
+
+    index.remove(1L);
+    index.remove(42L);
+    assertEquals(0, index.size());
+    assertEquals(List.of(), index.search("sushi", false, 0.3, 10));
+
+    index.put(2L, "sushi");
+    index.clear();
+    assertEquals(0, index.size());
+    assertEquals(List.of(), index.search("sushi", false, 0.3, 10));
+  }
+
+  @Test
+  public void index_compacts_after_many_replacements() {
+    TrigramIndex index = new TrigramIndex();
+    for (int round = 0; round < 3; round++) {
+      for (long key = 0; key < 1000; key++) {
+        index.put(key, "restaurant " + key + " round " + round);
+      }
+    }
+    assertEquals(1000, index.size());
+    List<Match> matches = index.search("restaurant 7 round 2", false, 0.3, 1);
+    assertEquals(7L, matches.get(0).key());
+    assertTrue(index.search("round 0", false, 0.99, 10).isEmpty());
+  }
+}